@@ -0,0 +1,105 @@
+package animation;
+
+import maths.TransformArrays;
+
+/**
+ * A clip of skeletal animation: the local position, rotation and scale of
+ * every joint, sampled at a fixed frame rate. The keys of one frame are
+ * stored together, joint after joint, so sampling reads two short runs of
+ * one array.
+ * 一段骨骼动画：每个关节的局部位置，旋转和缩放，以固定的帧率采样。一帧的关键帧保存
+ * 在一起，一个关节接一个关节，所以采样时只读取一个数组中的两小段。
+ */
+public class AnimationClip {
+
+	/**
+	 * The floats of one joint in one frame: the position (x, y, z), the
+	 * rotation as a quaternion (x, y, z, w) and the scale (x, y, z).
+	 * 一个关节在一帧中的float数：位置(x, y, z)，四元数表示的旋转(x, y, z, w)，以及
+	 * 缩放(x, y, z)。
+	 */
+	public static final int KEY_FLOATS = 10;
+
+	private final int jointCount;
+	private final float frameRate;
+	private final int frameCount;
+	private final float[] keys;
+
+	/**
+	 * @param frameRate
+	 *            - The frames per second.
+	 *            - 每秒的帧数
+	 * @param keys
+	 *            - {@link #KEY_FLOATS} floats per joint per frame, frame
+	 *            after frame. For a looping clip the last frame should match
+	 *            the first.
+	 *            - 每帧每个关节KEY_FLOATS个float，一帧接一帧。循环的动画最后一帧
+	 *            应该与第一帧相同
+	 */
+	public AnimationClip(int jointCount, float frameRate, int frameCount, float[] keys) {
+		if (frameCount < 1 || frameRate <= 0) {
+			throw new IllegalArgumentException(frameCount + " frames at " + frameRate + " frames per second");
+		}
+		if (keys.length != frameCount * jointCount * KEY_FLOATS) {
+			throw new IllegalArgumentException(
+					keys.length + " floats of keys for " + frameCount + " frames of " + jointCount + " joints");
+		}
+		this.jointCount = jointCount;
+		this.frameRate = frameRate;
+		this.frameCount = frameCount;
+		this.keys = keys;
+	}
+
+	public int getJointCount() {
+		return jointCount;
+	}
+
+	/**
+	 * @return The time of the last frame in seconds.
+	 *         最后一帧的时间，秒
+	 */
+	public float getDuration() {
+		return (frameCount - 1) / frameRate;
+	}
+
+	public float[] getKeys() {
+		return keys;
+	}
+
+	/**
+	 * Writes the pose at the given time into the first transforms of dest,
+	 * one per joint, interpolating between the two nearest frames. Times
+	 * outside the clip are clamped to it.
+	 * 把给定时间的姿势写入dest的前几个变换，每个关节一个，在最近的两帧之间插值。超出
+	 * 动画的时间会被限制在动画范围内。
+	 */
+	public void sample(float time, TransformArrays dest) {
+		float frame = Math.max(0, Math.min(time * frameRate, frameCount - 1));
+		int frame0 = (int) frame;
+		int frame1 = Math.min(frame0 + 1, frameCount - 1);
+		float t = frame - frame0;
+		int k0 = frame0 * jointCount * KEY_FLOATS;
+		int k1 = frame1 * jointCount * KEY_FLOATS;
+		float[] keys = this.keys;
+		for (int j = 0; j < jointCount; j++, k0 += KEY_FLOATS, k1 += KEY_FLOATS) {
+			dest.positionX[j] = keys[k0] + (keys[k1] - keys[k0]) * t;
+			dest.positionY[j] = keys[k0 + 1] + (keys[k1 + 1] - keys[k0 + 1]) * t;
+			dest.positionZ[j] = keys[k0 + 2] + (keys[k1 + 2] - keys[k0 + 2]) * t;
+			float qx = keys[k1 + 3], qy = keys[k1 + 4], qz = keys[k1 + 5], qw = keys[k1 + 6];
+			//取较短的一边插值
+			if (keys[k0 + 3] * qx + keys[k0 + 4] * qy + keys[k0 + 5] * qz + keys[k0 + 6] * qw < 0) {
+				qx = -qx;
+				qy = -qy;
+				qz = -qz;
+				qw = -qw;
+			}
+			AnimationSystem.setRotation(dest, j, keys[k0 + 3] + (qx - keys[k0 + 3]) * t,
+					keys[k0 + 4] + (qy - keys[k0 + 4]) * t, keys[k0 + 5] + (qz - keys[k0 + 5]) * t,
+					keys[k0 + 6] + (qw - keys[k0 + 6]) * t);
+			dest.scaleX[j] = keys[k0 + 7] + (keys[k1 + 7] - keys[k0 + 7]) * t;
+			dest.scaleY[j] = keys[k0 + 8] + (keys[k1 + 8] - keys[k0 + 8]) * t;
+			dest.scaleZ[j] = keys[k0 + 9] + (keys[k1 + 9] - keys[k0 + 9]) * t;
+		}
+	}
+
+}
@@ -0,0 +1,358 @@
+package animation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import maths.TransformArrays;
+import maths.Transforms;
+import profiling.Profiler;
+
+/**
+ * Plays animation clips on many characters sharing one {@link Skeleton}. The
+ * state of the characters is kept as parallel arrays (the clip and time of
+ * character i are in clips[i] and times[i]...), and every update turns each
+ * character's pose into its joint palette: one matrix per joint taking a
+ * vertex from the bind pose to where the animated joint puts it, ready for
+ * skinning in the shader.
+ * 在共用一个Skeleton的许多角色上播放动画。角色的状态保存为几个平行的数组（角色i的
+ * 动画和时间在clips[i]和times[i]……），每次更新把每个角色的姿势变成它的关节调色板：
+ * 每个关节一个矩阵，把顶点从绑定姿势移到动画中的关节所在的位置，可以直接用于着色器
+ * 中的蒙皮。
+ *
+ * {@link #update(float)} splits the characters into ranges that run on the
+ * fork/join pool (the first on the calling thread). Every range has its own
+ * scratch poses and matrices, allocated once, so an update allocates
+ * nothing.
+ * update(float)把角色分成几段，在fork/join线程池上运行（第一段在调用线程上）。每段
+ * 有自己的临时姿势和矩阵，只分配一次，所以更新时不分配内存。
+ */
+public class AnimationSystem {
+
+	private static final int UPDATE = Profiler.scope("AnimationSystem.update");
+
+	//每个线程至少处理这么多角色，太小的块不值得分给其他线程
+	private static final int MIN_CHUNK_CHARACTERS = 8;
+
+	private final Skeleton skeleton;
+	private final int jointCount;
+	private final int capacity;
+	private final List<AnimationClip> clips = new ArrayList<>();
+	private final int[] clipsA;
+	private final float[] timesA;
+	//混合进来的第二个动画，没有时为-1
+	private final int[] clipsB;
+	private final float[] timesB;
+	private final float[] blendWeights;
+	private final float[] palettes;
+	private int count;
+
+	private final int threads;
+	private final Runnable[] updateTasks;
+	private final Future<?>[] chunkFutures;
+	//每段的临时数据
+	private final TransformArrays[] posesA;
+	private final TransformArrays[] posesB;
+	private final float[][] localMatrices;
+	private final float[][] worldMatrices;
+	private int frameChunks;
+	//update提交任务前写入，任务提交保证了其他线程能看到
+	private float frameDelta;
+
+	/**
+	 * Uses as many threads as the common fork/join pool.
+	 * 使用与公共fork/join线程池一样多的线程。
+	 */
+	public AnimationSystem(Skeleton skeleton, int capacity) {
+		this(skeleton, capacity, ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * @param capacity
+	 *            - The most characters.
+	 *            - 最多的角色数
+	 * @param threads
+	 *            - The most threads the characters are split between; 1 does
+	 *            everything on the calling thread.
+	 *            - 最多把角色分给多少个线程；1表示全部在调用线程上完成
+	 */
+	public AnimationSystem(Skeleton skeleton, int capacity, int threads) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1, not " + capacity);
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1, not " + threads);
+		}
+		this.skeleton = skeleton;
+		jointCount = skeleton.getJointCount();
+		this.capacity = capacity;
+		clipsA = new int[capacity];
+		timesA = new float[capacity];
+		clipsB = new int[capacity];
+		timesB = new float[capacity];
+		blendWeights = new float[capacity];
+		palettes = new float[capacity * jointCount * 16];
+		this.threads = threads;
+		updateTasks = new Runnable[threads];
+		chunkFutures = new Future<?>[threads];
+		posesA = new TransformArrays[threads];
+		posesB = new TransformArrays[threads];
+		localMatrices = new float[threads][jointCount * 16];
+		worldMatrices = new float[threads][jointCount * 16];
+		for (int i = 0; i < threads; i++) {
+			posesA[i] = createPose(jointCount);
+			posesB[i] = createPose(jointCount);
+			int chunk = i;
+			updateTasks[i] = () -> updateChunk(chunk);
+		}
+	}
+
+	/**
+	 * @return The index to play the clip with.
+	 *         播放这个动画时使用的下标
+	 */
+	public int addClip(AnimationClip clip) {
+		if (clip.getJointCount() != jointCount) {
+			throw new IllegalArgumentException(
+					"Clip of " + clip.getJointCount() + " joints for a skeleton of " + jointCount);
+		}
+		clips.add(clip);
+		return clips.size() - 1;
+	}
+
+	/**
+	 * Adds a character playing a clip from its start.
+	 * 添加一个从头开始播放一个动画的角色。
+	 *
+	 * @return The index of the character, which is also the index of its
+	 *         palette.
+	 *         角色的下标，也是它的调色板的下标
+	 */
+	public int add(int clip) {
+		if (count == capacity) {
+			throw new IllegalStateException("All " + capacity + " characters are in use");
+		}
+		int character = count++;
+		play(character, clip, 0);
+		return character;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Plays a clip on its own from the given time, looping, and stops any
+	 * blend.
+	 * 从给定的时间开始单独循环播放一个动画，并停止混合。
+	 */
+	public void play(int character, int clip, float time) {
+		checkCharacter(character);
+		checkClip(clip);
+		clipsA[character] = clip;
+		timesA[character] = time;
+		clipsB[character] = -1;
+		blendWeights[character] = 0;
+	}
+
+	/**
+	 * Blends a second clip, also looping, over the one playing, e.g. walking
+	 * into running. The two clips keep their own times.
+	 * 在正在播放的动画上混合第二个动画，也是循环的，例如从走过渡到跑。两个动画各自
+	 * 计时。
+	 *
+	 * @param weight
+	 *            - 0 for only the first clip, 1 for only the second.
+	 *            - 0表示只有第一个动画，1表示只有第二个动画
+	 */
+	public void blend(int character, int clip, float time, float weight) {
+		checkCharacter(character);
+		checkClip(clip);
+		clipsB[character] = clip;
+		timesB[character] = time;
+		setBlendWeight(character, weight);
+	}
+
+	public void setBlendWeight(int character, float weight) {
+		checkCharacter(character);
+		blendWeights[character] = Math.max(0, Math.min(weight, 1));
+	}
+
+	/**
+	 * Moves every character's clips on by the time step and computes the
+	 * palettes of their new poses.
+	 * 把每个角色的动画向前推进一个时间步长，并计算新姿势的调色板。
+	 *
+	 * @param delta
+	 *            - The time step in seconds.
+	 *            - 时间步长，秒
+	 */
+	public void update(float delta) {
+		Profiler.begin(UPDATE);
+		frameDelta = delta;
+		frameChunks = Math.max(1, Math.min(threads, count / MIN_CHUNK_CHARACTERS));
+		for (int i = 1; i < frameChunks; i++) {
+			chunkFutures[i] = ForkJoinPool.commonPool().submit(updateTasks[i]);
+		}
+		updateTasks[0].run();
+		for (int i = 1; i < frameChunks; i++) {
+			join(chunkFutures[i]);
+			chunkFutures[i] = null;
+		}
+		Profiler.end(UPDATE);
+	}
+
+	/**
+	 * @return The palettes of every character, {@link #getPaletteFloats()}
+	 *         floats each, as computed by the last update.
+	 *         所有角色的调色板，每个getPaletteFloats()个float，由上一次更新计算
+	 */
+	public float[] getPalettes() {
+		return palettes;
+	}
+
+	/**
+	 * @return 16 floats per joint.
+	 *         每个关节16个float
+	 */
+	public int getPaletteFloats() {
+		return jointCount * 16;
+	}
+
+	public Skeleton getSkeleton() {
+		return skeleton;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private void updateChunk(int chunk) {
+		int start = chunkStart(chunk);
+		int end = chunkStart(chunk + 1);
+		float delta = frameDelta;
+		TransformArrays poseA = posesA[chunk];
+		TransformArrays poseB = posesB[chunk];
+		float[] local = localMatrices[chunk];
+		float[] world = worldMatrices[chunk];
+		int[] parents = skeleton.getParents();
+		float[] inverseBind = skeleton.getInverseBindMatrices();
+		for (int c = start; c < end; c++) {
+			AnimationClip clipA = clips.get(clipsA[c]);
+			timesA[c] = advance(timesA[c], delta, clipA.getDuration());
+			clipA.sample(timesA[c], poseA);
+			float weight = blendWeights[c];
+			if (clipsB[c] >= 0 && weight > 0) {
+				AnimationClip clipB = clips.get(clipsB[c]);
+				timesB[c] = advance(timesB[c], delta, clipB.getDuration());
+				clipB.sample(timesB[c], poseB);
+				blendPoses(poseA, poseB, weight);
+			}
+			poseA.computeMatrices(0, jointCount, local);
+			//根关节的世界矩阵就是它的局部矩阵，其余关节的父关节总在前面
+			System.arraycopy(local, 0, world, 0, 16);
+			Transforms.mul(world, parents, local, 1, jointCount, world);
+			multiplyPalette(world, inverseBind, jointCount, palettes, c * jointCount * 16);
+		}
+	}
+
+	//a = a + (b - a) * weight，旋转取较短的一边插值后归一化
+	private void blendPoses(TransformArrays a, TransformArrays b, float weight) {
+		for (int j = 0; j < jointCount; j++) {
+			a.positionX[j] += (b.positionX[j] - a.positionX[j]) * weight;
+			a.positionY[j] += (b.positionY[j] - a.positionY[j]) * weight;
+			a.positionZ[j] += (b.positionZ[j] - a.positionZ[j]) * weight;
+			float ax = a.rotationX[j], ay = a.rotationY[j], az = a.rotationZ[j], aw = a.rotationW[j];
+			float bx = b.rotationX[j], by = b.rotationY[j], bz = b.rotationZ[j], bw = b.rotationW[j];
+			if (ax * bx + ay * by + az * bz + aw * bw < 0) {
+				bx = -bx;
+				by = -by;
+				bz = -bz;
+				bw = -bw;
+			}
+			setRotation(a, j, ax + (bx - ax) * weight, ay + (by - ay) * weight, az + (bz - az) * weight,
+					aw + (bw - aw) * weight);
+			a.scaleX[j] += (b.scaleX[j] - a.scaleX[j]) * weight;
+			a.scaleY[j] += (b.scaleY[j] - a.scaleY[j]) * weight;
+			a.scaleZ[j] += (b.scaleZ[j] - a.scaleZ[j]) * weight;
+		}
+	}
+
+	/**
+	 * Sets a rotation after normalising it, as interpolating two unit
+	 * quaternions component by component shortens the result.
+	 * 归一化后设置一个旋转，因为逐分量插值两个单位四元数会让结果变短。
+	 */
+	static void setRotation(TransformArrays pose, int joint, float x, float y, float z, float w) {
+		float inverseLength = 1 / (float) Math.sqrt(x * x + y * y + z * z + w * w);
+		pose.rotationX[joint] = x * inverseLength;
+		pose.rotationY[joint] = y * inverseLength;
+		pose.rotationZ[joint] = z * inverseLength;
+		pose.rotationW[joint] = w * inverseLength;
+	}
+
+	//dest[offset + 16 * j] = left[j] * right[j]
+	private static void multiplyPalette(float[] left, float[] right, int count, float[] dest, int offset) {
+		for (int m = 0; m < count * 16; m += 16) {
+			for (int column = m; column < m + 16; column += 4) {
+				float r0 = right[column], r1 = right[column + 1];
+				float r2 = right[column + 2], r3 = right[column + 3];
+				int d = offset + column;
+				dest[d] = left[m] * r0 + left[m + 4] * r1 + left[m + 8] * r2 + left[m + 12] * r3;
+				dest[d + 1] = left[m + 1] * r0 + left[m + 5] * r1 + left[m + 9] * r2 + left[m + 13] * r3;
+				dest[d + 2] = left[m + 2] * r0 + left[m + 6] * r1 + left[m + 10] * r2 + left[m + 14] * r3;
+				dest[d + 3] = left[m + 3] * r0 + left[m + 7] * r1 + left[m + 11] * r2 + left[m + 15] * r3;
+			}
+		}
+	}
+
+	//循环播放，时间回到动画的开头
+	private static float advance(float time, float delta, float duration) {
+		time += delta;
+		if (duration > 0 && (time >= duration || time < 0)) {
+			time -= duration * (float) Math.floor(time / duration);
+		}
+		return time;
+	}
+
+	private static TransformArrays createPose(int jointCount) {
+		TransformArrays pose = new TransformArrays(jointCount);
+		for (int j = 0; j < jointCount; j++) {
+			pose.add();
+		}
+		return pose;
+	}
+
+	private void checkCharacter(int character) {
+		if (character < 0 || character >= count) {
+			throw new IndexOutOfBoundsException("Character " + character + " of " + count);
+		}
+	}
+
+	private void checkClip(int clip) {
+		if (clip < 0 || clip >= clips.size()) {
+			throw new IndexOutOfBoundsException("Clip " + clip + " of " + clips.size());
+		}
+	}
+
+	private int chunkStart(int chunk) {
+		return (int) ((long) count * chunk / frameChunks);
+	}
+
+	private static void join(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
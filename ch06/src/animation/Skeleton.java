@@ -0,0 +1,66 @@
+package animation;
+
+/**
+ * The joints of a skinned mesh: the parent of every joint and the inverse of
+ * its matrix in the bind pose, which takes a vertex from model space into
+ * the joint's space. Joints are ordered so that every parent comes before
+ * its children, and joint 0 is the only root, so a pose can be turned into
+ * world matrices in one pass from first to last.
+ * 蒙皮网格的关节：每个关节的父关节，以及它在绑定姿势下的矩阵的逆矩阵，这个逆矩阵把
+ * 顶点从模型空间变换到关节空间。关节的顺序保证每个父关节都在它的子关节之前，并且
+ * 关节0是唯一的根，所以一个姿势可以从头到尾一遍就变成世界矩阵。
+ */
+public class Skeleton {
+
+	/**
+	 * The most joints a skeleton can have; the skinning shader holds this many
+	 * matrices.
+	 * 一个骨骼最多的关节数；蒙皮着色器能容纳这么多矩阵。
+	 */
+	public static final int MAX_JOINTS = 64;
+
+	private final int[] parents;
+	private final float[] inverseBindMatrices;
+
+	/**
+	 * @param parents
+	 *            - The parent of every joint, -1 for joint 0 and a smaller
+	 *            index for every other joint.
+	 *            - 每个关节的父关节，关节0为-1，其他关节为一个更小的下标
+	 * @param inverseBindMatrices
+	 *            - 16 floats per joint, column by column.
+	 *            - 每个关节16个float，按列排列
+	 */
+	public Skeleton(int[] parents, float[] inverseBindMatrices) {
+		if (parents.length < 1 || parents.length > MAX_JOINTS) {
+			throw new IllegalArgumentException("A skeleton has 1 to " + MAX_JOINTS + " joints, not " + parents.length);
+		}
+		if (inverseBindMatrices.length != parents.length * 16) {
+			throw new IllegalArgumentException(
+					inverseBindMatrices.length + " floats of inverse bind matrices for " + parents.length + " joints");
+		}
+		if (parents[0] != -1) {
+			throw new IllegalArgumentException("Joint 0 must be the root, not a child of " + parents[0]);
+		}
+		for (int i = 1; i < parents.length; i++) {
+			if (parents[i] < 0 || parents[i] >= i) {
+				throw new IllegalArgumentException("Joint " + i + " must come after its parent " + parents[i]);
+			}
+		}
+		this.parents = parents;
+		this.inverseBindMatrices = inverseBindMatrices;
+	}
+
+	public int getJointCount() {
+		return parents.length;
+	}
+
+	public int[] getParents() {
+		return parents;
+	}
+
+	public float[] getInverseBindMatrices() {
+		return inverseBindMatrices;
+	}
+
+}
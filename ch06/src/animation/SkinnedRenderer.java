@@ -0,0 +1,124 @@
+package animation;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL31;
+
+import device.GLDevice;
+import models.RawModel;
+import models.TexturedModel;
+import profiling.Profiler;
+import renderEngine.StreamBuffer;
+import shaders.SkinnedShader;
+
+/**
+ * Draws the characters of an {@link AnimationSystem} with a skinned model
+ * loaded by {@link renderEngine.Loader#loadSkinnedToVAO}. Every frame the
+ * model matrix and palette of each character are copied into a uniform
+ * {@link StreamBuffer}, all in one go, and each draw call only binds its
+ * character's range of that buffer to {@link SkinnedShader#JOINT_BINDING}.
+ * 用Loader.loadSkinnedToVAO加载的蒙皮模型绘制AnimationSystem中的角色。每帧把每个
+ * 角色的模型矩阵和调色板一次性复制进一个uniform流式缓存，每次绘制调用只把它的角色
+ * 在这个缓存中的那一段绑定到SkinnedShader.JOINT_BINDING。
+ */
+public class SkinnedRenderer {
+
+	private static final int RENDER = Profiler.scope("SkinnedRenderer.render");
+
+	//uniform缓存的偏移量必须对齐到GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT，它不会超过256
+	private static final int UNIFORM_ALIGNMENT = 256;
+	//着色器中uniform块的大小：模型矩阵和MAX_JOINTS个关节矩阵
+	private static final int BLOCK_BYTES = (1 + Skeleton.MAX_JOINTS) * 64;
+
+	private final GLDevice device;
+	private final StreamBuffer stream;
+	private final int[] offsets;
+
+	/**
+	 * @param maxCharacters
+	 *            - The most characters drawn in one frame.
+	 *            - 每帧最多绘制的角色数
+	 * @param jointCount
+	 *            - The joints of their skeleton.
+	 *            - 它们的骨骼的关节数
+	 */
+	public SkinnedRenderer(GLDevice device, int maxCharacters, int jointCount) {
+		this.device = device;
+		int characterBytes = align((1 + jointCount) * 64, UNIFORM_ALIGNMENT);
+		//最后一个角色绑定的范围是整个uniform块，超出它的数据的部分也要在缓存内；
+		//每帧的区域对齐到256，这样区域内对齐的偏移量在整个缓存中也是对齐的
+		stream = new StreamBuffer(device, GL31.GL_UNIFORM_BUFFER,
+				align(maxCharacters * characterBytes + BLOCK_BYTES - (1 + jointCount) * 64, UNIFORM_ALIGNMENT));
+		offsets = new int[maxCharacters];
+	}
+
+	/**
+	 * Copies the palettes computed by the last update of the animation system
+	 * into the stream buffer and draws every character. Must be called
+	 * between the shader's start() and stop(), once per frame.
+	 * 把动画系统上一次更新计算的调色板复制进流式缓存，然后绘制每个角色。必须在着色器的
+	 * start()和stop()之间调用，每帧一次。
+	 *
+	 * @param modelMatrices
+	 *            - 16 floats per character, placing it in the world.
+	 *            - 每个角色16个float，把它放在世界中
+	 */
+	public void render(TexturedModel texturedModel, AnimationSystem animation, float[] modelMatrices) {
+		int count = animation.size();
+		if (count > offsets.length) {
+			throw new IllegalArgumentException(count + " characters, room for " + offsets.length);
+		}
+		Profiler.begin(RENDER);
+		Profiler.beginGpu(RENDER);
+		stream.beginFrame();
+		if (count > 0) {
+			float[] palettes = animation.getPalettes();
+			int paletteFloats = animation.getPaletteFloats();
+			for (int c = 0; c < count; c++) {
+				//模型矩阵紧接着调色板，与std140布局的uniform块一致
+				offsets[c] = stream.putFloats(modelMatrices, c * 16, 16, UNIFORM_ALIGNMENT);
+				stream.putFloats(palettes, c * paletteFloats, paletteFloats);
+			}
+			stream.allocate(BLOCK_BYTES - 64 - paletteFloats * 4, 4);
+			stream.flush();
+			RawModel model = texturedModel.getRawModel();
+			device.bindVertexArray(model.getVaoID());
+			for (int i = 0; i < 4; i++) {
+				device.enableVertexAttribArray(i);
+			}
+			device.activeTexture(GL13.GL_TEXTURE0);
+			device.bindTexture(GL11.GL_TEXTURE_2D, texturedModel.getTexture().getID());
+			int vboID = stream.getVboID();
+			for (int c = 0; c < count; c++) {
+				device.bindBufferRange(GL31.GL_UNIFORM_BUFFER, SkinnedShader.JOINT_BINDING, vboID, offsets[c],
+						BLOCK_BYTES);
+				device.drawElementsBaseVertex(GL11.GL_TRIANGLES, model.getVertexCount(), GL11.GL_UNSIGNED_INT,
+						model.getFirstIndex() * 4L, model.getBaseVertex());
+			}
+			for (int i = 0; i < 4; i++) {
+				device.disableVertexAttribArray(i);
+			}
+			device.bindVertexArray(0);
+		}
+		stream.endFrame();
+		Profiler.endGpu(RENDER);
+		Profiler.end(RENDER);
+	}
+
+	public StreamBuffer getStreamBuffer() {
+		return stream;
+	}
+
+	/**
+	 * Deletes the stream buffer when the game is closed.
+	 * 在游戏关闭时删除流式缓存
+	 */
+	public void cleanUp() {
+		stream.cleanUp();
+	}
+
+	private static int align(int bytes, int alignment) {
+		return (bytes + alignment - 1) / alignment * alignment;
+	}
+
+}
@@ -0,0 +1,254 @@
+package assets;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * A read-only pack of many asset files in one file, written by
+ * {@link AssetArchiveWriter}. The whole archive is memory-mapped when it is
+ * opened, so reading any number of entries afterwards needs no more file
+ * opens; entries that are stored uncompressed are returned as slices of the
+ * mapping without being copied.
+ * 把许多资源文件打包在一个文件中的只读资源包，由AssetArchiveWriter写出。打开时
+ * 整个资源包被内存映射，所以之后读取任意数量的条目都不需要再打开文件；未压缩保存的
+ * 条目作为映射的片段返回，不会被复制。
+ *
+ * The layout (all numbers little endian) is a header, an index of fixed-size
+ * entries sorted by the hash of their names, a table of names and the data
+ * of the entries. A name is found with a binary search on its hash, which
+ * reads the mapped index directly without creating any objects.
+ * 文件格式（所有数字都是小端序）依次为文件头，按名称哈希排序的定长条目索引，名称表
+ * 以及条目的数据。查找名称时对它的哈希进行二分查找，直接读取映射的索引，不创建任何
+ * 对象。
+ *
+ * <pre>
+ * header: int magic, int version, int entry count, int reserved
+ * entry:  long name hash, long data offset, int stored length, int length,
+ *         int name offset, short name length, byte method, byte reserved
+ * </pre>
+ */
+public class AssetArchive {
+
+	static final int MAGIC = 0x4B415041;
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int ENTRY_BYTES = 32;
+
+	/**
+	 * The ways the data of an entry can be stored.
+	 * 条目数据的保存方式
+	 */
+	static final byte STORED = 0;
+	static final byte DEFLATED = 1;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final ByteBuffer data;
+	private final int entryCount;
+
+	/**
+	 * @param data
+	 *            - The whole archive, from position to limit.
+	 *            - 整个资源包，从position到limit
+	 */
+	public AssetArchive(ByteBuffer data) throws IOException {
+		this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (this.data.capacity() < HEADER_BYTES || this.data.getInt(0) != MAGIC) {
+			throw new IOException("Not an asset archive");
+		}
+		if (this.data.getInt(4) != VERSION) {
+			throw new IOException("Unsupported asset archive version " + this.data.getInt(4));
+		}
+		entryCount = this.data.getInt(8);
+		if (entryCount < 0 || HEADER_BYTES + (long) entryCount * ENTRY_BYTES > this.data.capacity()) {
+			throw new IOException("Asset archive index is truncated");
+		}
+		for (int i = 0; i < entryCount; i++) {
+			int entry = entryPosition(i);
+			long offset = this.data.getLong(entry + 8);
+			long nameEnd = (long) this.data.getInt(entry + 24) + (this.data.getShort(entry + 28) & 0xFFFF);
+			if (offset < 0 || storedLength(i) < 0 || offset + storedLength(i) > this.data.capacity() || length(i) < 0
+					|| nameEnd > this.data.capacity()) {
+				throw new IOException("Asset archive entry " + i + " runs past the end of the file");
+			}
+		}
+	}
+
+	/**
+	 * Opens and memory-maps an archive file. This is the only time the file is
+	 * opened.
+	 * 打开并内存映射一个资源包文件。这是唯一一次打开这个文件。
+	 */
+	public static AssetArchive open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			//映射在通道关闭后仍然有效
+			return new AssetArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public int getEntryCount() {
+		return entryCount;
+	}
+
+	/**
+	 * @return The index of the entry with the given name, or -1 if there is
+	 *         none.
+	 *         给定名称的条目下标，没有时返回-1
+	 */
+	public int find(String name) {
+		long hash = hash(name);
+		int low = 0;
+		int high = entryCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long middleHash = data.getLong(entryPosition(middle));
+			if (middleHash < hash) {
+				low = middle + 1;
+			} else if (middleHash > hash) {
+				high = middle - 1;
+			} else {
+				//哈希相同的条目是相邻的，先回到第一个
+				int first = middle;
+				while (first > 0 && data.getLong(entryPosition(first - 1)) == hash) {
+					first--;
+				}
+				for (int i = first; i < entryCount && data.getLong(entryPosition(i)) == hash; i++) {
+					if (nameEquals(i, name)) {
+						return i;
+					}
+				}
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	public String getName(int entry) {
+		int position = entryPosition(entry);
+		byte[] name = new byte[data.getShort(position + 28) & 0xFFFF];
+		ByteBuffer names = data.duplicate();
+		names.position(data.getInt(position + 24));
+		names.get(name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return The size of the entry's data once it is uncompressed.
+	 *         条目数据解压后的大小
+	 */
+	public int getLength(int entry) {
+		return length(entry);
+	}
+
+	public boolean isCompressed(int entry) {
+		return data.get(entryPosition(entry) + 30) == DEFLATED;
+	}
+
+	/**
+	 * @return The data of the entry. Uncompressed entries are read-only slices
+	 *         of the mapped archive; compressed ones are inflated into a new
+	 *         direct buffer.
+	 *         条目的数据。未压缩的条目是映射的资源包的只读片段；压缩的条目会被解压到
+	 *         一个新的直接缓存中
+	 */
+	public ByteBuffer read(int entry) throws IOException {
+		int position = entryPosition(entry);
+		int offset = (int) data.getLong(position + 8);
+		ByteBuffer stored = data.duplicate();
+		stored.position(offset);
+		stored.limit(offset + storedLength(entry));
+		stored = stored.slice();
+		if (!isCompressed(entry)) {
+			return stored.asReadOnlyBuffer();
+		}
+		byte[] compressed = new byte[stored.remaining()];
+		stored.get(compressed);
+		byte[] inflated = new byte[length(entry)];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int count = 0;
+			while (count < inflated.length && !inflater.finished()) {
+				int inflatedNow = inflater.inflate(inflated, count, inflated.length - count);
+				if (inflatedNow == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				count += inflatedNow;
+			}
+			if (count != inflated.length) {
+				throw new IOException("Compressed entry " + getName(entry) + " is truncated");
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Compressed entry " + getName(entry) + " is corrupt", e);
+		} finally {
+			inflater.end();
+		}
+		ByteBuffer buffer = BufferUtils.createByteBuffer(inflated.length);
+		buffer.put(inflated);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * The 64-bit FNV-1a hash of the name's characters, used to sort and find
+	 * the entries.
+	 * 名称字符的64位FNV-1a哈希，用于排序和查找条目。
+	 */
+	static long hash(CharSequence name) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+			hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Compares the stored name with the given one without decoding it, unless
+	 * it has characters outside ASCII.
+	 * 比较保存的名称和给定的名称，除非包含ASCII以外的字符，否则不需要解码。
+	 */
+	private boolean nameEquals(int entry, String name) {
+		int position = entryPosition(entry);
+		int nameOffset = data.getInt(position + 24);
+		int nameLength = data.getShort(position + 28) & 0xFFFF;
+		for (int i = 0; i < nameLength; i++) {
+			if (data.get(nameOffset + i) < 0) {
+				return getName(entry).equals(name);
+			}
+		}
+		if (nameLength != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < nameLength; i++) {
+			if (data.get(nameOffset + i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int storedLength(int entry) {
+		return data.getInt(entryPosition(entry) + 16);
+	}
+
+	private int length(int entry) {
+		return data.getInt(entryPosition(entry) + 20);
+	}
+
+	private static int entryPosition(int entry) {
+		return HEADER_BYTES + entry * ENTRY_BYTES;
+	}
+
+}
@@ -0,0 +1,198 @@
+package assets;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Packs asset files into an {@link AssetArchive}. Run it from the chapter
+ * folder to pack the textures, models and shaders, e.g.
+ * 将资源文件打包成AssetArchive。在章节目录下运行来打包纹理，模型和着色器，例如
+ *
+ * <pre>
+ * java -cp bin;lib/* assets.AssetArchiveWriter assets.pak res src/shaders
+ * </pre>
+ *
+ * Every file of a folder is added under the folder's own name, so the files
+ * above become "res/..." and "shaders/...", the same paths the
+ * {@link VirtualFileSystem} finds them under as loose files.
+ * 文件夹中的每个文件都加在文件夹自身的名称下，所以上面的文件成为"res/..."和
+ * "shaders/..."，与VirtualFileSystem查找松散文件时使用的路径相同。
+ */
+public class AssetArchiveWriter {
+
+	/**
+	 * Data is only kept compressed if that saves at least this fraction of
+	 * its size; images and other already compressed files are stored as they
+	 * are, so they can be read straight from the mapping.
+	 * 只有压缩至少节省了这个比例的大小时才保存压缩后的数据；图片和其他已经压缩过的
+	 * 文件按原样保存，这样可以直接从映射中读取。
+	 */
+	private static final double MIN_SAVING = 0.125;
+
+	//条目数据按16字节对齐，以便直接作为顶点数据上传
+	private static final int DATA_ALIGNMENT = 16;
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private final Set<String> names = new HashSet<String>();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: AssetArchiveWriter <archive> <folder>...");
+			System.exit(-1);
+		}
+		AssetArchiveWriter writer = new AssetArchiveWriter();
+		for (int i = 1; i < args.length; i++) {
+			File folder = new File(args[i]);
+			writer.addFolder(folder, folder.getName() + "/");
+		}
+		File archive = new File(args[0]);
+		writer.write(archive);
+		System.out.println("Wrote " + writer.entries.size() + " entries to " + archive);
+	}
+
+	/**
+	 * Adds every file in the folder and its subfolders, named by the prefix
+	 * followed by their path in the folder (with '/' between folders). Java
+	 * source and class files are left out, because src/shaders also holds the
+	 * shader classes.
+	 * 添加文件夹及其子文件夹中的所有文件，名称为前缀加上它们在文件夹中的路径
+	 * （文件夹之间用'/'分隔）。Java源文件和class文件不会被添加，因为src/shaders
+	 * 中也有着色器类。
+	 */
+	public void addFolder(File folder, String prefix) throws IOException {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			throw new IOException("Not a folder: " + folder);
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addFolder(file, prefix + file.getName() + "/");
+			} else if (!file.getName().endsWith(".java") && !file.getName().endsWith(".class")) {
+				add(prefix + file.getName(), Files.readAllBytes(file.toPath()), true);
+			}
+		}
+	}
+
+	/**
+	 * @param compress
+	 *            - Whether to try compressing the data; it is still stored
+	 *            uncompressed if compressing doesn't save enough.
+	 *            - 是否尝试压缩数据；如果压缩节省得不够，仍然不压缩保存
+	 */
+	public void add(String name, byte[] data, boolean compress) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		if (nameBytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("Name too long: " + name);
+		}
+		if (!names.add(name)) {
+			throw new IllegalArgumentException("Duplicate entry " + name);
+		}
+		byte[] stored = data;
+		byte method = AssetArchive.STORED;
+		if (compress) {
+			byte[] deflated = deflate(data);
+			if (deflated.length <= data.length * (1 - MIN_SAVING)) {
+				stored = deflated;
+				method = AssetArchive.DEFLATED;
+			}
+		}
+		entries.add(new Entry(AssetArchive.hash(name), nameBytes, stored, data.length, method));
+	}
+
+	public void write(File file) throws IOException {
+		Entry[] sorted = entries.toArray(new Entry[entries.size()]);
+		Arrays.sort(sorted, (a, b) -> Long.compare(a.hash, b.hash));
+		long namesStart = AssetArchive.HEADER_BYTES + (long) sorted.length * AssetArchive.ENTRY_BYTES;
+		long position = namesStart;
+		for (Entry entry : sorted) {
+			entry.nameOffset = position;
+			position += entry.name.length;
+		}
+		for (Entry entry : sorted) {
+			position = align(position);
+			entry.dataOffset = position;
+			position += entry.data.length;
+		}
+		if (position > Integer.MAX_VALUE) {
+			throw new IOException("Asset archive larger than 2 GB");
+		}
+
+		ByteBuffer out = ByteBuffer.allocate((int) position).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(AssetArchive.MAGIC).putInt(AssetArchive.VERSION).putInt(sorted.length).putInt(0);
+		for (Entry entry : sorted) {
+			out.putLong(entry.hash).putLong(entry.dataOffset).putInt(entry.data.length).putInt(entry.length);
+			out.putInt((int) entry.nameOffset).putShort((short) entry.name.length).put(entry.method).put((byte) 0);
+		}
+		for (Entry entry : sorted) {
+			out.put(entry.name);
+		}
+		for (Entry entry : sorted) {
+			out.position((int) entry.dataOffset);
+			out.put(entry.data);
+		}
+		out.rewind();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+
+	private static long align(long position) {
+		return (position + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			byte[] buffer = new byte[Math.max(64, data.length + data.length / 8)];
+			int length = 0;
+			while (!deflater.finished()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				length += deflater.deflate(buffer, length, buffer.length - length);
+			}
+			return Arrays.copyOf(buffer, length);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static class Entry {
+
+		private final long hash;
+		private final byte[] name;
+		private final byte[] data;
+		private final int length;
+		private final byte method;
+		private long nameOffset;
+		private long dataOffset;
+
+		private Entry(long hash, byte[] name, byte[] data, int length, byte method) {
+			this.hash = hash;
+			this.name = name;
+			this.data = data;
+			this.length = length;
+			this.method = method;
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package assets;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches folders of loose asset files (by default the override folders of the
+ * {@link VirtualFileSystem}) and reports the files that were created, changed
+ * or deleted, as paths relative to the folder they are in, e.g.
+ * "shaders/vertexShader.txt". A file in a subfolder of another watched folder
+ * is reported once for each of them.
+ * 监视存放松散资源文件的文件夹（默认是VirtualFileSystem的覆盖文件夹），报告被创建，
+ * 修改或删除的文件，路径相对于文件所在的文件夹，例如"shaders/vertexShader.txt"。
+ * 位于另一个被监视文件夹的子文件夹中的文件，对每个文件夹各报告一次。
+ *
+ * Saving a file usually causes several events in a row (truncating, writing,
+ * sometimes renaming a temporary file), so a change is only reported once the
+ * file has been quiet for a while, and then only once. The events are
+ * gathered and reported on a daemon thread of the watcher's own.
+ * 保存一个文件通常会连续产生多个事件（截断，写入，有时还有重命名临时文件），所以
+ * 只有在文件安静一段时间之后才报告变化，并且只报告一次。事件在监视器自己的守护
+ * 线程上收集和报告。
+ */
+public class AssetWatcher implements Closeable {
+
+	/**
+	 * Told about changed files, on the watcher's thread.
+	 * 在监视器的线程上接收文件变化的通知
+	 */
+	public interface Listener {
+
+		void changed(String path);
+
+	}
+
+	private static final long DEFAULT_QUIET_MILLIS = 100;
+
+	private final WatchService service;
+	private final List<Path> roots = new ArrayList<Path>();
+	private final Map<WatchKey, Path> folders = new HashMap<WatchKey, Path>();
+	//等待安静下来的文件，以及可以报告它们的时间
+	private final Map<Path, Long> pending = new HashMap<Path, Long>();
+	private final long quietNanos;
+	private final Listener listener;
+	private final Thread thread;
+
+	/**
+	 * Watches the override folders of the {@link VirtualFileSystem}.
+	 * 监视VirtualFileSystem的覆盖文件夹。
+	 */
+	public AssetWatcher(Listener listener) throws IOException {
+		this(VirtualFileSystem.getOverrideFolders(), DEFAULT_QUIET_MILLIS, listener);
+	}
+
+	/**
+	 * @param watched
+	 *            - The folders to watch, with all their subfolders. Folders
+	 *            that don't exist are left out.
+	 *            - 要监视的文件夹，包括它们所有的子文件夹。不存在的文件夹会被跳过
+	 * @param quietMillis
+	 *            - How long a file must go without events before its change
+	 *            is reported.
+	 *            - 文件的变化被报告之前，必须多久没有事件
+	 */
+	public AssetWatcher(File[] watched, long quietMillis, Listener listener) throws IOException {
+		this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+		this.listener = listener;
+		service = FileSystems.getDefault().newWatchService();
+		try {
+			for (File folder : watched) {
+				if (folder.isDirectory()) {
+					Path root = folder.toPath().toAbsolutePath().normalize();
+					roots.add(root);
+					register(root, false);
+				}
+			}
+		} catch (IOException e) {
+			service.close();
+			throw e;
+		}
+		thread = new Thread(this::run, "Asset watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching. Changes still waiting to become quiet are not reported.
+	 * 停止监视。仍在等待安静下来的变化不会被报告。
+	 */
+	@Override
+	public void close() throws IOException {
+		service.close();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				WatchKey key;
+				if (pending.isEmpty()) {
+					key = service.take();
+				} else {
+					long wait = earliestDeadline() - System.nanoTime();
+					key = wait > 0 ? service.poll(wait, TimeUnit.NANOSECONDS) : service.poll();
+				}
+				if (key != null) {
+					collect(key);
+				}
+				reportQuietFiles();
+			}
+		} catch (ClosedWatchServiceException e) {
+			//监视器已关闭
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void collect(WatchKey key) {
+		Path folder = folders.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || folder == null) {
+				continue;
+			}
+			Path file = folder.resolve((Path) event.context());
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+				//新建的文件夹（例如复制进来的）也要监视，其中已有的文件当作新文件
+				try {
+					register(file, true);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				continue;
+			}
+			pending.put(file, System.nanoTime() + quietNanos);
+		}
+		if (!key.reset()) {
+			folders.remove(key);
+		}
+	}
+
+	private void reportQuietFiles() {
+		long now = System.nanoTime();
+		Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Path, Long> entry = iterator.next();
+			if (entry.getValue() - now <= 0) {
+				iterator.remove();
+				report(entry.getKey());
+			}
+		}
+	}
+
+	private void report(Path file) {
+		for (Path root : roots) {
+			if (file.startsWith(root)) {
+				StringBuilder path = new StringBuilder();
+				for (Path name : root.relativize(file)) {
+					if (path.length() > 0) {
+						path.append('/');
+					}
+					path.append(name);
+				}
+				try {
+					listener.changed(path.toString());
+				} catch (RuntimeException e) {
+					//一个出错的监听器不能让监视停下来
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private long earliestDeadline() {
+		long earliest = 0;
+		boolean first = true;
+		for (long deadline : pending.values()) {
+			if (first || deadline - earliest < 0) {
+				earliest = deadline;
+				first = false;
+			}
+		}
+		return earliest;
+	}
+
+	/**
+	 * Watches the folder and its subfolders, except hidden ones like ".git".
+	 * 监视文件夹及其子文件夹，隐藏的文件夹（例如".git"）除外。
+	 *
+	 * @param created
+	 *            - Whether the folder was just created, so the files already
+	 *            in it are new too.
+	 *            - 文件夹是否刚被创建，此时其中已有的文件也是新的
+	 */
+	private void register(Path start, boolean created) throws IOException {
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path folder, BasicFileAttributes attributes) throws IOException {
+				if (!folder.equals(start) && folder.getFileName().toString().startsWith(".")) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				WatchKey key = folder.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				folders.put(key, folder);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+				if (created) {
+					pending.put(file, System.nanoTime() + quietNanos);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+}
@@ -0,0 +1,157 @@
+package assets;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import toolbox.ByteBufferInputStream;
+
+/**
+ * The one place every loader reads asset files from. Paths are relative with
+ * '/' between folders, like "res/image.png" or "shaders/vertexShader.txt".
+ * 所有加载器读取资源文件的唯一入口。路径是相对路径，文件夹之间用'/'分隔，例如
+ * "res/image.png"或"shaders/vertexShader.txt"。
+ *
+ * A path is first looked for as a loose file in each override folder in turn,
+ * so files can be edited during development without packing them again, and
+ * then in the mounted {@link AssetArchive}. By default the override folders
+ * are the working directory and "src" (which hold "res/..." and
+ * "shaders/..."), and "assets.pak" is mounted if it exists. Both can be
+ * changed with the system properties "assets.override" (folders separated by
+ * the path separator, empty for none) and "assets.archive". With no override
+ * folders, startup opens and maps the archive once and opens no other files.
+ * 路径先依次在每个覆盖文件夹中作为松散文件查找，这样开发时可以修改文件而不用重新
+ * 打包，然后在挂载的AssetArchive中查找。默认的覆盖文件夹是工作目录和"src"（分别
+ * 包含"res/..."和"shaders/..."），如果"assets.pak"存在就挂载它。两者都可以用系统
+ * 属性"assets.override"（用路径分隔符分隔的文件夹，为空表示没有）和
+ * "assets.archive"修改。没有覆盖文件夹时，启动时只打开并映射一次资源包，不会打开
+ * 其他文件。
+ */
+public class VirtualFileSystem {
+
+	private static volatile File[] overrideFolders;
+	private static volatile AssetArchive archive;
+
+	static {
+		String overrides = System.getProperty("assets.override", "." + File.pathSeparator + "src");
+		List<File> folders = new ArrayList<File>();
+		for (String folder : overrides.split(File.pathSeparator)) {
+			if (!folder.isEmpty()) {
+				folders.add(new File(folder));
+			}
+		}
+		overrideFolders = folders.toArray(new File[folders.size()]);
+		File archiveFile = new File(System.getProperty("assets.archive", "assets.pak"));
+		if (archiveFile.isFile()) {
+			try {
+				archive = AssetArchive.open(archiveFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.err.println("Tried to open asset archive " + archiveFile + ", didn't work");
+			}
+		}
+	}
+
+	/**
+	 * Reads assets from the archive (after the override folders), replacing
+	 * the one mounted before.
+	 * 从这个资源包中读取资源（在覆盖文件夹之后），替换之前挂载的资源包。
+	 *
+	 * @param mounted
+	 *            - The archive, or null to read only loose files.
+	 *            - 资源包，为null时只读取松散文件
+	 */
+	public static void mount(AssetArchive mounted) {
+		archive = mounted;
+	}
+
+	public static AssetArchive getArchive() {
+		return archive;
+	}
+
+	/**
+	 * @param folders
+	 *            - The folders searched for loose files, in order; none to
+	 *            read only from the archive.
+	 *            - 按顺序查找松散文件的文件夹；没有时只从资源包中读取
+	 */
+	public static void setOverrideFolders(File... folders) {
+		overrideFolders = folders.clone();
+	}
+
+	public static File[] getOverrideFolders() {
+		return overrideFolders.clone();
+	}
+
+	/**
+	 * @return The loose file that overrides the path, or null if it is only
+	 *         in the archive (or nowhere).
+	 *         覆盖这个路径的松散文件，只在资源包中（或者都不存在）时返回null
+	 */
+	public static File findLooseFile(String path) {
+		checkPath(path);
+		for (File folder : overrideFolders) {
+			File file = new File(folder, path);
+			if (file.isFile()) {
+				return file;
+			}
+		}
+		return null;
+	}
+
+	public static boolean exists(String path) {
+		AssetArchive mounted = archive;
+		return findLooseFile(path) != null || (mounted != null && mounted.find(path) >= 0);
+	}
+
+	/**
+	 * @return The whole file. Loose files are memory-mapped, and so are
+	 *         uncompressed archive entries, so the buffer is direct and
+	 *         read-only.
+	 *         整个文件。松散文件会被内存映射，未压缩的资源包条目也是，所以返回的缓存是
+	 *         只读的直接缓存
+	 * @throws FileNotFoundException
+	 *             If the path is neither a loose file nor in the archive.
+	 *             如果路径既不是松散文件也不在资源包中
+	 */
+	public static ByteBuffer read(String path) throws IOException {
+		File file = findLooseFile(path);
+		if (file != null) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		}
+		AssetArchive mounted = archive;
+		int entry = mounted == null ? -1 : mounted.find(path);
+		if (entry < 0) {
+			throw new FileNotFoundException("Asset not found: " + path);
+		}
+		return mounted.read(entry);
+	}
+
+	/**
+	 * Same as {@link #read(String)}, as a stream for code that reads streams.
+	 * 与read(String)相同，以流的形式提供给读取流的代码。
+	 */
+	public static InputStream open(String path) throws IOException {
+		return new ByteBufferInputStream(read(path));
+	}
+
+	/**
+	 * Paths must stay inside the override folders and the archive.
+	 * 路径必须在覆盖文件夹和资源包之内。
+	 */
+	private static void checkPath(String path) {
+		if (path.isEmpty() || path.startsWith("/") || path.contains("\\") || path.equals("..")
+				|| path.startsWith("../") || path.contains("/../") || path.endsWith("/..")) {
+			throw new IllegalArgumentException("Not a relative asset path: " + path);
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+package benchmarks;
+
+import java.util.Random;
+
+import animation.AnimationClip;
+import animation.AnimationSystem;
+import animation.SkinnedRenderer;
+import animation.Skeleton;
+import device.RecordingDevice;
+import models.RawModel;
+import models.TexturedModel;
+import renderEngine.Loader;
+
+/**
+ * Animates 500 characters with a 48-joint skeleton, each blending two
+ * looping clips: the pose evaluation on one thread and on the common
+ * fork/join pool, and the whole skinned render against a recording device.
+ * Runs without a GPU.
+ * 为500个有48个关节的角色播放动画，每个角色混合两个循环动画：在一个线程上和在公共
+ * fork/join线程池上计算姿势，以及在记录设备上的整个蒙皮渲染。不需要GPU。
+ */
+public class AnimationBenchmark {
+
+	private static final int CHARACTERS = 500;
+	private static final int JOINTS = 48;
+	private static final int FRAMES = 31;
+	private static final int MESH_VERTICES = 2000;
+	private static final float DELTA = 1 / 60f;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		Skeleton skeleton = createSkeleton();
+		AnimationClip walk = createClip(random);
+		AnimationClip run = createClip(random);
+		AnimationSystem single = createSystem(new AnimationSystem(skeleton, CHARACTERS, 1), walk, run, random);
+		AnimationSystem parallel = createSystem(new AnimationSystem(skeleton, CHARACTERS), walk, run, random);
+		Benchmark.run("AnimationSystem.update 500 x 48 joints, 1 thread", 20, 200, () -> single.update(DELTA));
+		Benchmark.run("AnimationSystem.update 500 x 48 joints, common pool", 20, 200,
+				() -> parallel.update(DELTA));
+
+		RecordingDevice device = new RecordingDevice();
+		TexturedModel quad = BenchmarkScenes.createQuads(device, 1, 1, 1)[0];
+		TexturedModel model = new TexturedModel(createMesh(device, random), quad.getTexture());
+		float[] modelMatrices = new float[CHARACTERS * 16];
+		for (int c = 0; c < CHARACTERS; c++) {
+			modelMatrices[c * 16] = modelMatrices[c * 16 + 5] = modelMatrices[c * 16 + 10] = 1;
+			modelMatrices[c * 16 + 12] = (c % 25) * 2;
+			modelMatrices[c * 16 + 14] = (c / 25) * 2;
+			modelMatrices[c * 16 + 15] = 1;
+		}
+		SkinnedRenderer renderer = new SkinnedRenderer(device, CHARACTERS, JOINTS);
+		Benchmark.run("SkinnedRenderer.render 500", 20, 200, () -> renderer.render(model, parallel, modelMatrices));
+		device.resetCounters();
+		renderer.render(model, parallel, modelMatrices);
+		System.out.printf("    %d calls, %d draw calls, %d bytes streamed per frame%n", device.getCallCount(),
+				device.getDrawCallCount(), renderer.getStreamBuffer().getRing().getBytesThisFrame());
+	}
+
+	/**
+	 * A binary tree of joints one unit apart, so every parent comes before its
+	 * children.
+	 * 相距一个单位的关节组成的二叉树，所以每个父关节都在它的子关节之前
+	 */
+	private static Skeleton createSkeleton() {
+		int[] parents = new int[JOINTS];
+		float[] inverseBind = new float[JOINTS * 16];
+		float[] bindY = new float[JOINTS];
+		parents[0] = -1;
+		for (int j = 0; j < JOINTS; j++) {
+			if (j > 0) {
+				parents[j] = (j - 1) / 2;
+				bindY[j] = bindY[parents[j]] + 1;
+			}
+			int m = j * 16;
+			inverseBind[m] = inverseBind[m + 5] = inverseBind[m + 10] = inverseBind[m + 15] = 1;
+			inverseBind[m + 13] = -bindY[j];
+		}
+		return new Skeleton(parents, inverseBind);
+	}
+
+	/**
+	 * Random small rotations around each joint, with the last frame the same
+	 * as the first so the clip loops.
+	 * 每个关节周围随机的小旋转，最后一帧与第一帧相同，所以动画可以循环
+	 */
+	private static AnimationClip createClip(Random random) {
+		float[] keys = new float[FRAMES * JOINTS * AnimationClip.KEY_FLOATS];
+		for (int f = 0; f < FRAMES; f++) {
+			for (int j = 0; j < JOINTS; j++) {
+				int k = (f * JOINTS + j) * AnimationClip.KEY_FLOATS;
+				if (f == FRAMES - 1) {
+					System.arraycopy(keys, j * AnimationClip.KEY_FLOATS, keys, k, AnimationClip.KEY_FLOATS);
+					continue;
+				}
+				float angle = (random.nextFloat() - 0.5f) * 0.5f;
+				keys[k + 1] = j == 0 ? 0 : 1;
+				keys[k + 5] = (float) Math.sin(angle);
+				keys[k + 6] = (float) Math.cos(angle);
+				keys[k + 7] = keys[k + 8] = keys[k + 9] = 1;
+			}
+		}
+		return new AnimationClip(JOINTS, 30, FRAMES, keys);
+	}
+
+	private static AnimationSystem createSystem(AnimationSystem system, AnimationClip walk, AnimationClip run,
+			Random random) {
+		int walkIndex = system.addClip(walk);
+		int runIndex = system.addClip(run);
+		for (int c = 0; c < CHARACTERS; c++) {
+			int character = system.add(walkIndex);
+			system.play(character, walkIndex, random.nextFloat() * walk.getDuration());
+			system.blend(character, runIndex, random.nextFloat() * run.getDuration(), random.nextFloat());
+		}
+		return system;
+	}
+
+	//随机的顶点，每个顶点受四个关节影响
+	private static RawModel createMesh(RecordingDevice device, Random random) {
+		float[] positions = new float[MESH_VERTICES * 3];
+		float[] textureCoords = new float[MESH_VERTICES * 2];
+		float[] jointIndices = new float[MESH_VERTICES * 4];
+		float[] weights = new float[MESH_VERTICES * 4];
+		for (int i = 0; i < MESH_VERTICES * 3; i++) {
+			positions[i] = random.nextFloat() * 6;
+		}
+		for (int i = 0; i < MESH_VERTICES * 4; i++) {
+			jointIndices[i] = random.nextInt(JOINTS);
+			weights[i] = 0.25f;
+		}
+		int[] indices = new int[MESH_VERTICES * 3];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = random.nextInt(MESH_VERTICES);
+		}
+		return new Loader(device).loadSkinnedToVAO("skinned", positions, textureCoords, jointIndices, weights,
+				indices);
+	}
+
+}
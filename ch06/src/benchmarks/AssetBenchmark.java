@@ -0,0 +1,138 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+import assets.AssetArchive;
+import assets.AssetArchiveWriter;
+
+/**
+ * Writes 300 small asset files (200 compressible text files like shaders, 100
+ * incompressible ones like images) as loose files and packed into one
+ * archive, then compares reading all of them one file at a time with reading
+ * the entries of the archive, which is opened only once. Every byte read is
+ * summed, so both ways touch all the data. Also measures looking up a name in
+ * the archive's index.
+ * 写出300个小资源文件（200个像着色器一样可以压缩的文本文件，100个像图片一样无法
+ * 压缩的文件），分别作为松散文件和打包进一个资源包，然后比较逐个读取所有文件
+ * 和读取只打开一次的资源包中的所有条目。读取的每个字节都会被累加，所以两种方式都
+ * 接触所有数据。同时测量在资源包索引中查找名称的时间。
+ */
+public class AssetBenchmark {
+
+	private static final int TEXT_FILES = 200;
+	private static final int BINARY_FILES = 100;
+	private static final byte[] SCRATCH = new byte[8192];
+
+	public static void main(String[] args) throws IOException {
+		run();
+	}
+
+	public static void run() throws IOException {
+		File folder = Files.createTempDirectory("assets").toFile();
+		File archiveFile = new File(folder.getParentFile(), folder.getName() + ".pak");
+		String[] names = new String[TEXT_FILES + BINARY_FILES];
+		try {
+			Random random = new Random(42);
+			AssetArchiveWriter writer = new AssetArchiveWriter();
+			for (int i = 0; i < names.length; i++) {
+				byte[] data = i < TEXT_FILES ? shaderText(i) : new byte[16384];
+				if (i >= TEXT_FILES) {
+					random.nextBytes(data);
+				}
+				names[i] = (i < TEXT_FILES ? "shaders/shader" : "res/image") + i + (i < TEXT_FILES ? ".txt" : ".png");
+				File file = new File(folder, names[i]);
+				file.getParentFile().mkdirs();
+				Files.write(file.toPath(), data);
+				writer.add(names[i], data, true);
+			}
+			writer.write(archiveFile);
+
+			long[] sums = new long[2];
+			Benchmark.run("read 300 loose files", 5, 50, () -> {
+				long sum = 0;
+				for (String name : names) {
+					try {
+						sum += sum(ByteBuffer.wrap(Files.readAllBytes(new File(folder, name).toPath())));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				sums[0] = sum;
+			});
+			Benchmark.run("open archive", 5, 50, () -> {
+				try {
+					AssetArchive.open(archiveFile);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			AssetArchive archive = AssetArchive.open(archiveFile);
+			Benchmark.run("read 300 archive entries", 5, 50, () -> {
+				long sum = 0;
+				try {
+					for (String name : names) {
+						sum += sum(archive.read(archive.find(name)));
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				sums[1] = sum;
+			});
+			int[] found = new int[1];
+			Benchmark.run("AssetArchive.find x300", 1000, 20000, () -> {
+				for (String name : names) {
+					found[0] += archive.find(name);
+				}
+			});
+			int compressed = 0;
+			for (int i = 0; i < archive.getEntryCount(); i++) {
+				compressed += archive.isCompressed(i) ? 1 : 0;
+			}
+			System.out.printf("    %d entries, %d compressed, archive %d KB, contents %s%n", archive.getEntryCount(),
+					compressed, archiveFile.length() / 1024, sums[0] == sums[1] ? "match" : "DIFFER");
+		} finally {
+			for (String name : names) {
+				if (name != null) {
+					new File(folder, name).delete();
+				}
+			}
+			new File(folder, "shaders").delete();
+			new File(folder, "res").delete();
+			folder.delete();
+			archiveFile.delete();
+		}
+	}
+
+	private static byte[] shaderText(int index) {
+		StringBuilder text = new StringBuilder("#version 400 core\n\nin vec3 position;\nin vec2 textureCoords;\n");
+		for (int line = 0; text.length() < 2048; line++) {
+			text.append("uniform vec4 parameter").append(index).append('_').append(line).append(";\n");
+		}
+		text.append("void main(void){\n\tgl_Position = vec4(position,1.0);\n}\n");
+		return text.toString().getBytes();
+	}
+
+	/**
+	 * Copies the data out in blocks, the way a decoder reading it would, and
+	 * sums it.
+	 * 像读取数据的解码器一样分块复制出数据，并求和。
+	 */
+	private static long sum(ByteBuffer data) {
+		ByteBuffer source = data.duplicate();
+		long sum = 0;
+		while (source.hasRemaining()) {
+			int count = Math.min(SCRATCH.length, source.remaining());
+			source.get(SCRATCH, 0, count);
+			for (int i = 0; i < count; i++) {
+				sum += SCRATCH[i];
+			}
+		}
+		return sum;
+	}
+
+}
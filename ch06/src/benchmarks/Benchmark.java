@@ -0,0 +1,173 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A very small benchmark runner. It runs the body a number of times to let the
+ * JIT compiler warm up, then times the measured iterations in several rounds
+ * and reports the average time, its spread between rounds and the number of
+ * bytes allocated per iteration, so that code which is meant to be
+ * allocation-free can be checked.
+ * 一个很小的性能测试工具。先运行若干次让JIT编译器预热，然后分几轮计时测量运行，
+ * 报告平均时间，各轮之间的差异以及每次运行分配的字节数，用来检查不应分配内存的代码。
+ * 
+ * Every result is also kept, so {@link BenchmarkSuite} can write all of them to
+ * a JSON file for tracking the numbers over time.
+ * 每个结果也会被保存下来，所以BenchmarkSuite可以将它们全部写入JSON文件，用来
+ * 跟踪这些数字随时间的变化。
+ */
+public class Benchmark {
+
+	private static final int ROUNDS = 5;
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private static final List<Result> RESULTS = new ArrayList<Result>();
+
+	/**
+	 * The measurements of one benchmark.
+	 * 一个性能测试的测量结果
+	 */
+	public static class Result {
+
+		private final String name;
+		private final int iterations;
+		private final double nanosPerOp;
+		private final double nanosError;
+		private final long bytesPerOp;
+
+		private Result(String name, int iterations, double nanosPerOp, double nanosError, long bytesPerOp) {
+			this.name = name;
+			this.iterations = iterations;
+			this.nanosPerOp = nanosPerOp;
+			this.nanosError = nanosError;
+			this.bytesPerOp = bytesPerOp;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getIterations() {
+			return iterations;
+		}
+
+		/**
+		 * @return The average time of one iteration in nanoseconds.
+		 *         一次运行的平均时间（纳秒）
+		 */
+		public double getNanosPerOp() {
+			return nanosPerOp;
+		}
+
+		/**
+		 * @return The standard deviation of the time per iteration between
+		 *         the measurement rounds, in nanoseconds.
+		 *         各轮测量之间每次运行时间的标准差（纳秒）
+		 */
+		public double getNanosError() {
+			return nanosError;
+		}
+
+		public long getBytesPerOp() {
+			return bytesPerOp;
+		}
+
+	}
+
+	/**
+	 * Runs the body and prints the results.
+	 * 运行并打印结果
+	 * 
+	 * @param name
+	 *            - The name printed in the results.
+	 *            - 结果中显示的名称
+	 * @param warmupIterations
+	 *            - The number of untimed runs.
+	 *            - 不计时的运行次数
+	 * @param iterations
+	 *            - The number of timed runs, split over the rounds.
+	 *            - 计时的运行次数，分配到各轮中
+	 * @param body
+	 *            - The code to measure.
+	 *            - 要测量的代码
+	 * @return The measurements.
+	 *         测量结果
+	 */
+	public static Result run(String name, int warmupIterations, int iterations, Runnable body) {
+		for (int i = 0; i < warmupIterations; i++) {
+			body.run();
+		}
+		int perRound = Math.max(1, iterations / ROUNDS);
+		double[] roundNanos = new double[ROUNDS];
+		long threadID = Thread.currentThread().getId();
+		long allocatedBefore = THREADS.getThreadAllocatedBytes(threadID);
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < perRound; i++) {
+				body.run();
+			}
+			roundNanos[round] = (double) (System.nanoTime() - start) / perRound;
+		}
+		long allocated = THREADS.getThreadAllocatedBytes(threadID) - allocatedBefore;
+		double mean = 0;
+		for (double nanos : roundNanos) {
+			mean += nanos / ROUNDS;
+		}
+		double variance = 0;
+		for (double nanos : roundNanos) {
+			variance += (nanos - mean) * (nanos - mean) / ROUNDS;
+		}
+		Result result = new Result(name, perRound * ROUNDS, mean, Math.sqrt(variance),
+				allocated / (perRound * ROUNDS));
+		RESULTS.add(result);
+		System.out.printf("%-44s %12.3f +- %9.3f us/op %10d bytes/op%n", name, mean / 1000.0,
+				result.getNanosError() / 1000.0, result.getBytesPerOp());
+		return result;
+	}
+
+	/**
+	 * @return Every result measured so far, in order.
+	 *         到目前为止测量的所有结果，按顺序排列
+	 */
+	public static List<Result> getResults() {
+		return RESULTS;
+	}
+
+	/**
+	 * Writes every result measured so far to a JSON file, together with a
+	 * description of the machine, so that runs can be compared over time.
+	 * 将目前测量的所有结果连同机器的描述写入JSON文件，以便比较不同时间的运行结果。
+	 */
+	public static void writeJson(File file) throws IOException {
+		try (Writer out = new FileWriter(file)) {
+			out.write("{\n");
+			out.write("  \"timestamp\": " + System.currentTimeMillis() + ",\n");
+			out.write("  \"java\": \"" + escape(System.getProperty("java.version")) + "\",\n");
+			out.write("  \"os\": \"" + escape(System.getProperty("os.name") + " " + System.getProperty("os.arch"))
+					+ "\",\n");
+			out.write("  \"processors\": " + Runtime.getRuntime().availableProcessors() + ",\n");
+			out.write("  \"results\": [\n");
+			for (int i = 0; i < RESULTS.size(); i++) {
+				Result result = RESULTS.get(i);
+				out.write("    {\"name\": \"" + escape(result.getName()) + "\", \"iterations\": "
+						+ result.getIterations() + ", \"nsPerOp\": " + result.getNanosPerOp() + ", \"nsError\": "
+						+ result.getNanosError() + ", \"bytesPerOp\": " + result.getBytesPerOp() + "}");
+				out.write(i < RESULTS.size() - 1 ? ",\n" : "\n");
+			}
+			out.write("  ]\n");
+			out.write("}\n");
+		}
+	}
+
+	private static String escape(String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import device.GLDevice;
+import models.RawModel;
+import models.TexturedModel;
+import renderEngine.Loader;
+import textures.ModelTexture;
+
+/**
+ * Builds the test scenes shared by the rendering benchmarks.
+ * 创建渲染性能测试共用的测试场景
+ */
+public class BenchmarkScenes {
+
+	/**
+	 * Loads a number of quads into one shared VAO, creates some empty textures
+	 * and a linked program (left in use), and returns models cycling through
+	 * the meshes and textures. Loading the same scene into two recording
+	 * devices gives the same names in both.
+	 * 将若干个四边形加载进一个共享VAO，创建一些空纹理和一个已链接的着色器程序
+	 * （保持使用状态），返回循环使用这些网格和纹理的模型。将同一个场景加载到两个
+	 * 记录设备会得到相同的名字。
+	 */
+	public static TexturedModel[] createQuads(GLDevice device, int modelCount, int meshCount, int textureCount) {
+		float[][] positions = new float[meshCount][];
+		float[][] textureCoords = new float[meshCount][];
+		int[][] indices = new int[meshCount][];
+		for (int i = 0; i < meshCount; i++) {
+			positions[i] = new float[] { -0.5f, 0.5f, 0, -0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0.5f, 0.5f, 0 };
+			textureCoords[i] = new float[] { 0, 0, 0, 1, 1, 1, 1, 0 };
+			indices[i] = new int[] { 0, 1, 3, 3, 1, 2 };
+		}
+		RawModel[] meshes = new Loader(device).loadBatchToVAO(positions, textureCoords, indices);
+		ModelTexture[] textures = new ModelTexture[textureCount];
+		for (int i = 0; i < textureCount; i++) {
+			textures[i] = new ModelTexture(device.genTexture());
+		}
+		int program = device.createProgram();
+		device.linkProgram(program);
+		device.useProgram(program);
+		TexturedModel[] models = new TexturedModel[modelCount];
+		for (int i = 0; i < modelCount; i++) {
+			models[i] = new TexturedModel(meshes[i % meshCount], textures[i % textureCount]);
+		}
+		return models;
+	}
+
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs every benchmark and writes the results to a JSON file (the first
+ * argument, "benchmark-results.json" by default), so they can be kept and
+ * compared between versions. Run from the chapter folder, e.g.
+ * 运行所有性能测试并将结果写入JSON文件（第一个参数，默认为
+ * "benchmark-results.json"），以便保存并在不同版本之间比较。在章节目录下运行，例如
+ * 
+ * <pre>
+ * java -cp bin;lib/* benchmarks.BenchmarkSuite results/today.json
+ * </pre>
+ * 
+ * No OpenGL context is needed; everything that would call OpenGL uses a
+ * recording device.
+ * 不需要OpenGL上下文；所有需要调用OpenGL的地方都使用记录设备。
+ */
+public class BenchmarkSuite {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		File output = new File(args.length > 0 ? args[0] : "benchmark-results.json");
+		LoaderBenchmark.run();
+		ObjBenchmark.run();
+		GlbBenchmark.run();
+		AssetBenchmark.run();
+		HotReloadBenchmark.run();
+		MathBenchmark.run();
+		HierarchyBenchmark.run();
+		EntityBenchmark.run();
+		OcclusionBenchmark.run();
+		TerrainBenchmark.run();
+		ResourceBenchmark.run();
+		ShaderBenchmark.run();
+		TextureBenchmark.run();
+		RendererBenchmark.run();
+		IndirectCommandBenchmark.run();
+		CommandRecordingBenchmark.run();
+		JobBenchmark.run();
+		StreamBufferBenchmark.run();
+		SpriteBenchmark.run();
+		ParticleBenchmark.run();
+		AnimationBenchmark.run();
+		PostProcessingBenchmark.run();
+		FramePacingBenchmark.run();
+		Benchmark.writeJson(output);
+		System.out.println("Results written to " + output.getAbsolutePath());
+	}
+
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import commands.CommandRecorder;
+import device.RecordingDevice;
+import models.TexturedModel;
+import renderEngine.Renderer;
+
+/**
+ * Records the commands for 100k models on one thread and on all cores, and
+ * checks that both give exactly the same calls when replayed into a
+ * recording device. No OpenGL context is needed.
+ * 分别在一个线程和所有核心上录制10万个模型的命令，并检查两者回放到记录设备时
+ * 产生完全相同的调用。不需要OpenGL上下文。
+ */
+public class CommandRecordingBenchmark {
+
+	private static final int MODELS = 100000;
+	private static final int MESHES = 16;
+	private static final int TEXTURES = 8;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		RecordingDevice expected = new RecordingDevice();
+		RecordingDevice actual = new RecordingDevice();
+		TexturedModel[] models = BenchmarkScenes.createQuads(expected, MODELS, MESHES, TEXTURES);
+		BenchmarkScenes.createQuads(actual, MODELS, MESHES, TEXTURES);
+
+		Renderer renderer = new Renderer(actual);
+		CommandRecorder.RecordingTask task = (buffer, slot, slotCount) -> {
+			int first = (int) ((long) MODELS * slot / slotCount);
+			int last = (int) ((long) MODELS * (slot + 1) / slotCount);
+			for (int i = first; i < last; i++) {
+				renderer.render(models[i], buffer);
+			}
+		};
+		CommandRecorder single = new CommandRecorder(1);
+		CommandRecorder parallel = new CommandRecorder(Runtime.getRuntime().availableProcessors());
+		Benchmark.run("record 100k, 1 thread", 20, 100, () -> single.record(task));
+		Benchmark.run("record 100k, " + parallel.getSlotCount() + " threads", 20, 100, () -> parallel.record(task));
+		Benchmark.run("replay 100k into recording device", 20, 100, () -> parallel.submit(actual));
+
+		expected.setLogCalls(true);
+		actual.setLogCalls(true);
+		expected.resetCounters();
+		actual.resetCounters();
+		single.submit(expected);
+		parallel.submit(actual);
+		if (!expected.getCalls().equals(actual.getCalls())) {
+			throw new IllegalStateException("Parallel recording replayed differently from single threaded recording");
+		}
+		System.out.println("    " + actual.getDrawCount() + " draws, " + actual.getCallCount() + " calls replayed");
+		single.cleanUp();
+		parallel.cleanUp();
+	}
+
+}
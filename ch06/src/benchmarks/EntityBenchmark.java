@@ -0,0 +1,131 @@
+package benchmarks;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.lwjgl.BufferUtils;
+
+import entities.EntityStore;
+import maths.Frustum;
+import maths.Matrix4f;
+import maths.Quaternion;
+import maths.Vector3f;
+import models.RawModel;
+import models.TexturedModel;
+import renderEngine.IndirectCommandBuffer;
+import renderEngine.IndirectDrawList;
+import textures.ModelTexture;
+
+/**
+ * Measures one frame of 50k entities in the {@link EntityStore}: computing
+ * their model matrices and bounds and culling them (prepareFrame, on the
+ * fork/join pool), then adding the visible ones to an indirect draw list and
+ * their matrices to an instance buffer (submit). For comparison the same
+ * work is done on one object per entity, the objects scattered over the heap
+ * the way they end up after a scene has been edited for a while. Runs without
+ * OpenGL.
+ * 测量EntityStore中5万个实体的一帧：计算模型矩阵和包围球并剔除（prepareFrame，在
+ * fork/join线程池上），然后把可见的实体加入间接绘制列表，并把它们的矩阵写入实例缓存
+ * （submit）。作为对比，同样的工作也在每个实体一个对象的结构上进行，这些对象分散在堆
+ * 中，就像场景被编辑一段时间之后那样。不需要OpenGL。
+ */
+public class EntityBenchmark {
+
+	private static final int ENTITIES = 50000;
+	private static final int MODELS = 10;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		EntityStore store = new EntityStore(ENTITIES);
+		TexturedModel[] models = new TexturedModel[MODELS];
+		for (int i = 0; i < MODELS; i++) {
+			models[i] = new TexturedModel(new RawModel(1, 36, i * 36, i * 24), new ModelTexture(i % 4 + 1));
+			store.addModel(models[i], 0, 0, 0, 1.8f);
+		}
+		Vector3f axis = new Vector3f();
+		List<ObjectEntity> objects = new ArrayList<>();
+		for (int i = 0; i < ENTITIES; i++) {
+			ObjectEntity object = new ObjectEntity();
+			object.model = random.nextInt(MODELS);
+			object.texturedModel = models[object.model];
+			object.position.set(random.nextFloat() * 2000 - 1000, random.nextFloat() * 100,
+					random.nextFloat() * 2000 - 1000);
+			axis.set(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f).normalise();
+			object.rotation.setFromAxisAngle(axis, random.nextFloat() * 6.28f);
+			float size = 0.5f + random.nextFloat() * 2;
+			object.scale.set(size, size, size);
+			store.setTransform(store.create(object.model), object.position, object.rotation, object.scale);
+			objects.add(object);
+		}
+		Collections.shuffle(objects, random);
+
+		Matrix4f viewProjection = new Matrix4f().setPerspective((float) Math.toRadians(70), 16 / 9f, 0.1f, 1000);
+		Matrix4f view = new Matrix4f().setLookAt(new Vector3f(0, 50, 0), new Vector3f(100, 0, 100),
+				new Vector3f(0, 1, 0));
+		Matrix4f.mul(viewProjection, view, viewProjection);
+		Frustum frustum = new Frustum().set(viewProjection);
+
+		IndirectDrawList drawList = new IndirectDrawList();
+		FloatBuffer instanceMatrices = BufferUtils.createFloatBuffer(ENTITIES * 16);
+		IntBuffer packed = BufferUtils.createIntBuffer(ENTITIES * IndirectCommandBuffer.COMMAND_INTS);
+		Benchmark.run("EntityStore.prepareFrame 50k", 20, 100, () -> store.prepareFrame(frustum));
+		Benchmark.run("EntityStore.submit 50k", 20, 100, () -> {
+			instanceMatrices.clear();
+			store.submit(drawList, instanceMatrices);
+			drawList.clear();
+		});
+		Benchmark.run("EntityStore frame 50k", 20, 100, () -> {
+			store.prepareFrame(frustum);
+			instanceMatrices.clear();
+			store.submit(drawList, instanceMatrices);
+			packed.clear();
+			drawList.pack(packed);
+			drawList.clear();
+		});
+
+		ObjectEntity[] scattered = objects.toArray(new ObjectEntity[0]);
+		ObjectEntity[] visible = new ObjectEntity[ENTITIES];
+		Vector3f center = new Vector3f();
+		Benchmark.run("object per entity frame 50k", 20, 100, () -> {
+			int visibleCount = 0;
+			for (ObjectEntity object : scattered) {
+				object.matrix.setTransform(object.position, object.rotation, object.scale);
+				Matrix4f.transformPoint(object.matrix, center.set(0, 0, 0), center);
+				float radius = 1.8f * Math.max(object.scale.x, Math.max(object.scale.y, object.scale.z));
+				if (frustum.intersectsSphere(center.x, center.y, center.z, radius)) {
+					visible[visibleCount++] = object;
+				}
+			}
+			instanceMatrices.clear();
+			for (int i = 0; i < visibleCount; i++) {
+				RawModel model = visible[i].texturedModel.getRawModel();
+				drawList.add(model.getVaoID(), visible[i].texturedModel.getTexture().getID(), model.getVertexCount(),
+						model.getFirstIndex(), model.getBaseVertex(), i);
+				visible[i].matrix.store(instanceMatrices);
+			}
+			packed.clear();
+			drawList.pack(packed);
+			drawList.clear();
+		});
+	}
+
+	private static class ObjectEntity {
+
+		private final Vector3f position = new Vector3f();
+		private final Quaternion rotation = new Quaternion();
+		private final Vector3f scale = new Vector3f();
+		private final Matrix4f matrix = new Matrix4f();
+		private TexturedModel texturedModel;
+		private int model;
+
+	}
+
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import timing.FramePacer;
+import timing.FrameTimeHistogram;
+import timing.SystemClock;
+
+/**
+ * Compares how evenly frames are spaced by the frame pacer and by sleeping in
+ * whole milliseconds, as Display.sync() does. Both run empty frames at 60fps
+ * on the real clock for a few seconds and print the frame time percentiles;
+ * the closer p99 is to p50, the less the game stutters, and the mean shows
+ * whether the target rate is actually met.
+ * 比较帧率控制器和像Display.sync()那样按整毫秒休眠时帧间隔的均匀程度。两者都在
+ * 真实时钟上以60fps运行几秒钟的空帧，并打印帧时间的百分位；p99越接近p50，游戏
+ * 卡顿越少，平均值则显示是否真的达到了目标帧率。
+ */
+public class FramePacingBenchmark {
+
+	private static final int FPS = 60;
+	private static final int WARMUP_FRAMES = 60;
+	private static final int FRAMES = 300;
+
+	public static void main(String[] args) throws InterruptedException {
+		run();
+	}
+
+	public static void run() throws InterruptedException {
+		SystemClock clock = new SystemClock();
+		FramePacer pacer = new FramePacer(clock, FPS, FRAMES);
+		for (int i = 0; i <= WARMUP_FRAMES; i++) {
+			pacer.sync();
+		}
+		pacer.getHistogram().clear();
+		for (int i = 0; i < FRAMES; i++) {
+			pacer.sync();
+		}
+		System.out.printf("%-28s %s, spun %.1fms%n", "frame pacer", pacer.getHistogram(),
+				pacer.getSpinNanos() / 1e6);
+
+		FrameTimeHistogram sleeping = new FrameTimeHistogram(FRAMES);
+		long period = 1000000000L / FPS;
+		long last = clock.nanoTime();
+		for (int i = 0; i < FRAMES; i++) {
+			long remaining = last + period - clock.nanoTime();
+			if (remaining > 0) {
+				Thread.sleep(remaining / 1000000);
+			}
+			long now = clock.nanoTime();
+			sleeping.add(now - last);
+			last = now;
+		}
+		System.out.printf("%-28s %s%n", "whole millisecond sleeps", sleeping);
+	}
+
+}
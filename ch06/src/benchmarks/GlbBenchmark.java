@@ -0,0 +1,225 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.BufferUtils;
+
+import device.RecordingDevice;
+import gltf.GLBFileLoader;
+import models.TexturedModel;
+import renderEngine.Loader;
+import renderEngine.Renderer;
+
+/**
+ * Writes a GLB file with a large interleaved mesh (32-bit indices), a small
+ * mesh with separate attribute views (16-bit indices) and an embedded PNG
+ * texture, then compares loading it with just reading the file into memory.
+ * The recording device doesn't read the vertex data, so the load only touches
+ * the JSON chunk, the indices (which are checked) and the image; with a real
+ * driver the vertex data is read once, while it is copied into the buffers.
+ * Finally the loaded models are drawn once through Renderer.render(), so the
+ * device checks that each draw uses the model's indices and stays inside its
+ * buffers.
+ * 写出一个GLB文件，包含一个大的交错存放的网格（32位索引），一个属性分开存放的小
+ * 网格（16位索引）和一张嵌入的PNG纹理，然后比较加载它和只把文件读进内存所用的时间。
+ * 记录设备不读取顶点数据，所以加载只接触JSON块，索引（会被检查）和图片；使用真正的
+ * 驱动时，顶点数据在复制进缓存时被读取一次。最后通过Renderer.render()把加载的模型
+ * 各绘制一次，这样设备会检查每次绘制都使用了模型的索引，并且没有超出它的缓存。
+ */
+public class GlbBenchmark {
+
+	private static final int VERTICES = 1 << 20;
+	private static final int SMALL_VERTICES = 1000;
+	private static final int TEXTURE_SIZE = 256;
+
+	public static void main(String[] args) throws IOException {
+		run();
+	}
+
+	public static void run() throws IOException {
+		File file = File.createTempFile("benchmark", ".glb");
+		file.deleteOnExit();
+		try {
+			writeGlb(file);
+			double megabytes = file.length() / (double) (1 << 20);
+			ByteBuffer copy = BufferUtils.createByteBuffer((int) file.length());
+			double read = Benchmark.run(String.format(Locale.ROOT, "read %.0f MB GLB into memory", megabytes), 3, 20,
+					() -> {
+						copy.clear();
+						try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+							while (copy.hasRemaining()) {
+								if (channel.read(copy) < 0) {
+									break;
+								}
+							}
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}).getNanosPerOp();
+
+			RecordingDevice device = new RecordingDevice();
+			Loader loader = new Loader(device);
+			TexturedModel[][] models = new TexturedModel[1][];
+			double load = Benchmark.run(String.format(Locale.ROOT, "load %.0f MB GLB (mapped)", megabytes), 3, 20,
+					() -> {
+						try {
+							models[0] = GLBFileLoader.loadGLB(file, loader);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+						loader.cleanUp();
+					}).getNanosPerOp();
+			System.out.printf(Locale.ROOT, "    read %.0f MB/s, load %.0f MB/s, %d models, %d + %d indices%n",
+					megabytes * 1e9 / read, megabytes * 1e9 / load, models[0].length,
+					models[0][0].getRawModel().getVertexCount(), models[0][1].getRawModel().getVertexCount());
+
+			TexturedModel[] loaded = GLBFileLoader.loadGLB(file, loader);
+			int program = device.createProgram();
+			device.linkProgram(program);
+			device.useProgram(program);
+			Renderer renderer = new Renderer(device);
+			device.resetCounters();
+			renderer.prepare();
+			for (TexturedModel model : loaded) {
+				renderer.render(model);
+			}
+			System.out.printf(Locale.ROOT, "    rendered %d models in %d draw calls, bounding radii %.1f and %.1f%n",
+					loaded.length, device.getDrawCallCount(), loaded[0].getRawModel().getBoundsRadius(),
+					loaded[1].getRawModel().getBoundsRadius());
+			device.useProgram(0);
+			device.deleteProgram(program);
+			loader.cleanUp();
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Writes the GLB file: a 12 byte header, the JSON chunk and the binary
+	 * chunk, each padded to 4 bytes.
+	 * 写出GLB文件：12字节的文件头，JSON块和二进制块，每块都填充到4字节对齐。
+	 */
+	private static void writeGlb(File file) throws IOException {
+		int side = (int) Math.sqrt(VERTICES);
+		int quads = (side - 1) * (side - 1);
+		int interleavedBytes = VERTICES * 20;
+		int indexBytes = quads * 6 * 4;
+		int smallPositionBytes = SMALL_VERTICES * 12;
+		int smallTextureBytes = SMALL_VERTICES * 8;
+		int smallIndexBytes = (SMALL_VERTICES / 3 * 3 * 2 + 3) & ~3;
+		byte[] png = png();
+
+		ByteBuffer bin = ByteBuffer.allocate(interleavedBytes + indexBytes + smallPositionBytes + smallTextureBytes
+				+ smallIndexBytes + ((png.length + 3) & ~3)).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < VERTICES; i++) {
+			int x = i % side;
+			int z = i / side;
+			bin.putFloat(x).putFloat((float) Math.sin(x * 0.1) * (float) Math.cos(z * 0.1)).putFloat(z);
+			bin.putFloat(x / (float) side).putFloat(z / (float) side);
+		}
+		for (int z = 0; z < side - 1; z++) {
+			for (int x = 0; x < side - 1; x++) {
+				int topLeft = z * side + x;
+				int bottomLeft = topLeft + side;
+				bin.putInt(topLeft).putInt(bottomLeft).putInt(topLeft + 1);
+				bin.putInt(topLeft + 1).putInt(bottomLeft).putInt(bottomLeft + 1);
+			}
+		}
+		for (int i = 0; i < SMALL_VERTICES; i++) {
+			bin.putFloat(i).putFloat(0).putFloat(-i);
+		}
+		for (int i = 0; i < SMALL_VERTICES; i++) {
+			bin.putFloat(0.5f).putFloat(0.5f);
+		}
+		int smallIndexStart = bin.position();
+		for (int i = 0; i < SMALL_VERTICES / 3 * 3; i++) {
+			bin.putShort((short) i);
+		}
+		bin.position(smallIndexStart + smallIndexBytes);
+		int imageStart = bin.position();
+		bin.put(png);
+
+		int offset = 0;
+		StringBuilder json = new StringBuilder();
+		json.append("{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":").append(bin.capacity())
+				.append("}],\"bufferViews\":[");
+		json.append(view(offset, interleavedBytes, 20)).append(',');
+		json.append(view(offset += interleavedBytes, indexBytes, 0)).append(',');
+		json.append(view(offset += indexBytes, smallPositionBytes, 0)).append(',');
+		json.append(view(offset += smallPositionBytes, smallTextureBytes, 0)).append(',');
+		json.append(view(offset += smallTextureBytes, smallIndexBytes, 0)).append(',');
+		json.append(view(imageStart, png.length, 0)).append("],\"accessors\":[");
+		json.append(accessor(0, 0, VERTICES, 5126, "VEC3", "[0,-1,0]", "[" + (side - 1) + ",1," + (side - 1) + "]"))
+				.append(',');
+		json.append(accessor(0, 12, VERTICES, 5126, "VEC2")).append(',');
+		json.append(accessor(1, 0, quads * 6, 5125, "SCALAR")).append(',');
+		json.append(accessor(2, 0, SMALL_VERTICES, 5126, "VEC3", "[0,0," + (1 - SMALL_VERTICES) + "]",
+				"[" + (SMALL_VERTICES - 1) + ",0,0]")).append(',');
+		json.append(accessor(3, 0, SMALL_VERTICES, 5126, "VEC2")).append(',');
+		json.append(accessor(4, 0, SMALL_VERTICES / 3 * 3, 5123, "SCALAR")).append("],");
+		json.append("\"images\":[{\"bufferView\":5,\"mimeType\":\"image/png\"}],\"textures\":[{\"source\":0}],");
+		json.append("\"materials\":[{\"pbrMetallicRoughness\":{\"baseColorTexture\":{\"index\":0}}}],");
+		json.append("\"meshes\":[{\"name\":\"terrain\",\"primitives\":[{\"attributes\":{\"POSITION\":0,");
+		json.append("\"TEXCOORD_0\":1},\"indices\":2,\"material\":0}]},{\"name\":\"strip\",\"primitives\":[{");
+		json.append("\"attributes\":{\"POSITION\":3,\"TEXCOORD_0\":4},\"indices\":5,\"material\":0}]}]}");
+		while (json.length() % 4 != 0) {
+			json.append(' ');
+		}
+		byte[] jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer glb = ByteBuffer.allocate(12 + 8 + jsonBytes.length + 8 + bin.capacity())
+				.order(ByteOrder.LITTLE_ENDIAN);
+		glb.putInt(0x46546C67).putInt(2).putInt(glb.capacity());
+		glb.putInt(jsonBytes.length).putInt(0x4E4F534A).put(jsonBytes);
+		glb.putInt(bin.capacity()).putInt(0x004E4942).put(bin.array());
+		glb.flip();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (glb.hasRemaining()) {
+				channel.write(glb);
+			}
+		}
+	}
+
+	private static String view(int offset, int length, int stride) {
+		return "{\"buffer\":0,\"byteOffset\":" + offset + ",\"byteLength\":" + length
+				+ (stride > 0 ? ",\"byteStride\":" + stride : "") + "}";
+	}
+
+	private static String accessor(int view, int offset, int count, int componentType, String type) {
+		return "{\"bufferView\":" + view + ",\"byteOffset\":" + offset + ",\"count\":" + count
+				+ ",\"componentType\":" + componentType + ",\"type\":\"" + type + "\"}";
+	}
+
+	//POSITION访问器必须有min和max
+	private static String accessor(int view, int offset, int count, int componentType, String type, String min,
+			String max) {
+		String accessor = accessor(view, offset, count, componentType, type);
+		return accessor.substring(0, accessor.length() - 1) + ",\"min\":" + min + ",\"max\":" + max + "}";
+	}
+
+	private static byte[] png() throws IOException {
+		BufferedImage image = new BufferedImage(TEXTURE_SIZE, TEXTURE_SIZE, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < TEXTURE_SIZE; y++) {
+			for (int x = 0; x < TEXTURE_SIZE; x++) {
+				image.setRGB(x, y, ((x ^ y) & 16) != 0 ? 0xFFFFFFFF : 0xFF336699);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+}
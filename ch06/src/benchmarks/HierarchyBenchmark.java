@@ -0,0 +1,119 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import maths.Matrix4f;
+import maths.Quaternion;
+import maths.Vector3f;
+import scene.TransformHierarchy;
+
+/**
+ * Updates the world matrices of a hierarchy of 500k nodes (2000 trees of 250
+ * nodes, up to a few levels deep): all of them after every root moved, 1% of
+ * them scattered over the trees, none at all, and the sort after one node was
+ * moved to another parent. For comparison the whole hierarchy is also updated
+ * as a tree of node objects, walked recursively from the roots.
+ * 更新一个50万节点的层级（2000棵树，每棵250个节点，深几层）的世界矩阵：所有根节点
+ * 都移动后更新全部节点，分散在各棵树中的1%的节点，完全不更新，以及一个节点换到另一个
+ * 父节点下之后的排序。作为对比，还把整个层级作为节点对象组成的树，从根节点递归地更新。
+ */
+public class HierarchyBenchmark {
+
+	private static final int TREES = 2000;
+	private static final int NODES_PER_TREE = 250;
+	private static final int NODES = TREES * NODES_PER_TREE;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		TransformHierarchy hierarchy = new TransformHierarchy(NODES);
+		int[] nodes = new int[NODES];
+		NodeObject[] objects = new NodeObject[NODES];
+		List<NodeObject> roots = new ArrayList<>();
+		Vector3f position = new Vector3f();
+		Vector3f axis = new Vector3f();
+		Vector3f scale = new Vector3f(1, 1, 1);
+		Quaternion rotation = new Quaternion();
+		for (int i = 0; i < NODES; i++) {
+			int inTree = i % NODES_PER_TREE;
+			//每个节点的父节点是同一棵树中前面的某个节点，越往后层级越深
+			int parent = inTree == 0 ? -1 : i - inTree + random.nextInt(inTree);
+			position.set(random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2);
+			axis.set(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f).normalise();
+			rotation.setFromAxisAngle(axis, random.nextFloat() * 6.28f);
+			nodes[i] = hierarchy.create(parent < 0 ? TransformHierarchy.NO_PARENT : nodes[parent]);
+			hierarchy.setLocalTransform(nodes[i], position, rotation, scale);
+			NodeObject object = new NodeObject(position, rotation, scale);
+			objects[i] = object;
+			if (parent < 0) {
+				roots.add(object);
+			} else {
+				objects[parent].children.add(object);
+			}
+		}
+		hierarchy.update();
+
+		Benchmark.run("TransformHierarchy.update 500k, all dirty", 10, 50, () -> {
+			for (int i = 0; i < NODES; i += NODES_PER_TREE) {
+				hierarchy.setLocalPosition(nodes[i], i, 0, 0);
+			}
+			hierarchy.update();
+		});
+		int[] scattered = new int[NODES / 100];
+		for (int i = 0; i < scattered.length; i++) {
+			scattered[i] = nodes[random.nextInt(NODES)];
+		}
+		Benchmark.run("TransformHierarchy.update 500k, 1% dirty", 10, 50, () -> {
+			for (int node : scattered) {
+				hierarchy.setLocalPosition(node, 1, 2, 3);
+			}
+			hierarchy.update();
+		});
+		Benchmark.run("TransformHierarchy.update 500k, clean", 100, 1000, hierarchy::update);
+		int[] parents = { nodes[0], nodes[NODES_PER_TREE] };
+		int[] next = new int[1];
+		Benchmark.run("TransformHierarchy re-parent + sort 500k", 5, 20, () -> {
+			next[0] ^= 1;
+			hierarchy.setParent(nodes[NODES - 1], parents[next[0]]);
+			hierarchy.update();
+		});
+
+		Matrix4f identity = new Matrix4f();
+		Benchmark.run("node objects, recursive update 500k", 10, 50, () -> {
+			for (NodeObject root : roots) {
+				root.update(identity);
+			}
+		});
+	}
+
+	private static class NodeObject {
+
+		private final Vector3f position;
+		private final Quaternion rotation;
+		private final Vector3f scale;
+		private final Matrix4f local = new Matrix4f();
+		private final Matrix4f world = new Matrix4f();
+		private final List<NodeObject> children = new ArrayList<>();
+
+		private NodeObject(Vector3f position, Quaternion rotation, Vector3f scale) {
+			this.position = new Vector3f(position);
+			this.rotation = new Quaternion().set(rotation);
+			this.scale = new Vector3f(scale);
+		}
+
+		private void update(Matrix4f parentWorld) {
+			local.setTransform(position, rotation, scale);
+			Matrix4f.mul(parentWorld, local, world);
+			for (int i = 0; i < children.size(); i++) {
+				children.get(i).update(world);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,128 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import assets.VirtualFileSystem;
+import device.RecordingDevice;
+import renderEngine.HotReloader;
+import renderEngine.Loader;
+import resources.TextureHandle;
+import shaders.StaticShader;
+
+/**
+ * Measures how long it takes from saving a shader or texture file until the
+ * new version is in use, with the game calling HotReloader.applyChanges()
+ * once per millisecond instead of once per frame, and what applyChanges()
+ * costs in a frame where nothing has changed. The files live in a temporary
+ * override folder of the virtual file system.
+ * 测量从保存着色器或纹理文件到新版本被使用需要多长时间（游戏每毫秒而不是每帧调用
+ * 一次HotReloader.applyChanges()），以及在没有任何变化的帧中applyChanges()的开销。
+ * 文件放在虚拟文件系统的一个临时覆盖文件夹中。
+ */
+public class HotReloadBenchmark {
+
+	private static final long QUIET_MILLIS = 20;
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	public static void main(String[] args) throws IOException {
+		run();
+	}
+
+	public static void run() throws IOException {
+		File folder = Files.createTempDirectory("hotreload").toFile();
+		File vertexFile = new File(folder, "shaders/vertexShader.txt");
+		File fragmentFile = new File(folder, "shaders/fragmentShader.txt");
+		File imageFile = new File(folder, "res/image.png");
+		vertexFile.getParentFile().mkdirs();
+		imageFile.getParentFile().mkdirs();
+		File[] oldOverrides = VirtualFileSystem.getOverrideFolders();
+		try {
+			writeShader(vertexFile, 0);
+			writeShader(fragmentFile, 0);
+			writeImage(imageFile, 0);
+			VirtualFileSystem.setOverrideFolders(folder);
+
+			RecordingDevice device = new RecordingDevice();
+			Loader loader = new Loader(device);
+			StaticShader shader = new StaticShader(device);
+			TextureHandle texture = loader.loadTextureHandle("image");
+			try (HotReloader reloader = new HotReloader(loader, new File[] { folder }, QUIET_MILLIS)) {
+				reloader.watch(shader);
+				reloader.watch(texture, "image");
+				Benchmark.run("HotReloader.applyChanges, nothing changed", 10000, 1000000, reloader::applyChanges);
+				int[] edits = new int[1];
+				Benchmark.run("save shader until reloaded (" + QUIET_MILLIS + " ms quiet)", 2, 10, () -> {
+					try {
+						writeShader(vertexFile, ++edits[0]);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					waitForReload(reloader);
+				});
+				Benchmark.run("save texture until reloaded (" + QUIET_MILLIS + " ms quiet)", 2, 10, () -> {
+					try {
+						writeImage(imageFile, ++edits[0]);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					waitForReload(reloader);
+				});
+			}
+			shader.cleanUp();
+			loader.cleanUp();
+		} finally {
+			VirtualFileSystem.setOverrideFolders(oldOverrides);
+			vertexFile.delete();
+			fragmentFile.delete();
+			imageFile.delete();
+			vertexFile.getParentFile().delete();
+			imageFile.getParentFile().delete();
+			folder.delete();
+		}
+	}
+
+	/**
+	 * Calls applyChanges() once per millisecond, like a game loop would once
+	 * per frame, until something was reloaded.
+	 * 每毫秒调用一次applyChanges()，就像游戏循环每帧调用一次一样，直到有资源被重新加载。
+	 */
+	private static void waitForReload(HotReloader reloader) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+		while (reloader.applyChanges() == 0) {
+			if (System.nanoTime() - deadline > 0) {
+				throw new IllegalStateException("Nothing was reloaded within " + TIMEOUT_MILLIS + " ms");
+			}
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static void writeShader(File file, int version) throws IOException {
+		String source = "#version 400 core\n//version " + version + "\nin vec3 position;\n"
+				+ "void main(void){\n\tgl_Position = vec4(position,1.0);\n}\n";
+		Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeImage(File file, int version) throws IOException {
+		BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++) {
+				image.setRGB(x, y, ((x ^ y ^ version) & 8) != 0 ? 0xFFFFFFFF : 0xFF336699);
+			}
+		}
+		ImageIO.write(image, "png", file);
+	}
+
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import renderEngine.IndirectCommandBuffer;
+import renderEngine.IndirectDrawList;
+
+/**
+ * Measures how long it takes to build and pack the indirect draw commands for
+ * 100k draws spread over a number of materials. Runs without OpenGL.
+ * 测量为分布在多种材质上的10万次绘制构建并打包间接绘制命令所需的时间。
+ * 不需要OpenGL。
+ */
+public class IndirectCommandBenchmark {
+
+	private static final int COMMANDS = 100000;
+	private static final int MATERIALS = 64;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		IndirectDrawList drawList = new IndirectDrawList();
+		IntBuffer packed = BufferUtils.createIntBuffer(COMMANDS * IndirectCommandBuffer.COMMAND_INTS);
+		Benchmark.run("indirect build 100k", 50, 200, () -> {
+			for (int i = 0; i < COMMANDS; i++) {
+				drawList.add(1, i % MATERIALS, 36, (i & 255) * 36, (i & 255) * 24);
+			}
+			drawList.clear();
+		});
+		Benchmark.run("indirect build+pack 100k", 50, 200, () -> {
+			for (int i = 0; i < COMMANDS; i++) {
+				drawList.add(1, i % MATERIALS, 36, (i & 255) * 36, (i & 255) * 24);
+			}
+			packed.clear();
+			drawList.pack(packed);
+			packed.flip();
+			drawList.clear();
+		});
+	}
+
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jobs.JobGraph;
+import jobs.JobSystem;
+import maths.Frustum;
+import maths.Matrix4f;
+import maths.Quaternion;
+import maths.TransformArrays;
+import maths.Vector3f;
+
+/**
+ * Runs a frame graph of transform and culling jobs for 200k objects, split
+ * into ranges that depend on each other only within a range, plus a main
+ * thread job that waits for all of them: once in deterministic mode and once
+ * on the workers. Checks that both find exactly the same visible objects.
+ * Also measures the cost of scheduling, with a graph of 64 empty jobs.
+ * 运行一个包含20万个物体的变换和剔除任务的帧图，物体被分成几段，只有同一段内的任务
+ * 相互依赖，另外还有一个等待所有这些任务的主线程任务：分别在确定性模式下和在工作线程
+ * 上运行。检查两者找到的可见物体完全相同。还用一个包含64个空任务的图测量调度的开销。
+ */
+public class JobBenchmark {
+
+	private static final int OBJECTS = 200000;
+	private static final int RANGES = 8;
+	private static final int EMPTY_JOBS = 64;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		TransformArrays transforms = new TransformArrays(OBJECTS);
+		Vector3f position = new Vector3f();
+		Vector3f axis = new Vector3f();
+		Vector3f scale = new Vector3f();
+		Quaternion rotation = new Quaternion();
+		float[] radius = new float[OBJECTS];
+		for (int i = 0; i < OBJECTS; i++) {
+			position.set(random.nextFloat() * 2000 - 1000, random.nextFloat() * 100, random.nextFloat() * 2000 - 1000);
+			axis.set(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f).normalise();
+			rotation.setFromAxisAngle(axis, random.nextFloat() * 6.28f);
+			float size = 0.5f + random.nextFloat() * 2;
+			scale.set(size, size, size);
+			transforms.set(transforms.add(), position, rotation, scale);
+			radius[i] = size;
+		}
+		Matrix4f viewProjection = new Matrix4f().setPerspective((float) Math.toRadians(70), 16 / 9f, 0.1f, 1000);
+		Matrix4f view = new Matrix4f().setLookAt(new Vector3f(0, 50, 0), new Vector3f(100, 0, 100),
+				new Vector3f(0, 1, 0));
+		Matrix4f.mul(viewProjection, view, viewProjection);
+		Frustum frustum = new Frustum().set(viewProjection);
+
+		float[] matrices = new float[OBJECTS * 16];
+		int[] visible = new int[OBJECTS];
+		int[] visibleCounts = new int[RANGES];
+		int[] gathered = new int[OBJECTS];
+		int[] gatheredCount = new int[1];
+		JobGraph frame = new JobGraph();
+		int[] culled = new int[RANGES];
+		for (int i = 0; i < RANGES; i++) {
+			int range = i;
+			int start = OBJECTS * i / RANGES;
+			int end = OBJECTS * (i + 1) / RANGES;
+			int transform = frame.add("Job.transforms " + i, () -> transforms.computeMatrices(start, end, matrices));
+			culled[i] = frame.add("Job.cull " + i, () -> visibleCounts[range] = frustum.cullSpheres(transforms.positionX,
+					transforms.positionY, transforms.positionZ, radius, start, end, visible, start), transform);
+		}
+		frame.addOnMainThread("Job.gather", () -> {
+			int count = 0;
+			for (int i = 0; i < RANGES; i++) {
+				System.arraycopy(visible, OBJECTS * i / RANGES, gathered, count, visibleCounts[i]);
+				count += visibleCounts[i];
+			}
+			gatheredCount[0] = count;
+		}, culled);
+
+		JobSystem jobs = new JobSystem();
+		jobs.setDeterministic(true);
+		Benchmark.run("job graph 200k, deterministic", 20, 100, () -> jobs.run(frame));
+		int[] expected = Arrays.copyOf(gathered, gatheredCount[0]);
+		jobs.setDeterministic(false);
+		Benchmark.run("job graph 200k, " + jobs.getWorkerCount() + " workers", 20, 100, () -> jobs.run(frame));
+		if (!Arrays.equals(expected, Arrays.copyOf(gathered, gatheredCount[0]))) {
+			throw new IllegalStateException("The workers found different visible objects than the deterministic run");
+		}
+		System.out.println("    " + expected.length + " of " + OBJECTS + " objects visible");
+
+		JobGraph empty = new JobGraph();
+		Runnable nothing = () -> {
+		};
+		int previous = empty.add("Job.empty", nothing);
+		for (int i = 1; i < EMPTY_JOBS; i++) {
+			//一半的任务依赖前一个任务，另一半互不依赖
+			previous = (i & 1) == 0 ? empty.add("Job.empty", nothing, previous) : empty.add("Job.empty", nothing);
+		}
+		empty.addOnMainThread("Job.empty", nothing, previous);
+		Benchmark.run("64 empty jobs, " + jobs.getWorkerCount() + " workers", 1000, 10000, () -> jobs.run(empty));
+		jobs.close();
+	}
+
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import device.RecordingDevice;
+import renderEngine.Loader;
+
+/**
+ * Measures packing vertex data into buffers: converting a float[] into a
+ * FloatBuffer the way Loader.storeDataInFloatBuffer() does (a new direct
+ * buffer each time) against reusing one buffer, and a whole loadToVAO() of a
+ * 64k vertex mesh into a recording device.
+ * 测量将顶点数据打包进缓存的性能：像Loader.storeDataInFloatBuffer()那样将float[]
+ * 转换为FloatBuffer（每次新建直接缓存）与复用同一个缓存的对比，以及将一个6.4万
+ * 顶点的网格通过loadToVAO()加载到记录设备的完整过程。
+ */
+public class LoaderBenchmark {
+
+	private static final int VERTICES = 65536;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		float[] positions = new float[VERTICES * 3];
+		float[] textureCoords = new float[VERTICES * 2];
+		int[] indices = new int[VERTICES * 3];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = i * 0.001f;
+		}
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i % VERTICES;
+		}
+		Benchmark.run("float[] -> new FloatBuffer (64k vec3)", 200, 1000, () -> {
+			FloatBuffer buffer = BufferUtils.createFloatBuffer(positions.length);
+			buffer.put(positions);
+			buffer.flip();
+		});
+		FloatBuffer reused = BufferUtils.createFloatBuffer(positions.length);
+		Benchmark.run("float[] -> reused FloatBuffer (64k vec3)", 200, 1000, () -> {
+			reused.clear();
+			reused.put(positions);
+			reused.flip();
+		});
+		RecordingDevice device = new RecordingDevice();
+		Benchmark.run("Loader.loadToVAO (64k vertices)", 50, 250, () -> {
+			Loader loader = new Loader(device);
+			loader.loadToVAO(positions, textureCoords, indices);
+			loader.cleanUp();
+		});
+	}
+
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.lwjgl.BufferUtils;
+
+import maths.Frustum;
+import maths.Matrix4f;
+import maths.Quaternion;
+import maths.TransformArrays;
+import maths.Transforms;
+import maths.Vector3f;
+
+/**
+ * Measures one frame's worth of transform work for a million objects: building
+ * their model matrices from position, rotation and scale, multiplying them by
+ * the view-projection matrix, copying them into a FloatBuffer for upload and
+ * culling their bounding spheres against the view frustum. Each is done on
+ * the structure-of-arrays batch and, for the matrices, also one object at a
+ * time with reused Matrix4f objects. None of them should allocate.
+ * 测量一百万个物体一帧的变换工作：由位置，旋转和缩放生成模型矩阵，乘以视图投影
+ * 矩阵，复制进FloatBuffer以便上传，以及用视锥体剔除它们的包围球。每项都在数组结构
+ * 的批量数据上进行，矩阵部分还会用重复使用的Matrix4f对象逐个计算。它们都不应分配内存。
+ */
+public class MathBenchmark {
+
+	private static final int OBJECTS = 1000000;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		TransformArrays transforms = new TransformArrays(OBJECTS);
+		Vector3f position = new Vector3f();
+		Vector3f axis = new Vector3f();
+		Vector3f scale = new Vector3f();
+		Quaternion rotation = new Quaternion();
+		float[] radius = new float[OBJECTS];
+		for (int i = 0; i < OBJECTS; i++) {
+			position.set(random.nextFloat() * 2000 - 1000, random.nextFloat() * 100, random.nextFloat() * 2000 - 1000);
+			axis.set(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f).normalise();
+			rotation.setFromAxisAngle(axis, random.nextFloat() * 6.28f);
+			float size = 0.5f + random.nextFloat() * 2;
+			scale.set(size, size, size);
+			transforms.set(transforms.add(), position, rotation, scale);
+			radius[i] = size;
+		}
+		Matrix4f viewProjection = new Matrix4f().setPerspective((float) Math.toRadians(70), 16 / 9f, 0.1f, 1000);
+		Matrix4f view = new Matrix4f().setLookAt(new Vector3f(0, 50, 0), new Vector3f(100, 0, 100),
+				new Vector3f(0, 1, 0));
+		Matrix4f.mul(viewProjection, view, viewProjection);
+
+		float[] matrices = new float[OBJECTS * 16];
+		Benchmark.run("TransformArrays.computeMatrices x 1M", 3, 20,
+				() -> transforms.computeMatrices(0, OBJECTS, matrices));
+		Benchmark.run("Transforms.mul view-projection x 1M", 3, 20,
+				() -> Transforms.mul(viewProjection, matrices, 0, OBJECTS, matrices));
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(OBJECTS * 16);
+		Benchmark.run("Transforms.store x 1M into FloatBuffer", 3, 20, () -> {
+			buffer.clear();
+			Transforms.store(matrices, 0, OBJECTS, buffer);
+		});
+
+		Matrix4f model = new Matrix4f();
+		Matrix4f modelViewProjection = new Matrix4f();
+		Benchmark.run("Matrix4f setTransform + mul + store x 1M", 3, 20, () -> {
+			buffer.clear();
+			for (int i = 0; i < OBJECTS; i++) {
+				model.setTransform(transforms.positionX[i], transforms.positionY[i], transforms.positionZ[i],
+						transforms.rotationX[i], transforms.rotationY[i], transforms.rotationZ[i],
+						transforms.rotationW[i], transforms.scaleX[i], transforms.scaleY[i], transforms.scaleZ[i]);
+				Matrix4f.mul(viewProjection, model, modelViewProjection).store(buffer);
+			}
+		});
+
+		Frustum frustum = new Frustum().set(viewProjection);
+		int[] visible = new int[OBJECTS];
+		int[] visibleCount = new int[1];
+		Benchmark.run("Frustum.cullSpheres x 1M", 3, 20, () -> visibleCount[0] = frustum.cullSpheres(
+				transforms.positionX, transforms.positionY, transforms.positionZ, radius, 0, OBJECTS, visible));
+		System.out.printf("    %d of %d objects visible%n", visibleCount[0], OBJECTS);
+	}
+
+}
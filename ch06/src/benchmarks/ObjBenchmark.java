@@ -0,0 +1,209 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import objConverter.ModelData;
+import objConverter.OBJFileLoader;
+
+/**
+ * Writes a large OBJ file (a wavy grid of quads with texture coordinates and
+ * normals) and loads it with a naive parser that splits every line into
+ * Strings, with the streaming parser on one thread and with the streaming
+ * parser on all processors. The size in MB is the first argument, e.g. 400
+ * for a multi-hundred-MB file; the suite uses a smaller one.
+ * 写出一个大的OBJ文件（带纹理坐标和法线的波浪形四边形网格），分别用把每行拆分成
+ * String的简单解析器，单线程的流式解析器和使用所有处理器的流式解析器加载它。
+ * 第一个参数是文件大小（MB），例如400表示几百MB的文件；测试套件使用较小的文件。
+ */
+public class ObjBenchmark {
+
+	private static final int SUITE_MEGABYTES = 32;
+
+	//每个网格顶点在文件中大约占用的字节数
+	private static final int BYTES_PER_VERTEX = 180;
+
+	public static void main(String[] args) throws IOException {
+		run(args.length > 0 ? Integer.parseInt(args[0]) : SUITE_MEGABYTES);
+	}
+
+	public static void run() throws IOException {
+		run(SUITE_MEGABYTES);
+	}
+
+	public static void run(int megabytes) throws IOException {
+		File file = File.createTempFile("benchmark", ".obj");
+		file.deleteOnExit();
+		try {
+			int side = (int) Math.sqrt((double) megabytes * (1 << 20) / BYTES_PER_VERTEX);
+			writeGrid(file, side);
+			double fileMegabytes = file.length() / (double) (1 << 20);
+			int processors = Runtime.getRuntime().availableProcessors();
+			ModelData[] results = new ModelData[3];
+
+			String size = String.format(Locale.ROOT, "%.0f MB OBJ", fileMegabytes);
+			double naive = Benchmark.run("naive line split, " + size, 1, 5, () -> {
+				results[0] = loadNaive(file);
+			}).getNanosPerOp();
+			double streamed = Benchmark.run("streaming, 1 thread, " + size, 1, 5, () -> {
+				results[1] = load(file, 1);
+			}).getNanosPerOp();
+			double parallel = Benchmark.run("streaming, " + processors + " threads, " + size, 1, 5, () -> {
+				results[2] = load(file, processors);
+			}).getNanosPerOp();
+			System.out.printf(Locale.ROOT, "    %.0f / %.0f / %.0f MB/s, %d vertices, %d triangles, results %s%n",
+					fileMegabytes * 1e9 / naive, fileMegabytes * 1e9 / streamed, fileMegabytes * 1e9 / parallel,
+					results[1].getVertexCount(), results[1].getIndices().length / 3,
+					same(results[0], results[1]) && same(results[1], results[2]) ? "match" : "DIFFER");
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static ModelData load(File file, int threads) {
+		try {
+			return OBJFileLoader.loadOBJ(file, threads);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeGrid(File file, int side) throws IOException {
+		Random random = new Random(42);
+		try (Writer out = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+			out.write("# " + side + " x " + side + " grid\no grid\n");
+			StringBuilder line = new StringBuilder();
+			for (int z = 0; z < side; z++) {
+				for (int x = 0; x < side; x++) {
+					float height = (float) (Math.sin(x * 0.05) * Math.cos(z * 0.05)) + random.nextFloat() * 0.01f;
+					line.setLength(0);
+					line.append("v ").append(x * 0.5f).append(' ').append(height).append(' ').append(z * -0.5f);
+					line.append("\nvt ").append(x / (float) side).append(' ').append(z / (float) side);
+					line.append("\nvn ").append(random.nextFloat()).append(' ').append(random.nextFloat()).append(' ')
+							.append(random.nextFloat()).append('\n');
+					out.append(line);
+				}
+			}
+			out.write("s off\n");
+			for (int z = 0; z < side - 1; z++) {
+				for (int x = 0; x < side - 1; x++) {
+					int topLeft = z * side + x + 1;
+					int bottomLeft = topLeft + side;
+					line.setLength(0);
+					line.append('f');
+					corner(line, topLeft);
+					corner(line, bottomLeft);
+					corner(line, bottomLeft + 1);
+					corner(line, topLeft + 1);
+					out.append(line.append('\n'));
+				}
+			}
+		}
+	}
+
+	private static void corner(StringBuilder line, int index) {
+		line.append(' ').append(index).append('/').append(index).append('/').append(index);
+	}
+
+	/**
+	 * The usual way of reading an OBJ file: every line is split into Strings,
+	 * and every corner String is looked up in a HashMap to find its vertex.
+	 * 读取OBJ文件的常见方法：每行拆分成String，每个角的String在HashMap中查找它的顶点。
+	 */
+	private static ModelData loadNaive(File file) {
+		List<float[]> positions = new ArrayList<float[]>();
+		List<float[]> textures = new ArrayList<float[]>();
+		List<float[]> normals = new ArrayList<float[]>();
+		Map<String, Integer> vertexIndices = new HashMap<String, Integer>();
+		List<Integer> indices = new ArrayList<Integer>();
+		List<float[]> vertices = new ArrayList<float[]>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.trim().split("\\s+");
+				if (parts[0].equals("v")) {
+					positions.add(new float[] { Float.parseFloat(parts[1]), Float.parseFloat(parts[2]),
+							Float.parseFloat(parts[3]) });
+				} else if (parts[0].equals("vt")) {
+					textures.add(new float[] { Float.parseFloat(parts[1]), Float.parseFloat(parts[2]) });
+				} else if (parts[0].equals("vn")) {
+					normals.add(new float[] { Float.parseFloat(parts[1]), Float.parseFloat(parts[2]),
+							Float.parseFloat(parts[3]) });
+				} else if (parts[0].equals("f")) {
+					for (int i = 3; i < parts.length; i++) {
+						indices.add(vertexIndex(parts[1], vertexIndices, vertices, positions, textures, normals));
+						indices.add(vertexIndex(parts[i - 1], vertexIndices, vertices, positions, textures, normals));
+						indices.add(vertexIndex(parts[i], vertexIndices, vertices, positions, textures, normals));
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		float[] vertexArray = new float[vertices.size() * 3];
+		float[] textureArray = new float[vertices.size() * 2];
+		float[] normalArray = new float[vertices.size() * 3];
+		for (int i = 0; i < vertices.size(); i++) {
+			float[] vertex = vertices.get(i);
+			System.arraycopy(vertex, 0, vertexArray, i * 3, 3);
+			System.arraycopy(vertex, 3, textureArray, i * 2, 2);
+			System.arraycopy(vertex, 5, normalArray, i * 3, 3);
+		}
+		int[] indexArray = new int[indices.size()];
+		for (int i = 0; i < indexArray.length; i++) {
+			indexArray[i] = indices.get(i);
+		}
+		return new ModelData(vertexArray, textureArray, normalArray, indexArray);
+	}
+
+	private static int vertexIndex(String corner, Map<String, Integer> vertexIndices, List<float[]> vertices,
+			List<float[]> positions, List<float[]> textures, List<float[]> normals) {
+		Integer index = vertexIndices.get(corner);
+		if (index == null) {
+			String[] parts = corner.split("/");
+			float[] position = positions.get(Integer.parseInt(parts[0]) - 1);
+			float[] texture = textures.get(Integer.parseInt(parts[1]) - 1);
+			float[] normal = normals.get(Integer.parseInt(parts[2]) - 1);
+			index = vertices.size();
+			vertices.add(new float[] { position[0], position[1], position[2], texture[0], 1 - texture[1], normal[0],
+					normal[1], normal[2] });
+			vertexIndices.put(corner, index);
+		}
+		return index;
+	}
+
+	private static boolean same(ModelData a, ModelData b) {
+		return Arrays.equals(a.getIndices(), b.getIndices()) && close(a.getVertices(), b.getVertices())
+				&& close(a.getTextureCoords(), b.getTextureCoords()) && close(a.getNormals(), b.getNormals());
+	}
+
+	/**
+	 * The streaming parser may differ from Float.parseFloat in the last bit.
+	 * 流式解析器与Float.parseFloat的结果可能在最后一位不同。
+	 */
+	private static boolean close(float[] a, float[] b) {
+		if (a.length != b.length) {
+			return false;
+		}
+		for (int i = 0; i < a.length; i++) {
+			if (Math.abs(a[i] - b[i]) > Math.ulp(a[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.util.Random;
+
+import culling.OcclusionBuffer;
+import maths.Frustum;
+import maths.Matrix4f;
+import maths.Vector3f;
+
+/**
+ * Occlusion culling of a small city seen from street level: 400 box
+ * buildings as occluders and 50k objects between and behind them. Measures
+ * adding and rasterizing the occluders into a 256x128 buffer, and testing the
+ * objects that pass frustum culling against it, and prints how many objects
+ * the occluders hide. Runs without a GPU.
+ * 从街道高度看一个小城市的遮挡剔除：400个盒子建筑作为遮挡物，5万个物体分布在它们之间
+ * 和后面。测量把遮挡物添加并光栅化到256x128的缓存中，以及用它测试通过视锥体剔除的物体，
+ * 并打印遮挡物挡住了多少物体。不需要GPU。
+ */
+public class OcclusionBenchmark {
+
+	private static final int BUILDINGS_PER_SIDE = 20;
+	private static final float BLOCK_SIZE = 40;
+	private static final int OBJECTS = 50000;
+
+	private static final float[] BOX_POSITIONS = { -1, -1, -1, 1, -1, -1, 1, 1, -1, -1, 1, -1, -1, -1, 1, 1, -1, 1,
+			1, 1, 1, -1, 1, 1 };
+	private static final int[] BOX_INDICES = { 0, 1, 2, 0, 2, 3, 4, 6, 5, 4, 7, 6, 0, 4, 5, 0, 5, 1, 3, 2, 6, 3, 6,
+			7, 0, 3, 7, 0, 7, 4, 1, 5, 6, 1, 6, 2 };
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		Matrix4f[] buildings = new Matrix4f[BUILDINGS_PER_SIDE * BUILDINGS_PER_SIDE];
+		for (int i = 0; i < buildings.length; i++) {
+			float x = (i % BUILDINGS_PER_SIDE - BUILDINGS_PER_SIDE / 2) * BLOCK_SIZE;
+			float z = -(i / BUILDINGS_PER_SIDE) * BLOCK_SIZE - 20;
+			float height = 10 + random.nextFloat() * 40;
+			buildings[i] = new Matrix4f().setTransform(x, height, z, 0, 0, 0, 1, 14, height, 14);
+		}
+		float[] x = new float[OBJECTS];
+		float[] y = new float[OBJECTS];
+		float[] z = new float[OBJECTS];
+		float[] radius = new float[OBJECTS];
+		for (int i = 0; i < OBJECTS; i++) {
+			x[i] = (random.nextFloat() - 0.5f) * BUILDINGS_PER_SIDE * BLOCK_SIZE;
+			y[i] = random.nextFloat() * 5;
+			z[i] = -random.nextFloat() * BUILDINGS_PER_SIDE * BLOCK_SIZE;
+			radius[i] = 0.5f + random.nextFloat() * 2;
+		}
+
+		Matrix4f viewProjection = new Matrix4f().setPerspective((float) Math.toRadians(70), 16 / 9f, 0.1f, 1000);
+		Matrix4f view = new Matrix4f().setLookAt(new Vector3f(20, 2, 0), new Vector3f(20, 2, -100),
+				new Vector3f(0, 1, 0));
+		Matrix4f.mul(viewProjection, view, viewProjection);
+		Frustum frustum = new Frustum().set(viewProjection);
+		int[] inFrustum = new int[OBJECTS];
+		int frustumCount = frustum.cullSpheres(x, y, z, radius, 0, OBJECTS, inFrustum);
+		int[] visible = new int[OBJECTS];
+
+		OcclusionBuffer single = new OcclusionBuffer(256, 128, 1);
+		OcclusionBuffer parallel = new OcclusionBuffer(256, 128);
+		Runnable rasterizeSingle = () -> rasterize(single, viewProjection, buildings);
+		Benchmark.run("occluders 400 boxes, 256x128, 1 thread", 50, 500, rasterizeSingle);
+		Benchmark.run("occluders 400 boxes, 256x128, common pool", 50, 500,
+				() -> rasterize(parallel, viewProjection, buildings));
+		int[] visibleCount = new int[1];
+		Benchmark.run("occlusion test " + frustumCount + " spheres", 50, 500, () -> {
+			System.arraycopy(inFrustum, 0, visible, 0, frustumCount);
+			visibleCount[0] = single.cullSpheres(x, y, z, radius, visible, frustumCount);
+		});
+		System.out.println("    " + single.getTriangleCount() + " occluder triangles; " + frustumCount
+				+ " objects in the frustum, " + visibleCount[0] + " not occluded");
+	}
+
+	private static void rasterize(OcclusionBuffer buffer, Matrix4f viewProjection, Matrix4f[] buildings) {
+		buffer.begin(viewProjection);
+		for (Matrix4f building : buildings) {
+			buffer.addOccluder(BOX_POSITIONS, BOX_INDICES, building);
+		}
+		buffer.rasterize();
+	}
+
+}
@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.lwjgl.BufferUtils;
+
+import device.RecordingDevice;
+import particles.ParticleRenderer;
+import particles.ParticleSystem;
+
+/**
+ * Simulates 1M particles living 1 to 5 seconds, respawning the ones that died
+ * so the count stays at 1M: the update on one thread and on the common
+ * fork/join pool, packing the instance data, and the whole render against a
+ * recording device. For comparison the same particles are also updated as a
+ * list of particle objects. Runs without a GPU.
+ * 模拟100万个寿命1到5秒的粒子，重新生成死亡的粒子，使数量保持在100万：在一个线程
+ * 上和在公共fork/join线程池上更新，打包实例数据，以及在记录设备上的整个渲染。作为
+ * 对比，还把同样的粒子作为粒子对象的列表来更新。不需要GPU。
+ */
+public class ParticleBenchmark {
+
+	private static final int PARTICLES = 1000000;
+	private static final float DELTA = 1 / 60f;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Random random = new Random(42);
+		ParticleSystem single = new ParticleSystem(PARTICLES, 1);
+		ParticleSystem parallel = new ParticleSystem(PARTICLES);
+		respawn(single, random);
+		respawn(parallel, random);
+		int[] died = new int[1];
+		Benchmark.run("ParticleSystem.update 1M, 1 thread", 20, 100, () -> {
+			died[0] = single.update(DELTA);
+			respawn(single, random);
+		});
+		System.out.println("    " + died[0] + " particles died and respawned per frame");
+		Benchmark.run("ParticleSystem.update 1M, common pool", 20, 100, () -> {
+			parallel.update(DELTA);
+			respawn(parallel, random);
+		});
+		ByteBuffer memory = BufferUtils.createByteBuffer(PARTICLES * ParticleSystem.INSTANCE_BYTES);
+		Benchmark.run("ParticleSystem.pack 1M", 20, 100, () -> parallel.pack(memory, 0));
+
+		RecordingDevice device = new RecordingDevice();
+		int texture = BenchmarkScenes.createQuads(device, 1, 1, 1)[0].getTexture().getID();
+		ParticleRenderer renderer = new ParticleRenderer(device, PARTICLES);
+		Benchmark.run("ParticleRenderer.render 1M", 20, 100, () -> renderer.render(parallel, texture));
+		device.resetCounters();
+		renderer.render(parallel, texture);
+		System.out.printf("    %d calls, %d draw calls, %d bytes streamed per frame%n", device.getCallCount(),
+				device.getDrawCallCount(), renderer.getStreamBuffer().getRing().getBytesThisFrame());
+
+		List<ParticleObject> objects = new ArrayList<>(PARTICLES);
+		Benchmark.run("particle objects, update 1M", 5, 20, () -> {
+			for (int i = objects.size() - 1; i >= 0; i--) {
+				if (!objects.get(i).update(DELTA)) {
+					ParticleObject last = objects.remove(objects.size() - 1);
+					if (i < objects.size()) {
+						objects.set(i, last);
+					}
+				}
+			}
+			while (objects.size() < PARTICLES) {
+				objects.add(new ParticleObject(random));
+			}
+		});
+	}
+
+	/**
+	 * Fills the system up again with particles shot up from the origin.
+	 * 用从原点向上发射的粒子把粒子系统重新填满
+	 */
+	private static void respawn(ParticleSystem particles, Random random) {
+		while (particles.spawn(0, 0, 0, random.nextFloat() * 2 - 1, 5 + random.nextFloat() * 5,
+				random.nextFloat() * 2 - 1, 1 + random.nextFloat() * 4, 0.1f, 0xFFA040FF)) {
+		}
+	}
+
+	private static class ParticleObject {
+
+		private float x, y, z;
+		private float vx, vy, vz;
+		private float age;
+		private final float life;
+
+		private ParticleObject(Random random) {
+			vx = random.nextFloat() * 2 - 1;
+			vy = 5 + random.nextFloat() * 5;
+			vz = random.nextFloat() * 2 - 1;
+			life = 1 + random.nextFloat() * 4;
+		}
+
+		private boolean update(float delta) {
+			vy -= 9.81f * delta;
+			x += vx * delta;
+			y += vy * delta;
+			z += vz * delta;
+			age += delta;
+			return age < life;
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import org.lwjgl.opengl.GL14;
+import org.lwjgl.opengl.GL30;
+
+import device.RecordingDevice;
+import postProcessing.FrameGraph;
+import postProcessing.PostProcessing;
+import postProcessing.RenderTarget;
+import postProcessing.RenderTargetPool;
+import shaders.PostProcessingShader;
+
+/**
+ * Runs a chain of four fullscreen effects on a 1920x1080 scene against a
+ * recording device, which also checks every framebuffer is complete and no
+ * pass samples the target it draws into, and compiles a frame graph of 260
+ * passes. A graph with mistakes in it shows what the validator reports.
+ * Runs without a GPU.
+ * 在记录设备上对1920x1080的场景运行一串四个全屏效果，记录设备同时检查每个帧缓存都
+ * 是完整的，并且没有pass采样它正在绘制的目标，然后编译一个260个pass的帧图。一个有
+ * 错误的图展示了验证器报告的内容。不需要GPU。
+ */
+public class PostProcessingBenchmark {
+
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+	private static final int GRAPH_PASSES = 260;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		RecordingDevice device = new RecordingDevice();
+		RenderTargetPool pool = new RenderTargetPool(device);
+		RenderTarget scene = pool.acquire(WIDTH, HEIGHT, GL30.GL_RGBA16F, GL14.GL_DEPTH_COMPONENT24);
+		PostProcessing post = new PostProcessing(device, pool);
+		post.addEffect(new PostProcessingShader(device, PostProcessingShader.CONTRAST_FILE));
+		post.addEffect(new PostProcessingShader(device, PostProcessingShader.COPY_FILE));
+		post.addEffect(new PostProcessingShader(device, PostProcessingShader.CONTRAST_FILE));
+		post.addEffect(new PostProcessingShader(device, PostProcessingShader.COPY_FILE));
+		post.build(scene, RenderTarget.screen(device, WIDTH, HEIGHT));
+		Benchmark.run("PostProcessing.render 4 effects", 100, 5000, post::render);
+		device.resetCounters();
+		post.render();
+		System.out.printf("    %d calls, %d draw calls per frame, %d render targets in the pool (scene + %d)%n",
+				device.getCallCount(), device.getDrawCallCount(), pool.getTargetCount(),
+				post.getFrameGraph().getPeakTransientTargets());
+
+		FrameGraph graph = new FrameGraph();
+		Benchmark.run("FrameGraph declare + compile 260 passes", 20, 200, () -> declare(graph, scene));
+		int culled = 0;
+		for (int p = 0; p < graph.getPassCount(); p++) {
+			culled += graph.isCulled(p) ? 1 : 0;
+		}
+		System.out.printf("    %d passes culled, %d transient targets at most%n", culled,
+				graph.getPeakTransientTargets());
+
+		FrameGraph broken = new FrameGraph();
+		int input = broken.importTarget("scene", scene);
+		int a = broken.createTarget("a", WIDTH, HEIGHT, GL30.GL_RGBA16F, RenderTarget.NO_DEPTH);
+		int b = broken.createTarget("b", WIDTH, HEIGHT, GL30.GL_RGBA16F, RenderTarget.NO_DEPTH);
+		broken.addPass("blur", new int[] { input, b }, a, g -> {
+		});
+		broken.addPass("tonemap", new int[] { input }, a, g -> {
+		});
+		broken.addPass("sharpen", new int[] { b }, b, g -> {
+		});
+		for (String problem : broken.validate()) {
+			System.out.println("    validator: " + problem);
+		}
+	}
+
+	/**
+	 * Every pass reads the two before it and every eighth pass writes to the
+	 * scene. The last four passes come after the last write to the scene, so
+	 * nothing uses them and they are culled.
+	 * 每个pass读取它之前的两个，每第八个pass写入场景。最后四个pass在最后一次写入场景
+	 * 之后，没有东西使用它们，所以它们被剔除。
+	 */
+	private static void declare(FrameGraph graph, RenderTarget scene) {
+		graph.clear();
+		int input = graph.importTarget("scene", scene);
+		int previous = input;
+		int current = input;
+		for (int p = 0; p < GRAPH_PASSES; p++) {
+			int write = p % 8 == 7 ? input
+					: graph.createTarget("target " + p, WIDTH, HEIGHT, GL30.GL_RGBA16F, RenderTarget.NO_DEPTH);
+			int[] reads = previous == current ? new int[] { current } : new int[] { previous, current };
+			graph.addPass("pass " + p, reads, write, g -> {
+			});
+			previous = current;
+			current = write;
+		}
+		graph.compile();
+	}
+
+}
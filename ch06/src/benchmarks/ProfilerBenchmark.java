@@ -0,0 +1,96 @@
+package benchmarks;
+
+import commands.CommandRecorder;
+import device.RecordingDevice;
+import models.TexturedModel;
+import profiling.GpuProfiler;
+import profiling.Profiler;
+import renderEngine.Renderer;
+
+/**
+ * Measures what the profiler costs: begin/end pairs on their own and a frame
+ * of 10k Renderer.render() calls, with the profiler off and on. Then profiles
+ * frames that also record commands on worker threads, with GPU scopes, and
+ * prints the last report. Everything runs against a recording device, so no
+ * OpenGL context is needed; its timer queries measure when the calls were made.
+ * 测量性能分析器的开销：单独的begin/end对，以及一帧1万次Renderer.render()调用，
+ * 分别在分析器关闭和打开时。然后分析同时在工作线程上录制命令并带有GPU范围的帧，
+ * 打印最后的报告。所有内容都运行在记录设备上，不需要OpenGL上下文；它的计时查询
+ * 测量的是调用发生的时间。
+ */
+public class ProfilerBenchmark {
+
+	private static final int PAIRS = 1000;
+	private static final int MODELS = 10000;
+	private static final int MESHES = 16;
+	private static final int TEXTURES = 8;
+	private static final int PROFILED_FRAMES = GpuProfiler.DEFAULT_LATENCY + 2;
+
+	private static final int SCOPE = Profiler.scope("ProfilerBenchmark.scope");
+	private static final int FRAME = Profiler.scope("ProfilerBenchmark.frame");
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		RecordingDevice device = new RecordingDevice();
+		TexturedModel[] models = BenchmarkScenes.createQuads(device, MODELS, MESHES, TEXTURES);
+		Renderer renderer = new Renderer(device);
+		Runnable pairs = () -> {
+			for (int i = 0; i < PAIRS; i++) {
+				Profiler.begin(SCOPE);
+				Profiler.end(SCOPE);
+			}
+			Profiler.endFrame();
+		};
+		Runnable frame = () -> {
+			renderer.prepare();
+			for (TexturedModel model : models) {
+				renderer.render(model);
+			}
+			Profiler.endFrame();
+		};
+
+		setEnabled(false);
+		Benchmark.run("1000 begin/end pairs, profiler off", 1000, 10000, pairs);
+		Benchmark.run("Renderer.render 10k, profiler off", 100, 500, frame);
+		setEnabled(true);
+		Benchmark.run("1000 begin/end pairs, profiler on", 1000, 10000, pairs);
+		Benchmark.run("Renderer.render 10k, profiler on", 100, 500, frame);
+
+		CommandRecorder recorder = new CommandRecorder(2);
+		CommandRecorder.RecordingTask task = (buffer, slot, slotCount) -> {
+			for (int i = slot; i < MODELS; i += slotCount) {
+				renderer.render(models[i], buffer);
+			}
+		};
+		GpuProfiler gpuProfiler = new GpuProfiler(device);
+		Profiler.setGpuProfiler(gpuProfiler);
+		for (int i = 0; i < PROFILED_FRAMES; i++) {
+			Profiler.begin(FRAME);
+			Profiler.beginGpu(FRAME);
+			renderer.prepare();
+			recorder.record(task);
+			recorder.submit(device);
+			Profiler.endGpu(FRAME);
+			Profiler.end(FRAME);
+			Profiler.endFrame();
+		}
+		Profiler.getLastFrame().print(System.out);
+		Profiler.setGpuProfiler(null);
+		gpuProfiler.cleanUp();
+		recorder.cleanUp();
+		setEnabled(false);
+	}
+
+	/**
+	 * The setting only takes effect at the end of a frame.
+	 * 设置只在一帧结束时生效。
+	 */
+	private static void setEnabled(boolean enabled) {
+		Profiler.setEnabled(enabled);
+		Profiler.endFrame();
+	}
+
+}
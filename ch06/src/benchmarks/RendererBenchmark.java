@@ -0,0 +1,68 @@
+package benchmarks;
+
+import device.RecordingDevice;
+import models.TexturedModel;
+import renderEngine.IndirectRenderer;
+import renderEngine.Renderer;
+
+/**
+ * Measures the CPU cost of submitting 10k models through Renderer.render() and
+ * through the IndirectRenderer (with and without multi-draw indirect), against
+ * a recording device, and prints the calls each path makes per frame.
+ * 在记录设备上测量通过Renderer.render()以及通过IndirectRenderer（使用和不使用
+ * multi-draw indirect）提交1万个模型的CPU开销，并打印每种方式每帧的调用次数。
+ */
+public class RendererBenchmark {
+
+	private static final int MODELS = 10000;
+	private static final int MESHES = 16;
+	private static final int TEXTURES = 8;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		RecordingDevice device = new RecordingDevice();
+		TexturedModel[] models = BenchmarkScenes.createQuads(device, MODELS, MESHES, TEXTURES);
+		Renderer renderer = new Renderer(device);
+		measure("Renderer.render 10k", device, () -> {
+			renderer.prepare();
+			for (TexturedModel model : models) {
+				renderer.render(model);
+			}
+		});
+
+		IndirectRenderer indirect = new IndirectRenderer(device);
+		measure("IndirectRenderer 10k (multi-draw)", device, () -> {
+			for (TexturedModel model : models) {
+				indirect.render(model);
+			}
+			indirect.flush();
+		});
+
+		RecordingDevice fallbackDevice = new RecordingDevice(true, false, false);
+		TexturedModel[] fallbackModels = BenchmarkScenes.createQuads(fallbackDevice, MODELS, MESHES, TEXTURES);
+		IndirectRenderer fallback = new IndirectRenderer(fallbackDevice);
+		measure("IndirectRenderer 10k (base vertex loop)", fallbackDevice, () -> {
+			for (TexturedModel model : fallbackModels) {
+				fallback.render(model);
+			}
+			fallback.flush();
+		});
+	}
+
+	/**
+	 * Times the frame, then runs it once more with fresh counters to show how
+	 * many GL calls one frame makes.
+	 * 对这一帧计时，然后用清零的计数器再运行一次，显示一帧进行了多少次GL调用。
+	 */
+	private static void measure(String name, RecordingDevice device, Runnable frame) {
+		Benchmark.run(name, 100, 500, frame);
+		device.resetCounters();
+		frame.run();
+		System.out.printf("    %d calls, %d draw calls, %d draws, %d bytes uploaded per frame%n",
+				device.getCallCount(), device.getDrawCallCount(), device.getDrawCount(), device.getBytesUploaded());
+	}
+
+}
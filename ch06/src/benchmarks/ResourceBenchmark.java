@@ -0,0 +1,55 @@
+package benchmarks;
+
+import device.RecordingDevice;
+import models.RawModel;
+import renderEngine.Loader;
+
+/**
+ * Loads 10k small meshes and tears them down again, releasing them one by one
+ * and all at once, and prints how many GL calls the teardown made. Releasing
+ * them together deletes all buffers and all VAOs with one call each.
+ * 加载1万个小网格然后再删除，分别逐个释放和一次全部释放，并打印删除时进行了多少次
+ * GL调用。一起释放时所有缓存和所有VAO各只用一次调用删除。
+ */
+public class ResourceBenchmark {
+
+	private static final int MESHES = 10000;
+
+	private static final float[] POSITIONS = { -0.5f, 0.5f, 0, -0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0.5f, 0.5f, 0 };
+	private static final float[] TEXTURE_COORDS = { 0, 0, 0, 1, 1, 1, 1, 0 };
+	private static final int[] INDICES = { 0, 1, 3, 3, 1, 2 };
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		RecordingDevice device = new RecordingDevice();
+		Loader loader = new Loader(device);
+		RawModel[] models = new RawModel[MESHES];
+		long[] calls = new long[2];
+		Benchmark.run("load + release 10k meshes one by one", 5, 25, () -> {
+			load(loader, models);
+			device.resetCounters();
+			for (RawModel model : models) {
+				loader.release(model);
+			}
+			calls[0] = device.getCallCount();
+		});
+		Benchmark.run("load + release 10k meshes together", 5, 25, () -> {
+			load(loader, models);
+			device.resetCounters();
+			loader.release(models);
+			calls[1] = device.getCallCount();
+		});
+		System.out.printf("    teardown: %d calls one by one, %d calls together, %d objects left%n", calls[0], calls[1],
+				device.getLiveObjectCount());
+	}
+
+	private static void load(Loader loader, RawModel[] models) {
+		for (int i = 0; i < models.length; i++) {
+			models[i] = loader.loadToVAO("quad", POSITIONS, TEXTURE_COORDS, INDICES);
+		}
+	}
+
+}
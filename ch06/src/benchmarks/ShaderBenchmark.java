@@ -0,0 +1,28 @@
+package benchmarks;
+
+import device.RecordingDevice;
+import shaders.ShaderProgram;
+import shaders.StaticShader;
+
+/**
+ * Measures reading shader source files (ShaderProgram.loadShaderSource) and
+ * building a whole StaticShader against a recording device. Must be run from
+ * the chapter folder, like the game, so the shader files are found.
+ * 测量读取着色器源文件（ShaderProgram.loadShaderSource）以及在记录设备上创建
+ * 完整的StaticShader的性能。与游戏一样必须在章节目录下运行，才能找到着色器文件。
+ */
+public class ShaderBenchmark {
+
+	private static final String VERTEX_FILE = "shaders/vertexShader.txt";
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		Benchmark.run("ShaderProgram.loadShaderSource", 500, 5000, () -> ShaderProgram.loadShaderSource(VERTEX_FILE));
+		RecordingDevice device = new RecordingDevice();
+		Benchmark.run("new StaticShader + cleanUp", 200, 2000, () -> new StaticShader(device).cleanUp());
+	}
+
+}
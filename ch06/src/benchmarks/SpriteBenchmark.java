@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.util.Random;
+
+import device.RecordingDevice;
+import models.TexturedModel;
+import renderEngine.Renderer;
+import renderEngine.SpriteBatch;
+
+/**
+ * Draws 100k sprites through the SpriteBatch against a recording device:
+ * sorted by texture (4 atlases), and as they come with the texture changing
+ * every 64 sprites. For comparison 100k quads are also drawn one by one
+ * through Renderer.render(). Prints the calls each path makes per frame.
+ * 在记录设备上通过SpriteBatch绘制10万个精灵：按纹理排序（4个图集），以及按原本的
+ * 顺序，每64个精灵换一次纹理。作为对比，还通过Renderer.render()逐个绘制10万个
+ * 四边形。打印每种方式每帧的调用次数。
+ */
+public class SpriteBenchmark {
+
+	private static final int SPRITES = 100000;
+	private static final int ATLASES = 4;
+	private static final int RUN_LENGTH = 64;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		RecordingDevice device = new RecordingDevice();
+		TexturedModel[] quads = BenchmarkScenes.createQuads(device, SPRITES, 1, ATLASES);
+		Random random = new Random(42);
+		float[] x = new float[SPRITES];
+		float[] y = new float[SPRITES];
+		float[] u = new float[SPRITES];
+		float[] v = new float[SPRITES];
+		int[] colours = new int[SPRITES];
+		for (int i = 0; i < SPRITES; i++) {
+			x[i] = random.nextFloat() * 1920;
+			y[i] = random.nextFloat() * 1080;
+			//图集中8x8个格子之一
+			u[i] = random.nextInt(8) / 8f;
+			v[i] = random.nextInt(8) / 8f;
+			colours[i] = random.nextInt() | 0xFF;
+		}
+		int[] textures = new int[ATLASES];
+		for (int i = 0; i < ATLASES; i++) {
+			textures[i] = quads[i].getTexture().getID();
+		}
+
+		SpriteBatch batch = new SpriteBatch(device, SPRITES);
+		measure("SpriteBatch 100k, sorted by texture", device, () -> {
+			batch.begin();
+			for (int i = 0; i < SPRITES; i++) {
+				batch.draw(textures[i * ATLASES / SPRITES], x[i], y[i], 16, 16, u[i], v[i], u[i] + 0.125f,
+						v[i] + 0.125f, colours[i]);
+			}
+			batch.end();
+		});
+		printStreamed(batch);
+		measure("SpriteBatch 100k, texture changes every " + RUN_LENGTH, device, () -> {
+			batch.begin();
+			for (int i = 0; i < SPRITES; i++) {
+				batch.draw(textures[i / RUN_LENGTH % ATLASES], x[i], y[i], 16, 16, u[i], v[i], u[i] + 0.125f,
+						v[i] + 0.125f, colours[i]);
+			}
+			batch.end();
+		});
+		printStreamed(batch);
+
+		Renderer renderer = new Renderer(device);
+		measure("Renderer.render 100k quads", device, () -> {
+			for (TexturedModel quad : quads) {
+				renderer.render(quad);
+			}
+		});
+	}
+
+	/**
+	 * Times the frame, then runs it once more with fresh counters to show how
+	 * many GL calls one frame makes.
+	 * 对这一帧计时，然后用清零的计数器再运行一次，显示一帧进行了多少次GL调用。
+	 */
+	private static void measure(String name, RecordingDevice device, Runnable frame) {
+		Benchmark.run(name, 20, 100, frame);
+		device.resetCounters();
+		frame.run();
+		System.out.printf("    %d calls, %d draw calls, %d bytes uploaded per frame%n", device.getCallCount(),
+				device.getDrawCallCount(), device.getBytesUploaded());
+	}
+
+	private static void printStreamed(SpriteBatch batch) {
+		System.out.printf("    %d sprites in %d batches, %d bytes streamed per frame%n", batch.getLastSprites(),
+				batch.getLastDrawCalls(), batch.getStreamBuffer().getRing().getBytesThisFrame());
+	}
+
+}
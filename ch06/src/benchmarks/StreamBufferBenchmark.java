@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import renderEngine.StreamBuffer;
+import renderEngine.StreamRing;
+
+/**
+ * Measures how many MB of per-frame data can be written through the stream
+ * ring: each "frame" streams a mix of vertex data, instance data and 256 byte
+ * aligned uniform blocks. A direct buffer stands in for the mapped GPU memory,
+ * so no OpenGL context is needed.
+ * 测量通过流式环形缓存每帧可以写入多少MB数据：每一“帧”写入顶点数据，实例数据
+ * 以及256字节对齐的uniform块。用直接缓存代替映射的GPU内存，不需要OpenGL上下文。
+ */
+public class StreamBufferBenchmark {
+
+	private static final int BYTES_PER_FRAME = 32 * 1024 * 1024;
+	private static final int VERTEX_FLOATS = 3 * 1024 * 1024;
+	private static final int INSTANCE_FLOATS = 16 * 65536;
+	private static final int UNIFORM_BLOCKS = 4096;
+	private static final int UNIFORM_FLOATS = 32;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		ByteBuffer memory = BufferUtils.createByteBuffer(BYTES_PER_FRAME * StreamBuffer.FRAMES_IN_FLIGHT);
+		StreamRing ring = new StreamRing(memory, StreamBuffer.FRAMES_IN_FLIGHT, BYTES_PER_FRAME);
+		float[] vertices = new float[VERTEX_FLOATS];
+		float[] instances = new float[INSTANCE_FLOATS];
+		float[] uniforms = new float[UNIFORM_FLOATS];
+		for (int i = 0; i < vertices.length; i++) {
+			vertices[i] = i;
+		}
+		Benchmark.Result result = Benchmark.run("stream ring frame", 20, 100, () -> {
+			ring.nextRegion();
+			ring.putFloats(vertices, 0, vertices.length);
+			ring.putFloats(instances, 0, instances.length);
+			for (int i = 0; i < UNIFORM_BLOCKS; i++) {
+				uniforms[0] = i;
+				ring.putFloats(uniforms, 0, UNIFORM_FLOATS, 256);
+			}
+		});
+		double megabytesPerFrame = ring.getBytesThisFrame() / (1024.0 * 1024.0);
+		System.out.printf("    %.2f MB/frame, %.1f MB/s%n", megabytesPerFrame,
+				megabytesPerFrame / (result.getNanosPerOp() / 1e9));
+	}
+
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import device.RecordingDevice;
+import maths.Frustum;
+import maths.Matrix4f;
+import maths.Vector3f;
+import terrain.ChunkIndices;
+import terrain.ChunkMesh;
+import terrain.ChunkMesher;
+import terrain.Heightmap;
+import terrain.Terrain;
+
+/**
+ * Terrain from a 2049x2049 heightmap (32x32 chunks of 64x64 quads): building
+ * one chunk's vertices, building the shared indices, and frames of a camera
+ * flying across the terrain against a recording device, loading a radius of
+ * 8 chunks around it with the chunks built on the fork/join pool. Prints how
+ * many chunks are loaded and drawn and how many triangles the levels of detail
+ * leave out. Runs without a GPU.
+ * 一个2049x2049高度图的地形（32x32个块，每块64x64个四边形）：构建一个块的顶点，
+ * 构建共用的索引，以及在记录设备上摄像机飞越地形的帧，在它周围加载8个块的半径，
+ * 块在fork/join线程池上构建。打印加载和绘制了多少个块，以及细节层次省去了多少三角形。
+ * 不需要GPU。
+ */
+public class TerrainBenchmark {
+
+	private static final int SAMPLES = 2049;
+	private static final int LOAD_RADIUS = 8;
+	private static final float CAMERA_SPEED = 4;
+
+	public static void main(String[] args) {
+		run();
+	}
+
+	public static void run() {
+		float[] heights = new float[SAMPLES * SAMPLES];
+		for (int z = 0; z < SAMPLES; z++) {
+			for (int x = 0; x < SAMPLES; x++) {
+				heights[z * SAMPLES + x] = (float) (Math.sin(x * 0.01) * Math.cos(z * 0.013) * 80
+						+ Math.sin(x * 0.07 + z * 0.05) * 6);
+			}
+		}
+		Heightmap heightmap = new Heightmap(SAMPLES, SAMPLES, 1, heights);
+		ChunkMesh mesh = new ChunkMesh();
+		int[] chunk = new int[1];
+		Benchmark.run("ChunkMesher.generate 65x65", 200, 2000, () -> {
+			chunk[0] = (chunk[0] + 1) & 1023;
+			ChunkMesher.generate(heightmap, chunk[0] & 31, chunk[0] >> 5, mesh);
+		});
+		Benchmark.run("new ChunkIndices", 5, 20, ChunkIndices::new);
+
+		RecordingDevice device = new RecordingDevice();
+		int texture = BenchmarkScenes.createQuads(device, 1, 1, 1)[0].getTexture().getID();
+		Terrain terrain = new Terrain(device, heightmap, LOAD_RADIUS, 2, 64, 4);
+		Frustum frustum = new Frustum();
+		Matrix4f viewProjection = new Matrix4f();
+		Matrix4f view = new Matrix4f();
+		Vector3f eye = new Vector3f();
+		Vector3f target = new Vector3f();
+		Vector3f up = new Vector3f(0, 0, -1);
+		float[] cameraX = { 300 };
+		float cameraZ = 1024;
+		Runnable frame = () -> {
+			cameraX[0] += CAMERA_SPEED;
+			if (cameraX[0] > SAMPLES - 300) {
+				cameraX[0] = 300;
+			}
+			eye.set(cameraX[0], 1500, cameraZ);
+			target.set(cameraX[0], 0, cameraZ);
+			viewProjection.setPerspective((float) Math.toRadians(70), 16 / 9f, 1, 3000);
+			view.setLookAt(eye, target, up);
+			Matrix4f.mul(viewProjection, view, viewProjection);
+			frustum.set(viewProjection);
+			terrain.update(cameraX[0], cameraZ);
+			terrain.render(frustum, texture);
+		};
+		//先等摄像机周围的块都加载好
+		do {
+			frame.run();
+			Thread.yield();
+		} while (terrain.isLoading());
+		Benchmark.run("Terrain frame, flying " + CAMERA_SPEED + " units/frame", 100, 1000, frame);
+		device.resetCounters();
+		frame.run();
+		int fullDetail = terrain.getLastDrawCalls() * ChunkMesher.CHUNK_QUADS * ChunkMesher.CHUNK_QUADS * 2;
+		System.out.printf("    %d of %d slots loaded, %d draw calls, %d triangles (%d at full detail), %d GL calls%n",
+				terrain.getResidentCount(), terrain.getSlotCount(), terrain.getLastDrawCalls(),
+				terrain.getLastTriangles(), fullDetail, device.getCallCount());
+	}
+
+}
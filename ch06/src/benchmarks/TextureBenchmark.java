@@ -0,0 +1,40 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import textures.TextureData;
+
+/**
+ * Measures decoding a PNG into RGBA pixels (TextureData.decode, used by
+ * Loader.loadTexture). The file is read into memory first, so only decoding
+ * is timed. Must be run from the chapter folder so res/ is found.
+ * 测量将PNG解码为RGBA像素的性能（TextureData.decode，由Loader.loadTexture使用）。
+ * 文件先被读入内存，所以只对解码计时。必须在章节目录下运行才能找到res/。
+ */
+public class TextureBenchmark {
+
+	private static final String FILE = "res/image.png";
+
+	public static void main(String[] args) throws IOException {
+		run();
+	}
+
+	public static void run() throws IOException {
+		byte[] png = Files.readAllBytes(Paths.get(FILE));
+		TextureData data = TextureData.decode(new ByteArrayInputStream(png));
+		Benchmark.Result result = Benchmark.run("TextureData.decode " + data.getWidth() + "x" + data.getHeight(), 20,
+				100, () -> {
+					try {
+						TextureData.decode(new ByteArrayInputStream(png));
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				});
+		double megapixels = data.getWidth() * data.getHeight() / 1e6;
+		System.out.printf("    %.1f megapixels/s%n", megapixels / (result.getNanosPerOp() / 1e9));
+	}
+
+}
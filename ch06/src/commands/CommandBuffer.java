@@ -0,0 +1,205 @@
+package commands;
+
+import java.util.Arrays;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+
+import device.GLDevice;
+
+/**
+ * A compact list of rendering commands recorded on any thread and replayed
+ * later on the GL thread. Each command is an opcode followed by a fixed number
+ * of int arguments (floats are stored as their bits), all in one int[], so
+ * recording a command never allocates once the array has grown to the size of
+ * a typical frame.
+ * 一组紧凑的渲染命令，可以在任意线程上录制，之后在GL线程上回放。每个命令是一个
+ * 操作码加上固定数量的int参数（浮点数存储为它的位），全部放在一个int[]中，
+ * 所以数组增长到一帧的常见大小后录制命令不会分配内存。
+ * 
+ * A CommandBuffer must only be recorded by one thread at a time. Give each
+ * worker its own buffer; {@link CommandRecorder} does that for you.
+ * 一个CommandBuffer同一时间只能被一个线程录制。每个工作线程应当有自己的缓存，
+ * CommandRecorder会处理这些。
+ */
+public class CommandBuffer {
+
+	private static final int USE_PROGRAM = 0;
+	private static final int BIND_VERTEX_ARRAY = 1;
+	private static final int ENABLE_ATTRIBUTE = 2;
+	private static final int DISABLE_ATTRIBUTE = 3;
+	private static final int BIND_TEXTURE = 4;
+	private static final int UNIFORM_1F = 5;
+	private static final int UNIFORM_1I = 6;
+	private static final int DRAW_ARRAYS = 7;
+	private static final int DRAW_ELEMENTS = 8;
+
+	private int[] data;
+	private int size;
+	private int commandCount;
+
+	public CommandBuffer(int initialCapacity) {
+		data = new int[Math.max(8, initialCapacity)];
+	}
+
+	public void useProgram(int programID) {
+		ensureSpace(2);
+		data[size++] = USE_PROGRAM;
+		data[size++] = programID;
+		commandCount++;
+	}
+
+	public void bindVertexArray(int vaoID) {
+		ensureSpace(2);
+		data[size++] = BIND_VERTEX_ARRAY;
+		data[size++] = vaoID;
+		commandCount++;
+	}
+
+	public void enableVertexAttribArray(int attribute) {
+		ensureSpace(2);
+		data[size++] = ENABLE_ATTRIBUTE;
+		data[size++] = attribute;
+		commandCount++;
+	}
+
+	public void disableVertexAttribArray(int attribute) {
+		ensureSpace(2);
+		data[size++] = DISABLE_ATTRIBUTE;
+		data[size++] = attribute;
+		commandCount++;
+	}
+
+	public void bindTexture(int unit, int textureID) {
+		ensureSpace(3);
+		data[size++] = BIND_TEXTURE;
+		data[size++] = unit;
+		data[size++] = textureID;
+		commandCount++;
+	}
+
+	public void uniform1f(int location, float value) {
+		ensureSpace(3);
+		data[size++] = UNIFORM_1F;
+		data[size++] = location;
+		data[size++] = Float.floatToRawIntBits(value);
+		commandCount++;
+	}
+
+	public void uniform1i(int location, int value) {
+		ensureSpace(3);
+		data[size++] = UNIFORM_1I;
+		data[size++] = location;
+		data[size++] = value;
+		commandCount++;
+	}
+
+	public void drawArrays(int mode, int first, int count) {
+		ensureSpace(4);
+		data[size++] = DRAW_ARRAYS;
+		data[size++] = mode;
+		data[size++] = first;
+		data[size++] = count;
+		commandCount++;
+	}
+
+	public void drawElements(int mode, int indexCount, int firstIndex, int baseVertex) {
+		ensureSpace(5);
+		data[size++] = DRAW_ELEMENTS;
+		data[size++] = mode;
+		data[size++] = indexCount;
+		data[size++] = firstIndex;
+		data[size++] = baseVertex;
+		commandCount++;
+	}
+
+	/**
+	 * Makes the calls of every recorded command, in the order they were
+	 * recorded. On the GL thread pass the real device; anywhere else a
+	 * {@link device.RecordingDevice} can be used to check the commands.
+	 * 按录制的顺序执行每个录制命令的调用。在GL线程上传入真正的设备；在其他地方
+	 * 可以使用RecordingDevice来检查这些命令。
+	 */
+	public void replay(GLDevice device) {
+		int i = 0;
+		while (i < size) {
+			switch (data[i]) {
+			case USE_PROGRAM:
+				device.useProgram(data[i + 1]);
+				i += 2;
+				break;
+			case BIND_VERTEX_ARRAY:
+				device.bindVertexArray(data[i + 1]);
+				i += 2;
+				break;
+			case ENABLE_ATTRIBUTE:
+				device.enableVertexAttribArray(data[i + 1]);
+				i += 2;
+				break;
+			case DISABLE_ATTRIBUTE:
+				device.disableVertexAttribArray(data[i + 1]);
+				i += 2;
+				break;
+			case BIND_TEXTURE:
+				device.activeTexture(GL13.GL_TEXTURE0 + data[i + 1]);
+				device.bindTexture(GL11.GL_TEXTURE_2D, data[i + 2]);
+				i += 3;
+				break;
+			case UNIFORM_1F:
+				device.uniform1f(data[i + 1], Float.intBitsToFloat(data[i + 2]));
+				i += 3;
+				break;
+			case UNIFORM_1I:
+				device.uniform1i(data[i + 1], data[i + 2]);
+				i += 3;
+				break;
+			case DRAW_ARRAYS:
+				device.drawArrays(data[i + 1], data[i + 2], data[i + 3]);
+				i += 4;
+				break;
+			case DRAW_ELEMENTS:
+				replayDrawElements(device, data[i + 1], data[i + 2], data[i + 3], data[i + 4]);
+				i += 5;
+				break;
+			default:
+				throw new IllegalStateException("Unknown command " + data[i] + " at " + i);
+			}
+		}
+	}
+
+	/**
+	 * Removes all commands, keeping the storage for the next frame.
+	 * 删除所有命令，保留存储空间给下一帧使用
+	 */
+	public void clear() {
+		size = 0;
+		commandCount = 0;
+	}
+
+	public int getCommandCount() {
+		return commandCount;
+	}
+
+	/**
+	 * @return The number of ints used by the recorded commands.
+	 *         录制的命令使用的int数量
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	private static void replayDrawElements(GLDevice device, int mode, int indexCount, int firstIndex, int baseVertex) {
+		if (baseVertex == 0) {
+			device.drawElements(mode, indexCount, GL11.GL_UNSIGNED_INT, firstIndex * 4L);
+		} else {
+			device.drawElementsBaseVertex(mode, indexCount, GL11.GL_UNSIGNED_INT, firstIndex * 4L, baseVertex);
+		}
+	}
+
+	private void ensureSpace(int ints) {
+		if (size + ints > data.length) {
+			data = Arrays.copyOf(data, Math.max(data.length * 2, size + ints));
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import device.GLDevice;
+
+/**
+ * Records a frame's commands on several threads at once and then submits them
+ * all from the GL thread. The frame is split into a fixed number of slots;
+ * each slot is recorded by one worker into its own {@link CommandBuffer}, so
+ * the workers never share anything while recording. Afterwards the buffers
+ * are replayed slot by slot, so the order of the commands only depends on how
+ * the work was split, never on which thread finished first.
+ * 在多个线程上同时录制一帧的命令，然后在GL线程上全部提交。一帧被分成固定数量
+ * 的槽；每个槽由一个工作线程录制进它自己的CommandBuffer，所以录制时工作线程之间
+ * 没有任何共享。之后按槽的顺序回放缓存，所以命令的顺序只取决于工作的划分方式，
+ * 与哪个线程先完成无关。
+ * 
+ * Usage each frame (on the GL thread): record(task), then submit(device).
+ * 每帧的用法（在GL线程上）：record(task)，然后submit(device)。
+ */
+public class CommandRecorder {
+
+	/**
+	 * The work done for one slot. Must only write to the buffer it is given.
+	 * 一个槽的工作。只能写入传给它的缓存。
+	 */
+	public interface RecordingTask {
+
+		/**
+		 * @param buffer
+		 *            - The (empty) buffer for this slot.
+		 *            - 这个槽的（空）缓存
+		 * @param slot
+		 *            - The index of this slot, from 0 to slotCount - 1.
+		 *            - 槽的编号，从0到slotCount - 1
+		 * @param slotCount
+		 *            - The number of slots the frame is split into.
+		 *            - 一帧被分成的槽的数量
+		 */
+		void record(CommandBuffer buffer, int slot, int slotCount);
+
+	}
+
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+
+	private final CommandBuffer[] buffers;
+	private final List<Callable<Void>> slotJobs = new ArrayList<Callable<Void>>();
+	private final ExecutorService workers;
+	private volatile RecordingTask task;
+
+	/**
+	 * @param slotCount
+	 *            - The number of buffers a frame is recorded into, which is
+	 *            also the number of worker threads.
+	 *            - 一帧录制进的缓存数量，也是工作线程的数量
+	 */
+	public CommandRecorder(int slotCount) {
+		buffers = new CommandBuffer[slotCount];
+		for (int i = 0; i < slotCount; i++) {
+			buffers[i] = new CommandBuffer(INITIAL_BUFFER_SIZE);
+			final int slot = i;
+			slotJobs.add(() -> {
+				task.record(buffers[slot], slot, buffers.length);
+				return null;
+			});
+		}
+		workers = Executors.newFixedThreadPool(slotCount, runnable -> {
+			Thread thread = new Thread(runnable, "Command recorder");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Clears every buffer and records the task into all slots in parallel.
+	 * Returns once every slot has been recorded.
+	 * 清空所有缓存，并行地将任务录制进所有槽。所有槽录制完成后返回。
+	 */
+	public void record(RecordingTask task) {
+		for (CommandBuffer buffer : buffers) {
+			buffer.clear();
+		}
+		this.task = task;
+		try {
+			for (Future<Void> result : workers.invokeAll(slotJobs)) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while recording commands", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Recording commands failed", e.getCause());
+		} finally {
+			this.task = null;
+		}
+	}
+
+	/**
+	 * Replays every slot's buffer, in slot order, into the device. Call on the
+	 * GL thread with the real device, or anywhere with a
+	 * {@link device.RecordingDevice}.
+	 * 按槽的顺序将每个槽的缓存回放到设备。在GL线程上使用真正的设备调用，
+	 * 或在任何地方使用RecordingDevice调用。
+	 */
+	public void submit(GLDevice device) {
+		for (CommandBuffer buffer : buffers) {
+			buffer.replay(device);
+		}
+	}
+
+	public CommandBuffer getBuffer(int slot) {
+		return buffers[slot];
+	}
+
+	public int getSlotCount() {
+		return buffers.length;
+	}
+
+	/**
+	 * @return The number of commands recorded this frame in all slots.
+	 *         这一帧所有槽中录制的命令数量
+	 */
+	public int getCommandCount() {
+		int total = 0;
+		for (CommandBuffer buffer : buffers) {
+			total += buffer.getCommandCount();
+		}
+		return total;
+	}
+
+	/**
+	 * Stops the worker threads when the game is closed.
+	 * 在游戏关闭时停止工作线程
+	 */
+	public void cleanUp() {
+		workers.shutdown();
+	}
+
+}
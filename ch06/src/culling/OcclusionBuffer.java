@@ -0,0 +1,514 @@
+package culling;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import maths.Matrix4f;
+import profiling.Profiler;
+
+/**
+ * A small depth buffer drawn on the CPU from a few chosen occluders (walls,
+ * buildings, terrain...) and used to skip objects hidden behind them before
+ * they are submitted. Since it never touches the GPU there is no readback
+ * and no frame of latency: objects are tested against the occluders of the
+ * same frame, and it runs (and can be benchmarked) without a context.
+ * 一个在CPU上由几个选定的遮挡物（墙，建筑，地形等）绘制的小深度缓存，用来在提交之前
+ * 跳过被它们挡住的物体。因为它从不使用GPU，所以没有回读，也没有一帧的延迟：物体与同一帧
+ * 的遮挡物进行测试，并且它不需要上下文就能运行（以及测试性能）。
+ *
+ * Each frame: {@link #begin(Matrix4f)}, {@link #addOccluder} for every
+ * occluder, {@link #rasterize()}, then test bounds with
+ * {@link #isBoxVisible}, {@link #isSphereVisible} or
+ * {@link #cullSpheres(float[], float[], float[], float[], int[], int)}.
+ * 每一帧：begin(Matrix4f)，为每个遮挡物调用addOccluder，rasterize()，然后用
+ * isBoxVisible，isSphereVisible或cullSpheres测试包围体。
+ *
+ * The screen is split into tiles; triangles are sorted into the tiles they
+ * touch when added, and the tiles are then rasterized independently, split
+ * between threads, each pixel row of a tile being one run of floats. The
+ * depth buffer then gets a hierarchical-Z pyramid whose every texel holds the
+ * farthest depth of the four below it, so a test only reads a few texels
+ * however large the object is on screen. Triangles with a vertex behind the
+ * near plane are left out rather than clipped; like anything that makes the
+ * occluders smaller, that can only make more objects visible, never fewer.
+ * 屏幕被分成图块；添加三角形时把它们分到所接触的图块中，然后各个图块独立光栅化，分给
+ * 多个线程，图块的每一行像素是一段连续的float。之后深度缓存会生成一个层级Z金字塔，
+ * 它的每个纹素保存下一层四个纹素中最远的深度，所以无论物体在屏幕上多大，测试都只需要
+ * 读取几个纹素。有顶点在近平面后面的三角形会被丢弃而不是裁剪；与任何让遮挡物变小的
+ * 做法一样，这只会让更多的物体可见，而不会更少。
+ *
+ * Depths are window depths, 0 at the near plane and 1 at the far plane.
+ * Nothing is allocated per frame once the triangle and bin arrays have grown
+ * to the scene's size.
+ * 深度是窗口深度，近平面为0，远平面为1。三角形和图块数组增长到场景的大小之后，
+ * 每帧不再分配内存。
+ */
+public class OcclusionBuffer {
+
+	public static final int TILE_WIDTH = 32;
+	public static final int TILE_HEIGHT = 16;
+
+	private static final int RASTERIZE = Profiler.scope("OcclusionBuffer.rasterize");
+	private static final int CULL = Profiler.scope("OcclusionBuffer.cull");
+
+	//w小于这个值的顶点被认为在近平面后面
+	private static final float MIN_W = 1e-5f;
+	//每个三角形的屏幕空间数据：三个顶点的x, y, z
+	private static final int TRIANGLE_FLOATS = 9;
+
+	private final int width;
+	private final int height;
+	private final int tilesX;
+	private final int tilesY;
+	private final float[][] levels;
+	private final int[] levelWidths;
+	private final int[] levelHeights;
+
+	private final Matrix4f viewProjection = new Matrix4f();
+	private final Matrix4f modelViewProjection = new Matrix4f();
+	private float[] vertices = new float[256 * 4];
+	private float[] triangles = new float[256 * TRIANGLE_FLOATS];
+	private int triangleCount;
+	private final int[][] bins;
+	private final int[] binCounts;
+
+	private final int threads;
+	private final Runnable[] chunkTasks;
+	private final Future<?>[] chunkFutures;
+	private int chunkCount;
+
+	/**
+	 * Uses as many threads as the common fork/join pool.
+	 * 使用与公共fork/join线程池一样多的线程。
+	 */
+	public OcclusionBuffer(int width, int height) {
+		this(width, height, ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * @param width
+	 *            - Width in pixels, a multiple of {@link #TILE_WIDTH}. A few
+	 *            hundred pixels are plenty.
+	 *            - 以像素为单位的宽度，必须是TILE_WIDTH的倍数。几百个像素就足够了
+	 * @param height
+	 *            - Height in pixels, a multiple of {@link #TILE_HEIGHT}.
+	 *            - 以像素为单位的高度，必须是TILE_HEIGHT的倍数
+	 * @param threads
+	 *            - The most threads the tiles are split between.
+	 *            - 图块最多分给多少个线程
+	 */
+	public OcclusionBuffer(int width, int height, int threads) {
+		if (width <= 0 || height <= 0 || width % TILE_WIDTH != 0 || height % TILE_HEIGHT != 0) {
+			throw new IllegalArgumentException("The size must be a positive multiple of " + TILE_WIDTH + "x"
+					+ TILE_HEIGHT + ", not " + width + "x" + height);
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1, not " + threads);
+		}
+		this.width = width;
+		this.height = height;
+		tilesX = width / TILE_WIDTH;
+		tilesY = height / TILE_HEIGHT;
+		int levelCount = 1;
+		while ((width - 1) >> levelCount > 0 || (height - 1) >> levelCount > 0) {
+			levelCount++;
+		}
+		levels = new float[levelCount][];
+		levelWidths = new int[levelCount];
+		levelHeights = new int[levelCount];
+		for (int level = 0; level < levelCount; level++) {
+			levelWidths[level] = Math.max(1, (width + (1 << level) - 1) >> level);
+			levelHeights[level] = Math.max(1, (height + (1 << level) - 1) >> level);
+			levels[level] = new float[levelWidths[level] * levelHeights[level]];
+			Arrays.fill(levels[level], 1);
+		}
+		bins = new int[tilesX * tilesY][16];
+		binCounts = new int[tilesX * tilesY];
+		this.threads = threads;
+		chunkTasks = new Runnable[threads];
+		chunkFutures = new Future<?>[threads];
+		for (int i = 0; i < threads; i++) {
+			int chunk = i;
+			chunkTasks[i] = () -> {
+				int tileCount = bins.length;
+				int end = (int) ((long) tileCount * (chunk + 1) / chunkCount);
+				for (int tile = (int) ((long) tileCount * chunk / chunkCount); tile < end; tile++) {
+					rasterizeTile(tile);
+				}
+			};
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Starts a frame: forgets last frame's occluders.
+	 * 开始一帧：忘掉上一帧的遮挡物。
+	 */
+	public void begin(Matrix4f viewProjection) {
+		this.viewProjection.set(viewProjection);
+		triangleCount = 0;
+		Arrays.fill(binCounts, 0);
+	}
+
+	/**
+	 * Transforms an occluder's triangles to the screen and sorts them into
+	 * the tiles they touch. Occluders should fit inside the object they stand
+	 * for, or objects just behind its edges are hidden wrongly.
+	 * 把遮挡物的三角形变换到屏幕上，并把它们分到所接触的图块中。遮挡物应当在它所代表
+	 * 的物体之内，否则刚好在物体边缘后面的其他物体会被错误地隐藏。
+	 *
+	 * @param positions
+	 *            - x, y, z of each vertex, in the occluder's own space.
+	 *            - 每个顶点的x, y, z，位于遮挡物自己的空间
+	 * @param indices
+	 *            - Three per triangle. Both sides of a triangle occlude.
+	 *            - 每个三角形三个。三角形的两面都会遮挡
+	 * @param model
+	 *            - The occluder's model matrix.
+	 *            - 遮挡物的模型矩阵
+	 */
+	public void addOccluder(float[] positions, int[] indices, Matrix4f model) {
+		Matrix4f.mul(viewProjection, model, modelViewProjection);
+		int vertexCount = positions.length / 3;
+		if (vertices.length < vertexCount * 4) {
+			vertices = new float[vertexCount * 4];
+		}
+		Matrix4f m = modelViewProjection;
+		for (int v = 0; v < vertexCount; v++) {
+			float x = positions[v * 3], y = positions[v * 3 + 1], z = positions[v * 3 + 2];
+			float clipX = m.m00 * x + m.m10 * y + m.m20 * z + m.m30;
+			float clipY = m.m01 * x + m.m11 * y + m.m21 * z + m.m31;
+			float clipZ = m.m02 * x + m.m12 * y + m.m22 * z + m.m32;
+			float clipW = m.m03 * x + m.m13 * y + m.m23 * z + m.m33;
+			int o = v * 4;
+			if (clipW < MIN_W) {
+				vertices[o + 3] = -1;
+				continue;
+			}
+			float inverseW = 1 / clipW;
+			//从裁剪空间到窗口坐标，第0行在上面
+			vertices[o] = (clipX * inverseW * 0.5f + 0.5f) * width;
+			vertices[o + 1] = (0.5f - clipY * inverseW * 0.5f) * height;
+			vertices[o + 2] = clipZ * inverseW * 0.5f + 0.5f;
+			vertices[o + 3] = 1;
+		}
+		for (int i = 0; i + 2 < indices.length; i += 3) {
+			int a = indices[i] * 4, b = indices[i + 1] * 4, c = indices[i + 2] * 4;
+			if (vertices[a + 3] < 0 || vertices[b + 3] < 0 || vertices[c + 3] < 0) {
+				continue;
+			}
+			addTriangle(vertices[a], vertices[a + 1], vertices[a + 2], vertices[b], vertices[b + 1],
+					vertices[b + 2], vertices[c], vertices[c + 1], vertices[c + 2]);
+		}
+	}
+
+	/**
+	 * @return The number of occluder triangles added this frame that are at
+	 *         least partly on screen.
+	 *         这一帧添加的至少有一部分在屏幕上的遮挡三角形数量
+	 */
+	public int getTriangleCount() {
+		return triangleCount;
+	}
+
+	/**
+	 * Draws the occluders into the depth buffer, splitting the tiles between
+	 * threads, and builds the hierarchical-Z pyramid.
+	 * 把遮挡物绘制到深度缓存中（把图块分给多个线程），并生成层级Z金字塔。
+	 */
+	public void rasterize() {
+		Profiler.begin(RASTERIZE);
+		chunkCount = Math.max(1, Math.min(threads, triangleCount / 64));
+		for (int i = 1; i < chunkCount; i++) {
+			chunkFutures[i] = ForkJoinPool.commonPool().submit(chunkTasks[i]);
+		}
+		chunkTasks[0].run();
+		for (int i = 1; i < chunkCount; i++) {
+			join(chunkFutures[i]);
+			chunkFutures[i] = null;
+		}
+		buildPyramid();
+		Profiler.end(RASTERIZE);
+	}
+
+	/**
+	 * @return The depth of the nearest occluder at the pixel, 1 if none.
+	 *         该像素处最近的遮挡物的深度，没有则为1
+	 */
+	public float getDepth(int x, int y) {
+		return levels[0][y * width + x];
+	}
+
+	/**
+	 * Tests a box given in world space.
+	 * 测试一个世界空间中的包围盒。
+	 *
+	 * @return False if the box is certainly hidden behind the occluders (or
+	 *         entirely off screen), true otherwise.
+	 *         如果包围盒一定被遮挡物挡住（或者完全在屏幕外）返回false，否则返回true
+	 */
+	public boolean isBoxVisible(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		Matrix4f m = viewProjection;
+		//变换盒子的中心，再求出盒子在裁剪空间中每个分量最多偏离多少，不用变换8个角
+		float x = (minX + maxX) * 0.5f, y = (minY + maxY) * 0.5f, z = (minZ + maxZ) * 0.5f;
+		float sizeX = (maxX - minX) * 0.5f, sizeY = (maxY - minY) * 0.5f, sizeZ = (maxZ - minZ) * 0.5f;
+		float clipX = m.m00 * x + m.m10 * y + m.m20 * z + m.m30;
+		float clipY = m.m01 * x + m.m11 * y + m.m21 * z + m.m31;
+		float clipZ = m.m02 * x + m.m12 * y + m.m22 * z + m.m32;
+		float clipW = m.m03 * x + m.m13 * y + m.m23 * z + m.m33;
+		float extentX = Math.abs(m.m00) * sizeX + Math.abs(m.m10) * sizeY + Math.abs(m.m20) * sizeZ;
+		float extentY = Math.abs(m.m01) * sizeX + Math.abs(m.m11) * sizeY + Math.abs(m.m21) * sizeZ;
+		float extentZ = Math.abs(m.m02) * sizeX + Math.abs(m.m12) * sizeY + Math.abs(m.m22) * sizeZ;
+		float extentW = Math.abs(m.m03) * sizeX + Math.abs(m.m13) * sizeY + Math.abs(m.m23) * sizeZ;
+		if (clipW - extentW < MIN_W) {
+			//包围盒可能穿过近平面，无法确定，当作可见
+			return true;
+		}
+		//w为正时x / w随x和w单调变化，所以范围的端点就是界限
+		float inverseNear = 1 / (clipW - extentW), inverseFar = 1 / (clipW + extentW);
+		float ndcMinX = Math.min((clipX - extentX) * inverseNear, (clipX - extentX) * inverseFar);
+		float ndcMaxX = Math.max((clipX + extentX) * inverseNear, (clipX + extentX) * inverseFar);
+		float ndcMinY = Math.min((clipY - extentY) * inverseNear, (clipY - extentY) * inverseFar);
+		float ndcMaxY = Math.max((clipY + extentY) * inverseNear, (clipY + extentY) * inverseFar);
+		//透视和正交投影中z和w都只取决于沿视线的距离，z - extentZ和w - extentW属于同一个（最近的）角
+		float ndcNearestZ = (clipZ - extentZ) * inverseNear;
+		float screenMinX = (ndcMinX * 0.5f + 0.5f) * width, screenMaxX = (ndcMaxX * 0.5f + 0.5f) * width;
+		float screenMinY = (0.5f - ndcMaxY * 0.5f) * height, screenMaxY = (0.5f - ndcMinY * 0.5f) * height;
+		float nearestDepth = ndcNearestZ * 0.5f + 0.5f;
+		return isRectVisible(screenMinX, screenMinY, screenMaxX, screenMaxY, nearestDepth);
+	}
+
+	/**
+	 * Tests a sphere given in world space, by the box around it.
+	 * 通过包围球体的盒子测试一个世界空间中的球体。
+	 */
+	public boolean isSphereVisible(float x, float y, float z, float radius) {
+		if (!(radius < Float.POSITIVE_INFINITY)) {
+			//大小未知的物体永远可见
+			return true;
+		}
+		return isBoxVisible(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+	}
+
+	/**
+	 * Tests the spheres with the given indices, e.g. those that passed frustum
+	 * culling, and keeps only the visible ones, in order.
+	 * 测试给定下标的球体，例如通过了视锥体剔除的球体，只按顺序保留可见的。
+	 *
+	 * @param indices
+	 *            - The indices of the spheres to test; the visible ones are
+	 *            written back to the start.
+	 *            - 要测试的球体的下标；可见的会被写回开头
+	 * @return The number of visible spheres.
+	 *         可见球体的数量
+	 */
+	public int cullSpheres(float[] x, float[] y, float[] z, float[] radius, int[] indices, int count) {
+		Profiler.begin(CULL);
+		int visible = 0;
+		for (int i = 0; i < count; i++) {
+			int index = indices[i];
+			indices[visible] = index;
+			visible += isSphereVisible(x[index], y[index], z[index], radius[index]) ? 1 : 0;
+		}
+		Profiler.end(CULL);
+		return visible;
+	}
+
+	/**
+	 * Compares the nearest depth of a screen rectangle with the pyramid, at
+	 * the level where the rectangle covers at most 2x2 texels.
+	 * 在矩形最多覆盖2x2个纹素的那一层，把屏幕矩形的最近深度与金字塔比较。
+	 */
+	private boolean isRectVisible(float minX, float minY, float maxX, float maxY, float nearestDepth) {
+		if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+			return false;
+		}
+		int x0 = Math.max(0, (int) minX), y0 = Math.max(0, (int) minY);
+		int x1 = Math.min(width - 1, (int) maxX), y1 = Math.min(height - 1, (int) maxY);
+		int level = 0;
+		while (level < levels.length - 1 && ((x1 >> level) - (x0 >> level) > 1 || (y1 >> level) - (y0 >> level) > 1)) {
+			level++;
+		}
+		float[] depths = levels[level];
+		int levelWidth = levelWidths[level];
+		for (int y = y0 >> level; y <= y1 >> level; y++) {
+			for (int x = x0 >> level; x <= x1 >> level; x++) {
+				if (nearestDepth <= depths[y * levelWidth + x]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void addTriangle(float x0, float y0, float z0, float x1, float y1, float z1, float x2, float y2,
+			float z2) {
+		float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+		if (area == 0) {
+			return;
+		}
+		int minTileX = Math.max(0, (int) Math.floor(Math.min(x0, Math.min(x1, x2)) / TILE_WIDTH));
+		int minTileY = Math.max(0, (int) Math.floor(Math.min(y0, Math.min(y1, y2)) / TILE_HEIGHT));
+		int maxTileX = Math.min(tilesX - 1, (int) Math.floor(Math.max(x0, Math.max(x1, x2)) / TILE_WIDTH));
+		int maxTileY = Math.min(tilesY - 1, (int) Math.floor(Math.max(y0, Math.max(y1, y2)) / TILE_HEIGHT));
+		if (minTileX > maxTileX || minTileY > maxTileY) {
+			return;
+		}
+		if ((triangleCount + 1) * TRIANGLE_FLOATS > triangles.length) {
+			triangles = Arrays.copyOf(triangles, triangles.length * 2);
+		}
+		int t = triangleCount * TRIANGLE_FLOATS;
+		//统一为正的面积，这样三条边的函数在三角形内都是正的
+		triangles[t] = x0;
+		triangles[t + 1] = y0;
+		triangles[t + 2] = z0;
+		triangles[t + 3] = area > 0 ? x1 : x2;
+		triangles[t + 4] = area > 0 ? y1 : y2;
+		triangles[t + 5] = area > 0 ? z1 : z2;
+		triangles[t + 6] = area > 0 ? x2 : x1;
+		triangles[t + 7] = area > 0 ? y2 : y1;
+		triangles[t + 8] = area > 0 ? z2 : z1;
+		for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+			for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+				int tile = tileY * tilesX + tileX;
+				if (binCounts[tile] == bins[tile].length) {
+					bins[tile] = Arrays.copyOf(bins[tile], binCounts[tile] * 2);
+				}
+				bins[tile][binCounts[tile]++] = triangleCount;
+			}
+		}
+		triangleCount++;
+	}
+
+	/**
+	 * Clears the tile and draws every triangle of its bin into it, keeping the
+	 * nearest depth. Only writes the tile's own pixels, so tiles can be drawn
+	 * at the same time.
+	 * 清空图块，并把它的所有三角形画进去，保留最近的深度。只写图块自己的像素，所以多个
+	 * 图块可以同时绘制。
+	 */
+	private void rasterizeTile(int tile) {
+		float[] depths = levels[0];
+		int tileMinX = (tile % tilesX) * TILE_WIDTH;
+		int tileMinY = (tile / tilesX) * TILE_HEIGHT;
+		for (int y = tileMinY; y < tileMinY + TILE_HEIGHT; y++) {
+			Arrays.fill(depths, y * width + tileMinX, y * width + tileMinX + TILE_WIDTH, 1);
+		}
+		int[] bin = bins[tile];
+		for (int b = 0; b < binCounts[tile]; b++) {
+			int t = bin[b] * TRIANGLE_FLOATS;
+			float x0 = triangles[t], y0 = triangles[t + 1], z0 = triangles[t + 2];
+			float x1 = triangles[t + 3], y1 = triangles[t + 4], z1 = triangles[t + 5];
+			float x2 = triangles[t + 6], y2 = triangles[t + 7], z2 = triangles[t + 8];
+			//边函数 E(x, y) = a * x + b * y + c，在三角形内为正
+			float a0 = y0 - y1, b0 = x1 - x0, c0 = -(a0 * x0 + b0 * y0);
+			float a1 = y1 - y2, b1 = x2 - x1, c1 = -(a1 * x1 + b1 * y1);
+			float a2 = y2 - y0, b2 = x0 - x2, c2 = -(a2 * x2 + b2 * y2);
+			//深度在屏幕空间中是线性的：z = za * x + zb * y + zc
+			float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+			float za = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) / area;
+			float zb = ((x1 - x0) * (z2 - z0) - (x2 - x0) * (z1 - z0)) / area;
+			float zc = z0 - za * x0 - zb * y0;
+			int minX = Math.max(tileMinX, (int) Math.min(x0, Math.min(x1, x2)));
+			int maxX = Math.min(tileMinX + TILE_WIDTH - 1, (int) Math.max(x0, Math.max(x1, x2)));
+			int minY = Math.max(tileMinY, (int) Math.min(y0, Math.min(y1, y2)));
+			int maxY = Math.min(tileMinY + TILE_HEIGHT - 1, (int) Math.max(y0, Math.max(y1, y2)));
+			//每条边与一行的交点x = -(b * y + c) / a - 0.5，预先算出倒数
+			float inverse0 = 1 / a0, inverse1 = 1 / a1, inverse2 = 1 / a2;
+			for (int y = minY; y <= maxY; y++) {
+				//在像素中心采样；先由三条边算出这一行被覆盖的一段，这段里只剩下深度运算
+				float sampleY = y + 0.5f;
+				float k0 = b0 * sampleY + c0, k1 = b1 * sampleY + c1, k2 = b2 * sampleY + c2;
+				int start = Math.max(minX, Math.max(spanStart(a0, inverse0, k0),
+						Math.max(spanStart(a1, inverse1, k1), spanStart(a2, inverse2, k2))));
+				int end = Math.min(maxX, Math.min(spanEnd(a0, inverse0, k0),
+						Math.min(spanEnd(a1, inverse1, k1), spanEnd(a2, inverse2, k2))));
+				float z = za * (start + 0.5f) + zb * sampleY + zc;
+				int row = y * width;
+				for (int x = start; x <= end; x++) {
+					float depth = depths[row + x];
+					depths[row + x] = z < depth ? z : depth;
+					z += za;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The first pixel x where a * (x + 0.5) + k >= 0 holds (or a
+	 *         large value if it holds nowhere).
+	 *         a * (x + 0.5) + k >= 0成立的第一个像素x（处处不成立时为一个很大的值）
+	 */
+	private static int spanStart(float a, float inverseA, float k) {
+		if (a > 0) {
+			//向上取整，比Math.ceil快
+			float x = -k * inverseA - 0.5f;
+			int start = (int) x;
+			return start < x ? start + 1 : start;
+		}
+		return a < 0 || k >= 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return The last pixel x where a * (x + 0.5) + k >= 0 holds (or a
+	 *         small value if it holds nowhere).
+	 *         a * (x + 0.5) + k >= 0成立的最后一个像素x（处处不成立时为一个很小的值）
+	 */
+	private static int spanEnd(float a, float inverseA, float k) {
+		if (a < 0) {
+			float x = -k * inverseA - 0.5f;
+			int end = (int) x;
+			return end > x ? end - 1 : end;
+		}
+		return a > 0 || k >= 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Builds each level of the pyramid from the one below, every texel keeping
+	 * the farthest of the (up to) four texels it covers.
+	 * 由下一层生成金字塔的每一层，每个纹素保留它覆盖的（最多）四个纹素中最远的深度。
+	 */
+	private void buildPyramid() {
+		for (int level = 1; level < levels.length; level++) {
+			float[] source = levels[level - 1];
+			float[] dest = levels[level];
+			int sourceWidth = levelWidths[level - 1];
+			int sourceHeight = levelHeights[level - 1];
+			int destWidth = levelWidths[level];
+			for (int y = 0; y < levelHeights[level]; y++) {
+				int row0 = (y * 2) * sourceWidth;
+				int row1 = Math.min(y * 2 + 1, sourceHeight - 1) * sourceWidth;
+				for (int x = 0; x < destWidth; x++) {
+					int sx0 = x * 2;
+					int sx1 = Math.min(sx0 + 1, sourceWidth - 1);
+					dest[y * destWidth + x] = Math.max(Math.max(source[row0 + sx0], source[row0 + sx1]),
+							Math.max(source[row1 + sx0], source[row1 + sx1]));
+				}
+			}
+		}
+	}
+
+	private static void join(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,278 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The OpenGL calls made by the engine. The render engine and shaders talk to
+ * this interface instead of calling the static GL11/GL15/GL20/GL30... methods
+ * directly, so the same code can run on the real driver ({@link LwjglDevice})
+ * or on a machine without a GPU ({@link RecordingDevice}), where the calls are
+ * checked and counted instead.
+ * 引擎使用的OpenGL调用。渲染引擎和着色器通过这个接口调用OpenGL，而不是直接调用
+ * GL11/GL15/GL20/GL30等静态方法，所以同样的代码既可以在真正的驱动上运行
+ * (LwjglDevice)，也可以在没有GPU的机器上运行(RecordingDevice)，此时调用会被
+ * 检查和计数。
+ * 
+ * The methods are named after the GL functions without the "gl" prefix and take
+ * the same GL constants. Names of objects (buffers, VAOs, textures...) are
+ * ints, like in OpenGL; fences are also given int names.
+ * 方法以去掉"gl"前缀的GL函数命名，使用相同的GL常量。对象（缓存，VAO，纹理等）
+ * 的名字与OpenGL一样是int；栅栏也使用int名字。
+ */
+public interface GLDevice {
+
+	/**
+	 * @return Whether glMultiDrawElementsIndirect can be used.
+	 *         是否可以使用glMultiDrawElementsIndirect
+	 */
+	boolean supportsMultiDrawIndirect();
+
+	/**
+	 * @return Whether glBufferStorage (and so persistent mapping) can be used.
+	 *         是否可以使用glBufferStorage（以及持久映射）
+	 */
+	boolean supportsBufferStorage();
+
+	/**
+	 * @return Whether timer queries (glQueryCounter with GL_TIMESTAMP and 64
+	 *         bit results) can be used.
+	 *         是否可以使用计时查询（使用GL_TIMESTAMP的glQueryCounter以及64位结果）
+	 */
+	boolean supportsTimerQuery();
+
+	void viewport(int x, int y, int width, int height);
+
+	void clearColor(float red, float green, float blue, float alpha);
+
+	void clear(int mask);
+
+	void enable(int capability);
+
+	void disable(int capability);
+
+	int genBuffer();
+
+	void bindBuffer(int target, int bufferID);
+
+	void bufferData(int target, ByteBuffer data, int usage);
+
+	void bufferData(int target, FloatBuffer data, int usage);
+
+	void bufferData(int target, IntBuffer data, int usage);
+
+	void bufferData(int target, long size, int usage);
+
+	void bufferSubData(int target, long offset, ByteBuffer data);
+
+	void bufferSubData(int target, long offset, IntBuffer data);
+
+	void bufferStorage(int target, long size, int flags);
+
+	ByteBuffer mapBufferRange(int target, long offset, long length, int access);
+
+	void unmapBuffer(int target);
+
+	void deleteBuffer(int bufferID);
+
+	/**
+	 * Deletes every buffer named between the position and limit of the
+	 * IntBuffer in one call.
+	 * 用一次调用删除IntBuffer的position和limit之间列出的所有缓存。
+	 */
+	void deleteBuffers(IntBuffer bufferIDs);
+
+	int genVertexArray();
+
+	void bindVertexArray(int vaoID);
+
+	void deleteVertexArray(int vaoID);
+
+	void deleteVertexArrays(IntBuffer vaoIDs);
+
+	void vertexAttribPointer(int attribute, int size, int type, boolean normalized, int stride, long offset);
+
+	/**
+	 * @param divisor
+	 *            - 0 to advance the attribute every vertex, n to advance it
+	 *            every n instances (OpenGL 3.3).
+	 *            - 0表示每个顶点前进一次，n表示每n个实例前进一次（OpenGL 3.3）
+	 */
+	void vertexAttribDivisor(int attribute, int divisor);
+
+	void enableVertexAttribArray(int attribute);
+
+	void disableVertexAttribArray(int attribute);
+
+	int genTexture();
+
+	void activeTexture(int textureUnit);
+
+	void bindTexture(int target, int textureID);
+
+	void texImage2D(int target, int level, int internalFormat, int width, int height, int format, int type,
+			ByteBuffer pixels);
+
+	void texParameteri(int target, int name, int value);
+
+	void deleteTexture(int textureID);
+
+	void deleteTextures(IntBuffer textureIDs);
+
+	int genFramebuffer();
+
+	/**
+	 * Makes draws go to the framebuffer, or to the window for 0 (OpenGL 3.0).
+	 * 让绘制输出到这个帧缓存，0表示输出到窗口（OpenGL 3.0）。
+	 */
+	void bindFramebuffer(int target, int framebufferID);
+
+	/**
+	 * Attaches a level of a texture to the bound framebuffer, so draws write
+	 * into the texture.
+	 * 把纹理的一层附加到绑定的帧缓存上，这样绘制会写入这个纹理。
+	 */
+	void framebufferTexture2D(int target, int attachment, int textureTarget, int textureID, int level);
+
+	int genRenderbuffer();
+
+	void bindRenderbuffer(int target, int renderbufferID);
+
+	void renderbufferStorage(int target, int internalFormat, int width, int height);
+
+	/**
+	 * Attaches a renderbuffer to the bound framebuffer, e.g. a depth buffer
+	 * that is never sampled.
+	 * 把渲染缓存附加到绑定的帧缓存上，例如从不被采样的深度缓存。
+	 */
+	void framebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbufferID);
+
+	/**
+	 * @return GL_FRAMEBUFFER_COMPLETE if the bound framebuffer can be drawn
+	 *         to, otherwise the reason why not.
+	 *         如果可以绘制到绑定的帧缓存则返回GL_FRAMEBUFFER_COMPLETE，否则返回原因
+	 */
+	int checkFramebufferStatus(int target);
+
+	void deleteFramebuffer(int framebufferID);
+
+	void deleteRenderbuffer(int renderbufferID);
+
+	int createShader(int type);
+
+	void shaderSource(int shaderID, CharSequence source);
+
+	void compileShader(int shaderID);
+
+	int getShaderi(int shaderID, int name);
+
+	String getShaderInfoLog(int shaderID, int maxLength);
+
+	void deleteShader(int shaderID);
+
+	int createProgram();
+
+	void attachShader(int programID, int shaderID);
+
+	void detachShader(int programID, int shaderID);
+
+	void bindAttribLocation(int programID, int attribute, CharSequence name);
+
+	void linkProgram(int programID);
+
+	void validateProgram(int programID);
+
+	int getProgrami(int programID, int name);
+
+	String getProgramInfoLog(int programID, int maxLength);
+
+	void useProgram(int programID);
+
+	void deleteProgram(int programID);
+
+	int getUniformLocation(int programID, CharSequence name);
+
+	void uniform1i(int location, int value);
+
+	void uniform1f(int location, float value);
+
+	/**
+	 * @param matrices
+	 *            - One or more 4x4 matrices (16 floats each), from position to
+	 *            limit.
+	 *            - 一个或多个4x4矩阵（每个16个float），从position到limit
+	 */
+	void uniformMatrix4(int location, boolean transpose, FloatBuffer matrices);
+
+	/**
+	 * Binds part of a buffer to an indexed binding point, e.g. the data of a
+	 * uniform block (OpenGL 3.1). For uniform buffers the offset must be a
+	 * multiple of GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT, which is never more than
+	 * 256.
+	 * 把缓存的一部分绑定到一个带下标的绑定点，例如uniform块的数据（OpenGL 3.1）。
+	 * 对于uniform缓存，偏移量必须是GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT的倍数，它
+	 * 不会超过256。
+	 */
+	void bindBufferRange(int target, int index, int bufferID, long offset, long size);
+
+	/**
+	 * @return The index of the named uniform block, or GL_INVALID_INDEX.
+	 *         这个名字的uniform块的下标，或GL_INVALID_INDEX
+	 */
+	int getUniformBlockIndex(int programID, CharSequence name);
+
+	void uniformBlockBinding(int programID, int blockIndex, int binding);
+
+	void drawArrays(int mode, int first, int count);
+
+	void drawElements(int mode, int count, int type, long offset);
+
+	void drawElementsBaseVertex(int mode, int count, int type, long offset, int baseVertex);
+
+	void drawElementsInstancedBaseVertex(int mode, int count, int type, long offset, int instances, int baseVertex);
+
+	void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride);
+
+	/**
+	 * @return The name of a new fence placed after all commands so far.
+	 *         在目前所有命令之后放置的新栅栏的名字
+	 */
+	int fenceSync();
+
+	/**
+	 * @return GL_ALREADY_SIGNALED, GL_CONDITION_SATISFIED, GL_TIMEOUT_EXPIRED
+	 *         or GL_WAIT_FAILED, like glClientWaitSync.
+	 *         与glClientWaitSync一样，返回GL_ALREADY_SIGNALED，
+	 *         GL_CONDITION_SATISFIED，GL_TIMEOUT_EXPIRED或GL_WAIT_FAILED
+	 */
+	int clientWaitSync(int fence, int flags, long timeoutNanos);
+
+	void deleteSync(int fence);
+
+	int genQuery();
+
+	/**
+	 * Records the GPU time into the query once all commands so far have
+	 * finished. The target must be GL_TIMESTAMP.
+	 * 在目前所有命令完成时将GPU时间记录到查询中。target必须是GL_TIMESTAMP。
+	 */
+	void queryCounter(int query, int target);
+
+	/**
+	 * Used with GL_QUERY_RESULT_AVAILABLE to check, without waiting, whether
+	 * the result is ready.
+	 * 与GL_QUERY_RESULT_AVAILABLE一起使用，不需等待就可以检查结果是否已经就绪。
+	 */
+	int getQueryObjecti(int query, int pname);
+
+	/**
+	 * Used with GL_QUERY_RESULT to read a time in nanoseconds. Waits for the
+	 * GPU if the result isn't ready yet.
+	 * 与GL_QUERY_RESULT一起使用来读取以纳秒为单位的时间。如果结果还没有就绪会等待GPU。
+	 */
+	long getQueryObjectui64(int query, int pname);
+
+	void deleteQuery(int query);
+
+}
@@ -0,0 +1,490 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.opengl.ARBBufferStorage;
+import org.lwjgl.opengl.ARBMultiDrawIndirect;
+import org.lwjgl.opengl.ARBTimerQuery;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.opengl.GLContext;
+import org.lwjgl.opengl.GLSync;
+
+/**
+ * Makes the real OpenGL calls through LWJGL. Must be created after the display
+ * (see DisplayManager.createDisplay()) and only used on the thread that owns
+ * the context.
+ * 通过LWJGL进行真正的OpenGL调用。必须在创建显示窗口之后创建（参见
+ * DisplayManager.createDisplay()），并且只能在拥有上下文的线程上使用。
+ */
+public class LwjglDevice implements GLDevice {
+
+	private final boolean coreMultiDraw;
+	private final boolean arbMultiDraw;
+	private final boolean coreBufferStorage;
+	private final boolean arbBufferStorage;
+	private final boolean coreTimerQuery;
+	private final boolean arbTimerQuery;
+	private final List<GLSync> fences = new ArrayList<GLSync>();
+	private final List<Integer> freeFences = new ArrayList<Integer>();
+
+	public LwjglDevice() {
+		ContextCapabilities capabilities = GLContext.getCapabilities();
+		coreMultiDraw = capabilities.OpenGL43;
+		arbMultiDraw = !coreMultiDraw && capabilities.GL_ARB_multi_draw_indirect;
+		coreBufferStorage = capabilities.OpenGL44;
+		arbBufferStorage = !coreBufferStorage && capabilities.GL_ARB_buffer_storage;
+		coreTimerQuery = capabilities.OpenGL33;
+		arbTimerQuery = !coreTimerQuery && capabilities.GL_ARB_timer_query;
+	}
+
+	@Override
+	public boolean supportsMultiDrawIndirect() {
+		return coreMultiDraw || arbMultiDraw;
+	}
+
+	@Override
+	public boolean supportsBufferStorage() {
+		return coreBufferStorage || arbBufferStorage;
+	}
+
+	@Override
+	public boolean supportsTimerQuery() {
+		return coreTimerQuery || arbTimerQuery;
+	}
+
+	@Override
+	public void viewport(int x, int y, int width, int height) {
+		GL11.glViewport(x, y, width, height);
+	}
+
+	@Override
+	public void clearColor(float red, float green, float blue, float alpha) {
+		GL11.glClearColor(red, green, blue, alpha);
+	}
+
+	@Override
+	public void clear(int mask) {
+		GL11.glClear(mask);
+	}
+
+	@Override
+	public void enable(int capability) {
+		GL11.glEnable(capability);
+	}
+
+	@Override
+	public void disable(int capability) {
+		GL11.glDisable(capability);
+	}
+
+	@Override
+	public int genBuffer() {
+		return GL15.glGenBuffers();
+	}
+
+	@Override
+	public void bindBuffer(int target, int bufferID) {
+		GL15.glBindBuffer(target, bufferID);
+	}
+
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage) {
+		GL15.glBufferData(target, data, usage);
+	}
+
+	@Override
+	public void bufferData(int target, FloatBuffer data, int usage) {
+		GL15.glBufferData(target, data, usage);
+	}
+
+	@Override
+	public void bufferData(int target, IntBuffer data, int usage) {
+		GL15.glBufferData(target, data, usage);
+	}
+
+	@Override
+	public void bufferData(int target, long size, int usage) {
+		GL15.glBufferData(target, size, usage);
+	}
+
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data) {
+		GL15.glBufferSubData(target, offset, data);
+	}
+
+	@Override
+	public void bufferSubData(int target, long offset, IntBuffer data) {
+		GL15.glBufferSubData(target, offset, data);
+	}
+
+	@Override
+	public void bufferStorage(int target, long size, int flags) {
+		if (coreBufferStorage) {
+			GL44.glBufferStorage(target, size, flags);
+		} else {
+			ARBBufferStorage.glBufferStorage(target, size, flags);
+		}
+	}
+
+	@Override
+	public ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+		return GL30.glMapBufferRange(target, offset, length, access, null);
+	}
+
+	@Override
+	public void unmapBuffer(int target) {
+		GL15.glUnmapBuffer(target);
+	}
+
+	@Override
+	public void deleteBuffer(int bufferID) {
+		GL15.glDeleteBuffers(bufferID);
+	}
+
+	@Override
+	public void deleteBuffers(IntBuffer bufferIDs) {
+		GL15.glDeleteBuffers(bufferIDs);
+	}
+
+	@Override
+	public int genVertexArray() {
+		return GL30.glGenVertexArrays();
+	}
+
+	@Override
+	public void bindVertexArray(int vaoID) {
+		GL30.glBindVertexArray(vaoID);
+	}
+
+	@Override
+	public void deleteVertexArray(int vaoID) {
+		GL30.glDeleteVertexArrays(vaoID);
+	}
+
+	@Override
+	public void deleteVertexArrays(IntBuffer vaoIDs) {
+		GL30.glDeleteVertexArrays(vaoIDs);
+	}
+
+	@Override
+	public void vertexAttribPointer(int attribute, int size, int type, boolean normalized, int stride, long offset) {
+		GL20.glVertexAttribPointer(attribute, size, type, normalized, stride, offset);
+	}
+
+	@Override
+	public void vertexAttribDivisor(int attribute, int divisor) {
+		GL33.glVertexAttribDivisor(attribute, divisor);
+	}
+
+	@Override
+	public void enableVertexAttribArray(int attribute) {
+		GL20.glEnableVertexAttribArray(attribute);
+	}
+
+	@Override
+	public void disableVertexAttribArray(int attribute) {
+		GL20.glDisableVertexAttribArray(attribute);
+	}
+
+	@Override
+	public int genTexture() {
+		return GL11.glGenTextures();
+	}
+
+	@Override
+	public void activeTexture(int textureUnit) {
+		GL13.glActiveTexture(textureUnit);
+	}
+
+	@Override
+	public void bindTexture(int target, int textureID) {
+		GL11.glBindTexture(target, textureID);
+	}
+
+	@Override
+	public void texImage2D(int target, int level, int internalFormat, int width, int height, int format, int type,
+			ByteBuffer pixels) {
+		GL11.glTexImage2D(target, level, internalFormat, width, height, 0, format, type, pixels);
+	}
+
+	@Override
+	public void texParameteri(int target, int name, int value) {
+		GL11.glTexParameteri(target, name, value);
+	}
+
+	@Override
+	public void deleteTexture(int textureID) {
+		GL11.glDeleteTextures(textureID);
+	}
+
+	@Override
+	public void deleteTextures(IntBuffer textureIDs) {
+		GL11.glDeleteTextures(textureIDs);
+	}
+
+	@Override
+	public int genFramebuffer() {
+		return GL30.glGenFramebuffers();
+	}
+
+	@Override
+	public void bindFramebuffer(int target, int framebufferID) {
+		GL30.glBindFramebuffer(target, framebufferID);
+	}
+
+	@Override
+	public void framebufferTexture2D(int target, int attachment, int textureTarget, int textureID, int level) {
+		GL30.glFramebufferTexture2D(target, attachment, textureTarget, textureID, level);
+	}
+
+	@Override
+	public int genRenderbuffer() {
+		return GL30.glGenRenderbuffers();
+	}
+
+	@Override
+	public void bindRenderbuffer(int target, int renderbufferID) {
+		GL30.glBindRenderbuffer(target, renderbufferID);
+	}
+
+	@Override
+	public void renderbufferStorage(int target, int internalFormat, int width, int height) {
+		GL30.glRenderbufferStorage(target, internalFormat, width, height);
+	}
+
+	@Override
+	public void framebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbufferID) {
+		GL30.glFramebufferRenderbuffer(target, attachment, renderbufferTarget, renderbufferID);
+	}
+
+	@Override
+	public int checkFramebufferStatus(int target) {
+		return GL30.glCheckFramebufferStatus(target);
+	}
+
+	@Override
+	public void deleteFramebuffer(int framebufferID) {
+		GL30.glDeleteFramebuffers(framebufferID);
+	}
+
+	@Override
+	public void deleteRenderbuffer(int renderbufferID) {
+		GL30.glDeleteRenderbuffers(renderbufferID);
+	}
+
+	@Override
+	public int createShader(int type) {
+		return GL20.glCreateShader(type);
+	}
+
+	@Override
+	public void shaderSource(int shaderID, CharSequence source) {
+		GL20.glShaderSource(shaderID, source);
+	}
+
+	@Override
+	public void compileShader(int shaderID) {
+		GL20.glCompileShader(shaderID);
+	}
+
+	@Override
+	public int getShaderi(int shaderID, int name) {
+		return GL20.glGetShaderi(shaderID, name);
+	}
+
+	@Override
+	public String getShaderInfoLog(int shaderID, int maxLength) {
+		return GL20.glGetShaderInfoLog(shaderID, maxLength);
+	}
+
+	@Override
+	public void deleteShader(int shaderID) {
+		GL20.glDeleteShader(shaderID);
+	}
+
+	@Override
+	public int createProgram() {
+		return GL20.glCreateProgram();
+	}
+
+	@Override
+	public void attachShader(int programID, int shaderID) {
+		GL20.glAttachShader(programID, shaderID);
+	}
+
+	@Override
+	public void detachShader(int programID, int shaderID) {
+		GL20.glDetachShader(programID, shaderID);
+	}
+
+	@Override
+	public void bindAttribLocation(int programID, int attribute, CharSequence name) {
+		GL20.glBindAttribLocation(programID, attribute, name);
+	}
+
+	@Override
+	public void linkProgram(int programID) {
+		GL20.glLinkProgram(programID);
+	}
+
+	@Override
+	public void validateProgram(int programID) {
+		GL20.glValidateProgram(programID);
+	}
+
+	@Override
+	public int getProgrami(int programID, int name) {
+		return GL20.glGetProgrami(programID, name);
+	}
+
+	@Override
+	public String getProgramInfoLog(int programID, int maxLength) {
+		return GL20.glGetProgramInfoLog(programID, maxLength);
+	}
+
+	@Override
+	public void useProgram(int programID) {
+		GL20.glUseProgram(programID);
+	}
+
+	@Override
+	public void deleteProgram(int programID) {
+		GL20.glDeleteProgram(programID);
+	}
+
+	@Override
+	public int getUniformLocation(int programID, CharSequence name) {
+		return GL20.glGetUniformLocation(programID, name);
+	}
+
+	@Override
+	public void uniform1i(int location, int value) {
+		GL20.glUniform1i(location, value);
+	}
+
+	@Override
+	public void uniform1f(int location, float value) {
+		GL20.glUniform1f(location, value);
+	}
+
+	@Override
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrices) {
+		GL20.glUniformMatrix4(location, transpose, matrices);
+	}
+
+	@Override
+	public void bindBufferRange(int target, int index, int bufferID, long offset, long size) {
+		GL30.glBindBufferRange(target, index, bufferID, offset, size);
+	}
+
+	@Override
+	public int getUniformBlockIndex(int programID, CharSequence name) {
+		return GL31.glGetUniformBlockIndex(programID, name);
+	}
+
+	@Override
+	public void uniformBlockBinding(int programID, int blockIndex, int binding) {
+		GL31.glUniformBlockBinding(programID, blockIndex, binding);
+	}
+
+	@Override
+	public void drawArrays(int mode, int first, int count) {
+		GL11.glDrawArrays(mode, first, count);
+	}
+
+	@Override
+	public void drawElements(int mode, int count, int type, long offset) {
+		GL11.glDrawElements(mode, count, type, offset);
+	}
+
+	@Override
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset, int baseVertex) {
+		GL32.glDrawElementsBaseVertex(mode, count, type, offset, baseVertex);
+	}
+
+	@Override
+	public void drawElementsInstancedBaseVertex(int mode, int count, int type, long offset, int instances,
+			int baseVertex) {
+		GL32.glDrawElementsInstancedBaseVertex(mode, count, type, offset, instances, baseVertex);
+	}
+
+	@Override
+	public void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride) {
+		if (coreMultiDraw) {
+			GL43.glMultiDrawElementsIndirect(mode, type, offset, drawCount, stride);
+		} else {
+			ARBMultiDrawIndirect.glMultiDrawElementsIndirect(mode, type, offset, drawCount, stride);
+		}
+	}
+
+	@Override
+	public int fenceSync() {
+		GLSync sync = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		if (freeFences.isEmpty()) {
+			fences.add(sync);
+			return fences.size();
+		}
+		int fence = freeFences.remove(freeFences.size() - 1);
+		fences.set(fence - 1, sync);
+		return fence;
+	}
+
+	@Override
+	public int clientWaitSync(int fence, int flags, long timeoutNanos) {
+		return GL32.glClientWaitSync(fences.get(fence - 1), flags, timeoutNanos);
+	}
+
+	@Override
+	public void deleteSync(int fence) {
+		GL32.glDeleteSync(fences.get(fence - 1));
+		fences.set(fence - 1, null);
+		freeFences.add(fence);
+	}
+
+	@Override
+	public int genQuery() {
+		return GL15.glGenQueries();
+	}
+
+	@Override
+	public void queryCounter(int query, int target) {
+		if (coreTimerQuery) {
+			GL33.glQueryCounter(query, target);
+		} else {
+			ARBTimerQuery.glQueryCounter(query, target);
+		}
+	}
+
+	@Override
+	public int getQueryObjecti(int query, int pname) {
+		return GL15.glGetQueryObjecti(query, pname);
+	}
+
+	@Override
+	public long getQueryObjectui64(int query, int pname) {
+		if (coreTimerQuery) {
+			return GL33.glGetQueryObjectui64(query, pname);
+		}
+		return ARBTimerQuery.glGetQueryObjectui64(query, pname);
+	}
+
+	@Override
+	public void deleteQuery(int query) {
+		GL15.glDeleteQueries(query);
+	}
+
+}
@@ -0,0 +1,1414 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GL40;
+
+/**
+ * A device that needs no GPU. It keeps track of the OpenGL objects and state
+ * the calls would have created, checks every call against that state (for
+ * example drawing without a VAO or program bound, an enabled attribute with no
+ * pointer, indices past the end of the index buffer, vertices past the end of
+ * an attribute's buffer, using a deleted name...)
+ * and counts calls, draws and uploaded bytes. This lets the CPU side of the
+ * renderer be tested and benchmarked on build machines without a graphics
+ * card, and the counts make a good regression check.
+ * 不需要GPU的设备。它记录这些调用本应创建的OpenGL对象和状态，根据这些状态检查
+ * 每一个调用（例如没有绑定VAO或着色器程序就绘制，启用的attribute没有设置指针，
+ * 索引超出索引缓存，顶点超出attribute的缓存，使用已删除的名字等），并统计调用次数，绘制次数和上传的字节数。
+ * 这样渲染器的CPU部分可以在没有显卡的构建机器上测试和测量性能，这些计数也很适合
+ * 用来做回归检查。
+ * 
+ * Timer queries are answered as if the GPU finished every command the moment
+ * it was issued: a timestamp query holds the System.nanoTime() of the
+ * queryCounter call and is available straight away.
+ * 计时查询的回答就像GPU在每个命令发出的瞬间就完成了它：时间戳查询保存的是
+ * 调用queryCounter时的System.nanoTime()，并且立即可用。
+ * 
+ * A shader whose source contains an #error directive fails to compile, as it
+ * would on a real driver, so code that handles broken shaders can be checked.
+ * 源码中含有#error指令的着色器会编译失败，与真正的驱动一样，这样可以检查处理
+ * 错误着色器的代码。
+ * 
+ * By default a problem throws an IllegalStateException straight away, so the
+ * stack trace points at the faulty call. In non-strict mode problems are
+ * collected instead, see {@link #getErrors()}.
+ * 默认情况下出现问题会立即抛出IllegalStateException，所以调用栈会指向出错的调用。
+ * 在非严格模式下问题会被收集起来，参见getErrors()。
+ */
+public class RecordingDevice implements GLDevice {
+
+	private static final int ARRAY_TARGET = 0;
+	private static final int INDIRECT_TARGET = 1;
+	private static final int UNIFORM_TARGET = 2;
+	private static final int TEXTURE_BUFFER_TARGET = 3;
+	private static final int TEXTURE_UNITS = 32;
+	private static final int VERTEX_ATTRIBUTES = 16;
+
+	private final boolean strict;
+	private final boolean multiDrawIndirect;
+	private final boolean bufferStorage;
+	private final boolean timerQuery;
+	private final List<String> errors = new ArrayList<String>();
+	private final List<String> calls = new ArrayList<String>();
+	private boolean logCalls;
+
+	private int nextName = 1;
+	private final BitSet buffers = new BitSet();
+	private final BitSet immutableBuffers = new BitSet();
+	private final BitSet mappedBuffers = new BitSet();
+	private long[] bufferSizes = new long[64];
+	private final int[] boundBuffers = new int[4];
+
+	private final BitSet vaos = new BitSet();
+	private int[] vaoElementBuffers = new int[64];
+	private int[] vaoEnabledAttributes = new int[64];
+	private int[] vaoAttributePointers = new int[64];
+	//只有存在的VAO才有，删除时丢弃，因为名字不会被重复使用
+	private AttributePointers[] vaoAttributes = new AttributePointers[64];
+	private int boundVao;
+
+	private final BitSet textures = new BitSet();
+	private final int[] boundTextures = new int[TEXTURE_UNITS];
+	private int activeUnit;
+
+	private final BitSet framebuffers = new BitSet();
+	private int[] framebufferColours = new int[64];
+	private int[] framebufferDepths = new int[64];
+	private int boundFramebuffer;
+	private final BitSet renderbuffers = new BitSet();
+	private int boundRenderbuffer;
+
+	private final BitSet shaders = new BitSet();
+	private final BitSet compiledShaders = new BitSet();
+	private final BitSet failingShaders = new BitSet();
+	private final BitSet programs = new BitSet();
+	private final BitSet linkedPrograms = new BitSet();
+	private final Map<String, Integer> uniformLocations = new HashMap<String, Integer>();
+	private int currentProgram;
+
+	private final BitSet fences = new BitSet();
+
+	private final BitSet queries = new BitSet();
+	private final BitSet issuedQueries = new BitSet();
+	private long[] queryResults = new long[64];
+
+	private long callCount;
+	private long drawCallCount;
+	private long drawCount;
+	private long bytesUploaded;
+
+	/**
+	 * Creates a strict device that reports support for every optional feature.
+	 * 创建一个严格的设备，报告支持所有可选功能
+	 */
+	public RecordingDevice() {
+		this(true, true, true, true);
+	}
+
+	/**
+	 * @param strict
+	 *            - Whether problems throw (true) or are only collected (false).
+	 *            - 出现问题时抛出异常(true)还是只收集起来(false)
+	 * @param multiDrawIndirect
+	 *            - Whether to report support for multi-draw indirect.
+	 *            - 是否报告支持multi-draw indirect
+	 * @param bufferStorage
+	 *            - Whether to report support for buffer storage.
+	 *            - 是否报告支持buffer storage
+	 */
+	public RecordingDevice(boolean strict, boolean multiDrawIndirect, boolean bufferStorage) {
+		this(strict, multiDrawIndirect, bufferStorage, true);
+	}
+
+	/**
+	 * @param timerQuery
+	 *            - Whether to report support for timer queries.
+	 *            - 是否报告支持计时查询
+	 */
+	public RecordingDevice(boolean strict, boolean multiDrawIndirect, boolean bufferStorage, boolean timerQuery) {
+		this.strict = strict;
+		this.multiDrawIndirect = multiDrawIndirect;
+		this.bufferStorage = bufferStorage;
+		this.timerQuery = timerQuery;
+	}
+
+	/**
+	 * Turns on writing every call down as text, see {@link #getCalls()}. Off
+	 * by default because building the text is slow.
+	 * 打开将每个调用记录为文本的功能，参见getCalls()。默认关闭，因为生成文本很慢。
+	 */
+	public void setLogCalls(boolean logCalls) {
+		this.logCalls = logCalls;
+	}
+
+	public List<String> getCalls() {
+		return calls;
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	public long getCallCount() {
+		return callCount;
+	}
+
+	/**
+	 * @return The number of calls that drew something.
+	 *         进行绘制的调用次数
+	 */
+	public long getDrawCallCount() {
+		return drawCallCount;
+	}
+
+	/**
+	 * @return The number of draws, counting each draw of a multi-draw call.
+	 *         绘制次数，multi-draw调用中的每次绘制都计算在内
+	 */
+	public long getDrawCount() {
+		return drawCount;
+	}
+
+	public long getBytesUploaded() {
+		return bytesUploaded;
+	}
+
+	/**
+	 * @return The number of buffers, VAOs, textures, shaders, programs and
+	 *         queries that have been created and not deleted yet.
+	 *         已创建但尚未删除的缓存，VAO，纹理，着色器，着色器程序和查询的数量
+	 */
+	public int getLiveObjectCount() {
+		return buffers.cardinality() + vaos.cardinality() + textures.cardinality() + shaders.cardinality()
+				+ programs.cardinality() + queries.cardinality();
+	}
+
+	/**
+	 * Sets all counters back to zero and forgets the logged calls, for example
+	 * at the start of each frame. Objects and state are kept.
+	 * 将所有计数器归零并清除记录的调用，例如在每帧开始时。对象和状态会被保留。
+	 */
+	public void resetCounters() {
+		callCount = 0;
+		drawCallCount = 0;
+		drawCount = 0;
+		bytesUploaded = 0;
+		calls.clear();
+	}
+
+	@Override
+	public boolean supportsMultiDrawIndirect() {
+		return multiDrawIndirect;
+	}
+
+	@Override
+	public boolean supportsBufferStorage() {
+		return bufferStorage;
+	}
+
+	@Override
+	public boolean supportsTimerQuery() {
+		return timerQuery;
+	}
+
+	@Override
+	public void viewport(int x, int y, int width, int height) {
+		if (call()) {
+			log("viewport " + x + " " + y + " " + width + " " + height);
+		}
+	}
+
+	@Override
+	public void clearColor(float red, float green, float blue, float alpha) {
+		if (call()) {
+			log("clearColor " + red + " " + green + " " + blue + " " + alpha);
+		}
+	}
+
+	@Override
+	public void clear(int mask) {
+		if (call()) {
+			log("clear " + mask);
+		}
+	}
+
+	@Override
+	public void enable(int capability) {
+		if (call()) {
+			log("enable " + capability);
+		}
+	}
+
+	@Override
+	public void disable(int capability) {
+		if (call()) {
+			log("disable " + capability);
+		}
+	}
+
+	@Override
+	public int genBuffer() {
+		int name = nextName++;
+		buffers.set(name);
+		bufferSizes = ensureLength(bufferSizes, name);
+		bufferSizes[name] = 0;
+		if (call()) {
+			log("genBuffer -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void bindBuffer(int target, int bufferID) {
+		if (call()) {
+			log("bindBuffer " + target + " " + bufferID);
+		}
+		if (bufferID != 0 && !buffers.get(bufferID)) {
+			error("bindBuffer: " + bufferID + " is not a buffer");
+		}
+		if (target == GL15.GL_ELEMENT_ARRAY_BUFFER) {
+			vaoElementBuffers[boundVao] = bufferID;
+		} else {
+			boundBuffers[targetIndex(target)] = bufferID;
+		}
+	}
+
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage) {
+		storeBufferData(target, data.remaining(), true, "bufferData");
+	}
+
+	@Override
+	public void bufferData(int target, FloatBuffer data, int usage) {
+		storeBufferData(target, data.remaining() * 4L, true, "bufferData");
+	}
+
+	@Override
+	public void bufferData(int target, IntBuffer data, int usage) {
+		storeBufferData(target, data.remaining() * 4L, true, "bufferData");
+	}
+
+	@Override
+	public void bufferData(int target, long size, int usage) {
+		storeBufferData(target, size, false, "bufferData");
+	}
+
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data) {
+		updateBufferData(target, offset, data.remaining());
+	}
+
+	@Override
+	public void bufferSubData(int target, long offset, IntBuffer data) {
+		updateBufferData(target, offset, data.remaining() * 4L);
+	}
+
+	@Override
+	public void bufferStorage(int target, long size, int flags) {
+		if (!bufferStorage) {
+			error("bufferStorage: not supported");
+		}
+		int buffer = storeBufferData(target, size, false, "bufferStorage");
+		if (buffer != 0) {
+			immutableBuffers.set(buffer);
+		}
+	}
+
+	@Override
+	public ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+		if (call()) {
+			log("mapBufferRange " + target + " " + offset + " " + length + " " + access);
+		}
+		int buffer = getBoundBuffer(target, "mapBufferRange");
+		if (buffer != 0) {
+			if (offset + length > bufferSizes[buffer]) {
+				error("mapBufferRange: range " + offset + "+" + length + " is outside buffer " + buffer + " of "
+						+ bufferSizes[buffer] + " bytes");
+			}
+			if (mappedBuffers.get(buffer)) {
+				error("mapBufferRange: buffer " + buffer + " is already mapped");
+			}
+			mappedBuffers.set(buffer);
+		}
+		return ByteBuffer.allocateDirect((int) length).order(ByteOrder.nativeOrder());
+	}
+
+	@Override
+	public void unmapBuffer(int target) {
+		if (call()) {
+			log("unmapBuffer " + target);
+		}
+		int buffer = getBoundBuffer(target, "unmapBuffer");
+		if (buffer != 0 && !mappedBuffers.get(buffer)) {
+			error("unmapBuffer: buffer " + buffer + " is not mapped");
+		}
+		mappedBuffers.clear(buffer);
+	}
+
+	@Override
+	public void deleteBuffer(int bufferID) {
+		if (call()) {
+			log("deleteBuffer " + bufferID);
+		}
+		forgetBuffer(bufferID, "deleteBuffer");
+	}
+
+	@Override
+	public void deleteBuffers(IntBuffer bufferIDs) {
+		if (call()) {
+			log("deleteBuffers " + bufferIDs.remaining());
+		}
+		for (int i = bufferIDs.position(); i < bufferIDs.limit(); i++) {
+			forgetBuffer(bufferIDs.get(i), "deleteBuffers");
+		}
+	}
+
+	@Override
+	public int genVertexArray() {
+		int name = nextName++;
+		vaos.set(name);
+		vaoElementBuffers = ensureLength(vaoElementBuffers, name);
+		vaoEnabledAttributes = ensureLength(vaoEnabledAttributes, name);
+		vaoAttributePointers = ensureLength(vaoAttributePointers, name);
+		vaoAttributes = ensureLength(vaoAttributes, name);
+		vaoAttributes[name] = new AttributePointers();
+		if (call()) {
+			log("genVertexArray -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void bindVertexArray(int vaoID) {
+		if (call()) {
+			log("bindVertexArray " + vaoID);
+		}
+		if (vaoID != 0 && !vaos.get(vaoID)) {
+			error("bindVertexArray: " + vaoID + " is not a vertex array");
+			return;
+		}
+		boundVao = vaoID;
+	}
+
+	@Override
+	public void deleteVertexArray(int vaoID) {
+		if (call()) {
+			log("deleteVertexArray " + vaoID);
+		}
+		forgetVertexArray(vaoID, "deleteVertexArray");
+	}
+
+	@Override
+	public void deleteVertexArrays(IntBuffer vaoIDs) {
+		if (call()) {
+			log("deleteVertexArrays " + vaoIDs.remaining());
+		}
+		for (int i = vaoIDs.position(); i < vaoIDs.limit(); i++) {
+			forgetVertexArray(vaoIDs.get(i), "deleteVertexArrays");
+		}
+	}
+
+	@Override
+	public void vertexAttribPointer(int attribute, int size, int type, boolean normalized, int stride, long offset) {
+		if (call()) {
+			log("vertexAttribPointer " + attribute + " " + size + " " + type + " " + normalized + " " + stride + " "
+					+ offset);
+		}
+		if (boundVao == 0) {
+			error("vertexAttribPointer: no vertex array bound");
+			return;
+		}
+		if (attribute < 0 || attribute >= VERTEX_ATTRIBUTES) {
+			error("vertexAttribPointer: attribute " + attribute + " of " + VERTEX_ATTRIBUTES);
+			return;
+		}
+		if (boundBuffers[ARRAY_TARGET] == 0) {
+			error("vertexAttribPointer: no GL_ARRAY_BUFFER bound for attribute " + attribute);
+		}
+		if (size < 1 || size > 4) {
+			error("vertexAttribPointer: size " + size + " for attribute " + attribute);
+		}
+		vaoAttributePointers[boundVao] |= 1 << attribute;
+		//指针记住调用时绑定的缓存，之后绑定别的缓存不影响它
+		AttributePointers pointers = vaoAttributes[boundVao];
+		int bytes = size * typeBytes(type);
+		pointers.buffers[attribute] = boundBuffers[ARRAY_TARGET];
+		pointers.offsets[attribute] = offset;
+		pointers.strides[attribute] = stride == 0 ? bytes : stride;
+		pointers.bytes[attribute] = bytes;
+	}
+
+	@Override
+	public void vertexAttribDivisor(int attribute, int divisor) {
+		if (call()) {
+			log("vertexAttribDivisor " + attribute + " " + divisor);
+		}
+		if (boundVao == 0) {
+			error("vertexAttribDivisor: no vertex array bound");
+			return;
+		}
+		if (attribute < 0 || attribute >= VERTEX_ATTRIBUTES) {
+			error("vertexAttribDivisor: attribute " + attribute + " of " + VERTEX_ATTRIBUTES);
+			return;
+		}
+		vaoAttributes[boundVao].divisors[attribute] = divisor;
+	}
+
+	@Override
+	public void enableVertexAttribArray(int attribute) {
+		if (call()) {
+			log("enableVertexAttribArray " + attribute);
+		}
+		if (boundVao == 0) {
+			error("enableVertexAttribArray: no vertex array bound");
+		}
+		vaoEnabledAttributes[boundVao] |= 1 << attribute;
+	}
+
+	@Override
+	public void disableVertexAttribArray(int attribute) {
+		if (call()) {
+			log("disableVertexAttribArray " + attribute);
+		}
+		if (boundVao == 0) {
+			error("disableVertexAttribArray: no vertex array bound");
+		}
+		vaoEnabledAttributes[boundVao] &= ~(1 << attribute);
+	}
+
+	@Override
+	public int genTexture() {
+		int name = nextName++;
+		textures.set(name);
+		if (call()) {
+			log("genTexture -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void activeTexture(int textureUnit) {
+		if (call()) {
+			log("activeTexture " + textureUnit);
+		}
+		int unit = textureUnit - GL13.GL_TEXTURE0;
+		if (unit < 0 || unit >= TEXTURE_UNITS) {
+			error("activeTexture: " + textureUnit + " is not a texture unit");
+			return;
+		}
+		activeUnit = unit;
+	}
+
+	@Override
+	public void bindTexture(int target, int textureID) {
+		if (call()) {
+			log("bindTexture " + target + " " + textureID);
+		}
+		if (textureID != 0 && !textures.get(textureID)) {
+			error("bindTexture: " + textureID + " is not a texture");
+		}
+		boundTextures[activeUnit] = textureID;
+	}
+
+	@Override
+	public void texImage2D(int target, int level, int internalFormat, int width, int height, int format, int type,
+			ByteBuffer pixels) {
+		if (call()) {
+			log("texImage2D " + target + " " + level + " " + internalFormat + " " + width + " " + height + " " + format
+					+ " " + type);
+		}
+		if (boundTextures[activeUnit] == 0) {
+			error("texImage2D: no texture bound to unit " + activeUnit);
+		}
+		if (pixels != null) {
+			bytesUploaded += pixels.remaining();
+		}
+	}
+
+	@Override
+	public void texParameteri(int target, int name, int value) {
+		if (call()) {
+			log("texParameteri " + target + " " + name + " " + value);
+		}
+		if (boundTextures[activeUnit] == 0) {
+			error("texParameteri: no texture bound to unit " + activeUnit);
+		}
+	}
+
+	@Override
+	public void deleteTexture(int textureID) {
+		if (call()) {
+			log("deleteTexture " + textureID);
+		}
+		forgetTexture(textureID, "deleteTexture");
+	}
+
+	@Override
+	public void deleteTextures(IntBuffer textureIDs) {
+		if (call()) {
+			log("deleteTextures " + textureIDs.remaining());
+		}
+		for (int i = textureIDs.position(); i < textureIDs.limit(); i++) {
+			forgetTexture(textureIDs.get(i), "deleteTextures");
+		}
+	}
+
+	@Override
+	public int genFramebuffer() {
+		int name = nextName++;
+		framebuffers.set(name);
+		framebufferColours = ensureLength(framebufferColours, name);
+		framebufferDepths = ensureLength(framebufferDepths, name);
+		if (call()) {
+			log("genFramebuffer -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void bindFramebuffer(int target, int framebufferID) {
+		if (call()) {
+			log("bindFramebuffer " + target + " " + framebufferID);
+		}
+		if (framebufferID != 0 && !framebuffers.get(framebufferID)) {
+			error("bindFramebuffer: " + framebufferID + " is not a framebuffer");
+			return;
+		}
+		boundFramebuffer = framebufferID;
+	}
+
+	@Override
+	public void framebufferTexture2D(int target, int attachment, int textureTarget, int textureID, int level) {
+		if (call()) {
+			log("framebufferTexture2D " + target + " " + attachment + " " + textureTarget + " " + textureID + " "
+					+ level);
+		}
+		if (boundFramebuffer == 0) {
+			error("framebufferTexture2D: no framebuffer bound");
+			return;
+		}
+		if (textureID != 0 && !textures.get(textureID)) {
+			error("framebufferTexture2D: " + textureID + " is not a texture");
+			return;
+		}
+		if (attachment == GL30.GL_COLOR_ATTACHMENT0) {
+			framebufferColours[boundFramebuffer] = textureID;
+		} else {
+			framebufferDepths[boundFramebuffer] = textureID;
+		}
+	}
+
+	@Override
+	public int genRenderbuffer() {
+		int name = nextName++;
+		renderbuffers.set(name);
+		if (call()) {
+			log("genRenderbuffer -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void bindRenderbuffer(int target, int renderbufferID) {
+		if (call()) {
+			log("bindRenderbuffer " + target + " " + renderbufferID);
+		}
+		if (renderbufferID != 0 && !renderbuffers.get(renderbufferID)) {
+			error("bindRenderbuffer: " + renderbufferID + " is not a renderbuffer");
+			return;
+		}
+		boundRenderbuffer = renderbufferID;
+	}
+
+	@Override
+	public void renderbufferStorage(int target, int internalFormat, int width, int height) {
+		if (call()) {
+			log("renderbufferStorage " + target + " " + internalFormat + " " + width + " " + height);
+		}
+		if (boundRenderbuffer == 0) {
+			error("renderbufferStorage: no renderbuffer bound");
+		}
+	}
+
+	@Override
+	public void framebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbufferID) {
+		if (call()) {
+			log("framebufferRenderbuffer " + target + " " + attachment + " " + renderbufferTarget + " "
+					+ renderbufferID);
+		}
+		if (boundFramebuffer == 0) {
+			error("framebufferRenderbuffer: no framebuffer bound");
+			return;
+		}
+		if (renderbufferID != 0 && !renderbuffers.get(renderbufferID)) {
+			error("framebufferRenderbuffer: " + renderbufferID + " is not a renderbuffer");
+			return;
+		}
+		if (attachment == GL30.GL_COLOR_ATTACHMENT0) {
+			framebufferColours[boundFramebuffer] = renderbufferID;
+		} else {
+			framebufferDepths[boundFramebuffer] = renderbufferID;
+		}
+	}
+
+	@Override
+	public int checkFramebufferStatus(int target) {
+		if (call()) {
+			log("checkFramebufferStatus " + target);
+		}
+		if (boundFramebuffer == 0) {
+			return GL30.GL_FRAMEBUFFER_COMPLETE;
+		}
+		if (framebufferColours[boundFramebuffer] == 0 && framebufferDepths[boundFramebuffer] == 0) {
+			return GL30.GL_FRAMEBUFFER_INCOMPLETE_MISSING_ATTACHMENT;
+		}
+		return GL30.GL_FRAMEBUFFER_COMPLETE;
+	}
+
+	@Override
+	public void deleteFramebuffer(int framebufferID) {
+		if (call()) {
+			log("deleteFramebuffer " + framebufferID);
+		}
+		if (!framebuffers.get(framebufferID)) {
+			error("deleteFramebuffer: " + framebufferID + " is not a framebuffer");
+			return;
+		}
+		framebuffers.clear(framebufferID);
+		framebufferColours[framebufferID] = 0;
+		framebufferDepths[framebufferID] = 0;
+		if (boundFramebuffer == framebufferID) {
+			boundFramebuffer = 0;
+		}
+	}
+
+	@Override
+	public void deleteRenderbuffer(int renderbufferID) {
+		if (call()) {
+			log("deleteRenderbuffer " + renderbufferID);
+		}
+		if (!renderbuffers.get(renderbufferID)) {
+			error("deleteRenderbuffer: " + renderbufferID + " is not a renderbuffer");
+			return;
+		}
+		renderbuffers.clear(renderbufferID);
+		if (boundRenderbuffer == renderbufferID) {
+			boundRenderbuffer = 0;
+		}
+	}
+
+	@Override
+	public int createShader(int type) {
+		int name = nextName++;
+		shaders.set(name);
+		if (call()) {
+			log("createShader " + type + " -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void shaderSource(int shaderID, CharSequence source) {
+		if (call()) {
+			log("shaderSource " + shaderID);
+		}
+		if (checkShader(shaderID, "shaderSource")) {
+			failingShaders.set(shaderID, source.toString().contains("#error"));
+		}
+		bytesUploaded += source.length();
+	}
+
+	@Override
+	public void compileShader(int shaderID) {
+		if (call()) {
+			log("compileShader " + shaderID);
+		}
+		if (checkShader(shaderID, "compileShader")) {
+			compiledShaders.set(shaderID, !failingShaders.get(shaderID));
+		}
+	}
+
+	@Override
+	public int getShaderi(int shaderID, int name) {
+		if (call()) {
+			log("getShaderi " + shaderID + " " + name);
+		}
+		checkShader(shaderID, "getShaderi");
+		if (name == GL20.GL_COMPILE_STATUS) {
+			return compiledShaders.get(shaderID) ? GL11.GL_TRUE : GL11.GL_FALSE;
+		}
+		return 0;
+	}
+
+	@Override
+	public String getShaderInfoLog(int shaderID, int maxLength) {
+		call();
+		return failingShaders.get(shaderID) ? "ERROR: 0:1: '#error' : #error directive" : "";
+	}
+
+	@Override
+	public void deleteShader(int shaderID) {
+		if (call()) {
+			log("deleteShader " + shaderID);
+		}
+		if (checkShader(shaderID, "deleteShader")) {
+			shaders.clear(shaderID);
+			compiledShaders.clear(shaderID);
+			failingShaders.clear(shaderID);
+		}
+	}
+
+	@Override
+	public int createProgram() {
+		int name = nextName++;
+		programs.set(name);
+		if (call()) {
+			log("createProgram -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void attachShader(int programID, int shaderID) {
+		if (call()) {
+			log("attachShader " + programID + " " + shaderID);
+		}
+		checkProgram(programID, "attachShader");
+		if (checkShader(shaderID, "attachShader") && !compiledShaders.get(shaderID)) {
+			error("attachShader: shader " + shaderID + " has not been compiled");
+		}
+	}
+
+	@Override
+	public void detachShader(int programID, int shaderID) {
+		if (call()) {
+			log("detachShader " + programID + " " + shaderID);
+		}
+		checkProgram(programID, "detachShader");
+		checkShader(shaderID, "detachShader");
+	}
+
+	@Override
+	public void bindAttribLocation(int programID, int attribute, CharSequence name) {
+		if (call()) {
+			log("bindAttribLocation " + programID + " " + attribute + " " + name);
+		}
+		checkProgram(programID, "bindAttribLocation");
+	}
+
+	@Override
+	public void linkProgram(int programID) {
+		if (call()) {
+			log("linkProgram " + programID);
+		}
+		if (checkProgram(programID, "linkProgram")) {
+			linkedPrograms.set(programID);
+		}
+	}
+
+	@Override
+	public void validateProgram(int programID) {
+		if (call()) {
+			log("validateProgram " + programID);
+		}
+		checkProgram(programID, "validateProgram");
+	}
+
+	@Override
+	public int getProgrami(int programID, int name) {
+		if (call()) {
+			log("getProgrami " + programID + " " + name);
+		}
+		checkProgram(programID, "getProgrami");
+		if (name == GL20.GL_LINK_STATUS || name == GL20.GL_VALIDATE_STATUS) {
+			return linkedPrograms.get(programID) ? GL11.GL_TRUE : GL11.GL_FALSE;
+		}
+		return 0;
+	}
+
+	@Override
+	public String getProgramInfoLog(int programID, int maxLength) {
+		call();
+		return "";
+	}
+
+	@Override
+	public void useProgram(int programID) {
+		if (call()) {
+			log("useProgram " + programID);
+		}
+		if (programID != 0 && checkProgram(programID, "useProgram") && !linkedPrograms.get(programID)) {
+			error("useProgram: program " + programID + " has not been linked");
+		}
+		currentProgram = programID;
+	}
+
+	@Override
+	public void deleteProgram(int programID) {
+		if (call()) {
+			log("deleteProgram " + programID);
+		}
+		if (checkProgram(programID, "deleteProgram")) {
+			programs.clear(programID);
+			linkedPrograms.clear(programID);
+			if (currentProgram == programID) {
+				currentProgram = 0;
+			}
+		}
+	}
+
+	@Override
+	public int getUniformLocation(int programID, CharSequence name) {
+		if (call()) {
+			log("getUniformLocation " + programID + " " + name);
+		}
+		checkProgram(programID, "getUniformLocation");
+		String key = programID + ":" + name;
+		Integer location = uniformLocations.get(key);
+		if (location == null) {
+			location = uniformLocations.size();
+			uniformLocations.put(key, location);
+		}
+		return location;
+	}
+
+	@Override
+	public void uniform1i(int location, int value) {
+		if (call()) {
+			log("uniform1i " + location + " " + value);
+		}
+		checkUniform("uniform1i");
+	}
+
+	@Override
+	public void uniform1f(int location, float value) {
+		if (call()) {
+			log("uniform1f " + location + " " + value);
+		}
+		checkUniform("uniform1f");
+	}
+
+	@Override
+	public void uniformMatrix4(int location, boolean transpose, FloatBuffer matrices) {
+		if (call()) {
+			log("uniformMatrix4 " + location + " " + transpose + " " + matrices.remaining() / 16);
+		}
+		checkUniform("uniformMatrix4");
+		if (matrices.remaining() == 0 || matrices.remaining() % 16 != 0) {
+			error("uniformMatrix4: " + matrices.remaining() + " floats is not a whole number of matrices");
+		}
+		bytesUploaded += matrices.remaining() * 4L;
+	}
+
+	@Override
+	public void bindBufferRange(int target, int index, int bufferID, long offset, long size) {
+		if (call()) {
+			log("bindBufferRange " + target + " " + index + " " + bufferID + " " + offset + " " + size);
+		}
+		if (!buffers.get(bufferID)) {
+			error("bindBufferRange: " + bufferID + " is not a buffer");
+			return;
+		}
+		if (offset + size > bufferSizes[bufferID]) {
+			error("bindBufferRange: range " + offset + "+" + size + " is outside buffer " + bufferID + " of "
+					+ bufferSizes[bufferID] + " bytes");
+		}
+		if (target == GL31.GL_UNIFORM_BUFFER && offset % 256 != 0) {
+			error("bindBufferRange: uniform buffer offset " + offset + " is not aligned to 256 bytes");
+		}
+		boundBuffers[targetIndex(target)] = bufferID;
+	}
+
+	@Override
+	public int getUniformBlockIndex(int programID, CharSequence name) {
+		if (call()) {
+			log("getUniformBlockIndex " + programID + " " + name);
+		}
+		checkProgram(programID, "getUniformBlockIndex");
+		String key = programID + ":block:" + name;
+		Integer index = uniformLocations.get(key);
+		if (index == null) {
+			index = uniformLocations.size();
+			uniformLocations.put(key, index);
+		}
+		return index;
+	}
+
+	@Override
+	public void uniformBlockBinding(int programID, int blockIndex, int binding) {
+		if (call()) {
+			log("uniformBlockBinding " + programID + " " + blockIndex + " " + binding);
+		}
+		checkProgram(programID, "uniformBlockBinding");
+	}
+
+	@Override
+	public void drawArrays(int mode, int first, int count) {
+		if (call()) {
+			log("drawArrays " + mode + " " + first + " " + count);
+		}
+		checkDrawState("drawArrays");
+		checkVertexRange(first, count, "drawArrays");
+		drawCallCount++;
+		drawCount++;
+	}
+
+	@Override
+	public void drawElements(int mode, int count, int type, long offset) {
+		if (call()) {
+			log("drawElements " + mode + " " + count + " " + type + " " + offset);
+		}
+		checkDrawState("drawElements");
+		checkIndexRange(count, type, offset, "drawElements");
+		drawCallCount++;
+		drawCount++;
+	}
+
+	@Override
+	public void drawElementsBaseVertex(int mode, int count, int type, long offset, int baseVertex) {
+		if (call()) {
+			log("drawElementsBaseVertex " + mode + " " + count + " " + type + " " + offset + " " + baseVertex);
+		}
+		checkDrawState("drawElementsBaseVertex");
+		checkIndexRange(count, type, offset, "drawElementsBaseVertex");
+		drawCallCount++;
+		drawCount++;
+	}
+
+	@Override
+	public void drawElementsInstancedBaseVertex(int mode, int count, int type, long offset, int instances,
+			int baseVertex) {
+		if (call()) {
+			log("drawElementsInstancedBaseVertex " + mode + " " + count + " " + type + " " + offset + " " + instances
+					+ " " + baseVertex);
+		}
+		checkDrawState("drawElementsInstancedBaseVertex");
+		checkIndexRange(count, type, offset, "drawElementsInstancedBaseVertex");
+		drawCallCount++;
+		drawCount++;
+	}
+
+	@Override
+	public void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride) {
+		if (call()) {
+			log("multiDrawElementsIndirect " + mode + " " + type + " " + offset + " " + drawCount + " " + stride);
+		}
+		if (!multiDrawIndirect) {
+			error("multiDrawElementsIndirect: not supported");
+		}
+		checkDrawState("multiDrawElementsIndirect");
+		int indirectBuffer = boundBuffers[INDIRECT_TARGET];
+		long end = offset + (long) drawCount * (stride == 0 ? 20 : stride);
+		if (indirectBuffer == 0) {
+			error("multiDrawElementsIndirect: no GL_DRAW_INDIRECT_BUFFER bound");
+		} else if (end > bufferSizes[indirectBuffer]) {
+			error("multiDrawElementsIndirect: commands end at " + end + " but indirect buffer " + indirectBuffer
+					+ " holds " + bufferSizes[indirectBuffer] + " bytes");
+		}
+		drawCallCount++;
+		this.drawCount += drawCount;
+	}
+
+	@Override
+	public int fenceSync() {
+		int name = nextName++;
+		fences.set(name);
+		if (call()) {
+			log("fenceSync -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public int clientWaitSync(int fence, int flags, long timeoutNanos) {
+		if (call()) {
+			log("clientWaitSync " + fence);
+		}
+		if (!fences.get(fence)) {
+			error("clientWaitSync: " + fence + " is not a fence");
+			return GL32.GL_WAIT_FAILED;
+		}
+		return GL32.GL_ALREADY_SIGNALED;
+	}
+
+	@Override
+	public void deleteSync(int fence) {
+		if (call()) {
+			log("deleteSync " + fence);
+		}
+		if (!fences.get(fence)) {
+			error("deleteSync: " + fence + " is not a fence");
+		}
+		fences.clear(fence);
+	}
+
+	@Override
+	public int genQuery() {
+		int name = nextName++;
+		queries.set(name);
+		queryResults = ensureLength(queryResults, name);
+		if (call()) {
+			log("genQuery -> " + name);
+		}
+		return name;
+	}
+
+	@Override
+	public void queryCounter(int query, int target) {
+		if (call()) {
+			log("queryCounter " + query + " " + target);
+		}
+		if (!timerQuery) {
+			error("queryCounter: not supported");
+		}
+		if (target != GL33.GL_TIMESTAMP) {
+			error("queryCounter: target must be GL_TIMESTAMP, not " + target);
+		}
+		if (checkQuery(query, "queryCounter")) {
+			queryResults[query] = System.nanoTime();
+			issuedQueries.set(query);
+		}
+	}
+
+	@Override
+	public int getQueryObjecti(int query, int pname) {
+		if (call()) {
+			log("getQueryObjecti " + query + " " + pname);
+		}
+		if (!checkIssuedQuery(query, "getQueryObjecti")) {
+			return 0;
+		}
+		switch (pname) {
+		case GL15.GL_QUERY_RESULT_AVAILABLE:
+			return GL11.GL_TRUE;
+		case GL15.GL_QUERY_RESULT:
+			return (int) queryResults[query];
+		default:
+			error("getQueryObjecti: unsupported pname " + pname);
+			return 0;
+		}
+	}
+
+	@Override
+	public long getQueryObjectui64(int query, int pname) {
+		if (call()) {
+			log("getQueryObjectui64 " + query + " " + pname);
+		}
+		if (!checkIssuedQuery(query, "getQueryObjectui64")) {
+			return 0;
+		}
+		switch (pname) {
+		case GL15.GL_QUERY_RESULT_AVAILABLE:
+			return GL11.GL_TRUE;
+		case GL15.GL_QUERY_RESULT:
+			return queryResults[query];
+		default:
+			error("getQueryObjectui64: unsupported pname " + pname);
+			return 0;
+		}
+	}
+
+	@Override
+	public void deleteQuery(int query) {
+		if (call()) {
+			log("deleteQuery " + query);
+		}
+		checkQuery(query, "deleteQuery");
+		queries.clear(query);
+		issuedQueries.clear(query);
+	}
+
+	private boolean call() {
+		callCount++;
+		return logCalls;
+	}
+
+	private void log(String call) {
+		calls.add(call);
+	}
+
+	private void error(String message) {
+		if (strict) {
+			throw new IllegalStateException("GL validation: " + message);
+		}
+		errors.add(message);
+	}
+
+	private int targetIndex(int target) {
+		switch (target) {
+		case GL15.GL_ARRAY_BUFFER:
+			return ARRAY_TARGET;
+		case GL40.GL_DRAW_INDIRECT_BUFFER:
+			return INDIRECT_TARGET;
+		case GL31.GL_UNIFORM_BUFFER:
+			return UNIFORM_TARGET;
+		case GL31.GL_TEXTURE_BUFFER:
+			return TEXTURE_BUFFER_TARGET;
+		default:
+			throw new IllegalArgumentException("Unsupported buffer target " + target);
+		}
+	}
+
+	private int getBoundBuffer(int target, String function) {
+		int buffer = target == GL15.GL_ELEMENT_ARRAY_BUFFER ? vaoElementBuffers[boundVao]
+				: boundBuffers[targetIndex(target)];
+		if (buffer == 0) {
+			error(function + ": no buffer bound to target " + target);
+		}
+		return buffer;
+	}
+
+	private int storeBufferData(int target, long bytes, boolean upload, String function) {
+		if (call()) {
+			log(function + " " + target + " " + bytes);
+		}
+		int buffer = getBoundBuffer(target, function);
+		if (buffer == 0) {
+			return 0;
+		}
+		if (immutableBuffers.get(buffer)) {
+			error(function + ": buffer " + buffer + " has immutable storage");
+		}
+		bufferSizes[buffer] = bytes;
+		if (upload) {
+			bytesUploaded += bytes;
+		}
+		return buffer;
+	}
+
+	private void updateBufferData(int target, long offset, long bytes) {
+		if (call()) {
+			log("bufferSubData " + target + " " + offset + " " + bytes);
+		}
+		int buffer = getBoundBuffer(target, "bufferSubData");
+		if (buffer != 0 && offset + bytes > bufferSizes[buffer]) {
+			error("bufferSubData: range " + offset + "+" + bytes + " is outside buffer " + buffer + " of "
+					+ bufferSizes[buffer] + " bytes");
+		}
+		bytesUploaded += bytes;
+	}
+
+	private void forgetBuffer(int bufferID, String function) {
+		if (!buffers.get(bufferID)) {
+			error(function + ": " + bufferID + " is not a buffer");
+			return;
+		}
+		buffers.clear(bufferID);
+		immutableBuffers.clear(bufferID);
+		mappedBuffers.clear(bufferID);
+		for (int i = 0; i < boundBuffers.length; i++) {
+			if (boundBuffers[i] == bufferID) {
+				boundBuffers[i] = 0;
+			}
+		}
+		if (vaoElementBuffers[boundVao] == bufferID) {
+			vaoElementBuffers[boundVao] = 0;
+		}
+	}
+
+	private void forgetVertexArray(int vaoID, String function) {
+		if (!vaos.get(vaoID)) {
+			error(function + ": " + vaoID + " is not a vertex array");
+			return;
+		}
+		vaos.clear(vaoID);
+		vaoElementBuffers[vaoID] = 0;
+		vaoEnabledAttributes[vaoID] = 0;
+		vaoAttributePointers[vaoID] = 0;
+		vaoAttributes[vaoID] = null;
+		if (boundVao == vaoID) {
+			boundVao = 0;
+		}
+	}
+
+	private void forgetTexture(int textureID, String function) {
+		if (!textures.get(textureID)) {
+			error(function + ": " + textureID + " is not a texture");
+			return;
+		}
+		textures.clear(textureID);
+		for (int i = 0; i < boundTextures.length; i++) {
+			if (boundTextures[i] == textureID) {
+				boundTextures[i] = 0;
+			}
+		}
+	}
+
+	private boolean checkShader(int shaderID, String function) {
+		if (!shaders.get(shaderID)) {
+			error(function + ": " + shaderID + " is not a shader");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean checkProgram(int programID, String function) {
+		if (!programs.get(programID)) {
+			error(function + ": " + programID + " is not a program");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean checkQuery(int query, String function) {
+		if (!queries.get(query)) {
+			error(function + ": " + query + " is not a query");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean checkIssuedQuery(int query, String function) {
+		if (!checkQuery(query, function)) {
+			return false;
+		}
+		if (!issuedQueries.get(query)) {
+			error(function + ": query " + query + " has never been issued");
+			return false;
+		}
+		return true;
+	}
+
+	private void checkUniform(String function) {
+		if (currentProgram == 0) {
+			error(function + ": no program in use");
+		}
+	}
+
+	private void checkDrawState(String function) {
+		if (currentProgram == 0) {
+			error(function + ": no program in use");
+		}
+		if (boundFramebuffer != 0) {
+			checkFramebufferTarget(function);
+		}
+		if (boundVao == 0) {
+			error(function + ": no vertex array bound");
+			return;
+		}
+		int missingPointers = vaoEnabledAttributes[boundVao] & ~vaoAttributePointers[boundVao];
+		if (missingPointers != 0) {
+			error(function + ": attribute " + Integer.numberOfTrailingZeros(missingPointers)
+					+ " is enabled but has no pointer");
+		}
+	}
+
+	//绘制到一个帧缓存时，它的颜色纹理不能同时被采样
+	private void checkFramebufferTarget(String function) {
+		int colour = framebufferColours[boundFramebuffer];
+		if (colour == 0 && framebufferDepths[boundFramebuffer] == 0) {
+			error(function + ": framebuffer " + boundFramebuffer + " has no attachments");
+			return;
+		}
+		for (int unit = 0; unit < TEXTURE_UNITS; unit++) {
+			if (colour != 0 && boundTextures[unit] == colour) {
+				error(function + ": texture " + colour + " on unit " + unit
+						+ " is also the colour target of framebuffer " + boundFramebuffer);
+			}
+		}
+	}
+
+	private void checkIndexRange(int count, int type, long offset, String function) {
+		if (boundVao == 0) {
+			return;
+		}
+		int indexBuffer = vaoElementBuffers[boundVao];
+		if (indexBuffer == 0) {
+			error(function + ": vertex array " + boundVao + " has no index buffer");
+			return;
+		}
+		int indexSize = type == GL11.GL_UNSIGNED_INT ? 4 : type == GL11.GL_UNSIGNED_SHORT ? 2 : 1;
+		long end = offset + (long) count * indexSize;
+		if (end > bufferSizes[indexBuffer]) {
+			error(function + ": indices end at byte " + end + " but index buffer " + indexBuffer + " holds "
+					+ bufferSizes[indexBuffer] + " bytes");
+		}
+	}
+
+	//每个启用的attribute读取的最后一个顶点必须在它的缓存内；实例化的attribute在
+	//非实例化的绘制中只读取第一个元素
+	private void checkVertexRange(int first, int count, String function) {
+		if (first < 0 || count < 0) {
+			error(function + ": first " + first + ", count " + count);
+			return;
+		}
+		if (boundVao == 0 || count == 0) {
+			return;
+		}
+		AttributePointers pointers = vaoAttributes[boundVao];
+		int enabled = vaoEnabledAttributes[boundVao] & vaoAttributePointers[boundVao];
+		while (enabled != 0) {
+			int attribute = Integer.numberOfTrailingZeros(enabled);
+			enabled &= enabled - 1;
+			int buffer = pointers.buffers[attribute];
+			if (!buffers.get(buffer)) {
+				error(function + ": attribute " + attribute + " points into deleted buffer " + buffer);
+				continue;
+			}
+			long last = pointers.divisors[attribute] == 0 ? first + count - 1L : 0;
+			long end = pointers.offsets[attribute] + last * pointers.strides[attribute] + pointers.bytes[attribute];
+			if (end > bufferSizes[buffer]) {
+				error(function + ": vertices " + first + " to " + (first + count - 1) + " of attribute " + attribute
+						+ " end at byte " + end + " but buffer " + buffer + " holds " + bufferSizes[buffer] + " bytes");
+			}
+		}
+	}
+
+	private static int typeBytes(int type) {
+		if (type == GL11.GL_BYTE || type == GL11.GL_UNSIGNED_BYTE) {
+			return 1;
+		}
+		if (type == GL11.GL_SHORT || type == GL11.GL_UNSIGNED_SHORT || type == GL30.GL_HALF_FLOAT) {
+			return 2;
+		}
+		return 4;
+	}
+
+	private static int[] ensureLength(int[] array, int index) {
+		return index < array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+	}
+
+	private static long[] ensureLength(long[] array, int index) {
+		return index < array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+	}
+
+	private static <T> T[] ensureLength(T[] array, int index) {
+		return index < array.length ? array : Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+	}
+
+	/**
+	 * What vertexAttribPointer and vertexAttribDivisor set for the attributes
+	 * of one VAO: the buffer each points into, the offset of its first
+	 * element, the stride, the bytes of one element and the divisor.
+	 * 一个VAO的attribute由vertexAttribPointer和vertexAttribDivisor设置的状态：每个
+	 * attribute指向的缓存，第一个元素的偏移量，步长，一个元素的字节数和除数。
+	 */
+	private static class AttributePointers {
+
+		private final int[] buffers = new int[VERTEX_ATTRIBUTES];
+		private final long[] offsets = new long[VERTEX_ATTRIBUTES];
+		private final int[] strides = new int[VERTEX_ATTRIBUTES];
+		private final int[] bytes = new int[VERTEX_ATTRIBUTES];
+		private final int[] divisors = new int[VERTEX_ATTRIBUTES];
+
+	}
+
+}
@@ -1,24 +1,71 @@
 package engineTester;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL14;
 
+import device.GLDevice;
+import device.LwjglDevice;
+import entities.EntityStore;
+import gltf.GLBFileLoader;
+import jobs.JobGraph;
+import jobs.JobSystem;
+import maths.Frustum;
+import maths.Matrix4f;
+import maths.TransformArrays;
+import maths.Vector3f;
 import models.RawModel;
 import models.TexturedModel;
+import objConverter.ModelData;
+import objConverter.OBJFileLoader;
+import postProcessing.PostProcessing;
+import postProcessing.RenderTarget;
+import postProcessing.RenderTargetPool;
+import profiling.GpuProfiler;
+import profiling.Profiler;
 import renderEngine.DisplayManager;
+import renderEngine.HotReloader;
 import renderEngine.Loader;
 import renderEngine.Renderer;
+import resources.TextureHandle;
+import shaders.PostProcessingShader;
 import shaders.StaticShader;
 import textures.ModelTexture;
+import timing.GameLoop;
+import timing.InterpolatedFloats;
+import timing.SystemClock;
 
 public class MainGameLoop {
 
+	private static final int TICKS_PER_SECOND = 60;
+	private static final int MAX_TICKS_PER_FRAME = 5;
+	private static final float FIELD_OF_VIEW = (float) Math.toRadians(70);
+	private static final float NEAR_PLANE = 0.1f;
+	private static final float FAR_PLANE = 1000;
+	//实体绕y轴旋转的速度，弧度每秒
+	private static final float SPIN_SPEED = (float) Math.toRadians(45);
+	private static final float FULL_TURN = (float) (Math.PI * 2);
+
 	public static void main(String[] args) {
 
 		DisplayManager.createDisplay();
-		Loader loader = new Loader();
-		Renderer renderer = new Renderer();
-		StaticShader shader = new StaticShader();
+		GLDevice device = new LwjglDevice();
+		//用-Dprofile=trace.json运行时记录性能分析数据，退出时写入Chrome trace文件
+		String traceFile = System.getProperty("profile");
+		GpuProfiler gpuProfiler = null;
+		if (traceFile != null) {
+			gpuProfiler = new GpuProfiler(device);
+			Profiler.setGpuProfiler(gpuProfiler);
+			Profiler.setEnabled(true);
+			Profiler.endFrame();
+			Profiler.startCapture();
+		}
+		Loader loader = new Loader(device);
+		Renderer renderer = new Renderer(device);
+		StaticShader shader = new StaticShader(device);
 		
 		float[] vertices = {			
 				-0.5f,0.5f,0,	//V0
@@ -42,20 +89,168 @@ public class MainGameLoop {
 					1,0  //V3
 			};
 		
-		RawModel model = loader.loadToVAO(vertices,textureCoords,indices);
+		//用-Dmodel=name运行时加载res/name.obj代替四边形
+		String modelName = System.getProperty("model");
+		RawModel model;
+		if (modelName != null) {
+			ModelData data = OBJFileLoader.loadOBJ(modelName);
+			model = loader.loadToVAO(modelName, data.getVertices(), data.getTextureCoords(), data.getIndices());
+			vertices = data.getVertices();
+		} else {
+			model = loader.loadToVAO(vertices,textureCoords,indices);
+		}
+		float[] sphere = EntityStore.getBoundingSphere(vertices);
+		model.setBoundingSphere(sphere[0], sphere[1], sphere[2], sphere[3]);
 		//定义有纹理的模型
-		ModelTexture texture = new ModelTexture(loader.loadTexture("image"));
-		TexturedModel texturedModel = new TexturedModel(model,texture);
+		TextureHandle image = loader.loadTextureHandle("image");
+		ModelTexture texture = new ModelTexture(image.getID());
+		TexturedModel[] texturedModels = { new TexturedModel(model,texture) };
+		//用-Dglb=name运行时加载res/name.glb中的所有模型
+		String glbName = System.getProperty("glb");
+		if (glbName != null) {
+			texturedModels = GLBFileLoader.loadGLB(glbName, loader);
+		}
 		
-		while(!Display.isCloseRequested()){
-			renderer.prepare();
+		//用-DhotReload=true运行时，修改着色器和纹理文件后不用重启就能看到变化
+		HotReloader hotReloader = null;
+		if (Boolean.getBoolean("hotReload")) {
+			try {
+				hotReloader = new HotReloader(loader);
+				hotReloader.watch(shader);
+				hotReloader.watch(image, "image");
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.err.println("Tried to watch the asset folders, didn't work");
+			}
+		}
+		
+		//游戏逻辑按固定步长更新，与帧率无关
+		GameLoop gameLoop = new GameLoop(new SystemClock(), TICKS_PER_SECOND, MAX_TICKS_PER_FRAME);
+		
+		//每个模型一个实体，都放在原点，绕y轴旋转；用模型的包围球剔除
+		EntityStore entities = new EntityStore(texturedModels.length);
+		float sceneRadius = 0;
+		for (TexturedModel texturedModel : texturedModels) {
+			RawModel raw = texturedModel.getRawModel();
+			entities.create(entities.addModel(texturedModel, raw.getBoundsX(), raw.getBoundsY(), raw.getBoundsZ(),
+					raw.getBoundsRadius()));
+			float center = new Vector3f(raw.getBoundsX(), raw.getBoundsY(), raw.getBoundsZ()).length();
+			sceneRadius = Math.max(sceneRadius, center + raw.getBoundsRadius());
+		}
+		//用-DpostProcess=true运行时先把场景绘制到离屏目标，再经过后期处理输出到屏幕
+		RenderTargetPool renderTargets = new RenderTargetPool(device);
+		PostProcessing postProcessing = null;
+		PostProcessingShader contrast = null;
+		RenderTarget sceneTarget = null;
+		if (Boolean.getBoolean("postProcess")) {
+			sceneTarget = renderTargets.acquire(Display.getWidth(), Display.getHeight(), GL11.GL_RGBA8,
+					GL14.GL_DEPTH_COMPONENT24);
+			contrast = new PostProcessingShader(device, PostProcessingShader.CONTRAST_FILE);
+			postProcessing = new PostProcessing(device, renderTargets);
+			postProcessing.addEffect(contrast);
+			postProcessing.build(sceneTarget, RenderTarget.screen(device, Display.getWidth(), Display.getHeight()));
+		}
+		PostProcessing post = postProcessing;
+		RenderTarget scene = sceneTarget;
+		
+		//摄像机在+z方向看向原点，离得足够远，能看到包围所有模型的球；大小未知时用1
+		if (Float.isInfinite(sceneRadius) || sceneRadius == 0) {
+			sceneRadius = 1;
+		}
+		float distance = sceneRadius / (float) Math.sin(FIELD_OF_VIEW * 0.5f) + NEAR_PLANE;
+		Matrix4f projection = new Matrix4f().setPerspective(FIELD_OF_VIEW,
+				Display.getWidth() / (float) Display.getHeight(), NEAR_PLANE, Math.max(FAR_PLANE, distance * 2));
+		Matrix4f view = new Matrix4f().setLookAt(new Vector3f(0, 0, distance), new Vector3f(0, 0, 0),
+				new Vector3f(0, 1, 0));
+		Frustum frustum = new Frustum().set(Matrix4f.mul(projection, view, new Matrix4f()));
+		Matrix4f transformation = new Matrix4f();
+		//实体的旋转角度在固定步长的tick中更新，渲染时按循环的alpha在上一个和当前角度之间插值
+		InterpolatedFloats angles = new InterpolatedFloats(entities.size());
+		TransformArrays transforms = entities.getTransforms();
+		
+		//一帧的任务：不调用OpenGL的任务在工作线程上运行，其余的留在这个线程上
+		//用-DdeterministicJobs=true运行时所有任务都在这个线程上按顺序运行
+		JobSystem jobs = new JobSystem();
+		jobs.setDeterministic(Boolean.getBoolean("deterministicJobs"));
+		JobGraph frame = new JobGraph();
+		int interpolate = frame.add("Frame.interpolate", () -> {
+			float alpha = gameLoop.getAlpha();
+			for (int i = 0; i < angles.size(); i++) {
+				float halfAngle = angles.get(i, alpha) * 0.5f;
+				transforms.rotationY[i] = (float) Math.sin(halfAngle);
+				transforms.rotationW[i] = (float) Math.cos(halfAngle);
+			}
+		});
+		int prepareEntities = frame.add("Frame.prepareEntities", () -> entities.prepareFrame(frustum), interpolate);
+		HotReloader reloader = hotReloader;
+		int reload = frame.addOnMainThread("Frame.hotReload", () -> {
+			if (reloader != null) {
+				//在两帧之间换上修改过的着色器和纹理
+				reloader.applyChanges();
+			}
+		});
+		frame.addOnMainThread("Frame.render", () -> {
+			if (post != null) {
+				renderer.prepare(scene);
+			} else {
+				renderer.prepare();
+			}
 			shader.start();
+			shader.loadProjectionMatrix(projection);
+			shader.loadViewMatrix(view);
 			//加载有纹理的模型
-			renderer.render(texturedModel);
+			int[] visible = entities.getVisible();
+			for (int i = 0; i < entities.getVisibleCount(); i++) {
+				int entity = visible[i];
+				shader.loadTransformationMatrix(transformation.load(entities.getMatrices(), entity * 16));
+				renderer.render(entities.getModel(entities.getModelAt(entity)));
+			}
 			shader.stop();
+			if (post != null) {
+				post.render();
+			}
+		}, prepareEntities, reload);
+		
+		while(!Display.isCloseRequested()){
+			gameLoop.advance(tickSeconds -> {
+				//在这里更新游戏逻辑
+				for (int i = 0; i < angles.size(); i++) {
+					//转满一圈时上一个和当前角度一起减去一圈，这样插值不会倒转
+					if (angles.getCurrent(i) >= FULL_TURN) {
+						angles.reset(i, angles.getCurrent(i) - FULL_TURN);
+					}
+				}
+				angles.storePrevious();
+				for (int i = 0; i < angles.size(); i++) {
+					angles.set(i, angles.getCurrent(i) + SPIN_SPEED * tickSeconds);
+				}
+			});
+			jobs.run(frame);
 			DisplayManager.updateDisplay();			
 		}
+		jobs.close();
 
+		if (traceFile != null) {
+			Profiler.getLastFrame().print(System.out);
+			try {
+				Profiler.stopCapture(new File(traceFile));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			gpuProfiler.cleanUp();
+		}
+		if (hotReloader != null) {
+			try {
+				hotReloader.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		if (postProcessing != null) {
+			postProcessing.cleanUp();
+			contrast.cleanUp();
+		}
+		renderTargets.cleanUp();
 		shader.cleanUp();
 		loader.cleanUp();
 		DisplayManager.closeDisplay();
@@ -0,0 +1,484 @@
+package entities;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import culling.OcclusionBuffer;
+import maths.Frustum;
+import maths.Quaternion;
+import maths.TransformArrays;
+import maths.Vector3f;
+import models.RawModel;
+import models.TexturedModel;
+import profiling.Profiler;
+import renderEngine.IndirectDrawList;
+import toolbox.HandleTable;
+
+/**
+ * Keeps every renderable instance (entity) of the scene in parallel primitive
+ * arrays rather than one object each: the position, rotation and scale in a
+ * {@link TransformArrays}, and beside them the model, the model matrix and
+ * the bounding sphere in world space. All entities have the same components
+ * (one archetype), and the arrays are kept dense: removing an entity moves
+ * the last one into its place. The stages of a frame then run through a few
+ * arrays from start to end instead of chasing references, and a range of
+ * entities can be given to each thread.
+ * 把场景中的每个可渲染实例（实体）保存在并行的基本类型数组中，而不是每个一个对象：
+ * 位置，旋转和缩放保存在TransformArrays中，旁边是模型，模型矩阵以及世界空间中的
+ * 包围球。所有实体都有相同的组件（一种原型），数组保持紧密：删除一个实体时把最后
+ * 一个实体移到它的位置。这样一帧的各个阶段从头到尾遍历几个数组，而不是追踪引用，
+ * 并且可以把一段实体分给每个线程。
+ *
+ * Entities are referred to by handles from a {@link HandleTable}, which stay
+ * the same while entities move in the arrays and are recognised as stale once
+ * the entity is removed. Models are registered once with
+ * {@link #addModel(TexturedModel, float, float, float, float)} and referred to
+ * by index.
+ * 实体用HandleTable的句柄引用，实体在数组中移动时句柄不变，实体被删除后句柄会被
+ * 识别为过期的。模型用addModel注册一次，之后用下标引用。
+ *
+ * A frame is {@link #prepareFrame(Frustum)} (model matrices, bounds and
+ * culling, split over the fork/join pool) followed by
+ * {@link #submit(IndirectDrawList, FloatBuffer)} (draws and matrices of the
+ * visible entities, on the calling thread).
+ * 一帧由prepareFrame(Frustum)（模型矩阵，包围球和剔除，分给fork/join线程池）和
+ * submit(IndirectDrawList, FloatBuffer)（可见实体的绘制和矩阵，在调用线程上）组成。
+ */
+public class EntityStore {
+
+	private static final int PREPARE_FRAME = Profiler.scope("EntityStore.prepareFrame");
+	private static final int SUBMIT = Profiler.scope("EntityStore.submit");
+
+	//每个线程至少处理这么多实体，太小的块不值得分给其他线程
+	private static final int MIN_CHUNK_ENTITIES = 8192;
+
+	private int modelCount;
+	private TexturedModel[] models = new TexturedModel[16];
+	private int[] modelVaos = new int[16];
+	private int[] modelTextures = new int[16];
+	private int[] modelIndexCounts = new int[16];
+	private int[] modelFirstIndices = new int[16];
+	private int[] modelBaseVertices = new int[16];
+	private float[] modelCenterX = new float[16];
+	private float[] modelCenterY = new float[16];
+	private float[] modelCenterZ = new float[16];
+	private float[] modelRadius = new float[16];
+
+	private final HandleTable handles = new HandleTable();
+	private int[] slotEntities = new int[64];
+
+	private final TransformArrays transforms;
+	private int[] entityHandles;
+	private int[] entityModels;
+	private float[] matrices;
+	private float[] boundsX;
+	private float[] boundsY;
+	private float[] boundsZ;
+	private float[] boundsRadius;
+	private int[] visible;
+	private int visibleCount;
+	private final int threads;
+	private final Runnable[] chunkTasks;
+	private final Future<?>[] chunkFutures;
+	private final int[] chunkCounts;
+	//prepareFrame提交任务前写入，任务提交保证了其他线程能看到
+	private Frustum frameFrustum;
+	private int frameChunks;
+
+	/**
+	 * Uses as many threads as the common fork/join pool.
+	 * 使用与公共fork/join线程池一样多的线程。
+	 */
+	public EntityStore(int initialCapacity) {
+		this(initialCapacity, ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * @param threads
+	 *            - The most threads {@link #prepareFrame(Frustum)} splits the
+	 *            entities between; 1 does everything on the calling thread.
+	 *            - prepareFrame(Frustum)最多把实体分给多少个线程；1表示全部在调用
+	 *            线程上完成
+	 */
+	public EntityStore(int initialCapacity, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1, not " + threads);
+		}
+		this.threads = threads;
+		chunkTasks = new Runnable[threads];
+		chunkFutures = new Future<?>[threads];
+		chunkCounts = new int[threads];
+		for (int i = 0; i < threads; i++) {
+			int chunk = i;
+			chunkTasks[i] = () -> chunkCounts[chunk] = prepareChunk(chunk);
+		}
+		int capacity = Math.max(1, initialCapacity);
+		transforms = new TransformArrays(capacity);
+		entityHandles = new int[capacity];
+		entityModels = new int[capacity];
+		matrices = new float[capacity * 16];
+		boundsX = new float[capacity];
+		boundsY = new float[capacity];
+		boundsZ = new float[capacity];
+		boundsRadius = new float[capacity];
+		visible = new int[capacity];
+	}
+
+	/**
+	 * Registers a model that entities can use.
+	 * 注册一个实体可以使用的模型。
+	 *
+	 * @param centerX
+	 *            - The centre of a sphere around all of the model's vertices,
+	 *            in the model's own space. {@link #getBoundingSphere} can
+	 *            find one.
+	 *            - 包围模型所有顶点的球体的中心，位于模型自己的空间。
+	 *            getBoundingSphere可以求出一个
+	 * @param radius
+	 *            - The radius of the sphere. Float.POSITIVE_INFINITY if it is
+	 *            not known, so entities of the model are never culled.
+	 *            - 球体的半径。不知道时用Float.POSITIVE_INFINITY，这样这个模型的
+	 *            实体永远不会被剔除
+	 * @return The index of the model.
+	 *         模型的下标
+	 */
+	public int addModel(TexturedModel model, float centerX, float centerY, float centerZ, float radius) {
+		if (modelCount == models.length) {
+			int size = modelCount * 2;
+			models = Arrays.copyOf(models, size);
+			modelVaos = Arrays.copyOf(modelVaos, size);
+			modelTextures = Arrays.copyOf(modelTextures, size);
+			modelIndexCounts = Arrays.copyOf(modelIndexCounts, size);
+			modelFirstIndices = Arrays.copyOf(modelFirstIndices, size);
+			modelBaseVertices = Arrays.copyOf(modelBaseVertices, size);
+			modelCenterX = Arrays.copyOf(modelCenterX, size);
+			modelCenterY = Arrays.copyOf(modelCenterY, size);
+			modelCenterZ = Arrays.copyOf(modelCenterZ, size);
+			modelRadius = Arrays.copyOf(modelRadius, size);
+		}
+		RawModel rawModel = model.getRawModel();
+		int index = modelCount++;
+		models[index] = model;
+		modelVaos[index] = rawModel.getVaoID();
+		modelTextures[index] = model.getTexture().getID();
+		modelIndexCounts[index] = rawModel.getVertexCount();
+		modelFirstIndices[index] = rawModel.getFirstIndex();
+		modelBaseVertices[index] = rawModel.getBaseVertex();
+		modelCenterX[index] = centerX;
+		modelCenterY[index] = centerY;
+		modelCenterZ[index] = centerZ;
+		modelRadius[index] = radius;
+		return index;
+	}
+
+	public TexturedModel getModel(int model) {
+		return models[model];
+	}
+
+	public int getModelCount() {
+		return modelCount;
+	}
+
+	/**
+	 * Finds a sphere around the vertices: the centre of their bounding box and
+	 * the distance to the farthest vertex. Not the smallest sphere, but close
+	 * and quick to find.
+	 * 求出包围这些顶点的球体：包围盒的中心以及到最远顶点的距离。不是最小的球体，但
+	 * 接近最小并且求得很快。
+	 *
+	 * @param positions
+	 *            - x, y, z of each vertex.
+	 *            - 每个顶点的x, y, z
+	 * @return x, y, z of the centre and the radius.
+	 *         中心的x, y, z以及半径
+	 */
+	public static float[] getBoundingSphere(float[] positions) {
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < positions.length; i += 3) {
+			minX = Math.min(minX, positions[i]);
+			minY = Math.min(minY, positions[i + 1]);
+			minZ = Math.min(minZ, positions[i + 2]);
+			maxX = Math.max(maxX, positions[i]);
+			maxY = Math.max(maxY, positions[i + 1]);
+			maxZ = Math.max(maxZ, positions[i + 2]);
+		}
+		if (positions.length == 0) {
+			return new float[4];
+		}
+		float centerX = (minX + maxX) * 0.5f, centerY = (minY + maxY) * 0.5f, centerZ = (minZ + maxZ) * 0.5f;
+		float radiusSquared = 0;
+		for (int i = 0; i < positions.length; i += 3) {
+			float x = positions[i] - centerX, y = positions[i + 1] - centerY, z = positions[i + 2] - centerZ;
+			radiusSquared = Math.max(radiusSquared, x * x + y * y + z * z);
+		}
+		return new float[] { centerX, centerY, centerZ, (float) Math.sqrt(radiusSquared) };
+	}
+
+	/**
+	 * Adds an entity with an identity transform.
+	 * 添加一个单位变换的实体。
+	 *
+	 * @return The entity's handle.
+	 *         实体的句柄
+	 */
+	public int create(int model) {
+		if (model < 0 || model >= modelCount) {
+			throw new IllegalArgumentException("No model " + model);
+		}
+		int entity = transforms.add();
+		if (entity == entityHandles.length) {
+			grow(entity * 2);
+		}
+		int handle = handles.allocate();
+		int slot = handles.indexOf(handle);
+		if (slot == slotEntities.length) {
+			slotEntities = Arrays.copyOf(slotEntities, slot * 2);
+		}
+		slotEntities[slot] = entity;
+		entityHandles[entity] = handle;
+		entityModels[entity] = model;
+		return handle;
+	}
+
+	/**
+	 * Removes the entity; the last entity takes its place in the arrays.
+	 * 删除实体；最后一个实体移到它在数组中的位置。
+	 */
+	public void remove(int handle) {
+		int entity = indexOf(handle);
+		int last = transforms.size() - 1;
+		if (entity != last) {
+			TransformArrays t = transforms;
+			t.set(entity, t.positionX[last], t.positionY[last], t.positionZ[last], t.rotationX[last],
+					t.rotationY[last], t.rotationZ[last], t.rotationW[last], t.scaleX[last], t.scaleY[last],
+					t.scaleZ[last]);
+			entityHandles[entity] = entityHandles[last];
+			entityModels[entity] = entityModels[last];
+			slotEntities[handles.indexOf(entityHandles[entity])] = entity;
+		}
+		transforms.removeLast();
+		handles.free(handle);
+	}
+
+	public boolean isLive(int handle) {
+		return handles.isValid(handle);
+	}
+
+	public int size() {
+		return transforms.size();
+	}
+
+	/**
+	 * @return The entity's current index in the arrays. It changes when
+	 *         other entities are removed.
+	 *         实体当前在数组中的下标。其他实体被删除时它会改变
+	 */
+	public int indexOf(int handle) {
+		if (!handles.isValid(handle)) {
+			throw new IllegalStateException("Entity " + Integer.toHexString(handle) + " was removed");
+		}
+		return slotEntities[handles.indexOf(handle)];
+	}
+
+	public void setTransform(int handle, Vector3f position, Quaternion rotation, Vector3f scale) {
+		transforms.set(indexOf(handle), position, rotation, scale);
+	}
+
+	public void setPosition(int handle, float x, float y, float z) {
+		int entity = indexOf(handle);
+		transforms.positionX[entity] = x;
+		transforms.positionY[entity] = y;
+		transforms.positionZ[entity] = z;
+	}
+
+	public void setModel(int handle, int model) {
+		if (model < 0 || model >= modelCount) {
+			throw new IllegalArgumentException("No model " + model);
+		}
+		entityModels[indexOf(handle)] = model;
+	}
+
+	/**
+	 * The arrays the transforms are kept in, for systems that update many
+	 * entities at once, e.g. moving all of them. Indices are entity indices,
+	 * see {@link #indexOf(int)}.
+	 * 保存变换的数组，供一次更新很多实体的系统使用，例如移动所有实体。下标是实体下标，
+	 * 参见indexOf(int)。
+	 */
+	public TransformArrays getTransforms() {
+		return transforms;
+	}
+
+	/**
+	 * @return The model matrices computed by the last
+	 *         {@link #prepareFrame(Frustum)}, 16 floats per entity index.
+	 *         上一次prepareFrame(Frustum)计算的模型矩阵，每个实体下标16个float
+	 */
+	public float[] getMatrices() {
+		return matrices;
+	}
+
+	/**
+	 * Computes the model matrices and world bounding spheres of the entities
+	 * from start to end. Ranges that don't overlap can be updated on
+	 * different threads.
+	 * 计算从start到end的实体的模型矩阵和世界空间包围球。不重叠的范围可以在不同的
+	 * 线程上更新。
+	 */
+	public void update(int start, int end) {
+		transforms.computeMatrices(start, end, matrices);
+		float[] sx = transforms.scaleX, sy = transforms.scaleY, sz = transforms.scaleZ;
+		for (int i = start; i < end; i++) {
+			int model = entityModels[i];
+			float cx = modelCenterX[model], cy = modelCenterY[model], cz = modelCenterZ[model];
+			int m = i * 16;
+			boundsX[i] = matrices[m] * cx + matrices[m + 4] * cy + matrices[m + 8] * cz + matrices[m + 12];
+			boundsY[i] = matrices[m + 1] * cx + matrices[m + 5] * cy + matrices[m + 9] * cz + matrices[m + 13];
+			boundsZ[i] = matrices[m + 2] * cx + matrices[m + 6] * cy + matrices[m + 10] * cz + matrices[m + 14];
+			float scale = Math.max(Math.abs(sx[i]), Math.max(Math.abs(sy[i]), Math.abs(sz[i])));
+			boundsRadius[i] = modelRadius[model] * scale;
+		}
+	}
+
+	/**
+	 * Updates every entity and finds those that may be visible, splitting the
+	 * entities into ranges that are updated and culled on the fork/join pool
+	 * (the first on the calling thread).
+	 * 更新所有实体并找出可能可见的实体，把实体分成几段，在fork/join线程池上更新和剔除
+	 * （第一段在调用线程上）。
+	 *
+	 * @return The number of visible entities.
+	 *         可见实体的数量
+	 */
+	public int prepareFrame(Frustum frustum) {
+		Profiler.begin(PREPARE_FRAME);
+		frameFrustum = frustum;
+		frameChunks = Math.max(1, Math.min(threads, transforms.size() / MIN_CHUNK_ENTITIES));
+		for (int i = 1; i < frameChunks; i++) {
+			chunkFutures[i] = ForkJoinPool.commonPool().submit(chunkTasks[i]);
+		}
+		chunkTasks[0].run();
+		visibleCount = chunkCounts[0];
+		for (int i = 1; i < frameChunks; i++) {
+			join(chunkFutures[i]);
+			chunkFutures[i] = null;
+			//每段把可见的下标写在自己的开头，在这里把它们接起来
+			System.arraycopy(visible, chunkStart(i), visible, visibleCount, chunkCounts[i]);
+			visibleCount += chunkCounts[i];
+		}
+		frameFrustum = null;
+		Profiler.end(PREPARE_FRAME);
+		return visibleCount;
+	}
+
+	/**
+	 * @return The entities found visible by the last
+	 *         {@link #prepareFrame(Frustum)}, by index in increasing order;
+	 *         only the first {@link #getVisibleCount()} are used.
+	 *         上一次prepareFrame(Frustum)找到的可见实体的下标，按递增顺序排列；
+	 *         只有前getVisibleCount()个有效
+	 */
+	public int[] getVisible() {
+		return visible;
+	}
+
+	public int getVisibleCount() {
+		return visibleCount;
+	}
+
+	/**
+	 * Drops the entities found visible by {@link #prepareFrame(Frustum)} that
+	 * are hidden behind the occluders, keeping the rest in order. Call after
+	 * the buffer has been rasterized and before {@link #submit}.
+	 * 去掉prepareFrame(Frustum)找到的可见实体中被遮挡物挡住的实体，其余的保持顺序。
+	 * 在缓存光栅化之后，submit之前调用。
+	 *
+	 * @return The number of entities still visible.
+	 *         仍然可见的实体数量
+	 */
+	public int cullOccluded(OcclusionBuffer occlusion) {
+		visibleCount = occlusion.cullSpheres(boundsX, boundsY, boundsZ, boundsRadius, visible, visibleCount);
+		return visibleCount;
+	}
+
+	/**
+	 * Adds a draw for each visible entity to the draw list and writes its
+	 * model matrix to the buffer, in the same order. The draw's base instance
+	 * is the index of its matrix in the buffer (counted from the buffer's
+	 * position when this is called), so a shader can read the matrix with
+	 * gl_BaseInstance (or gl_InstanceID plus the base instance) however the
+	 * draw list sorts the draws.
+	 * 为每个可见实体向绘制列表添加一次绘制，并按相同顺序把它的模型矩阵写入缓存。绘制的
+	 * base instance是它的矩阵在缓存中的下标（从调用时缓存的position算起），所以无论
+	 * 绘制列表怎样排列这些绘制，着色器都可以用gl_BaseInstance读取矩阵。
+	 *
+	 * @param modelMatrices
+	 *            - Needs room for 16 floats per visible entity.
+	 *            - 每个可见实体需要16个float的空间
+	 */
+	public void submit(IndirectDrawList drawList, FloatBuffer modelMatrices) {
+		Profiler.begin(SUBMIT);
+		if (modelMatrices.remaining() < visibleCount * 16) {
+			Profiler.end(SUBMIT);
+			throw new IllegalArgumentException(
+					"Room for " + modelMatrices.remaining() / 16 + " matrices, " + visibleCount + " needed");
+		}
+		for (int i = 0; i < visibleCount; i++) {
+			int entity = visible[i];
+			int model = entityModels[entity];
+			drawList.add(modelVaos[model], modelTextures[model], modelIndexCounts[model], modelFirstIndices[model],
+					modelBaseVertices[model], i);
+			modelMatrices.put(matrices, entity * 16, 16);
+		}
+		Profiler.end(SUBMIT);
+	}
+
+	/**
+	 * @return The model of the entity at the index.
+	 *         该下标处实体的模型
+	 */
+	public int getModelAt(int entity) {
+		return entityModels[entity];
+	}
+
+	private int prepareChunk(int chunk) {
+		int start = chunkStart(chunk);
+		int end = chunkStart(chunk + 1);
+		update(start, end);
+		return frameFrustum.cullSpheres(boundsX, boundsY, boundsZ, boundsRadius, start, end, visible, start);
+	}
+
+	private int chunkStart(int chunk) {
+		return (int) ((long) transforms.size() * chunk / frameChunks);
+	}
+
+	private static void join(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void grow(int capacity) {
+		entityHandles = Arrays.copyOf(entityHandles, capacity);
+		entityModels = Arrays.copyOf(entityModels, capacity);
+		matrices = Arrays.copyOf(matrices, capacity * 16);
+		boundsX = Arrays.copyOf(boundsX, capacity);
+		boundsY = Arrays.copyOf(boundsY, capacity);
+		boundsZ = Arrays.copyOf(boundsZ, capacity);
+		boundsRadius = Arrays.copyOf(boundsRadius, capacity);
+		visible = Arrays.copyOf(visible, capacity);
+	}
+
+}
@@ -0,0 +1,584 @@
+package gltf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+import assets.VirtualFileSystem;
+import models.RawModel;
+import models.TexturedModel;
+import profiling.Profiler;
+import renderEngine.Loader;
+import renderEngine.VertexAttribute;
+import textures.ModelTexture;
+import textures.TextureData;
+import toolbox.ByteBufferInputStream;
+
+/**
+ * Loads the meshes of binary glTF 2.0 files (.glb). The file is memory-mapped
+ * and only its JSON chunk is parsed; the vertex data in the binary chunk is
+ * already in the layout OpenGL reads, so slices of the mapping are handed to
+ * {@link Loader#loadToVAO(String, ByteBuffer[], VertexAttribute[], IntBuffer)}
+ * as they are, and the only copy of the data is the one into the buffers on
+ * the GPU.
+ * 加载二进制glTF 2.0文件(.glb)中的网格。文件被内存映射，只解析它的JSON块；二进制
+ * 块中的顶点数据已经是OpenGL读取的格式，所以映射的片段被直接交给Loader，数据唯一的
+ * 复制就是复制进GPU上的缓存。
+ *
+ * Every triangle primitive becomes one textured model, using the position and
+ * first texture coordinates of its vertices and the base colour texture of
+ * its material. Images embedded in the file are decoded and loaded as
+ * textures, each only once. Indices are always stored as 32-bit ints, because
+ * that is what every draw call in the engine uses, so 8 and 16-bit indices
+ * are widened (they are small compared to the vertex data). The model's
+ * bounding sphere is taken from the min and max that glTF requires on every
+ * POSITION accessor.
+ * 每个三角形图元成为一个有纹理的模型，使用它顶点的位置和第一组纹理坐标，以及它材质
+ * 的基础颜色纹理。嵌入在文件中的图片被解码并加载为纹理，每张只加载一次。索引总是
+ * 保存为32位int，因为引擎中所有的绘制调用都使用它，所以8位和16位的索引会被扩展
+ * （与顶点数据相比它们很小）。模型的包围球取自glTF要求每个POSITION访问器都有的
+ * min和max。
+ */
+public class GLBFileLoader {
+
+	private static final int LOAD = Profiler.scope("GLBFileLoader.loadGLB");
+
+	private static final String RES_LOC = "res/";
+
+	private static final int MAGIC = 0x46546C67;
+	private static final int CHUNK_JSON = 0x4E4F534A;
+	private static final int CHUNK_BIN = 0x004E4942;
+	private static final int MODE_TRIANGLES = 4;
+
+	private static final int BYTE = GL11.GL_BYTE;
+	private static final int UNSIGNED_BYTE = GL11.GL_UNSIGNED_BYTE;
+	private static final int SHORT = GL11.GL_SHORT;
+	private static final int UNSIGNED_SHORT = GL11.GL_UNSIGNED_SHORT;
+	private static final int UNSIGNED_INT = GL11.GL_UNSIGNED_INT;
+	private static final int FLOAT = GL11.GL_FLOAT;
+
+	private final Loader loader;
+	private final String label;
+	private final Map<String, Object> json;
+	private final ByteBuffer bin;
+	private final int[] imageTextures;
+
+	private GLBFileLoader(Loader loader, String label, Map<String, Object> json, ByteBuffer bin) throws IOException {
+		this.loader = loader;
+		this.label = label;
+		this.json = json;
+		this.bin = bin;
+		this.imageTextures = new int[list(json, "images").size()];
+	}
+
+	/**
+	 * Loads res/[name].glb through the {@link VirtualFileSystem}.
+	 * 通过VirtualFileSystem加载res/[name].glb。
+	 */
+	public static TexturedModel[] loadGLB(String glbFileName, Loader loader) {
+		String path = RES_LOC + glbFileName + ".glb";
+		Profiler.begin(LOAD);
+		try {
+			return load(VirtualFileSystem.read(path), glbFileName, loader);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("Tried to load GLB file " + path + ", didn't work");
+			System.exit(-1);
+			return null;
+		} finally {
+			Profiler.end(LOAD);
+		}
+	}
+
+	/**
+	 * @param file
+	 *            - The GLB file.
+	 *            - GLB文件
+	 * @param loader
+	 *            - The loader that uploads the meshes and textures; they are
+	 *            counted under the file name.
+	 *            - 上传网格和纹理的加载器；它们统计在文件名下
+	 * @return One model per triangle primitive of every mesh, in file order.
+	 *         每个网格的每个三角形图元对应一个模型，按文件中的顺序排列
+	 */
+	public static TexturedModel[] loadGLB(File file, Loader loader) throws IOException {
+		Profiler.begin(LOAD);
+		try {
+			MappedByteBuffer mapped;
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				//映射在通道关闭后仍然有效
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			return load(mapped, file.getName(), loader);
+		} finally {
+			Profiler.end(LOAD);
+		}
+	}
+
+	/**
+	 * Loads a GLB file that is already in memory.
+	 * 加载已经在内存中的GLB文件。
+	 *
+	 * @param glb
+	 *            - The whole file, from position to limit. Vertex data is
+	 *            uploaded straight from it, so it must be a direct buffer.
+	 *            - 整个文件，从position到limit。顶点数据直接从中上传，所以它必须是
+	 *            直接缓存
+	 */
+	public static TexturedModel[] load(ByteBuffer glb, String label, Loader loader) throws IOException {
+		ByteBuffer file = glb.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (file.remaining() < 20 || file.getInt(0) != MAGIC) {
+			throw new IOException("Not a GLB file");
+		}
+		if (file.getInt(4) != 2) {
+			throw new IOException("Unsupported glTF version " + file.getInt(4));
+		}
+		long length = file.getInt(8) & 0xFFFFFFFFL;
+		if (length > file.remaining()) {
+			throw new IOException("GLB file is truncated");
+		}
+		Map<String, Object> json = null;
+		ByteBuffer bin = null;
+		int position = 12;
+		while (position + 8 <= length) {
+			int chunkLength = file.getInt(position);
+			int chunkType = file.getInt(position + 4);
+			if (chunkLength < 0 || position + 8L + chunkLength > length) {
+				throw new IOException("GLB chunk runs past the end of the file");
+			}
+			ByteBuffer chunk = slice(file, position + 8, chunkLength);
+			if (chunkType == CHUNK_JSON && json == null) {
+				json = map(Json.parse(StandardCharsets.UTF_8.decode(chunk)), "the JSON chunk");
+			} else if (chunkType == CHUNK_BIN && bin == null) {
+				bin = chunk;
+			}
+			//块按4字节对齐
+			position += 8 + ((chunkLength + 3) & ~3);
+		}
+		if (json == null) {
+			throw new IOException("GLB file has no JSON chunk");
+		}
+		return new GLBFileLoader(loader, label, json, bin).loadMeshes();
+	}
+
+	private TexturedModel[] loadMeshes() throws IOException {
+		List<TexturedModel> models = new ArrayList<TexturedModel>();
+		List<Object> meshes = list(json, "meshes");
+		for (int m = 0; m < meshes.size(); m++) {
+			Map<String, Object> mesh = map(meshes.get(m), "mesh " + m);
+			String meshLabel = label + "/" + string(mesh, "name", "mesh " + m);
+			for (Object primitive : list(mesh, "primitives")) {
+				models.add(loadPrimitive(map(primitive, "primitive"), meshLabel));
+			}
+		}
+		return models.toArray(new TexturedModel[models.size()]);
+	}
+
+	private TexturedModel loadPrimitive(Map<String, Object> primitive, String meshLabel) throws IOException {
+		if (integer(primitive, "mode", MODE_TRIANGLES) != MODE_TRIANGLES) {
+			throw new IOException(meshLabel + ": only triangle primitives are supported");
+		}
+		Map<String, Object> attributes = map(primitive.get("attributes"), "attributes");
+		if (!attributes.containsKey("POSITION")) {
+			throw new IOException(meshLabel + ": primitive without POSITION");
+		}
+		int positionsIndex = integer(attributes, "POSITION", -1);
+		Accessor positions = accessor(positionsIndex);
+		Accessor textureCoords = attributes.containsKey("TEXCOORD_0")
+				? accessor(integer(attributes, "TEXCOORD_0", -1)) : null;
+		if (textureCoords != null && textureCoords.count < positions.count) {
+			throw new IOException(meshLabel + ": fewer texture coordinates than positions");
+		}
+
+		//共用一个缓存视图的属性（交错存放的顶点）只上传一次
+		List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+		VertexAttribute[] vertexAttributes = new VertexAttribute[2];
+		if (textureCoords != null && textureCoords.viewIndex == positions.viewIndex) {
+			int start = Math.min(positions.offset, textureCoords.offset);
+			int end = Math.max(positions.end(), textureCoords.end());
+			buffers.add(slice(positions.view.data, start, end - start));
+			vertexAttributes[0] = positions.attribute(0, start);
+			vertexAttributes[1] = textureCoords.attribute(0, start);
+		} else {
+			buffers.add(slice(positions.view.data, positions.offset, positions.end() - positions.offset));
+			vertexAttributes[0] = positions.attribute(0, positions.offset);
+			if (textureCoords != null) {
+				buffers.add(slice(textureCoords.view.data, textureCoords.offset,
+						textureCoords.end() - textureCoords.offset));
+				vertexAttributes[1] = textureCoords.attribute(1, textureCoords.offset);
+			} else {
+				//没有纹理坐标时使用全为0的坐标，因为渲染器总是启用属性1
+				buffers.add(BufferUtils.createByteBuffer(positions.count * 8));
+				vertexAttributes[1] = new VertexAttribute(1, 2, GL11.GL_FLOAT, false, 0, 0);
+			}
+		}
+
+		IntBuffer indices = primitive.containsKey("indices") ? indices(accessor(integer(primitive, "indices", -1)))
+				: sequence(positions.count);
+		checkIndices(indices, positions.count, meshLabel);
+		RawModel model = loader.loadToVAO(meshLabel, buffers.toArray(new ByteBuffer[buffers.size()]),
+				vertexAttributes, indices);
+		setBoundingSphere(model, positionsIndex, positions);
+		int textureID = 0;
+		if (primitive.containsKey("material")) {
+			textureID = baseColourTexture(integer(primitive, "material", -1));
+		}
+		return new TexturedModel(model, new ModelTexture(textureID));
+	}
+
+	/**
+	 * Sets the model's bounding sphere to the sphere around the box given by
+	 * the accessor's min and max. Files that leave them out have their float
+	 * positions read to find the box; for other types the size stays unknown.
+	 * 把模型的包围球设置为包围访问器的min和max给出的盒子的球体。省略了它们的文件会
+	 * 读取float类型的位置来求出盒子；其他类型的大小保持未知。
+	 */
+	private void setBoundingSphere(RawModel model, int accessorIndex, Accessor positions) throws IOException {
+		Map<String, Object> accessor = map(element("accessors", accessorIndex), "accessor " + accessorIndex);
+		float[] min = vector(accessor, "min");
+		float[] max = vector(accessor, "max");
+		if (min == null || max == null) {
+			if (positions.componentType != FLOAT || positions.size != 3) {
+				return;
+			}
+			min = new float[] { Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY };
+			max = new float[] { Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY };
+			ByteBuffer data = positions.view.data;
+			int stride = positions.stride();
+			for (int i = 0, offset = positions.offset; i < positions.count; i++, offset += stride) {
+				for (int c = 0; c < 3; c++) {
+					float value = data.getFloat(offset + c * 4);
+					min[c] = Math.min(min[c], value);
+					max[c] = Math.max(max[c], value);
+				}
+			}
+		}
+		float x = (max[0] - min[0]) * 0.5f, y = (max[1] - min[1]) * 0.5f, z = (max[2] - min[2]) * 0.5f;
+		model.setBoundingSphere(min[0] + x, min[1] + y, min[2] + z, (float) Math.sqrt(x * x + y * y + z * z));
+	}
+
+	/**
+	 * Indices that are already 32-bit are used straight from the file; others
+	 * are widened.
+	 * 已经是32位的索引直接从文件中使用；其他的会被扩展。
+	 */
+	private IntBuffer indices(Accessor accessor) throws IOException {
+		if (accessor.size != 1) {
+			throw new IOException("Indices must be SCALAR");
+		}
+		int stride = accessor.stride();
+		if (accessor.componentType == UNSIGNED_INT && stride == 4) {
+			return slice(accessor.view.data, accessor.offset, accessor.count * 4).asIntBuffer();
+		}
+		IntBuffer indices = BufferUtils.createIntBuffer(accessor.count);
+		ByteBuffer data = accessor.view.data;
+		for (int i = 0, offset = accessor.offset; i < accessor.count; i++, offset += stride) {
+			switch (accessor.componentType) {
+			case UNSIGNED_BYTE:
+				indices.put(i, data.get(offset) & 0xFF);
+				break;
+			case UNSIGNED_SHORT:
+				indices.put(i, data.getShort(offset) & 0xFFFF);
+				break;
+			case UNSIGNED_INT:
+				indices.put(i, data.getInt(offset));
+				break;
+			default:
+				throw new IOException("Unsupported index type " + accessor.componentType);
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Makes sure that no index points past the vertex data, which the GPU
+	 * would read from whatever memory follows it.
+	 * 确保没有索引指向顶点数据之后，否则GPU会读取之后的任意内存。
+	 */
+	private static void checkIndices(IntBuffer indices, int vertexCount, String meshLabel) throws IOException {
+		for (int i = indices.position(); i < indices.limit(); i++) {
+			int index = indices.get(i);
+			if (index < 0 || index >= vertexCount) {
+				throw new IOException(meshLabel + ": index " + (index & 0xFFFFFFFFL) + " of " + vertexCount
+						+ " vertices");
+			}
+		}
+	}
+
+	private static IntBuffer sequence(int count) {
+		IntBuffer indices = BufferUtils.createIntBuffer(count);
+		for (int i = 0; i < count; i++) {
+			indices.put(i, i);
+		}
+		return indices;
+	}
+
+	/**
+	 * @return The ID of the texture used as the material's base colour, or 0
+	 *         if it has none.
+	 *         材质的基础颜色使用的纹理ID，没有时为0
+	 */
+	private int baseColourTexture(int materialIndex) throws IOException {
+		Map<String, Object> material = map(element("materials", materialIndex), "material " + materialIndex);
+		Object pbr = material.get("pbrMetallicRoughness");
+		if (pbr == null || !map(pbr, "pbrMetallicRoughness").containsKey("baseColorTexture")) {
+			return 0;
+		}
+		Map<String, Object> textureInfo = map(map(pbr, "pbrMetallicRoughness").get("baseColorTexture"),
+				"baseColorTexture");
+		int textureIndex = integer(textureInfo, "index", -1);
+		Map<String, Object> texture = map(element("textures", textureIndex), "texture " + textureIndex);
+		if (!texture.containsKey("source")) {
+			return 0;
+		}
+		int imageIndex = integer(texture, "source", -1);
+		if (imageIndex < 0 || imageIndex >= imageTextures.length) {
+			throw new IOException("No image " + imageIndex);
+		}
+		if (imageTextures[imageIndex] == 0) {
+			imageTextures[imageIndex] = loadImage(imageIndex);
+		}
+		return imageTextures[imageIndex];
+	}
+
+	private int loadImage(int imageIndex) throws IOException {
+		Map<String, Object> image = map(element("images", imageIndex), "image " + imageIndex);
+		if (!image.containsKey("bufferView")) {
+			throw new IOException("Image " + imageIndex + " is not embedded in the file");
+		}
+		ByteBuffer data = view(integer(image, "bufferView", -1)).data;
+		TextureData decoded;
+		try (InputStream in = new ByteBufferInputStream(data.duplicate())) {
+			decoded = TextureData.decode(in);
+		}
+		return loader.loadTexture(label + "/" + string(image, "name", "image " + imageIndex), decoded).getID();
+	}
+
+	private Accessor accessor(int index) throws IOException {
+		Map<String, Object> accessor = map(element("accessors", index), "accessor " + index);
+		if (accessor.containsKey("sparse")) {
+			throw new IOException("Sparse accessors are not supported");
+		}
+		if (!accessor.containsKey("bufferView")) {
+			throw new IOException("Accessor " + index + " has no buffer view");
+		}
+		int viewIndex = integer(accessor, "bufferView", -1);
+		return new Accessor(viewIndex, view(viewIndex), integer(accessor, "byteOffset", 0),
+				integer(accessor, "count", -1), integer(accessor, "componentType", -1),
+				components(string(accessor, "type", "")), Boolean.TRUE.equals(accessor.get("normalized")));
+	}
+
+	private BufferView view(int index) throws IOException {
+		Map<String, Object> view = map(element("bufferViews", index), "buffer view " + index);
+		int buffer = integer(view, "buffer", -1);
+		Map<String, Object> bufferInfo = map(element("buffers", buffer), "buffer " + buffer);
+		if (buffer != 0 || bufferInfo.containsKey("uri") || bin == null) {
+			throw new IOException("Buffer " + buffer + " is not the GLB binary chunk");
+		}
+		int offset = integer(view, "byteOffset", 0);
+		int length = integer(view, "byteLength", -1);
+		if (offset < 0 || length < 0 || (long) offset + length > bin.capacity()) {
+			throw new IOException("Buffer view " + index + " runs past the binary chunk");
+		}
+		return new BufferView(slice(bin, offset, length), integer(view, "byteStride", 0));
+	}
+
+	private Object element(String key, int index) throws IOException {
+		List<Object> array = list(json, key);
+		if (index < 0 || index >= array.size()) {
+			throw new IOException("No " + key + " " + index);
+		}
+		return array.get(index);
+	}
+
+	private static int components(String type) throws IOException {
+		switch (type) {
+		case "SCALAR":
+			return 1;
+		case "VEC2":
+			return 2;
+		case "VEC3":
+			return 3;
+		case "VEC4":
+			return 4;
+		default:
+			throw new IOException("Unsupported accessor type " + type);
+		}
+	}
+
+	private static int componentBytes(int componentType) throws IOException {
+		switch (componentType) {
+		case BYTE:
+		case UNSIGNED_BYTE:
+			return 1;
+		case SHORT:
+		case UNSIGNED_SHORT:
+			return 2;
+		case UNSIGNED_INT:
+		case FLOAT:
+			return 4;
+		default:
+			throw new IOException("Unsupported component type " + componentType);
+		}
+	}
+
+	/**
+	 * @return The bytes from offset to offset + length, as a buffer of their
+	 *         own (little endian, like everything in glTF).
+	 *         从offset到offset + length的字节，作为单独的缓存（小端序，和glTF中的
+	 *         所有内容一样）
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(offset);
+		duplicate.limit(offset + length);
+		return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object value, String name) throws IOException {
+		if (!(value instanceof Map)) {
+			throw new IOException(name + " is not an object");
+		}
+		return (Map<String, Object>) value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> list(Map<String, Object> object, String key) throws IOException {
+		Object value = object.get(key);
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		if (!(value instanceof List)) {
+			throw new IOException(key + " is not an array");
+		}
+		return (List<Object>) value;
+	}
+
+	private static int integer(Map<String, Object> object, String key, int missing) throws IOException {
+		Object value = object.get(key);
+		if (value == null) {
+			if (missing < 0) {
+				throw new IOException("Missing " + key);
+			}
+			return missing;
+		}
+		if (!(value instanceof Double) || (Double) value != Math.rint((Double) value)) {
+			throw new IOException(key + " is not an integer");
+		}
+		return ((Double) value).intValue();
+	}
+
+	/**
+	 * @return The three numbers of the array, or null if there is none.
+	 *         数组中的三个数，没有这个数组时为null
+	 */
+	private static float[] vector(Map<String, Object> object, String key) throws IOException {
+		if (!object.containsKey(key)) {
+			return null;
+		}
+		List<Object> values = list(object, key);
+		if (values.size() != 3) {
+			throw new IOException(key + " has " + values.size() + " components, not 3");
+		}
+		float[] vector = new float[3];
+		for (int i = 0; i < 3; i++) {
+			if (!(values.get(i) instanceof Double)) {
+				throw new IOException(key + " is not an array of numbers");
+			}
+			vector[i] = ((Double) values.get(i)).floatValue();
+		}
+		return vector;
+	}
+
+	private static String string(Map<String, Object> object, String key, String missing) {
+		Object value = object.get(key);
+		return value instanceof String ? (String) value : missing;
+	}
+
+	/**
+	 * A part of the binary chunk.
+	 * 二进制块的一部分
+	 */
+	private static class BufferView {
+
+		private final ByteBuffer data;
+		private final int stride;
+
+		private BufferView(ByteBuffer data, int stride) {
+			this.data = data;
+			this.stride = stride;
+		}
+
+	}
+
+	/**
+	 * How the elements of one attribute (or the indices) are stored in a
+	 * buffer view.
+	 * 一个属性（或索引）的元素在缓存视图中如何存放
+	 */
+	private static class Accessor {
+
+		private final int viewIndex;
+		private final BufferView view;
+		private final int offset;
+		private final int count;
+		private final int componentType;
+		private final int size;
+		private final boolean normalized;
+		private final int elementBytes;
+
+		private Accessor(int viewIndex, BufferView view, int offset, int count, int componentType, int size,
+				boolean normalized) throws IOException {
+			this.viewIndex = viewIndex;
+			this.view = view;
+			this.offset = offset;
+			this.count = count;
+			this.componentType = componentType;
+			this.size = size;
+			this.normalized = normalized;
+			this.elementBytes = componentBytes(componentType) * size;
+			if (count <= 0 || offset < 0 || end() > view.data.capacity()) {
+				throw new IOException("Accessor runs past its buffer view");
+			}
+		}
+
+		private int stride() {
+			return view.stride == 0 ? elementBytes : view.stride;
+		}
+
+		/**
+		 * @return The offset just past the last byte of the last element.
+		 *         最后一个元素最后一个字节之后的偏移
+		 */
+		private int end() {
+			return offset + stride() * (count - 1) + elementBytes;
+		}
+
+		/**
+		 * @param sliceStart
+		 *            - Where in the view the uploaded slice starts.
+		 *            - 上传的片段在视图中开始的位置
+		 */
+		private VertexAttribute attribute(int buffer, int sliceStart) {
+			//glTF的分量类型就是OpenGL的类型常量
+			return new VertexAttribute(buffer, size, componentType, normalized, view.stride, offset - sliceStart);
+		}
+
+	}
+
+}
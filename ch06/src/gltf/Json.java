@@ -0,0 +1,201 @@
+package gltf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small JSON parser for the JSON chunk of glTF files. Objects become Maps,
+ * arrays Lists, numbers Doubles, and true/false/null Booleans and null. The
+ * chunk only describes the file (the vertex data is in the binary chunk), so
+ * it is small and this doesn't need to be fast.
+ * 用于glTF文件JSON块的小型JSON解析器。对象解析为Map，数组解析为List，数字解析为
+ * Double，true/false/null解析为Boolean和null。这个块只描述文件内容（顶点数据在
+ * 二进制块中），所以它很小，解析不需要很快。
+ */
+class Json {
+
+	private final CharSequence text;
+	private int position;
+
+	private Json(CharSequence text) {
+		this.text = text;
+	}
+
+	static Object parse(CharSequence text) throws IOException {
+		Json json = new Json(text);
+		Object value = json.parseValue();
+		json.skipSpaces();
+		if (json.position != text.length()) {
+			throw json.error("Unexpected text after the value");
+		}
+		return value;
+	}
+
+	private Object parseValue() throws IOException {
+		skipSpaces();
+		if (position >= text.length()) {
+			throw error("Unexpected end");
+		}
+		char c = text.charAt(position);
+		switch (c) {
+		case '{':
+			return parseObject();
+		case '[':
+			return parseArray();
+		case '"':
+			return parseString();
+		case 't':
+			expect("true");
+			return Boolean.TRUE;
+		case 'f':
+			expect("false");
+			return Boolean.FALSE;
+		case 'n':
+			expect("null");
+			return null;
+		default:
+			return parseNumber();
+		}
+	}
+
+	private Map<String, Object> parseObject() throws IOException {
+		Map<String, Object> object = new HashMap<String, Object>();
+		position++;
+		skipSpaces();
+		if (peek() == '}') {
+			position++;
+			return object;
+		}
+		while (true) {
+			skipSpaces();
+			if (peek() != '"') {
+				throw error("Expected a key");
+			}
+			String key = parseString();
+			skipSpaces();
+			if (peek() != ':') {
+				throw error("Expected ':'");
+			}
+			position++;
+			object.put(key, parseValue());
+			skipSpaces();
+			char c = peek();
+			position++;
+			if (c == '}') {
+				return object;
+			} else if (c != ',') {
+				throw error("Expected ',' or '}'");
+			}
+		}
+	}
+
+	private List<Object> parseArray() throws IOException {
+		List<Object> array = new ArrayList<Object>();
+		position++;
+		skipSpaces();
+		if (peek() == ']') {
+			position++;
+			return array;
+		}
+		while (true) {
+			array.add(parseValue());
+			skipSpaces();
+			char c = peek();
+			position++;
+			if (c == ']') {
+				return array;
+			} else if (c != ',') {
+				throw error("Expected ',' or ']'");
+			}
+		}
+	}
+
+	private String parseString() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		position++;
+		while (true) {
+			char c = peek();
+			position++;
+			if (c == '"') {
+				return builder.toString();
+			} else if (c == '\\') {
+				char escaped = peek();
+				position++;
+				switch (escaped) {
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw error("Unexpected end");
+					}
+					try {
+						builder.append((char) Integer.parseInt(text.subSequence(position, position + 4).toString(), 16));
+					} catch (NumberFormatException e) {
+						throw error("Bad unicode escape");
+					}
+					position += 4;
+					break;
+				default:
+					builder.append(escaped);
+				}
+			} else {
+				builder.append(c);
+			}
+		}
+	}
+
+	private Double parseNumber() throws IOException {
+		int start = position;
+		while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+			position++;
+		}
+		try {
+			return Double.valueOf(text.subSequence(start, position).toString());
+		} catch (NumberFormatException e) {
+			throw error("Bad number");
+		}
+	}
+
+	private void expect(String word) throws IOException {
+		for (int i = 0; i < word.length(); i++) {
+			if (peek() != word.charAt(i)) {
+				throw error("Expected " + word);
+			}
+			position++;
+		}
+	}
+
+	private char peek() throws IOException {
+		if (position >= text.length()) {
+			throw error("Unexpected end");
+		}
+		return text.charAt(position);
+	}
+
+	private void skipSpaces() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	private IOException error(String message) {
+		return new IOException(message + " at character " + position + " of the JSON chunk");
+	}
+
+}
@@ -0,0 +1,237 @@
+package jobs;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import profiling.Profiler;
+import toolbox.IntList;
+
+/**
+ * The jobs of a frame and what each of them waits for. A graph is built once
+ * (or whenever the frame's structure changes) and then run every frame by a
+ * {@link JobSystem}: a job starts as soon as all the jobs it depends on have
+ * finished, so independent jobs, e.g. the transforms of different systems,
+ * run at the same time on different cores.
+ * 一帧的任务以及每个任务等待哪些任务。图只构建一次（或者在帧的结构改变时构建），
+ * 之后每帧由JobSystem运行：一个任务在它依赖的所有任务完成后立即开始，所以互不依赖的
+ * 任务，例如不同系统的变换，会同时在不同的核心上运行。
+ *
+ * Jobs can only depend on jobs added before them, so the graph never has a
+ * cycle and the order the jobs were added in is always a valid order to run
+ * them in (which the deterministic mode of the job system uses). Jobs that
+ * call OpenGL are added with
+ * {@link #addOnMainThread(String, Runnable, int...)} and only ever run on the
+ * thread that runs the graph, which must be the one that owns the context.
+ * 任务只能依赖在它之前添加的任务，所以图中不会有环，并且任务添加的顺序总是一个有效的
+ * 运行顺序（任务系统的确定性模式使用这个顺序）。调用OpenGL的任务用addOnMainThread
+ * 添加，只会在运行这个图的线程上运行，这个线程必须是拥有上下文的线程。
+ *
+ * Each job is measured as a profiler scope with the job's name, on the thread
+ * that ran it, so the frame report shows how long every job took and where.
+ * 每个任务都以任务名称作为性能分析范围，在运行它的线程上测量，所以帧报告中能看到
+ * 每个任务花了多长时间以及在哪里运行。
+ */
+public class JobGraph {
+
+	private String[] names = new String[16];
+	private int[] scopes = new int[16];
+	private Runnable[] work = new Runnable[16];
+	private boolean[] mainThread = new boolean[16];
+	private int[] dependencyCounts = new int[16];
+	private IntList[] dependents = new IntList[16];
+	private int jobCount;
+
+	//运行时的状态，在第一次运行时创建，之后每帧重复使用
+	JobTask[] tasks = new JobTask[0];
+	AtomicIntegerArray pending;
+	final AtomicInteger remaining = new AtomicInteger();
+	final AtomicInteger failedJob = new AtomicInteger(-1);
+	volatile Throwable failure;
+	volatile JobSystem system;
+
+	/**
+	 * Adds a job that may run on any thread.
+	 * 添加一个可以在任何线程上运行的任务。
+	 *
+	 * @param name
+	 *            - Used as the job's profiler scope and in error messages.
+	 *            - 用作任务的性能分析范围以及错误信息
+	 * @param dependencies
+	 *            - Jobs that must finish before this one starts.
+	 *            - 在这个任务开始前必须完成的任务
+	 * @return The job, for later jobs to depend on.
+	 *         这个任务，供之后的任务依赖
+	 */
+	public int add(String name, Runnable job, int... dependencies) {
+		return add(name, job, false, dependencies);
+	}
+
+	/**
+	 * Adds a job that only runs on the thread that runs the graph, e.g.
+	 * because it makes OpenGL calls.
+	 * 添加一个只在运行这个图的线程上运行的任务，例如因为它调用了OpenGL。
+	 */
+	public int addOnMainThread(String name, Runnable job, int... dependencies) {
+		return add(name, job, true, dependencies);
+	}
+
+	public int getJobCount() {
+		return jobCount;
+	}
+
+	public String getName(int job) {
+		return names[job];
+	}
+
+	public boolean isOnMainThread(int job) {
+		return mainThread[job];
+	}
+
+	/**
+	 * Removes every job. Not while the graph is running.
+	 * 删除所有任务。不能在图运行时调用。
+	 */
+	public void clear() {
+		checkNotRunning();
+		Arrays.fill(work, 0, jobCount, null);
+		jobCount = 0;
+		tasks = new JobTask[0];
+	}
+
+	private int add(String name, Runnable job, boolean onMainThread, int... dependencies) {
+		checkNotRunning();
+		for (int dependency : dependencies) {
+			if (dependency < 0 || dependency >= jobCount) {
+				throw new IllegalArgumentException(
+						"Job " + name + " can only depend on jobs added before it, not " + dependency);
+			}
+		}
+		if (jobCount == names.length) {
+			int size = jobCount * 2;
+			names = Arrays.copyOf(names, size);
+			scopes = Arrays.copyOf(scopes, size);
+			work = Arrays.copyOf(work, size);
+			mainThread = Arrays.copyOf(mainThread, size);
+			dependencyCounts = Arrays.copyOf(dependencyCounts, size);
+			dependents = Arrays.copyOf(dependents, size);
+		}
+		int index = jobCount++;
+		names[index] = name;
+		scopes[index] = Profiler.scope(name);
+		work[index] = job;
+		mainThread[index] = onMainThread;
+		dependencyCounts[index] = dependencies.length;
+		if (dependents[index] == null) {
+			dependents[index] = new IntList(4);
+		} else {
+			dependents[index].clear();
+		}
+		for (int dependency : dependencies) {
+			dependents[dependency].add(index);
+		}
+		return index;
+	}
+
+	private void checkNotRunning() {
+		if (system != null) {
+			throw new IllegalStateException("The job graph is running");
+		}
+	}
+
+	/**
+	 * Gets the graph ready to be run: every job waits for all its
+	 * dependencies again.
+	 * 准备运行这个图：每个任务重新等待它的所有依赖。
+	 */
+	void reset(JobSystem system) {
+		if (this.system != null) {
+			throw new IllegalStateException("The job graph is already running");
+		}
+		if (tasks.length != jobCount) {
+			tasks = new JobTask[jobCount];
+			for (int i = 0; i < jobCount; i++) {
+				tasks[i] = new JobTask(this, i);
+			}
+			pending = new AtomicIntegerArray(jobCount);
+		}
+		for (int i = 0; i < jobCount; i++) {
+			pending.set(i, dependencyCounts[i]);
+		}
+		remaining.set(jobCount);
+		failedJob.set(-1);
+		failure = null;
+		this.system = system;
+	}
+
+	/**
+	 * Runs the job on the calling thread, unless a job has failed already.
+	 * The first failure is kept for the job system to throw.
+	 * 在调用线程上运行任务，除非已经有任务失败。第一个失败会被保存，由任务系统抛出。
+	 */
+	void execute(int job) {
+		if (failure == null) {
+			Profiler.begin(scopes[job]);
+			try {
+				work[job].run();
+			} catch (Throwable t) {
+				if (failedJob.compareAndSet(-1, job)) {
+					failure = t;
+				}
+			} finally {
+				Profiler.end(scopes[job]);
+			}
+		}
+	}
+
+	int getDependentCount(int job) {
+		return dependents[job].size();
+	}
+
+	int getDependent(int job, int index) {
+		return dependents[job].get(index);
+	}
+
+	int getDependencyCount(int job) {
+		return dependencyCounts[job];
+	}
+
+	/**
+	 * A job as a fork/join task, so the workers of the pool can steal it. It
+	 * never counts as completed, so the same task can be forked again every
+	 * frame; nobody joins it, the job system counts the finished jobs itself.
+	 * 作为fork/join任务的任务，这样线程池的工作线程可以窃取它。它永远不算完成，所以
+	 * 每帧都可以再次fork同一个任务；没有人join它，任务系统自己统计完成的任务。
+	 */
+	static class JobTask extends ForkJoinTask<Void> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient JobGraph graph;
+		private final int job;
+
+		JobTask(JobGraph graph, int job) {
+			this.graph = graph;
+			this.job = job;
+		}
+
+		@Override
+		public Void getRawResult() {
+			return null;
+		}
+
+		@Override
+		protected void setRawResult(Void value) {
+		}
+
+		@Override
+		protected boolean exec() {
+			//完成状态由前一帧的工作线程写入，可能晚于下一帧开始，所以不使用它
+			graph.system.runJob(graph, job);
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,215 @@
+package jobs;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import profiling.Profiler;
+
+/**
+ * Runs {@link JobGraph}s on a pool of worker threads. The workers are a
+ * fork/join pool, so each worker has its own deque of jobs: a job that
+ * finishes pushes the jobs it unblocked onto its own deque and carries on
+ * with them (the data they need is likely still in its cache), while idle
+ * workers steal from the other end of the busy workers' deques. Jobs added
+ * with {@link JobGraph#addOnMainThread(String, Runnable, int...)} are queued
+ * for the thread that called {@link #run(JobGraph)} instead, which runs them
+ * in between waiting for the rest, so OpenGL is only ever called from the
+ * thread that owns the context.
+ * 在工作线程池上运行JobGraph。工作线程是一个fork/join线程池，所以每个工作线程都有
+ * 自己的任务双端队列：完成的任务把它解除阻塞的任务压入自己的队列并接着运行它们（它们
+ * 需要的数据很可能还在缓存中），空闲的工作线程则从忙碌的工作线程的队列另一端窃取任务。
+ * 用JobGraph.addOnMainThread添加的任务则排队给调用run(JobGraph)的线程，它在等待其他
+ * 任务的间隙运行这些任务，所以OpenGL只会在拥有上下文的线程上被调用。
+ *
+ * In deterministic mode every job runs on the calling thread, in the order
+ * the jobs were added, so a frame always does the same thing in the same
+ * order, e.g. for tests that compare results or for comparing timings
+ * without the noise of scheduling.
+ * 在确定性模式下，所有任务都在调用线程上按添加的顺序运行，所以一帧总是以相同的顺序
+ * 做相同的事，例如用于比较结果的测试，或者在没有调度干扰的情况下比较耗时。
+ *
+ * Running a graph allocates nothing once it has been run before.
+ * 一个图运行过一次之后，再次运行时不分配内存。
+ */
+public class JobSystem implements Closeable {
+
+	private static final int RUN = Profiler.scope("JobSystem.run");
+	private static final int WAIT = Profiler.scope("JobSystem.wait");
+
+	private final ForkJoinPool pool;
+	private final Object lock = new Object();
+	//等待在主线程上运行的任务，一个环形队列，由lock保护
+	private int[] mainQueue = new int[16];
+	private int mainHead;
+	private int mainCount;
+	private volatile boolean deterministic;
+
+	/**
+	 * Uses one worker for every core but the one the main thread runs on.
+	 * 除了主线程所在的核心之外，每个核心使用一个工作线程。
+	 */
+	public JobSystem() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	public JobSystem(int workers) {
+		if (workers < 1) {
+			throw new IllegalArgumentException("Workers must be at least 1, not " + workers);
+		}
+		pool = new ForkJoinPool(workers, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("Job worker " + thread.getPoolIndex());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * Turns the deterministic mode on or off. Takes effect at the next
+	 * {@link #run(JobGraph)}.
+	 * 打开或关闭确定性模式。在下一次run(JobGraph)时生效。
+	 */
+	public void setDeterministic(boolean deterministic) {
+		this.deterministic = deterministic;
+	}
+
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
+	public int getWorkerCount() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Runs every job of the graph and returns once all have finished. Call on
+	 * the thread that may run the main thread jobs (the GL thread). If a job
+	 * throws, the jobs that haven't started yet are skipped and the exception
+	 * is thrown from here once the running ones are done.
+	 * 运行图中的所有任务，全部完成后返回。在可以运行主线程任务的线程（GL线程）上调用。
+	 * 如果某个任务抛出异常，还没有开始的任务会被跳过，等正在运行的任务完成后从这里抛出
+	 * 这个异常。
+	 */
+	public void run(JobGraph graph) {
+		Profiler.begin(RUN);
+		graph.reset(this);
+		boolean interrupted = false;
+		try {
+			int jobCount = graph.getJobCount();
+			if (deterministic) {
+				for (int i = 0; i < jobCount; i++) {
+					graph.execute(i);
+				}
+			} else {
+				synchronized (lock) {
+					if (mainQueue.length < jobCount) {
+						mainQueue = new int[jobCount];
+					}
+					mainHead = 0;
+					mainCount = 0;
+				}
+				for (int i = 0; i < jobCount; i++) {
+					if (graph.getDependencyCount(i) == 0) {
+						schedule(graph, i);
+					}
+				}
+				interrupted = runMainThreadJobs(graph);
+			}
+		} finally {
+			graph.system = null;
+			Profiler.end(RUN);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		Throwable failure = graph.failure;
+		if (failure != null) {
+			throw new IllegalStateException("Job " + graph.getName(graph.failedJob.get()) + " failed", failure);
+		}
+	}
+
+	/**
+	 * Stops the worker threads when the game is closed.
+	 * 在游戏关闭时停止工作线程
+	 */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Runs the job, then starts the jobs that were only waiting for it.
+	 * 运行任务，然后开始只在等待它的任务。
+	 */
+	void runJob(JobGraph graph, int job) {
+		graph.execute(job);
+		for (int i = graph.getDependentCount(job) - 1; i >= 0; i--) {
+			int dependent = graph.getDependent(job, i);
+			if (graph.pending.decrementAndGet(dependent) == 0) {
+				schedule(graph, dependent);
+			}
+		}
+		if (graph.remaining.decrementAndGet() == 0) {
+			synchronized (lock) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	private void schedule(JobGraph graph, int job) {
+		if (graph.isOnMainThread(job)) {
+			synchronized (lock) {
+				mainQueue[(mainHead + mainCount) % mainQueue.length] = job;
+				mainCount++;
+				lock.notifyAll();
+			}
+		} else if (isWorker(Thread.currentThread())) {
+			//压入当前工作线程自己的队列，其他工作线程可以窃取
+			graph.tasks[job].fork();
+		} else {
+			pool.execute(graph.tasks[job]);
+		}
+	}
+
+	/**
+	 * Runs the main thread jobs as they become ready, until every job of the
+	 * graph has finished.
+	 * 在主线程任务就绪时运行它们，直到图中的所有任务都完成。
+	 *
+	 * @return Whether the thread was interrupted while waiting.
+	 *         等待时线程是否被中断
+	 */
+	private boolean runMainThreadJobs(JobGraph graph) {
+		boolean interrupted = false;
+		while (true) {
+			int job;
+			synchronized (lock) {
+				if (mainCount == 0 && graph.remaining.get() > 0) {
+					Profiler.begin(WAIT);
+					while (mainCount == 0 && graph.remaining.get() > 0) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							//工作线程还在运行这个图的任务，必须等它们完成
+							interrupted = true;
+						}
+					}
+					Profiler.end(WAIT);
+				}
+				if (mainCount == 0) {
+					return interrupted;
+				}
+				job = mainQueue[mainHead];
+				mainHead = (mainHead + 1) % mainQueue.length;
+				mainCount--;
+			}
+			runJob(graph, job);
+		}
+	}
+
+	private boolean isWorker(Thread thread) {
+		return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool;
+	}
+
+}
@@ -0,0 +1,141 @@
+package maths;
+
+/**
+ * The six planes of a camera's view volume, taken from its view-projection
+ * matrix, for skipping objects that can't be seen. Each plane is stored as
+ * (a, b, c, d) with the normal (a, b, c) of unit length pointing inwards, so
+ * a point p is inside the plane when a*p.x + b*p.y + c*p.z + d >= 0.
+ * 摄像机视锥体的六个平面，从视图投影矩阵中得到，用于跳过看不见的物体。每个平面保存为
+ * (a, b, c, d)，法线(a, b, c)为单位长度并指向内部，所以当a*p.x + b*p.y + c*p.z + d >= 0
+ * 时点p在平面内侧。
+ */
+public class Frustum {
+
+	public static final int LEFT = 0;
+	public static final int RIGHT = 1;
+	public static final int BOTTOM = 2;
+	public static final int TOP = 3;
+	public static final int NEAR = 4;
+	public static final int FAR = 5;
+
+	private final float[] planes = new float[24];
+
+	/**
+	 * Takes the planes from a view-projection matrix (projection * view), so
+	 * they are in world space. With a model-view-projection matrix they would
+	 * be in the model's own space instead.
+	 * 从视图投影矩阵（projection * view）中取出平面，所以它们位于世界空间。使用
+	 * 模型-视图-投影矩阵时，它们则位于模型自己的空间。
+	 */
+	public Frustum set(Matrix4f viewProjection) {
+		Matrix4f m = viewProjection;
+		//每个平面是矩阵第四行加上或减去另一行（Gribb和Hartmann的方法）
+		setPlane(LEFT, m.m03 + m.m00, m.m13 + m.m10, m.m23 + m.m20, m.m33 + m.m30);
+		setPlane(RIGHT, m.m03 - m.m00, m.m13 - m.m10, m.m23 - m.m20, m.m33 - m.m30);
+		setPlane(BOTTOM, m.m03 + m.m01, m.m13 + m.m11, m.m23 + m.m21, m.m33 + m.m31);
+		setPlane(TOP, m.m03 - m.m01, m.m13 - m.m11, m.m23 - m.m21, m.m33 - m.m31);
+		setPlane(NEAR, m.m03 + m.m02, m.m13 + m.m12, m.m23 + m.m22, m.m33 + m.m32);
+		setPlane(FAR, m.m03 - m.m02, m.m13 - m.m12, m.m23 - m.m22, m.m33 - m.m32);
+		return this;
+	}
+
+	/**
+	 * @param plane
+	 *            - One of {@link #LEFT} to {@link #FAR}.
+	 *            - LEFT到FAR之一
+	 * @param component
+	 *            - 0 to 3 for a, b, c and d.
+	 *            - 0到3分别对应a, b, c和d
+	 */
+	public float getPlane(int plane, int component) {
+		return planes[plane * 4 + component];
+	}
+
+	/**
+	 * @return Whether any part of the sphere may be inside. Spheres near a
+	 *         corner outside the frustum can pass too, which only costs a
+	 *         draw that wasn't needed.
+	 *         球体是否可能有一部分在内部。视锥体角落外面附近的球体也可能通过，这只会
+	 *         多一次不需要的绘制。
+	 */
+	public boolean intersectsSphere(float x, float y, float z, float radius) {
+		for (int p = 0; p < 24; p += 4) {
+			if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < -radius) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Whether any part of the axis-aligned box may be inside.
+	 *         轴对齐包围盒是否可能有一部分在内部
+	 */
+	public boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		for (int p = 0; p < 24; p += 4) {
+			//取包围盒在平面法线方向上最远的角
+			float x = planes[p] >= 0 ? maxX : minX;
+			float y = planes[p + 1] >= 0 ? maxY : minY;
+			float z = planes[p + 2] >= 0 ? maxZ : minZ;
+			if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tests the spheres from start to end, given as one array per coordinate,
+	 * and writes the indices of those that may be visible to the start of
+	 * visible, in order. visible must have room for end - start indices.
+	 * 测试从start到end的球体（每个坐标一个数组），把可能可见的球体的下标按顺序写到
+	 * visible的开头。visible必须能容纳end - start个下标。
+	 *
+	 * @return The number of indices written.
+	 *         写入的下标数量
+	 */
+	public int cullSpheres(float[] x, float[] y, float[] z, float[] radius, int start, int end, int[] visible) {
+		return cullSpheres(x, y, z, radius, start, end, visible, 0);
+	}
+
+	/**
+	 * Like {@link #cullSpheres(float[], float[], float[], float[], int, int, int[])}
+	 * but writes from visible[offset], e.g. so that threads culling different
+	 * ranges can share one array by passing offset = start.
+	 * 与cullSpheres相同，但从visible[offset]开始写，例如剔除不同范围的线程可以传入
+	 * offset = start来共用一个数组。
+	 */
+	public int cullSpheres(float[] x, float[] y, float[] z, float[] radius, int start, int end, int[] visible,
+			int offset) {
+		float la = planes[0], lb = planes[1], lc = planes[2], ld = planes[3];
+		float ra = planes[4], rb = planes[5], rc = planes[6], rd = planes[7];
+		float ba = planes[8], bb = planes[9], bc = planes[10], bd = planes[11];
+		float ta = planes[12], tb = planes[13], tc = planes[14], td = planes[15];
+		float na = planes[16], nb = planes[17], nc = planes[18], nd = planes[19];
+		float fa = planes[20], fb = planes[21], fc = planes[22], fd = planes[23];
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			float px = x[i], py = y[i], pz = z[i], r = -radius[i];
+			//不提前退出，这样循环里没有难以预测的分支
+			boolean inside = la * px + lb * py + lc * pz + ld >= r
+					& ra * px + rb * py + rc * pz + rd >= r
+					& ba * px + bb * py + bc * pz + bd >= r
+					& ta * px + tb * py + tc * pz + td >= r
+					& na * px + nb * py + nc * pz + nd >= r
+					& fa * px + fb * py + fc * pz + fd >= r;
+			visible[offset + count] = i;
+			count += inside ? 1 : 0;
+		}
+		return count;
+	}
+
+	private void setPlane(int plane, float a, float b, float c, float d) {
+		float inverseLength = 1 / (float) Math.sqrt(a * a + b * b + c * c);
+		int p = plane * 4;
+		planes[p] = a * inverseLength;
+		planes[p + 1] = b * inverseLength;
+		planes[p + 2] = c * inverseLength;
+		planes[p + 3] = d * inverseLength;
+	}
+
+}
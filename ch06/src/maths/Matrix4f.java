@@ -0,0 +1,343 @@
+package maths;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A mutable 4x4 matrix. The fields are named mCR, column first, and are
+ * stored column by column, the order OpenGL reads uniforms in, so
+ * {@link #store(FloatBuffer)} can fill the buffer of a uniform directly. As
+ * with {@link Vector3f}, the operations write into a destination given by
+ * the caller, which may be one of the operands.
+ * 可变的4x4矩阵。字段名为mCR，列在前，按列依次保存，这是OpenGL读取uniform的顺序，
+ * 所以store(FloatBuffer)可以直接填写uniform的缓存。与Vector3f一样，运算写入调用者
+ * 给出的目标，目标可以是其中一个操作数。
+ *
+ * For many matrices at once, {@link Transforms} works on plain float arrays
+ * laid out the same way, 16 floats per matrix.
+ * 对于很多矩阵，Transforms直接处理以同样方式排列的float数组，每个矩阵16个float。
+ */
+public class Matrix4f {
+
+	public float m00, m01, m02, m03;
+	public float m10, m11, m12, m13;
+	public float m20, m21, m22, m23;
+	public float m30, m31, m32, m33;
+
+	/**
+	 * Creates an identity matrix.
+	 * 创建一个单位矩阵。
+	 */
+	public Matrix4f() {
+		setIdentity();
+	}
+
+	public Matrix4f(Matrix4f source) {
+		set(source);
+	}
+
+	public Matrix4f setIdentity() {
+		setZero();
+		m00 = 1;
+		m11 = 1;
+		m22 = 1;
+		m33 = 1;
+		return this;
+	}
+
+	public Matrix4f setZero() {
+		m00 = m01 = m02 = m03 = 0;
+		m10 = m11 = m12 = m13 = 0;
+		m20 = m21 = m22 = m23 = 0;
+		m30 = m31 = m32 = m33 = 0;
+		return this;
+	}
+
+	public Matrix4f set(Matrix4f source) {
+		m00 = source.m00; m01 = source.m01; m02 = source.m02; m03 = source.m03;
+		m10 = source.m10; m11 = source.m11; m12 = source.m12; m13 = source.m13;
+		m20 = source.m20; m21 = source.m21; m22 = source.m22; m23 = source.m23;
+		m30 = source.m30; m31 = source.m31; m32 = source.m32; m33 = source.m33;
+		return this;
+	}
+
+	/**
+	 * Makes the matrix that scales, then rotates, then translates, the usual
+	 * model matrix of an object.
+	 * 生成先缩放，再旋转，最后平移的矩阵，即物体通常的模型矩阵。
+	 *
+	 * @param rotation
+	 *            - The rotation, of unit length.
+	 *            - 旋转，单位长度
+	 */
+	public Matrix4f setTransform(Vector3f translation, Quaternion rotation, Vector3f scale) {
+		return setTransform(translation.x, translation.y, translation.z, rotation.x, rotation.y, rotation.z,
+				rotation.w, scale.x, scale.y, scale.z);
+	}
+
+	/**
+	 * Same as {@link #setTransform(Vector3f, Quaternion, Vector3f)}, from the
+	 * single numbers.
+	 * 与setTransform(Vector3f, Quaternion, Vector3f)相同，使用单独的数字。
+	 */
+	public Matrix4f setTransform(float tx, float ty, float tz, float qx, float qy, float qz, float qw, float sx,
+			float sy, float sz) {
+		float xx = qx * qx, yy = qy * qy, zz = qz * qz;
+		float xy = qx * qy, xz = qx * qz, yz = qy * qz;
+		float wx = qw * qx, wy = qw * qy, wz = qw * qz;
+		m00 = (1 - 2 * (yy + zz)) * sx;
+		m01 = 2 * (xy + wz) * sx;
+		m02 = 2 * (xz - wy) * sx;
+		m03 = 0;
+		m10 = 2 * (xy - wz) * sy;
+		m11 = (1 - 2 * (xx + zz)) * sy;
+		m12 = 2 * (yz + wx) * sy;
+		m13 = 0;
+		m20 = 2 * (xz + wy) * sz;
+		m21 = 2 * (yz - wx) * sz;
+		m22 = (1 - 2 * (xx + yy)) * sz;
+		m23 = 0;
+		m30 = tx;
+		m31 = ty;
+		m32 = tz;
+		m33 = 1;
+		return this;
+	}
+
+	/**
+	 * A perspective projection like gluPerspective: looking down -z, with
+	 * depths from near to far mapped to -1..1.
+	 * 类似gluPerspective的透视投影：朝-z方向看，从near到far的深度映射到-1..1。
+	 *
+	 * @param fieldOfView
+	 *            - The vertical field of view in radians.
+	 *            - 垂直视野，弧度
+	 */
+	public Matrix4f setPerspective(float fieldOfView, float aspectRatio, float near, float far) {
+		float yScale = (float) (1 / Math.tan(fieldOfView * 0.5));
+		setZero();
+		m00 = yScale / aspectRatio;
+		m11 = yScale;
+		m22 = -(far + near) / (far - near);
+		m23 = -1;
+		m32 = -2 * far * near / (far - near);
+		return this;
+	}
+
+	/**
+	 * An orthographic projection like glOrtho: the box from left, bottom, -near
+	 * to right, top, -far is mapped to -1..1 on every axis.
+	 * 类似glOrtho的正交投影：从(left, bottom, -near)到(right, top, -far)的盒子在每个
+	 * 轴上映射到-1..1。
+	 */
+	public Matrix4f setOrthographic(float left, float right, float bottom, float top, float near, float far) {
+		setZero();
+		m00 = 2 / (right - left);
+		m11 = 2 / (top - bottom);
+		m22 = -2 / (far - near);
+		m30 = -(right + left) / (right - left);
+		m31 = -(top + bottom) / (top - bottom);
+		m32 = -(far + near) / (far - near);
+		m33 = 1;
+		return this;
+	}
+
+	/**
+	 * A view matrix like gluLookAt, for a camera at eye looking at target.
+	 * 类似gluLookAt的视图矩阵，摄像机位于eye，看向target。
+	 */
+	public Matrix4f setLookAt(Vector3f eye, Vector3f target, Vector3f up) {
+		//forward = normalise(target - eye)
+		float fx = target.x - eye.x, fy = target.y - eye.y, fz = target.z - eye.z;
+		float inverse = 1 / (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+		fx *= inverse; fy *= inverse; fz *= inverse;
+		//side = normalise(forward x up)
+		float sx = fy * up.z - fz * up.y, sy = fz * up.x - fx * up.z, sz = fx * up.y - fy * up.x;
+		inverse = 1 / (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+		sx *= inverse; sy *= inverse; sz *= inverse;
+		//u = side x forward
+		float ux = sy * fz - sz * fy, uy = sz * fx - sx * fz, uz = sx * fy - sy * fx;
+		m00 = sx; m01 = ux; m02 = -fx; m03 = 0;
+		m10 = sy; m11 = uy; m12 = -fy; m13 = 0;
+		m20 = sz; m21 = uz; m22 = -fz; m23 = 0;
+		m30 = -(sx * eye.x + sy * eye.y + sz * eye.z);
+		m31 = -(ux * eye.x + uy * eye.y + uz * eye.z);
+		m32 = fx * eye.x + fy * eye.y + fz * eye.z;
+		m33 = 1;
+		return this;
+	}
+
+	/**
+	 * @return left * right: the transformation that applies right first, then
+	 *         left.
+	 *         left * right：先应用right再应用left的变换
+	 */
+	public static Matrix4f mul(Matrix4f left, Matrix4f right, Matrix4f dest) {
+		float n00 = left.m00 * right.m00 + left.m10 * right.m01 + left.m20 * right.m02 + left.m30 * right.m03;
+		float n01 = left.m01 * right.m00 + left.m11 * right.m01 + left.m21 * right.m02 + left.m31 * right.m03;
+		float n02 = left.m02 * right.m00 + left.m12 * right.m01 + left.m22 * right.m02 + left.m32 * right.m03;
+		float n03 = left.m03 * right.m00 + left.m13 * right.m01 + left.m23 * right.m02 + left.m33 * right.m03;
+		float n10 = left.m00 * right.m10 + left.m10 * right.m11 + left.m20 * right.m12 + left.m30 * right.m13;
+		float n11 = left.m01 * right.m10 + left.m11 * right.m11 + left.m21 * right.m12 + left.m31 * right.m13;
+		float n12 = left.m02 * right.m10 + left.m12 * right.m11 + left.m22 * right.m12 + left.m32 * right.m13;
+		float n13 = left.m03 * right.m10 + left.m13 * right.m11 + left.m23 * right.m12 + left.m33 * right.m13;
+		float n20 = left.m00 * right.m20 + left.m10 * right.m21 + left.m20 * right.m22 + left.m30 * right.m23;
+		float n21 = left.m01 * right.m20 + left.m11 * right.m21 + left.m21 * right.m22 + left.m31 * right.m23;
+		float n22 = left.m02 * right.m20 + left.m12 * right.m21 + left.m22 * right.m22 + left.m32 * right.m23;
+		float n23 = left.m03 * right.m20 + left.m13 * right.m21 + left.m23 * right.m22 + left.m33 * right.m23;
+		float n30 = left.m00 * right.m30 + left.m10 * right.m31 + left.m20 * right.m32 + left.m30 * right.m33;
+		float n31 = left.m01 * right.m30 + left.m11 * right.m31 + left.m21 * right.m32 + left.m31 * right.m33;
+		float n32 = left.m02 * right.m30 + left.m12 * right.m31 + left.m22 * right.m32 + left.m32 * right.m33;
+		float n33 = left.m03 * right.m30 + left.m13 * right.m31 + left.m23 * right.m32 + left.m33 * right.m33;
+		if (dest == null) {
+			dest = new Matrix4f();
+		}
+		dest.m00 = n00; dest.m01 = n01; dest.m02 = n02; dest.m03 = n03;
+		dest.m10 = n10; dest.m11 = n11; dest.m12 = n12; dest.m13 = n13;
+		dest.m20 = n20; dest.m21 = n21; dest.m22 = n22; dest.m23 = n23;
+		dest.m30 = n30; dest.m31 = n31; dest.m32 = n32; dest.m33 = n33;
+		return dest;
+	}
+
+	/**
+	 * Transforms a point (w = 1), without dividing by w.
+	 * 变换一个点（w = 1），不除以w。
+	 */
+	public static Vector3f transformPoint(Matrix4f matrix, Vector3f point, Vector3f dest) {
+		float x = matrix.m00 * point.x + matrix.m10 * point.y + matrix.m20 * point.z + matrix.m30;
+		float y = matrix.m01 * point.x + matrix.m11 * point.y + matrix.m21 * point.z + matrix.m31;
+		float z = matrix.m02 * point.x + matrix.m12 * point.y + matrix.m22 * point.z + matrix.m32;
+		return (dest == null ? new Vector3f() : dest).set(x, y, z);
+	}
+
+	/**
+	 * Transforms a direction (w = 0), so the translation is left out.
+	 * 变换一个方向（w = 0），所以不包括平移。
+	 */
+	public static Vector3f transformDirection(Matrix4f matrix, Vector3f direction, Vector3f dest) {
+		float x = matrix.m00 * direction.x + matrix.m10 * direction.y + matrix.m20 * direction.z;
+		float y = matrix.m01 * direction.x + matrix.m11 * direction.y + matrix.m21 * direction.z;
+		float z = matrix.m02 * direction.x + matrix.m12 * direction.y + matrix.m22 * direction.z;
+		return (dest == null ? new Vector3f() : dest).set(x, y, z);
+	}
+
+	public static Matrix4f transpose(Matrix4f source, Matrix4f dest) {
+		if (dest == null) {
+			dest = new Matrix4f();
+		}
+		float t01 = source.m01, t02 = source.m02, t03 = source.m03;
+		float t12 = source.m12, t13 = source.m13, t23 = source.m23;
+		dest.m00 = source.m00; dest.m11 = source.m11; dest.m22 = source.m22; dest.m33 = source.m33;
+		dest.m01 = source.m10; dest.m02 = source.m20; dest.m03 = source.m30;
+		dest.m12 = source.m21; dest.m13 = source.m31; dest.m23 = source.m32;
+		dest.m10 = t01; dest.m20 = t02; dest.m30 = t03;
+		dest.m21 = t12; dest.m31 = t13; dest.m32 = t23;
+		return dest;
+	}
+
+	public float determinant() {
+		float s0 = m00 * m11 - m01 * m10, s1 = m00 * m12 - m02 * m10, s2 = m00 * m13 - m03 * m10;
+		float s3 = m01 * m12 - m02 * m11, s4 = m01 * m13 - m03 * m11, s5 = m02 * m13 - m03 * m12;
+		float c5 = m22 * m33 - m23 * m32, c4 = m21 * m33 - m23 * m31, c3 = m21 * m32 - m22 * m31;
+		float c2 = m20 * m33 - m23 * m30, c1 = m20 * m32 - m22 * m30, c0 = m20 * m31 - m21 * m30;
+		return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+	}
+
+	/**
+	 * @return The inverse, or null (with dest left unchanged) if the matrix
+	 *         can't be inverted.
+	 *         逆矩阵，矩阵不可逆时返回null（dest不变）
+	 */
+	public static Matrix4f invert(Matrix4f source, Matrix4f dest) {
+		//按2x2子式展开（Laplace展开）
+		float s0 = source.m00 * source.m11 - source.m01 * source.m10;
+		float s1 = source.m00 * source.m12 - source.m02 * source.m10;
+		float s2 = source.m00 * source.m13 - source.m03 * source.m10;
+		float s3 = source.m01 * source.m12 - source.m02 * source.m11;
+		float s4 = source.m01 * source.m13 - source.m03 * source.m11;
+		float s5 = source.m02 * source.m13 - source.m03 * source.m12;
+		float c5 = source.m22 * source.m33 - source.m23 * source.m32;
+		float c4 = source.m21 * source.m33 - source.m23 * source.m31;
+		float c3 = source.m21 * source.m32 - source.m22 * source.m31;
+		float c2 = source.m20 * source.m33 - source.m23 * source.m30;
+		float c1 = source.m20 * source.m32 - source.m22 * source.m30;
+		float c0 = source.m20 * source.m31 - source.m21 * source.m30;
+		float determinant = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		if (determinant == 0) {
+			return null;
+		}
+		float inverse = 1 / determinant;
+		float n00 = (source.m11 * c5 - source.m12 * c4 + source.m13 * c3) * inverse;
+		float n01 = (-source.m01 * c5 + source.m02 * c4 - source.m03 * c3) * inverse;
+		float n02 = (source.m31 * s5 - source.m32 * s4 + source.m33 * s3) * inverse;
+		float n03 = (-source.m21 * s5 + source.m22 * s4 - source.m23 * s3) * inverse;
+		float n10 = (-source.m10 * c5 + source.m12 * c2 - source.m13 * c1) * inverse;
+		float n11 = (source.m00 * c5 - source.m02 * c2 + source.m03 * c1) * inverse;
+		float n12 = (-source.m30 * s5 + source.m32 * s2 - source.m33 * s1) * inverse;
+		float n13 = (source.m20 * s5 - source.m22 * s2 + source.m23 * s1) * inverse;
+		float n20 = (source.m10 * c4 - source.m11 * c2 + source.m13 * c0) * inverse;
+		float n21 = (-source.m00 * c4 + source.m01 * c2 - source.m03 * c0) * inverse;
+		float n22 = (source.m30 * s4 - source.m31 * s2 + source.m33 * s0) * inverse;
+		float n23 = (-source.m20 * s4 + source.m21 * s2 - source.m23 * s0) * inverse;
+		float n30 = (-source.m10 * c3 + source.m11 * c1 - source.m12 * c0) * inverse;
+		float n31 = (source.m00 * c3 - source.m01 * c1 + source.m02 * c0) * inverse;
+		float n32 = (-source.m30 * s3 + source.m31 * s1 - source.m32 * s0) * inverse;
+		float n33 = (source.m20 * s3 - source.m21 * s1 + source.m22 * s0) * inverse;
+		if (dest == null) {
+			dest = new Matrix4f();
+		}
+		dest.m00 = n00; dest.m01 = n01; dest.m02 = n02; dest.m03 = n03;
+		dest.m10 = n10; dest.m11 = n11; dest.m12 = n12; dest.m13 = n13;
+		dest.m20 = n20; dest.m21 = n21; dest.m22 = n22; dest.m23 = n23;
+		dest.m30 = n30; dest.m31 = n31; dest.m32 = n32; dest.m33 = n33;
+		return dest;
+	}
+
+	/**
+	 * Reads 16 floats, column by column, from the buffer's position.
+	 * 从缓存的position开始按列读取16个float。
+	 */
+	public Matrix4f load(FloatBuffer buffer) {
+		m00 = buffer.get(); m01 = buffer.get(); m02 = buffer.get(); m03 = buffer.get();
+		m10 = buffer.get(); m11 = buffer.get(); m12 = buffer.get(); m13 = buffer.get();
+		m20 = buffer.get(); m21 = buffer.get(); m22 = buffer.get(); m23 = buffer.get();
+		m30 = buffer.get(); m31 = buffer.get(); m32 = buffer.get(); m33 = buffer.get();
+		return this;
+	}
+
+	/**
+	 * Writes the 16 floats, column by column, at the buffer's position, e.g.
+	 * into the buffer of a matrix uniform.
+	 * 在缓存的position处按列写入16个float，例如写入矩阵uniform的缓存。
+	 */
+	public Matrix4f store(FloatBuffer buffer) {
+		buffer.put(m00).put(m01).put(m02).put(m03);
+		buffer.put(m10).put(m11).put(m12).put(m13);
+		buffer.put(m20).put(m21).put(m22).put(m23);
+		buffer.put(m30).put(m31).put(m32).put(m33);
+		return this;
+	}
+
+	public Matrix4f load(float[] array, int offset) {
+		m00 = array[offset]; m01 = array[offset + 1]; m02 = array[offset + 2]; m03 = array[offset + 3];
+		m10 = array[offset + 4]; m11 = array[offset + 5]; m12 = array[offset + 6]; m13 = array[offset + 7];
+		m20 = array[offset + 8]; m21 = array[offset + 9]; m22 = array[offset + 10]; m23 = array[offset + 11];
+		m30 = array[offset + 12]; m31 = array[offset + 13]; m32 = array[offset + 14]; m33 = array[offset + 15];
+		return this;
+	}
+
+	public Matrix4f store(float[] array, int offset) {
+		array[offset] = m00; array[offset + 1] = m01; array[offset + 2] = m02; array[offset + 3] = m03;
+		array[offset + 4] = m10; array[offset + 5] = m11; array[offset + 6] = m12; array[offset + 7] = m13;
+		array[offset + 8] = m20; array[offset + 9] = m21; array[offset + 10] = m22; array[offset + 11] = m23;
+		array[offset + 12] = m30; array[offset + 13] = m31; array[offset + 14] = m32; array[offset + 15] = m33;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "Matrix4f[" + m00 + " " + m10 + " " + m20 + " " + m30 + " / " + m01 + " " + m11 + " " + m21 + " "
+				+ m31 + " / " + m02 + " " + m12 + " " + m22 + " " + m32 + " / " + m03 + " " + m13 + " " + m23 + " "
+				+ m33 + "]";
+	}
+
+}
@@ -0,0 +1,150 @@
+package maths;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A mutable rotation quaternion (x, y, z, w). Rotations made from it with
+ * {@link Matrix4f#setTransform(Vector3f, Quaternion, Vector3f)} expect it to
+ * be of unit length; {@link #normalise()} it after many multiplications.
+ * 可变的旋转四元数(x, y, z, w)。用Matrix4f.setTransform生成旋转时要求它是单位长度；
+ * 多次相乘之后要调用normalise()。
+ */
+public class Quaternion {
+
+	public float x;
+	public float y;
+	public float z;
+	public float w = 1;
+
+	public Quaternion() {
+	}
+
+	public Quaternion(float x, float y, float z, float w) {
+		set(x, y, z, w);
+	}
+
+	public Quaternion set(float x, float y, float z, float w) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		return this;
+	}
+
+	public Quaternion set(Quaternion source) {
+		return set(source.x, source.y, source.z, source.w);
+	}
+
+	public Quaternion setIdentity() {
+		return set(0, 0, 0, 1);
+	}
+
+	/**
+	 * @param axis
+	 *            - The axis to rotate around, of unit length.
+	 *            - 旋转轴，单位长度
+	 * @param angle
+	 *            - The angle in radians, counter-clockwise when looking
+	 *            against the axis.
+	 *            - 弧度表示的角度，逆着轴看时为逆时针
+	 */
+	public Quaternion setFromAxisAngle(Vector3f axis, float angle) {
+		float sin = (float) Math.sin(angle * 0.5);
+		return set(axis.x * sin, axis.y * sin, axis.z * sin, (float) Math.cos(angle * 0.5));
+	}
+
+	public float lengthSquared() {
+		return x * x + y * y + z * z + w * w;
+	}
+
+	public Quaternion normalise() {
+		float lengthSquared = lengthSquared();
+		if (lengthSquared == 0) {
+			return setIdentity();
+		}
+		float scale = 1 / (float) Math.sqrt(lengthSquared);
+		return set(x * scale, y * scale, z * scale, w * scale);
+	}
+
+	/**
+	 * The opposite rotation, for a quaternion of unit length.
+	 * 相反的旋转，要求四元数为单位长度。
+	 */
+	public Quaternion conjugate() {
+		return set(-x, -y, -z, w);
+	}
+
+	/**
+	 * @return The rotation that first rotates by right, then by left.
+	 *         先按right旋转，再按left旋转的旋转
+	 */
+	public static Quaternion mul(Quaternion left, Quaternion right, Quaternion dest) {
+		float x = left.w * right.x + left.x * right.w + left.y * right.z - left.z * right.y;
+		float y = left.w * right.y - left.x * right.z + left.y * right.w + left.z * right.x;
+		float z = left.w * right.z + left.x * right.y - left.y * right.x + left.z * right.w;
+		float w = left.w * right.w - left.x * right.x - left.y * right.y - left.z * right.z;
+		return create(dest).set(x, y, z, w);
+	}
+
+	/**
+	 * Rotates the vector (dest may be the vector itself).
+	 * 旋转向量（dest可以是向量本身）。
+	 */
+	public static Vector3f transform(Quaternion rotation, Vector3f vector, Vector3f dest) {
+		//v + 2w(q x v) + 2q x (q x v)
+		float tx = 2 * (rotation.y * vector.z - rotation.z * vector.y);
+		float ty = 2 * (rotation.z * vector.x - rotation.x * vector.z);
+		float tz = 2 * (rotation.x * vector.y - rotation.y * vector.x);
+		float x = vector.x + rotation.w * tx + rotation.y * tz - rotation.z * ty;
+		float y = vector.y + rotation.w * ty + rotation.z * tx - rotation.x * tz;
+		float z = vector.z + rotation.w * tz + rotation.x * ty - rotation.y * tx;
+		return (dest == null ? new Vector3f() : dest).set(x, y, z);
+	}
+
+	/**
+	 * Spherical interpolation between two rotations of unit length, taking the
+	 * shorter way round.
+	 * 两个单位长度旋转之间的球面插值，走较短的一边。
+	 */
+	public static Quaternion slerp(Quaternion a, Quaternion b, float t, Quaternion dest) {
+		float cos = a.x * b.x + a.y * b.y + a.z * b.z + a.w * b.w;
+		float sign = 1;
+		if (cos < 0) {
+			cos = -cos;
+			sign = -1;
+		}
+		float weightA;
+		float weightB;
+		if (cos > 0.9995f) {
+			//角度很小时sin接近0，改用线性插值
+			weightA = 1 - t;
+			weightB = t * sign;
+		} else {
+			double angle = Math.acos(cos);
+			double sin = Math.sin(angle);
+			weightA = (float) (Math.sin((1 - t) * angle) / sin);
+			weightB = (float) (Math.sin(t * angle) / sin) * sign;
+		}
+		return create(dest).set(weightA * a.x + weightB * b.x, weightA * a.y + weightB * b.y,
+				weightA * a.z + weightB * b.z, weightA * a.w + weightB * b.w).normalise();
+	}
+
+	public Quaternion load(FloatBuffer buffer) {
+		return set(buffer.get(), buffer.get(), buffer.get(), buffer.get());
+	}
+
+	public Quaternion store(FloatBuffer buffer) {
+		buffer.put(x).put(y).put(z).put(w);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "Quaternion[" + x + ", " + y + ", " + z + ", " + w + "]";
+	}
+
+	private static Quaternion create(Quaternion dest) {
+		return dest == null ? new Quaternion() : dest;
+	}
+
+}
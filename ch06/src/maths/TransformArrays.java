@@ -0,0 +1,160 @@
+package maths;
+
+import java.util.Arrays;
+
+/**
+ * The position, rotation and scale of many objects, kept as one array per
+ * component (structure of arrays) rather than one object per transform.
+ * Computing all the model matrices then runs through a few long arrays in
+ * order, and no objects are created or followed.
+ * 许多物体的位置，旋转和缩放，每个分量保存为一个数组（数组结构），而不是每个变换
+ * 一个对象。这样计算所有模型矩阵时按顺序遍历几个长数组，不创建也不追踪任何对象。
+ */
+public class TransformArrays {
+
+	public float[] positionX;
+	public float[] positionY;
+	public float[] positionZ;
+	public float[] rotationX;
+	public float[] rotationY;
+	public float[] rotationZ;
+	public float[] rotationW;
+	public float[] scaleX;
+	public float[] scaleY;
+	public float[] scaleZ;
+	private int size;
+
+	public TransformArrays(int initialCapacity) {
+		int capacity = Math.max(1, initialCapacity);
+		positionX = new float[capacity];
+		positionY = new float[capacity];
+		positionZ = new float[capacity];
+		rotationX = new float[capacity];
+		rotationY = new float[capacity];
+		rotationZ = new float[capacity];
+		rotationW = new float[capacity];
+		scaleX = new float[capacity];
+		scaleY = new float[capacity];
+		scaleZ = new float[capacity];
+	}
+
+	/**
+	 * Adds an identity transform.
+	 * 添加一个单位变换。
+	 *
+	 * @return Its index.
+	 *         它的下标
+	 */
+	public int add() {
+		if (size == positionX.length) {
+			grow(size * 2);
+		}
+		int index = size++;
+		set(index, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1);
+		return index;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Drops the last transform, e.g. after moving it into the place of one
+	 * that is removed.
+	 * 去掉最后一个变换，例如在把它移到被删除的变换的位置之后。
+	 */
+	public void removeLast() {
+		if (size == 0) {
+			throw new IllegalStateException("No transforms to remove");
+		}
+		size--;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void set(int index, Vector3f position, Quaternion rotation, Vector3f scale) {
+		set(index, position.x, position.y, position.z, rotation.x, rotation.y, rotation.z, rotation.w, scale.x,
+				scale.y, scale.z);
+	}
+
+	public void set(int index, float px, float py, float pz, float qx, float qy, float qz, float qw, float sx,
+			float sy, float sz) {
+		positionX[index] = px;
+		positionY[index] = py;
+		positionZ[index] = pz;
+		rotationX[index] = qx;
+		rotationY[index] = qy;
+		rotationZ[index] = qz;
+		rotationW[index] = qw;
+		scaleX[index] = sx;
+		scaleY[index] = sy;
+		scaleZ[index] = sz;
+	}
+
+	public Vector3f getPosition(int index, Vector3f dest) {
+		return (dest == null ? new Vector3f() : dest).set(positionX[index], positionY[index], positionZ[index]);
+	}
+
+	public Quaternion getRotation(int index, Quaternion dest) {
+		return (dest == null ? new Quaternion() : dest).set(rotationX[index], rotationY[index], rotationZ[index],
+				rotationW[index]);
+	}
+
+	/**
+	 * Computes the model matrices of the transforms from start (inclusive) to
+	 * end (exclusive), like {@link Matrix4f#setTransform}, writing 16 floats
+	 * for each at matrices[16 * index]. Ranges that don't overlap can be
+	 * computed on different threads.
+	 * 计算从start（包含）到end（不包含）的变换的模型矩阵，与Matrix4f.setTransform相同，
+	 * 每个矩阵的16个float写在matrices[16 * index]处。不重叠的范围可以在不同的线程上计算。
+	 */
+	public void computeMatrices(int start, int end, float[] matrices) {
+		checkRange(start, end);
+		for (int i = start; i < end; i++) {
+			float qx = rotationX[i], qy = rotationY[i], qz = rotationZ[i], qw = rotationW[i];
+			float sx = scaleX[i], sy = scaleY[i], sz = scaleZ[i];
+			float xx = qx * qx, yy = qy * qy, zz = qz * qz;
+			float xy = qx * qy, xz = qx * qz, yz = qy * qz;
+			float wx = qw * qx, wy = qw * qy, wz = qw * qz;
+			int m = i * 16;
+			matrices[m] = (1 - 2 * (yy + zz)) * sx;
+			matrices[m + 1] = 2 * (xy + wz) * sx;
+			matrices[m + 2] = 2 * (xz - wy) * sx;
+			matrices[m + 3] = 0;
+			matrices[m + 4] = 2 * (xy - wz) * sy;
+			matrices[m + 5] = (1 - 2 * (xx + zz)) * sy;
+			matrices[m + 6] = 2 * (yz + wx) * sy;
+			matrices[m + 7] = 0;
+			matrices[m + 8] = 2 * (xz + wy) * sz;
+			matrices[m + 9] = 2 * (yz - wx) * sz;
+			matrices[m + 10] = (1 - 2 * (xx + yy)) * sz;
+			matrices[m + 11] = 0;
+			matrices[m + 12] = positionX[i];
+			matrices[m + 13] = positionY[i];
+			matrices[m + 14] = positionZ[i];
+			matrices[m + 15] = 1;
+		}
+	}
+
+	private void checkRange(int start, int end) {
+		if (start < 0 || end > size || start > end) {
+			throw new IndexOutOfBoundsException("Range " + start + " to " + end + " of " + size + " transforms");
+		}
+	}
+
+	private void grow(int capacity) {
+		positionX = Arrays.copyOf(positionX, capacity);
+		positionY = Arrays.copyOf(positionY, capacity);
+		positionZ = Arrays.copyOf(positionZ, capacity);
+		rotationX = Arrays.copyOf(rotationX, capacity);
+		rotationY = Arrays.copyOf(rotationY, capacity);
+		rotationZ = Arrays.copyOf(rotationZ, capacity);
+		rotationW = Arrays.copyOf(rotationW, capacity);
+		scaleX = Arrays.copyOf(scaleX, capacity);
+		scaleY = Arrays.copyOf(scaleY, capacity);
+		scaleZ = Arrays.copyOf(scaleZ, capacity);
+	}
+
+}
@@ -0,0 +1,103 @@
+package maths;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Operations on many matrices or points at once. Matrices are packed in a
+ * float[] the way {@link Matrix4f} stores them, 16 floats per matrix column
+ * by column, and points as one array per coordinate. Working on arrays
+ * avoids creating objects and lets the loops run over memory in order.
+ * 一次处理许多矩阵或点的运算。矩阵按Matrix4f保存的方式紧密排列在float[]中，每个
+ * 矩阵16个float，按列排列，点则每个坐标一个数组。处理数组避免了创建对象，并让循环
+ * 按顺序访问内存。
+ *
+ * Each operation takes a range of indices, start (inclusive) to end
+ * (exclusive), so a batch can be split between threads.
+ * 每个运算都接受一个下标范围，从start（包含）到end（不包含），所以一批数据可以分给
+ * 多个线程处理。
+ */
+public class Transforms {
+
+	private Transforms() {
+	}
+
+	/**
+	 * dest[i] = left * matrices[i], e.g. turning model matrices into
+	 * model-view-projection matrices. dest may be matrices itself.
+	 * dest[i] = left * matrices[i]，例如把模型矩阵变成模型-视图-投影矩阵。dest可以
+	 * 就是matrices本身。
+	 */
+	public static void mul(Matrix4f left, float[] matrices, int start, int end, float[] dest) {
+		float l00 = left.m00, l01 = left.m01, l02 = left.m02, l03 = left.m03;
+		float l10 = left.m10, l11 = left.m11, l12 = left.m12, l13 = left.m13;
+		float l20 = left.m20, l21 = left.m21, l22 = left.m22, l23 = left.m23;
+		float l30 = left.m30, l31 = left.m31, l32 = left.m32, l33 = left.m33;
+		for (int m = start * 16; m < end * 16; m += 16) {
+			//每次处理右边矩阵的一列
+			for (int column = m; column < m + 16; column += 4) {
+				float r0 = matrices[column], r1 = matrices[column + 1];
+				float r2 = matrices[column + 2], r3 = matrices[column + 3];
+				dest[column] = l00 * r0 + l10 * r1 + l20 * r2 + l30 * r3;
+				dest[column + 1] = l01 * r0 + l11 * r1 + l21 * r2 + l31 * r3;
+				dest[column + 2] = l02 * r0 + l12 * r1 + l22 * r2 + l32 * r3;
+				dest[column + 3] = l03 * r0 + l13 * r1 + l23 * r2 + l33 * r3;
+			}
+		}
+	}
+
+	/**
+	 * dest[i] = parents[parentIndices[i]] * matrices[i], e.g. turning local
+	 * matrices into world matrices once the parents' are known. dest may be
+	 * matrices itself.
+	 * dest[i] = parents[parentIndices[i]] * matrices[i]，例如在父节点的矩阵已知后
+	 * 把局部矩阵变成世界矩阵。dest可以就是matrices本身。
+	 */
+	public static void mul(float[] parents, int[] parentIndices, float[] matrices, int start, int end,
+			float[] dest) {
+		for (int i = start; i < end; i++) {
+			int p = parentIndices[i] * 16;
+			int m = i * 16;
+			for (int column = m; column < m + 16; column += 4) {
+				float r0 = matrices[column], r1 = matrices[column + 1];
+				float r2 = matrices[column + 2], r3 = matrices[column + 3];
+				dest[column] = parents[p] * r0 + parents[p + 4] * r1 + parents[p + 8] * r2 + parents[p + 12] * r3;
+				dest[column + 1] = parents[p + 1] * r0 + parents[p + 5] * r1 + parents[p + 9] * r2
+						+ parents[p + 13] * r3;
+				dest[column + 2] = parents[p + 2] * r0 + parents[p + 6] * r1 + parents[p + 10] * r2
+						+ parents[p + 14] * r3;
+				dest[column + 3] = parents[p + 3] * r0 + parents[p + 7] * r1 + parents[p + 11] * r2
+						+ parents[p + 15] * r3;
+			}
+		}
+	}
+
+	/**
+	 * Transforms points (w = 1) given as one array per coordinate, without
+	 * dividing by w. The output arrays may be the input arrays.
+	 * 变换以每个坐标一个数组给出的点（w = 1），不除以w。输出数组可以就是输入数组。
+	 */
+	public static void transformPoints(Matrix4f matrix, float[] x, float[] y, float[] z, int start, int end,
+			float[] destX, float[] destY, float[] destZ) {
+		float m00 = matrix.m00, m01 = matrix.m01, m02 = matrix.m02;
+		float m10 = matrix.m10, m11 = matrix.m11, m12 = matrix.m12;
+		float m20 = matrix.m20, m21 = matrix.m21, m22 = matrix.m22;
+		float m30 = matrix.m30, m31 = matrix.m31, m32 = matrix.m32;
+		for (int i = start; i < end; i++) {
+			float px = x[i], py = y[i], pz = z[i];
+			destX[i] = m00 * px + m10 * py + m20 * pz + m30;
+			destY[i] = m01 * px + m11 * py + m21 * pz + m31;
+			destZ[i] = m02 * px + m12 * py + m22 * pz + m32;
+		}
+	}
+
+	/**
+	 * Copies the matrices from start to end into the buffer at its position,
+	 * with one bulk put, e.g. into a uniform or instance buffer.
+	 * 用一次批量put把从start到end的矩阵复制到缓存的position处，例如复制进uniform
+	 * 或实例缓存。
+	 */
+	public static void store(float[] matrices, int start, int end, FloatBuffer buffer) {
+		buffer.put(matrices, start * 16, (end - start) * 16);
+	}
+
+}
@@ -0,0 +1,115 @@
+package maths;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A mutable 3D vector. Like the rest of this package it is made for code that
+ * runs every frame: the operations write their result into a destination
+ * given by the caller (which may be one of the operands) and return it, so
+ * nothing is allocated as long as a destination is passed. Only when dest is
+ * null is a new vector created.
+ * 可变的三维向量。与这个包中的其他类一样，它是为每帧都运行的代码设计的：运算把结果
+ * 写入调用者给出的目标（可以是其中一个操作数）并返回它，所以只要传入了目标就不会
+ * 分配任何内存。只有dest为null时才会创建新的向量。
+ */
+public class Vector3f {
+
+	public float x;
+	public float y;
+	public float z;
+
+	public Vector3f() {
+	}
+
+	public Vector3f(float x, float y, float z) {
+		set(x, y, z);
+	}
+
+	public Vector3f(Vector3f source) {
+		set(source);
+	}
+
+	public Vector3f set(float x, float y, float z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+
+	public Vector3f set(Vector3f source) {
+		return set(source.x, source.y, source.z);
+	}
+
+	public float length() {
+		return (float) Math.sqrt(lengthSquared());
+	}
+
+	public float lengthSquared() {
+		return x * x + y * y + z * z;
+	}
+
+	public Vector3f scale(float scale) {
+		x *= scale;
+		y *= scale;
+		z *= scale;
+		return this;
+	}
+
+	public Vector3f negate() {
+		return set(-x, -y, -z);
+	}
+
+	/**
+	 * Makes the vector one unit long. A zero vector stays zero.
+	 * 把向量变为单位长度。零向量保持为零。
+	 */
+	public Vector3f normalise() {
+		float lengthSquared = lengthSquared();
+		return lengthSquared == 0 ? this : scale(1 / (float) Math.sqrt(lengthSquared));
+	}
+
+	public static Vector3f add(Vector3f left, Vector3f right, Vector3f dest) {
+		return create(dest).set(left.x + right.x, left.y + right.y, left.z + right.z);
+	}
+
+	public static Vector3f sub(Vector3f left, Vector3f right, Vector3f dest) {
+		return create(dest).set(left.x - right.x, left.y - right.y, left.z - right.z);
+	}
+
+	public static float dot(Vector3f left, Vector3f right) {
+		return left.x * right.x + left.y * right.y + left.z * right.z;
+	}
+
+	public static Vector3f cross(Vector3f left, Vector3f right, Vector3f dest) {
+		return create(dest).set(left.y * right.z - left.z * right.y, left.z * right.x - left.x * right.z,
+				left.x * right.y - left.y * right.x);
+	}
+
+	/**
+	 * @return a + (b - a) * t, e.g. for interpolating positions between two
+	 *         ticks.
+	 *         a + (b - a) * t，例如用于在两个tick之间插值位置
+	 */
+	public static Vector3f lerp(Vector3f a, Vector3f b, float t, Vector3f dest) {
+		return create(dest).set(a.x + (b.x - a.x) * t, a.y + (b.y - a.y) * t, a.z + (b.z - a.z) * t);
+	}
+
+	public Vector3f load(FloatBuffer buffer) {
+		return set(buffer.get(), buffer.get(), buffer.get());
+	}
+
+	public Vector3f store(FloatBuffer buffer) {
+		buffer.put(x).put(y).put(z);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "Vector3f[" + x + ", " + y + ", " + z + "]";
+	}
+
+	private static Vector3f create(Vector3f dest) {
+		return dest == null ? new Vector3f() : dest;
+	}
+
+}
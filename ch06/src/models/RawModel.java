@@ -1,5 +1,7 @@
 package models;
 
+import resources.MeshHandle;
+
 /**
  * Represents a loaded model. It contains the ID of the VAO that contains the
  * model's data, and holds the number of vertices in the model.
@@ -11,10 +13,41 @@ public class RawModel {
 
 	private int vaoID;
 	private int vertexCount;
+	private int firstIndex;
+	private int baseVertex;
+	private MeshHandle handle;
+	private float boundsX;
+	private float boundsY;
+	private float boundsZ;
+	private float boundsRadius = Float.POSITIVE_INFINITY;
 
 	public RawModel(int vaoID, int vertexCount) {
+		this(vaoID, vertexCount, 0, 0);
+	}
+
+	/**
+	 * Creates a model which lives inside a VAO shared with other models. Its
+	 * indices start at "firstIndex" in the shared index buffer and are offset
+	 * by "baseVertex" when they are used to fetch vertices.
+	 * 创建一个与其他模型共用VAO的模型。它的索引从共享索引缓存的firstIndex处
+	 * 开始，读取顶点时索引会加上baseVertex
+	 */
+	public RawModel(int vaoID, int vertexCount, int firstIndex, int baseVertex) {
+		this(vaoID, vertexCount, firstIndex, baseVertex, null);
+	}
+
+	/**
+	 * Creates a model that knows the resources it was loaded into, so it can be
+	 * released on its own (see renderEngine.Loader.release(RawModel)).
+	 * 创建一个知道自己被加载到哪些资源中的模型，这样它可以被单独释放（参见
+	 * renderEngine.Loader.release(RawModel)）。
+	 */
+	public RawModel(int vaoID, int vertexCount, int firstIndex, int baseVertex, MeshHandle handle) {
 		this.vaoID = vaoID;
 		this.vertexCount = vertexCount;
+		this.firstIndex = firstIndex;
+		this.baseVertex = baseVertex;
+		this.handle = handle;
 	}
 
 	/**
@@ -34,4 +67,65 @@ public class RawModel {
 		return vertexCount;
 	}
 
+	/**
+	 * @return The position of this model's first index in the VAO's index
+	 *         buffer (0 unless the VAO is shared).
+	 *         模型第一个索引在索引缓存中的位置（不共享VAO时为0）
+	 */
+	public int getFirstIndex() {
+		return firstIndex;
+	}
+
+	/**
+	 * @return The value added to every index of this model before fetching
+	 *         the vertex (0 unless the VAO is shared).
+	 *         读取顶点前加到每个索引上的值（不共享VAO时为0）
+	 */
+	public int getBaseVertex() {
+		return baseVertex;
+	}
+
+	/**
+	 * Sets a sphere around all of the model's vertices, in the model's own
+	 * space, so instances of it can be culled.
+	 * 设置包围模型所有顶点的球体，位于模型自己的空间，这样它的实例可以被剔除。
+	 */
+	public void setBoundingSphere(float centerX, float centerY, float centerZ, float radius) {
+		boundsX = centerX;
+		boundsY = centerY;
+		boundsZ = centerZ;
+		boundsRadius = radius;
+	}
+
+	public float getBoundsX() {
+		return boundsX;
+	}
+
+	public float getBoundsY() {
+		return boundsY;
+	}
+
+	public float getBoundsZ() {
+		return boundsZ;
+	}
+
+	/**
+	 * @return The radius of the bounding sphere, Float.POSITIVE_INFINITY
+	 *         until it is set, so a model of unknown size is never culled.
+	 *         包围球的半径，设置之前为Float.POSITIVE_INFINITY，这样大小未知的模型
+	 *         永远不会被剔除
+	 */
+	public float getBoundsRadius() {
+		return boundsRadius;
+	}
+
+	/**
+	 * @return The VAO and buffers the model was loaded into, or null if it
+	 *         wasn't loaded by a Loader.
+	 *         模型被加载到的VAO和缓存，如果不是由Loader加载的则为null
+	 */
+	public MeshHandle getHandle() {
+		return handle;
+	}
+
 }
@@ -0,0 +1,48 @@
+package objConverter;
+
+/**
+ * The geometry of a model read from a file, ready to be loaded into a VAO.
+ * Every vertex has a position, texture coordinates and a normal at the same
+ * index, and the indices form triangles.
+ * 从文件读取的模型几何数据，可以直接加载进VAO。每个顶点在相同的下标处有位置，
+ * 纹理坐标和法线，索引组成三角形。
+ */
+public class ModelData {
+
+	private final float[] vertices;
+	private final float[] textureCoords;
+	private final float[] normals;
+	private final int[] indices;
+
+	public ModelData(float[] vertices, float[] textureCoords, float[] normals, int[] indices) {
+		this.vertices = vertices;
+		this.textureCoords = textureCoords;
+		this.normals = normals;
+		this.indices = indices;
+	}
+
+	/**
+	 * @return The 3D positions of the vertices.
+	 *         顶点的3D位置
+	 */
+	public float[] getVertices() {
+		return vertices;
+	}
+
+	public float[] getTextureCoords() {
+		return textureCoords;
+	}
+
+	public float[] getNormals() {
+		return normals;
+	}
+
+	public int[] getIndices() {
+		return indices;
+	}
+
+	public int getVertexCount() {
+		return vertices.length / 3;
+	}
+
+}
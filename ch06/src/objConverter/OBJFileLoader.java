@@ -0,0 +1,248 @@
+package objConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import assets.VirtualFileSystem;
+import profiling.Profiler;
+import toolbox.FloatList;
+
+/**
+ * Loads the geometry of OBJ files, so that models can be made in a modelling
+ * program instead of being typed in as arrays. The result can be loaded with
+ * {@link renderEngine.Loader#loadToVAO(String, float[], float[], int[])}.
+ * 加载OBJ文件的几何数据，这样模型就可以在建模软件中制作，而不用手写成数组。
+ * 结果可以用Loader.loadToVAO(String, float[], float[], int[])加载。
+ *
+ * Large files are split into byte ranges that are parsed on several threads
+ * (see {@link ObjChunk}). The corners of all chunks are then turned into
+ * vertices in file order: every distinct combination of position, texture
+ * coordinates and normal becomes one vertex, and corners that share it share
+ * its index.
+ * 大文件被拆分成多个字节范围，在多个线程上解析（见ObjChunk）。然后所有块的角按文件
+ * 中的顺序转换成顶点：每个不同的位置，纹理坐标和法线组合成为一个顶点，共享它的角
+ * 共享它的索引。
+ */
+public class OBJFileLoader {
+
+	private static final int LOAD = Profiler.scope("OBJFileLoader.loadOBJ");
+
+	private static final String RES_LOC = "res/";
+
+	/**
+	 * Files smaller than this are parsed on one thread; starting the others
+	 * would take longer than the parsing.
+	 * 小于这个大小的文件在一个线程上解析；启动其他线程花的时间会比解析更长。
+	 */
+	private static final long MIN_CHUNK_BYTES = 4 << 20;
+
+	/**
+	 * Loads res/[name].obj through the {@link VirtualFileSystem}, parsing it
+	 * on all processors.
+	 * 通过VirtualFileSystem加载res/[name].obj，在所有处理器上解析。
+	 */
+	public static ModelData loadOBJ(String objFileName) {
+		String path = RES_LOC + objFileName + ".obj";
+		try {
+			return loadOBJ(VirtualFileSystem.read(path), Runtime.getRuntime().availableProcessors());
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("Tried to load OBJ file " + path + ", didn't work");
+			System.exit(-1);
+			return null;
+		}
+	}
+
+	/**
+	 * @param file
+	 *            - The OBJ file.
+	 *            - OBJ文件
+	 * @param threads
+	 *            - The most threads to parse the file on, including the
+	 *            calling one.
+	 *            - 解析文件最多使用的线程数，包括调用的线程
+	 * @return The geometry of all faces in the file.
+	 *         文件中所有面的几何数据
+	 */
+	public static ModelData loadOBJ(File file, int threads) throws IOException {
+		Profiler.begin(LOAD);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return load(channel, null, channel.size(), threads);
+		} finally {
+			Profiler.end(LOAD);
+		}
+	}
+
+	/**
+	 * Same as {@link #loadOBJ(File, int)} for a file that is already in
+	 * memory, e.g. read from an asset archive.
+	 * 与loadOBJ(File, int)相同，用于已经在内存中的文件，例如从资源包中读取的文件。
+	 *
+	 * @param data
+	 *            - The file, from position to limit.
+	 *            - 文件，从position到limit
+	 */
+	public static ModelData loadOBJ(ByteBuffer data, int threads) throws IOException {
+		Profiler.begin(LOAD);
+		try {
+			return load(null, data.slice(), data.remaining(), threads);
+		} finally {
+			Profiler.end(LOAD);
+		}
+	}
+
+	private static ModelData load(FileChannel channel, ByteBuffer memory, long size, int threads)
+			throws IOException {
+		int chunkCount = (int) Math.max(1, Math.min(threads, size / MIN_CHUNK_BYTES));
+		ObjChunk[] chunks = new ObjChunk[chunkCount];
+		Future<?>[] futures = new Future<?>[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			long start = size * i / chunkCount;
+			long end = size * (i + 1) / chunkCount;
+			ObjChunk chunk = new ObjChunk(end - start);
+			chunks[i] = chunk;
+			if (i > 0) {
+				futures[i] = ForkJoinPool.commonPool().submit(() -> {
+					parse(chunk, channel, memory, start, end);
+					return null;
+				});
+			}
+		}
+		parse(chunks[0], channel, memory, 0, size / chunkCount);
+		for (int i = 1; i < chunkCount; i++) {
+			join(futures[i]);
+		}
+		return merge(chunks);
+	}
+
+	private static void parse(ObjChunk chunk, FileChannel channel, ByteBuffer memory, long start, long end)
+			throws IOException {
+		if (channel != null) {
+			chunk.parse(channel, start, end);
+		} else {
+			chunk.parse(memory, start, end);
+		}
+	}
+
+	private static void join(Future<?> future) throws IOException {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading OBJ file", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Joins the chunks' positions, texture coordinates and normals, then turns
+	 * the corners into vertices. Texture coordinates are flipped vertically,
+	 * because OBJ files have V pointing up and the textures are stored with
+	 * their top row first.
+	 * 合并各块的位置，纹理坐标和法线，然后将角转换为顶点。纹理坐标会上下翻转，因为
+	 * OBJ文件中V向上，而纹理是从最上面一行开始保存的。
+	 */
+	private static ModelData merge(ObjChunk[] chunks) throws IOException {
+		int[] positionStarts = new int[chunks.length];
+		int[] textureStarts = new int[chunks.length];
+		int[] normalStarts = new int[chunks.length];
+		float[] positions = join(chunks, 0, positionStarts);
+		float[] textureCoords = join(chunks, 1, textureStarts);
+		float[] normals = join(chunks, 2, normalStarts);
+		int positionCount = positions.length / 3;
+		int textureCount = textureCoords.length / 2;
+		int normalCount = normals.length / 3;
+
+		int cornerCount = 0;
+		for (ObjChunk chunk : chunks) {
+			cornerCount += chunk.corners.size() / 3;
+		}
+		int[] indices = new int[cornerCount];
+		VertexIndexMap vertexIndices = new VertexIndexMap(positionCount);
+		FloatList vertices = new FloatList(positionCount * 3);
+		FloatList outTextureCoords = new FloatList(positionCount * 2);
+		FloatList outNormals = new FloatList(positionCount * 3);
+		int next = 0;
+		for (int c = 0; c < chunks.length; c++) {
+			int[] corners = chunks[c].corners.array();
+			int size = chunks[c].corners.size();
+			for (int i = 0; i < size; i += 3) {
+				int position = resolve(corners[i], positionStarts[c], positionCount);
+				int texture = resolve(corners[i + 1], textureStarts[c], textureCount);
+				int normal = resolve(corners[i + 2], normalStarts[c], normalCount);
+				int index = vertexIndices.indexOf(position, texture, normal);
+				if (index == vertices.size() / 3) {
+					vertices.add(positions[position * 3]);
+					vertices.add(positions[position * 3 + 1]);
+					vertices.add(positions[position * 3 + 2]);
+					outTextureCoords.add(texture == ObjChunk.MISSING ? 0 : textureCoords[texture * 2]);
+					outTextureCoords.add(texture == ObjChunk.MISSING ? 0 : 1 - textureCoords[texture * 2 + 1]);
+					outNormals.add(normal == ObjChunk.MISSING ? 0 : normals[normal * 3]);
+					outNormals.add(normal == ObjChunk.MISSING ? 0 : normals[normal * 3 + 1]);
+					outNormals.add(normal == ObjChunk.MISSING ? 0 : normals[normal * 3 + 2]);
+				}
+				indices[next++] = index;
+			}
+		}
+		return new ModelData(vertices.toArray(), outTextureCoords.toArray(), outNormals.toArray(), indices);
+	}
+
+	/**
+	 * Copies one kind of element of all chunks into one array, and stores
+	 * where each chunk's elements start.
+	 * 将所有块的一种元素复制到一个数组中，并保存每个块的元素从哪里开始。
+	 *
+	 * @param kind
+	 *            - 0 for positions, 1 for texture coordinates, 2 for normals.
+	 *            - 0为位置，1为纹理坐标，2为法线
+	 */
+	private static float[] join(ObjChunk[] chunks, int kind, int[] starts) {
+		int components = kind == 1 ? 2 : 3;
+		int total = 0;
+		for (int i = 0; i < chunks.length; i++) {
+			starts[i] = total / components;
+			total += list(chunks[i], kind).size();
+		}
+		float[] joined = new float[total];
+		int offset = 0;
+		for (ObjChunk chunk : chunks) {
+			FloatList list = list(chunk, kind);
+			System.arraycopy(list.array(), 0, joined, offset, list.size());
+			offset += list.size();
+		}
+		return joined;
+	}
+
+	private static FloatList list(ObjChunk chunk, int kind) {
+		return kind == 0 ? chunk.positions : kind == 1 ? chunk.textureCoords : chunk.normals;
+	}
+
+	/**
+	 * Fixes up a relative index with the number of elements before its chunk
+	 * and checks that it refers to an element of the file.
+	 * 用块之前的元素数量修正相对索引，并检查它指向文件中的元素。
+	 */
+	private static int resolve(int index, int chunkStart, int count) throws IOException {
+		if (index == ObjChunk.MISSING) {
+			return index;
+		}
+		if (index >= ObjChunk.RELATIVE_START) {
+			index = index - ObjChunk.RELATIVE_BIAS + chunkStart;
+		}
+		if (index < 0 || index >= count) {
+			throw new IOException("Face refers to element " + (index + 1) + " of " + count);
+		}
+		return index;
+	}
+
+}
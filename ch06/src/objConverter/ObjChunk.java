@@ -0,0 +1,394 @@
+package objConverter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import toolbox.FloatList;
+import toolbox.IntList;
+
+/**
+ * Parses the lines of an OBJ file that start inside one byte range of the
+ * file. The range is read through the channel block by block into one reused
+ * byte array, and numbers are parsed straight from the bytes, so no String or
+ * other object is created per line.
+ * 解析OBJ文件中起始位置在某个字节范围内的行。这个范围通过通道一块一块地读进同一个
+ * 重复使用的字节数组，数字直接从字节解析，所以每行都不会创建String或其他对象。
+ *
+ * A line belongs to the range its first byte is in, so the ranges of several
+ * chunks can be parsed on different threads without splitting or repeating a
+ * line. Faces are split into triangles and stored as (position, texture,
+ * normal) index triplets, one per corner.
+ * 一行属于它第一个字节所在的范围，所以多个块的范围可以在不同线程上解析，不会把一行
+ * 拆开或者重复解析。面被拆分成三角形，每个角保存为(位置，纹理，法线)索引三元组。
+ */
+class ObjChunk {
+
+	/**
+	 * Stored for a corner without texture coordinates or normal.
+	 * 没有纹理坐标或法线的角保存的值
+	 */
+	static final int MISSING = -1;
+
+	/**
+	 * Negative (relative) indices can't be resolved until the number of
+	 * elements in the chunks before this one is known. They are stored as the
+	 * index within this chunk plus RELATIVE_BIAS and fixed up when the chunks
+	 * are merged. Stored values from RELATIVE_START up are relative, so files
+	 * may have up to RELATIVE_START elements of each kind.
+	 * 负的（相对）索引要等到知道前面各块的元素数量后才能确定。它们保存为块内的索引
+	 * 加上RELATIVE_BIAS，在合并块时修正。从RELATIVE_START开始的值都是相对的，
+	 * 所以文件中每种元素最多可以有RELATIVE_START个。
+	 */
+	static final int RELATIVE_BIAS = 1 << 30;
+	static final int RELATIVE_START = 1 << 29;
+
+	private static final int BLOCK_SIZE = 1 << 20;
+	private static final int MAX_DIGITS = 18;
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	final FloatList positions;
+	final FloatList textureCoords;
+	final FloatList normals;
+	final IntList corners;
+
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int[] face = new int[3 * 8];
+
+	//读取的来源，二者之一
+	private FileChannel channel;
+	private ByteBuffer memory;
+
+	//当前行的字节和解析位置
+	private int cursor;
+	private int lineEnd;
+	private long blockStart;
+
+	ObjChunk(long expectedBytes) {
+		//一个典型的OBJ文件中，每行大约30字节
+		int expectedLines = (int) Math.min(expectedBytes / 30, 1 << 24);
+		positions = new FloatList(expectedLines);
+		textureCoords = new FloatList(expectedLines / 2);
+		normals = new FloatList(expectedLines / 2);
+		corners = new IntList(expectedLines * 3);
+	}
+
+	/**
+	 * Parses every line that starts at a byte from start (inclusive) to end
+	 * (exclusive).
+	 * 解析所有从start（包含）到end（不包含）之间的字节开始的行。
+	 *
+	 * @param channel
+	 *            - The file, read with absolute positions so that several
+	 *            chunks can share it.
+	 *            - 文件，使用绝对位置读取，所以多个块可以共用它
+	 */
+	void parse(FileChannel channel, long start, long end) throws IOException {
+		this.channel = channel;
+		parse(start, end);
+	}
+
+	/**
+	 * Same as {@link #parse(FileChannel, long, long)} for a file that is
+	 * already in memory, from index 0 to the limit of the buffer.
+	 * 与parse(FileChannel, long, long)相同，用于已经在内存中的文件，从下标0到缓存
+	 * 的limit。
+	 */
+	void parse(ByteBuffer memory, long start, long end) throws IOException {
+		this.memory = memory;
+		parse(start, end);
+	}
+
+	private void parse(long start, long end) throws IOException {
+		//从前一个字节开始读，如果它不是换行符，那么start处的行属于前一个块
+		blockStart = Math.max(0, start - 1);
+		int length = read(0);
+		int position = 0;
+		if (start > 0) {
+			while (true) {
+				int newline = indexOf('\n', position, length);
+				if (newline >= 0) {
+					position = newline + 1;
+					break;
+				}
+				if (blockStart + length >= end) {
+					return;
+				}
+				//跳过的行比整个块还长
+				blockStart += length;
+				position = 0;
+				length = read(0);
+				if (length == 0) {
+					return;
+				}
+			}
+		}
+		int scanned = position;
+		while (blockStart + position < end) {
+			int newline = indexOf('\n', scanned, length);
+			if (newline < 0) {
+				//把不完整的行移到块的开头，再读入更多字节
+				int remaining = length - position;
+				if (position == 0 && length == block.length) {
+					block = Arrays.copyOf(block, block.length * 2);
+				} else {
+					System.arraycopy(block, position, block, 0, remaining);
+					blockStart += position;
+					position = 0;
+				}
+				scanned = remaining;
+				length = read(remaining);
+				if (length == remaining) {
+					//文件结束，最后一行没有换行符
+					if (position < length) {
+						parseLine(position, length);
+					}
+					return;
+				}
+				continue;
+			}
+			parseLine(position, newline);
+			position = newline + 1;
+			scanned = position;
+		}
+	}
+
+	/**
+	 * Fills the block from the given offset on.
+	 * 从给定的偏移开始填充块。
+	 *
+	 * @return The number of valid bytes in the block, less than the block size
+	 *         only at the end of the file.
+	 *         块中有效字节的数量，只有在文件结尾时才小于块的大小
+	 */
+	private int read(int offset) throws IOException {
+		if (memory != null) {
+			int count = (int) Math.max(0, Math.min(block.length - offset, memory.limit() - (blockStart + offset)));
+			ByteBuffer source = memory.duplicate();
+			source.position((int) (blockStart + offset));
+			source.get(block, offset, count);
+			return offset + count;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(block, offset, block.length - offset);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, blockStart + buffer.position()) < 0) {
+				break;
+			}
+		}
+		return buffer.position();
+	}
+
+	private int indexOf(char value, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (block[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void parseLine(int start, int end) throws IOException {
+		cursor = start;
+		lineEnd = end;
+		skipSpaces();
+		if (cursor + 2 >= lineEnd) {
+			return;
+		}
+		byte first = block[cursor];
+		byte second = block[cursor + 1];
+		if (first == 'v') {
+			if (isSpace(second)) {
+				cursor += 1;
+				positions.add(parseFloat());
+				positions.add(parseFloat());
+				positions.add(parseFloat());
+			} else if (second == 't' && isSpace(block[cursor + 2])) {
+				cursor += 2;
+				textureCoords.add(parseFloat());
+				textureCoords.add(parseFloat());
+			} else if (second == 'n' && isSpace(block[cursor + 2])) {
+				cursor += 2;
+				normals.add(parseFloat());
+				normals.add(parseFloat());
+				normals.add(parseFloat());
+			}
+		} else if (first == 'f' && isSpace(second)) {
+			cursor += 1;
+			parseFace();
+		}
+	}
+
+	/**
+	 * Reads the corners of a face and stores it as a fan of triangles around
+	 * its first corner.
+	 * 读取一个面的角，并将它保存为围绕第一个角的三角形扇。
+	 */
+	private void parseFace() throws IOException {
+		int count = 0;
+		skipSpaces();
+		while (cursor < lineEnd) {
+			if (count * 3 == face.length) {
+				face = Arrays.copyOf(face, face.length * 2);
+			}
+			int position = toIndex(parseInt(), positions.size() / 3);
+			int texture = MISSING;
+			int normal = MISSING;
+			if (cursor < lineEnd && block[cursor] == '/') {
+				cursor++;
+				if (cursor < lineEnd && block[cursor] != '/') {
+					texture = toIndex(parseInt(), textureCoords.size() / 2);
+				}
+				if (cursor < lineEnd && block[cursor] == '/') {
+					cursor++;
+					normal = toIndex(parseInt(), normals.size() / 3);
+				}
+			}
+			face[count * 3] = position;
+			face[count * 3 + 1] = texture;
+			face[count * 3 + 2] = normal;
+			count++;
+			skipSpaces();
+		}
+		if (count < 3) {
+			throw error("Face with fewer than 3 corners");
+		}
+		for (int i = 2; i < count; i++) {
+			addCorner(0);
+			addCorner(i - 1);
+			addCorner(i);
+		}
+	}
+
+	private void addCorner(int corner) {
+		corners.add(face[corner * 3]);
+		corners.add(face[corner * 3 + 1]);
+		corners.add(face[corner * 3 + 2]);
+	}
+
+	/**
+	 * Turns a 1-based OBJ index into a 0-based one. Negative indices count back
+	 * from the last element read so far.
+	 * 将从1开始的OBJ索引转换为从0开始的索引。负索引从目前读到的最后一个元素往回数。
+	 */
+	private int toIndex(int index, int countSoFar) throws IOException {
+		if (index > 0) {
+			if (index > RELATIVE_START) {
+				throw error("Index too large");
+			}
+			return index - 1;
+		} else if (index < 0) {
+			if (index < -RELATIVE_START) {
+				throw error("Index too large");
+			}
+			return RELATIVE_BIAS + countSoFar + index;
+		}
+		throw error("Index 0");
+	}
+
+	private int parseInt() throws IOException {
+		boolean negative = false;
+		if (cursor < lineEnd && (block[cursor] == '-' || block[cursor] == '+')) {
+			negative = block[cursor] == '-';
+			cursor++;
+		}
+		int start = cursor;
+		int value = 0;
+		while (cursor < lineEnd && isDigit(block[cursor])) {
+			value = value * 10 + (block[cursor] - '0');
+			cursor++;
+		}
+		if (cursor == start || cursor - start > 9) {
+			throw error("Malformed index");
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses a decimal number like "-12.5e-3". Up to 18 significant digits are
+	 * kept, which is far more than a float holds; the result is the same as
+	 * Float.parseFloat's for all but a few numbers, which may differ in the
+	 * last bit.
+	 * 解析形如"-12.5e-3"的十进制数。最多保留18位有效数字，远多于float能保存的位数；
+	 * 除了极少数数字的最后一位可能不同外，结果与Float.parseFloat相同。
+	 */
+	private float parseFloat() throws IOException {
+		skipSpaces();
+		boolean negative = false;
+		if (cursor < lineEnd && (block[cursor] == '-' || block[cursor] == '+')) {
+			negative = block[cursor] == '-';
+			cursor++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		while (cursor < lineEnd && isDigit(block[cursor])) {
+			if (digits < MAX_DIGITS) {
+				mantissa = mantissa * 10 + (block[cursor] - '0');
+				if (mantissa != 0) {
+					digits++;
+				}
+			} else {
+				exponent++;
+			}
+			cursor++;
+			any = true;
+		}
+		if (cursor < lineEnd && block[cursor] == '.') {
+			cursor++;
+			while (cursor < lineEnd && isDigit(block[cursor])) {
+				if (digits < MAX_DIGITS) {
+					mantissa = mantissa * 10 + (block[cursor] - '0');
+					if (mantissa != 0) {
+						digits++;
+					}
+					exponent--;
+				}
+				cursor++;
+				any = true;
+			}
+		}
+		if (!any) {
+			throw error("Malformed number");
+		}
+		if (cursor < lineEnd && (block[cursor] == 'e' || block[cursor] == 'E')) {
+			cursor++;
+			exponent += parseInt();
+		}
+		double value = mantissa;
+		if (exponent < 0) {
+			value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent]
+					: value / Math.pow(10, -exponent);
+		} else if (exponent > 0) {
+			value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+		}
+		return (float) (negative ? -value : value);
+	}
+
+	private void skipSpaces() {
+		while (cursor < lineEnd && isSpace(block[cursor])) {
+			cursor++;
+		}
+	}
+
+	private IOException error(String message) {
+		return new IOException(message + " at byte " + (blockStart + cursor));
+	}
+
+	private static boolean isSpace(byte value) {
+		return value == ' ' || value == '\t' || value == '\r';
+	}
+
+	private static boolean isDigit(byte value) {
+		return value >= '0' && value <= '9';
+	}
+
+}
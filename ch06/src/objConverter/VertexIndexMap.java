@@ -0,0 +1,89 @@
+package objConverter;
+
+/**
+ * Gives every distinct (position, texture, normal) index triplet of an OBJ
+ * file its own vertex index. The triplets and their vertex indices are kept
+ * in int arrays with linear probing, so nothing is boxed or allocated per
+ * corner.
+ * 为OBJ文件中每个不同的(位置，纹理，法线)索引三元组分配一个顶点索引。三元组和它们的
+ * 顶点索引使用线性探测保存在int数组中，所以每个角都不会装箱或分配内存。
+ */
+class VertexIndexMap {
+
+	private static final float MAX_LOAD = 0.5f;
+
+	//每个槽三个int，值为0表示空槽，否则为顶点索引加1
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	VertexIndexMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity * MAX_LOAD < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * @return The vertex index of the triplet. A triplet that hasn't been seen
+	 *         before gets the next index, equal to {@link #size()} before the
+	 *         call.
+	 *         三元组的顶点索引。之前没有出现过的三元组得到下一个索引，等于调用前的size()
+	 */
+	int indexOf(int position, int texture, int normal) {
+		int slot = hash(position, texture, normal) & mask;
+		while (values[slot] != 0) {
+			int key = slot * 3;
+			if (keys[key] == position && keys[key + 1] == texture && keys[key + 2] == normal) {
+				return values[slot] - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		int index = size;
+		insert(slot, position, texture, normal, index);
+		if (++size > values.length * MAX_LOAD) {
+			rehash(values.length << 1);
+		}
+		return index;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void insert(int slot, int position, int texture, int normal, int index) {
+		keys[slot * 3] = position;
+		keys[slot * 3 + 1] = texture;
+		keys[slot * 3 + 2] = normal;
+		values[slot] = index + 1;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = hash(oldKeys[i * 3], oldKeys[i * 3 + 1], oldKeys[i * 3 + 2]) & mask;
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				insert(slot, oldKeys[i * 3], oldKeys[i * 3 + 1], oldKeys[i * 3 + 2], oldValues[i] - 1);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity * 3];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int hash(int position, int texture, int normal) {
+		int hash = position * 0x9e3779b1 + texture * 0x85ebca6b + normal * 0xc2b2ae35;
+		return hash ^ (hash >>> 16);
+	}
+
+}
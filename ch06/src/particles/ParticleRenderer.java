@@ -0,0 +1,129 @@
+package particles;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+
+import device.GLDevice;
+import profiling.Profiler;
+import renderEngine.StreamBuffer;
+
+/**
+ * Draws the live particles of a {@link ParticleSystem} with one instanced
+ * draw call. Every frame the particles are packed straight into a
+ * {@link StreamBuffer} as {@link ParticleSystem#INSTANCE_BYTES} bytes of
+ * instance data each; the quad itself (four corners and six indices) is
+ * uploaded once and shared by every instance. Use with the
+ * {@link shaders.ParticleShader}, which turns the quads to face the camera.
+ * 用一次实例化绘制调用绘制ParticleSystem中存活的粒子。每帧把粒子直接打包进
+ * StreamBuffer，每个粒子ParticleSystem.INSTANCE_BYTES字节的实例数据；四边形本身
+ * （四个角和六个索引）只上传一次，所有实例共用。与ParticleShader一起使用，它让
+ * 四边形面向摄像机。
+ *
+ * The particles are drawn in the order they are stored, not sorted by
+ * depth, so blending should not depend on the order (e.g. additive).
+ * 粒子按保存的顺序绘制，没有按深度排序，所以混合方式不应依赖顺序（例如叠加混合）。
+ */
+public class ParticleRenderer {
+
+	private static final int RENDER = Profiler.scope("ParticleRenderer.render");
+
+	private static final float[] CORNERS = { -0.5f, -0.5f, 0.5f, -0.5f, 0.5f, 0.5f, -0.5f, 0.5f };
+	private static final int[] INDICES = { 0, 1, 2, 2, 3, 0 };
+
+	private final GLDevice device;
+	private final StreamBuffer stream;
+	private final int vaoID;
+	private final int cornerBufferID;
+	private final int indexBufferID;
+
+	/**
+	 * @param maxParticles
+	 *            - The most particles drawn in one frame.
+	 *            - 每帧最多绘制的粒子数
+	 */
+	public ParticleRenderer(GLDevice device, int maxParticles) {
+		this.device = device;
+		stream = new StreamBuffer(device, GL15.GL_ARRAY_BUFFER, maxParticles * ParticleSystem.INSTANCE_BYTES);
+		vaoID = device.genVertexArray();
+		device.bindVertexArray(vaoID);
+		cornerBufferID = device.genBuffer();
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, cornerBufferID);
+		FloatBuffer corners = BufferUtils.createFloatBuffer(CORNERS.length);
+		corners.put(CORNERS).flip();
+		device.bufferData(GL15.GL_ARRAY_BUFFER, corners, GL15.GL_STATIC_DRAW);
+		device.vertexAttribPointer(0, 2, GL11.GL_FLOAT, false, 0, 0);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		//实例属性的指针每帧指向流式缓存中的新位置，这里只设置除数
+		device.vertexAttribDivisor(1, 1);
+		device.vertexAttribDivisor(2, 1);
+		indexBufferID = device.genBuffer();
+		device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBufferID);
+		IntBuffer indices = BufferUtils.createIntBuffer(INDICES.length);
+		indices.put(INDICES).flip();
+		device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indices, GL15.GL_STATIC_DRAW);
+		device.bindVertexArray(0);
+	}
+
+	/**
+	 * Packs the live particles into the stream buffer and draws them. Must be
+	 * called between the shader's start() and stop(), once per frame.
+	 * 把存活的粒子打包进流式缓存并绘制它们。必须在着色器的start()和stop()之间调用，
+	 * 每帧一次。
+	 *
+	 * @param textureID
+	 *            - The texture of every particle.
+	 *            - 所有粒子的纹理
+	 */
+	public void render(ParticleSystem particles, int textureID) {
+		Profiler.begin(RENDER);
+		Profiler.beginGpu(RENDER);
+		stream.beginFrame();
+		int count = particles.size();
+		if (count > 0) {
+			int offset = stream.allocate(count * ParticleSystem.INSTANCE_BYTES, 4);
+			particles.pack(stream.getRing().getMemory(), offset);
+			stream.flush();
+			device.bindVertexArray(vaoID);
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, stream.getVboID());
+			device.vertexAttribPointer(1, 4, GL11.GL_FLOAT, false, ParticleSystem.INSTANCE_BYTES, offset);
+			device.vertexAttribPointer(2, 4, GL11.GL_UNSIGNED_BYTE, true, ParticleSystem.INSTANCE_BYTES,
+					offset + 16);
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+			device.enableVertexAttribArray(0);
+			device.enableVertexAttribArray(1);
+			device.enableVertexAttribArray(2);
+			device.activeTexture(GL13.GL_TEXTURE0);
+			device.bindTexture(GL11.GL_TEXTURE_2D, textureID);
+			device.drawElementsInstancedBaseVertex(GL11.GL_TRIANGLES, INDICES.length, GL11.GL_UNSIGNED_INT, 0, count,
+					0);
+			device.disableVertexAttribArray(0);
+			device.disableVertexAttribArray(1);
+			device.disableVertexAttribArray(2);
+			device.bindVertexArray(0);
+		}
+		stream.endFrame();
+		Profiler.endGpu(RENDER);
+		Profiler.end(RENDER);
+	}
+
+	public StreamBuffer getStreamBuffer() {
+		return stream;
+	}
+
+	/**
+	 * Deletes the buffers and the VAO when the game is closed.
+	 * 在游戏关闭时删除缓存和VAO
+	 */
+	public void cleanUp() {
+		stream.cleanUp();
+		device.deleteBuffer(cornerBufferID);
+		device.deleteBuffer(indexBufferID);
+		device.deleteVertexArray(vaoID);
+	}
+
+}
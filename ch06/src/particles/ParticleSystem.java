@@ -0,0 +1,342 @@
+package particles;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import profiling.Profiler;
+
+/**
+ * The live particles of one effect (or of all effects sharing a texture),
+ * kept as parallel arrays of primitives: the particle at index i has its
+ * position in x[i], y[i], z[i], its velocity in vx[i]... Live particles are
+ * always the first {@link #size()}, so a dead particle is removed by moving
+ * the last one into its place.
+ * 一个效果（或者共用一个纹理的所有效果）的存活粒子，保存在几个平行的基本类型数组中：
+ * 下标i处的粒子位置在x[i], y[i], z[i]，速度在vx[i]……存活的粒子总是前size()个，
+ * 所以移除一个死亡的粒子时把最后一个粒子移到它的位置。
+ *
+ * {@link #update(float)} and {@link #pack(ByteBuffer, int)} split the
+ * particles into ranges that run on the fork/join pool (the first on the
+ * calling thread). The update only marks the particles that died; they are
+ * removed afterwards on the calling thread, so no two threads ever move the
+ * same particle.
+ * update(float)和pack(ByteBuffer, int)把粒子分成几段，在fork/join线程池上运行
+ * （第一段在调用线程上）。更新时只标记死亡的粒子，之后在调用线程上移除它们，所以
+ * 不会有两个线程移动同一个粒子。
+ */
+public class ParticleSystem {
+
+	/**
+	 * The bytes {@link #pack(ByteBuffer, int)} writes per particle: the
+	 * position and the size as four floats, then the colour as four bytes.
+	 * pack(ByteBuffer, int)为每个粒子写入的字节数：位置和大小为四个float，然后是
+	 * 四个字节的颜色。
+	 */
+	public static final int INSTANCE_BYTES = 20;
+
+	private static final int UPDATE = Profiler.scope("ParticleSystem.update");
+	private static final int PACK = Profiler.scope("ParticleSystem.pack");
+
+	//每个线程至少处理这么多粒子，太小的块不值得分给其他线程
+	private static final int MIN_CHUNK_PARTICLES = 16384;
+	private static final int INSTANCE_INTS = INSTANCE_BYTES / 4;
+
+	private final int capacity;
+	private final float[] x;
+	private final float[] y;
+	private final float[] z;
+	private final float[] vx;
+	private final float[] vy;
+	private final float[] vz;
+	private final float[] age;
+	private final float[] life;
+	private final float[] size;
+	private final int[] colour;
+	private int count;
+	private float gravityX;
+	private float gravityY = -9.81f;
+	private float gravityZ;
+
+	//每段把死亡粒子的下标写在自己范围的开头
+	private final int[] dead;
+	private final int threads;
+	private final Runnable[] updateTasks;
+	private final Runnable[] packTasks;
+	private final Future<?>[] chunkFutures;
+	private final int[] chunkCounts;
+	private int frameChunks;
+	//update和pack提交任务前写入，任务提交保证了其他线程能看到
+	private float frameDelta;
+	private int packStart;
+	private ByteBuffer packMemory;
+	private FloatBuffer packFloats;
+	private IntBuffer packInts;
+
+	/**
+	 * Uses as many threads as the common fork/join pool.
+	 * 使用与公共fork/join线程池一样多的线程。
+	 */
+	public ParticleSystem(int capacity) {
+		this(capacity, ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * @param capacity
+	 *            - The most particles alive at once.
+	 *            - 同时存活的最多粒子数
+	 * @param threads
+	 *            - The most threads the particles are split between; 1 does
+	 *            everything on the calling thread.
+	 *            - 最多把粒子分给多少个线程；1表示全部在调用线程上完成
+	 */
+	public ParticleSystem(int capacity, int threads) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1, not " + capacity);
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1, not " + threads);
+		}
+		this.capacity = capacity;
+		x = new float[capacity];
+		y = new float[capacity];
+		z = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		vz = new float[capacity];
+		age = new float[capacity];
+		life = new float[capacity];
+		size = new float[capacity];
+		colour = new int[capacity];
+		dead = new int[capacity];
+		this.threads = threads;
+		updateTasks = new Runnable[threads];
+		packTasks = new Runnable[threads];
+		chunkFutures = new Future<?>[threads];
+		chunkCounts = new int[threads];
+		for (int i = 0; i < threads; i++) {
+			int chunk = i;
+			updateTasks[i] = () -> chunkCounts[chunk] = updateChunk(chunk);
+			packTasks[i] = () -> packChunk(chunk);
+		}
+	}
+
+	/**
+	 * The acceleration applied to every particle, by default 9.81 down the y
+	 * axis.
+	 * 作用于每个粒子的加速度，默认为沿y轴向下9.81。
+	 */
+	public void setGravity(float x, float y, float z) {
+		gravityX = x;
+		gravityY = y;
+		gravityZ = z;
+	}
+
+	/**
+	 * Adds a particle, unless the system is full.
+	 * 添加一个粒子，除非粒子系统已满。
+	 *
+	 * @param lifetime
+	 *            - The seconds until the particle dies.
+	 *            - 粒子死亡前的秒数
+	 * @param rgba
+	 *            - The colour as 0xRRGGBBAA.
+	 *            - 颜色，形式为0xRRGGBBAA
+	 * @return Whether the particle was added; a full system drops new
+	 *         particles rather than old ones.
+	 *         是否添加了粒子；已满的粒子系统丢弃新粒子而不是旧粒子
+	 */
+	public boolean spawn(float x, float y, float z, float vx, float vy, float vz, float lifetime, float size,
+			int rgba) {
+		if (count == capacity) {
+			return false;
+		}
+		int i = count++;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.z[i] = z;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.vz[i] = vz;
+		age[i] = 0;
+		life[i] = lifetime;
+		this.size[i] = size;
+		colour[i] = rgba;
+		return true;
+	}
+
+	/**
+	 * Moves every particle on by the time step and removes the ones that have
+	 * outlived their lifetime.
+	 * 把每个粒子向前推进一个时间步长，并移除超过寿命的粒子。
+	 *
+	 * @param delta
+	 *            - The time step in seconds.
+	 *            - 时间步长，秒
+	 * @return The number of particles that died.
+	 *         死亡的粒子数
+	 */
+	public int update(float delta) {
+		Profiler.begin(UPDATE);
+		frameDelta = delta;
+		runChunks(updateTasks);
+		int died = 0;
+		//从后往前移除，移到空位上的最后一个粒子总是存活的
+		for (int chunk = frameChunks - 1; chunk >= 0; chunk--) {
+			int start = chunkStart(chunk);
+			for (int i = start + chunkCounts[chunk] - 1; i >= start; i--) {
+				removeAt(dead[i]);
+			}
+			died += chunkCounts[chunk];
+		}
+		Profiler.end(UPDATE);
+		return died;
+	}
+
+	/**
+	 * Writes every live particle as {@link #INSTANCE_BYTES} bytes of instance
+	 * data into the memory, e.g. the mapped region of a stream buffer. The
+	 * floats are written in the memory's byte order.
+	 * 把每个存活的粒子作为INSTANCE_BYTES字节的实例数据写入内存，例如流式缓存的映射
+	 * 区域。浮点数按内存的字节序写入。
+	 *
+	 * @param offset
+	 *            - The byte offset of the first particle, a multiple of 4.
+	 *            - 第一个粒子的字节偏移，4的倍数
+	 */
+	public void pack(ByteBuffer memory, int offset) {
+		if (offset + (long) count * INSTANCE_BYTES > memory.capacity()) {
+			throw new IllegalArgumentException(
+					"Room for " + (memory.capacity() - offset) / INSTANCE_BYTES + " particles, " + count + " needed");
+		}
+		Profiler.begin(PACK);
+		if (memory != packMemory) {
+			//视图从position开始，所以从一个position为0的副本创建
+			ByteBuffer whole = memory.duplicate().order(memory.order());
+			whole.clear();
+			packFloats = whole.asFloatBuffer();
+			//大端的视图把0xRRGGBBAA按R, G, B, A的字节顺序写入
+			packInts = whole.order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+			packMemory = memory;
+		}
+		packStart = offset >> 2;
+		runChunks(packTasks);
+		Profiler.end(PACK);
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public float[] getX() {
+		return x;
+	}
+
+	public float[] getY() {
+		return y;
+	}
+
+	public float[] getZ() {
+		return z;
+	}
+
+	public float[] getAge() {
+		return age;
+	}
+
+	private int updateChunk(int chunk) {
+		int start = chunkStart(chunk);
+		int end = chunkStart(chunk + 1);
+		float delta = frameDelta;
+		float dvx = gravityX * delta, dvy = gravityY * delta, dvz = gravityZ * delta;
+		float[] x = this.x, y = this.y, z = this.z, vx = this.vx, vy = this.vy, vz = this.vz;
+		float[] age = this.age, life = this.life;
+		int[] dead = this.dead;
+		int deadCount = 0;
+		for (int i = start; i < end; i++) {
+			float velocityX = vx[i] + dvx;
+			float velocityY = vy[i] + dvy;
+			float velocityZ = vz[i] + dvz;
+			vx[i] = velocityX;
+			vy[i] = velocityY;
+			vz[i] = velocityZ;
+			x[i] += velocityX * delta;
+			y[i] += velocityY * delta;
+			z[i] += velocityZ * delta;
+			float a = age[i] + delta;
+			age[i] = a;
+			if (a >= life[i]) {
+				dead[start + deadCount++] = i;
+			}
+		}
+		return deadCount;
+	}
+
+	private void packChunk(int chunk) {
+		int start = chunkStart(chunk);
+		int end = chunkStart(chunk + 1);
+		FloatBuffer floats = packFloats;
+		IntBuffer ints = packInts;
+		int index = packStart + start * INSTANCE_INTS;
+		for (int i = start; i < end; i++, index += INSTANCE_INTS) {
+			floats.put(index, x[i]);
+			floats.put(index + 1, y[i]);
+			floats.put(index + 2, z[i]);
+			floats.put(index + 3, size[i]);
+			ints.put(index + 4, colour[i]);
+		}
+	}
+
+	private void removeAt(int i) {
+		int last = --count;
+		x[i] = x[last];
+		y[i] = y[last];
+		z[i] = z[last];
+		vx[i] = vx[last];
+		vy[i] = vy[last];
+		vz[i] = vz[last];
+		age[i] = age[last];
+		life[i] = life[last];
+		size[i] = size[last];
+		colour[i] = colour[last];
+	}
+
+	private void runChunks(Runnable[] tasks) {
+		frameChunks = Math.max(1, Math.min(threads, count / MIN_CHUNK_PARTICLES));
+		for (int i = 1; i < frameChunks; i++) {
+			chunkFutures[i] = ForkJoinPool.commonPool().submit(tasks[i]);
+		}
+		tasks[0].run();
+		for (int i = 1; i < frameChunks; i++) {
+			join(chunkFutures[i]);
+			chunkFutures[i] = null;
+		}
+	}
+
+	private int chunkStart(int chunk) {
+		return (int) ((long) count * chunk / frameChunks);
+	}
+
+	private static void join(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,362 @@
+package postProcessing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import profiling.Profiler;
+
+/**
+ * The passes of a frame and the render targets they read and write,
+ * declared up front so they can be checked and scheduled before anything is
+ * drawn. Targets are either imported (the scene, the screen...) or
+ * transient: a transient target is only taken from the
+ * {@link RenderTargetPool} just before the pass that writes it and given
+ * back right after the last pass that reads it, so passes whose targets are
+ * never alive at the same time share them.
+ * 一帧中的pass以及它们读写的渲染目标，预先声明，这样在绘制任何东西之前就可以检查和
+ * 安排它们。目标要么是导入的（场景，屏幕等），要么是临时的：临时目标只在写入它的
+ * pass之前从RenderTargetPool中取出，并在最后一个读取它的pass之后立即归还，所以目标
+ * 不会同时存活的pass共用这些目标。
+ *
+ * {@link #validate()} checks the graph without a GPU: every target is
+ * written before it is read, no pass reads its own target, and a transient
+ * target is written only once. Passes whose results are never used are
+ * culled. {@link #execute(RenderTargetPool)} checks at run time that the
+ * pool never hands out a target that is still in use, and that every
+ * transient target has gone back by the end of the frame.
+ * validate()在没有GPU的情况下检查图：每个目标在被读取之前都已写入，没有pass读取
+ * 自己的目标，一个临时目标只被写入一次。结果从不被使用的pass被剔除。
+ * execute(RenderTargetPool)在运行时检查目标池从不分发仍在使用的目标，并且每个临时
+ * 目标在帧结束时都已归还。
+ */
+public class FrameGraph {
+
+	private static final int EXECUTE = Profiler.scope("FrameGraph.execute");
+
+	/**
+	 * The work of one pass, e.g. drawing a fullscreen triangle into its
+	 * target.
+	 * 一个pass的工作，例如把一个全屏三角形绘制到它的目标中。
+	 */
+	public interface Pass {
+
+		/**
+		 * @param graph
+		 *            - The graph, to look up the pass's targets with
+		 *            {@link FrameGraph#getTarget(int)}.
+		 *            - 图，用FrameGraph.getTarget(int)查找pass的目标
+		 */
+		void execute(FrameGraph graph);
+
+	}
+
+	private final List<String> targetNames = new ArrayList<String>();
+	private final List<RenderTarget> importedTargets = new ArrayList<RenderTarget>();
+	private int[] targetDescriptions = new int[16];
+
+	private final List<String> passNames = new ArrayList<String>();
+	private final List<int[]> passReads = new ArrayList<int[]>();
+	private final List<Pass> passes = new ArrayList<Pass>();
+	private int[] passWrites = new int[8];
+
+	//compile的结果
+	private boolean compiled;
+	private boolean[] culled;
+	private int[][] acquiredBefore;
+	private int[][] releasedAfter;
+	private int peakTransientTargets;
+	//execute时每个目标当前对应的渲染目标
+	private RenderTarget[] targets;
+
+	/**
+	 * Adds a target that lives outside the graph, e.g. the target the scene
+	 * was drawn into, or {@link RenderTarget#screen}.
+	 * 添加一个在图外面存在的目标，例如场景绘制到的目标，或RenderTarget.screen。
+	 *
+	 * @return The target's handle.
+	 *         目标的句柄
+	 */
+	public int importTarget(String name, RenderTarget target) {
+		return addTarget(name, target, target.getWidth(), target.getHeight(), target.getColourFormat(),
+				target.getDepthFormat());
+	}
+
+	/**
+	 * Adds a target that is taken from the pool for as long as a pass needs
+	 * it.
+	 * 添加一个在pass需要时从目标池中取出的目标。
+	 *
+	 * @return The target's handle.
+	 *         目标的句柄
+	 */
+	public int createTarget(String name, int width, int height, int colourFormat, int depthFormat) {
+		return addTarget(name, null, width, height, colourFormat, depthFormat);
+	}
+
+	/**
+	 * Adds a pass, which runs after the passes added before it.
+	 * 添加一个pass，它在之前添加的pass之后运行。
+	 *
+	 * @param reads
+	 *            - The targets whose colour textures the pass samples.
+	 *            - pass采样其颜色纹理的目标
+	 * @param write
+	 *            - The target the pass draws into.
+	 *            - pass绘制到的目标
+	 */
+	public void addPass(String name, int[] reads, int write, Pass pass) {
+		checkTarget(write);
+		for (int read : reads) {
+			checkTarget(read);
+		}
+		int index = passes.size();
+		if (index == passWrites.length) {
+			passWrites = Arrays.copyOf(passWrites, index * 2);
+		}
+		passNames.add(name);
+		passReads.add(reads.clone());
+		passWrites[index] = write;
+		passes.add(pass);
+		compiled = false;
+	}
+
+	/**
+	 * Checks the graph as it is declared.
+	 * 按照声明检查图。
+	 *
+	 * @return The problems found, empty if there are none.
+	 *         发现的问题，没有问题时为空
+	 */
+	public List<String> validate() {
+		List<String> problems = new ArrayList<String>();
+		int[] writers = new int[targetNames.size()];
+		Arrays.fill(writers, -1);
+		for (int p = 0; p < passes.size(); p++) {
+			int write = passWrites[p];
+			for (int read : passReads.get(p)) {
+				if (read == write) {
+					problems.add("Pass " + passNames.get(p) + " reads and writes " + targetNames.get(read));
+				} else if (writers[read] < 0 && !isImported(read)) {
+					problems.add("Pass " + passNames.get(p) + " reads " + targetNames.get(read)
+							+ " before any pass writes it");
+				}
+			}
+			if (writers[write] >= 0 && !isImported(write)) {
+				problems.add(targetNames.get(write) + " is written by both " + passNames.get(writers[write]) + " and "
+						+ passNames.get(p));
+			}
+			writers[write] = p;
+		}
+		return problems;
+	}
+
+	/**
+	 * Validates the graph, culls the passes whose results are never used and
+	 * works out when each transient target is taken from the pool and given
+	 * back. Call once after adding the passes, and again whenever they change.
+	 * 验证图，剔除结果从不被使用的pass，并计算每个临时目标何时从目标池取出和归还。
+	 * 添加pass之后调用一次，每次pass改变时再调用。
+	 *
+	 * @throws IllegalStateException
+	 *             If {@link #validate()} finds a problem.
+	 *             如果validate()发现了问题
+	 */
+	public void compile() {
+		List<String> problems = validate();
+		if (!problems.isEmpty()) {
+			throw new IllegalStateException("Invalid frame graph: " + String.join("; ", problems));
+		}
+		int passCount = passes.size();
+		int targetCount = targetNames.size();
+		//从后往前：写入导入目标的pass，或写入被存活pass读取的目标的pass是存活的
+		culled = new boolean[passCount];
+		boolean[] needed = new boolean[targetCount];
+		for (int p = passCount - 1; p >= 0; p--) {
+			int write = passWrites[p];
+			culled[p] = !isImported(write) && !needed[write];
+			if (!culled[p]) {
+				for (int read : passReads.get(p)) {
+					needed[read] = true;
+				}
+			}
+		}
+		int[] firstUse = new int[targetCount];
+		int[] lastUse = new int[targetCount];
+		Arrays.fill(firstUse, -1);
+		Arrays.fill(lastUse, -1);
+		for (int p = 0; p < passCount; p++) {
+			if (culled[p]) {
+				continue;
+			}
+			int write = passWrites[p];
+			if (firstUse[write] < 0) {
+				firstUse[write] = p;
+			}
+			lastUse[write] = Math.max(lastUse[write], p);
+			for (int read : passReads.get(p)) {
+				lastUse[read] = p;
+			}
+		}
+		acquiredBefore = new int[passCount][];
+		releasedAfter = new int[passCount][];
+		int alive = 0;
+		peakTransientTargets = 0;
+		for (int p = 0; p < passCount; p++) {
+			acquiredBefore[p] = transientTargets(firstUse, p);
+			releasedAfter[p] = transientTargets(lastUse, p);
+			alive += acquiredBefore[p].length;
+			peakTransientTargets = Math.max(peakTransientTargets, alive);
+			alive -= releasedAfter[p].length;
+		}
+		targets = new RenderTarget[targetCount];
+		for (int t = 0; t < targetCount; t++) {
+			targets[t] = importedTargets.get(t);
+		}
+		compiled = true;
+	}
+
+	/**
+	 * Runs the passes that weren't culled, in order, taking transient targets
+	 * from the pool and giving them back as it goes. Allocates nothing.
+	 * 按顺序运行没有被剔除的pass，过程中从目标池取出临时目标并归还。不分配内存。
+	 *
+	 * @throws IllegalStateException
+	 *             If the pool hands out a target that is still in use.
+	 *             如果目标池分发了一个仍在使用的目标
+	 */
+	public void execute(RenderTargetPool pool) {
+		if (!compiled) {
+			throw new IllegalStateException("The frame graph must be compiled before it is executed");
+		}
+		Profiler.begin(EXECUTE);
+		try {
+			for (int p = 0; p < passes.size(); p++) {
+				if (culled[p]) {
+					continue;
+				}
+				for (int t : acquiredBefore[p]) {
+					RenderTarget target = pool.acquire(targetDescriptions[t * 4], targetDescriptions[t * 4 + 1],
+							targetDescriptions[t * 4 + 2], targetDescriptions[t * 4 + 3]);
+					checkNotInUse(target, t);
+					targets[t] = target;
+				}
+				passes.get(p).execute(this);
+				for (int t : releasedAfter[p]) {
+					pool.release(targets[t]);
+					targets[t] = null;
+				}
+			}
+			for (int t = 0; t < targets.length; t++) {
+				if (targets[t] != null && !isImported(t)) {
+					throw new IllegalStateException(targetNames.get(t) + " was not given back by the end of the frame");
+				}
+			}
+		} finally {
+			Profiler.end(EXECUTE);
+		}
+	}
+
+	/**
+	 * @return The render target behind a handle, while a pass that uses it
+	 *         runs.
+	 *         句柄对应的渲染目标，在使用它的pass运行期间
+	 */
+	public RenderTarget getTarget(int target) {
+		checkTarget(target);
+		RenderTarget renderTarget = targets == null ? null : targets[target];
+		if (renderTarget == null) {
+			throw new IllegalStateException(targetNames.get(target) + " is not alive at this point of the frame");
+		}
+		return renderTarget;
+	}
+
+	public boolean isCulled(int pass) {
+		if (!compiled) {
+			throw new IllegalStateException("The frame graph is not compiled");
+		}
+		return culled[pass];
+	}
+
+	public int getPassCount() {
+		return passes.size();
+	}
+
+	/**
+	 * @return The most transient targets alive at once, which is how many
+	 *         the pool needs when it has no other users.
+	 *         同时存活的最多临时目标数，也就是目标池没有其他使用者时需要的目标数
+	 */
+	public int getPeakTransientTargets() {
+		return peakTransientTargets;
+	}
+
+	/**
+	 * Removes every target and pass, so the graph can be declared again, e.g.
+	 * after a resize.
+	 * 删除所有目标和pass，这样可以重新声明图，例如在大小改变之后。
+	 */
+	public void clear() {
+		targetNames.clear();
+		importedTargets.clear();
+		passNames.clear();
+		passReads.clear();
+		passes.clear();
+		compiled = false;
+		targets = null;
+	}
+
+	private int addTarget(String name, RenderTarget imported, int width, int height, int colourFormat,
+			int depthFormat) {
+		int index = targetNames.size();
+		if (index * 4 == targetDescriptions.length) {
+			targetDescriptions = Arrays.copyOf(targetDescriptions, index * 8);
+		}
+		targetNames.add(name);
+		importedTargets.add(imported);
+		targetDescriptions[index * 4] = width;
+		targetDescriptions[index * 4 + 1] = height;
+		targetDescriptions[index * 4 + 2] = colourFormat;
+		targetDescriptions[index * 4 + 3] = depthFormat;
+		compiled = false;
+		return index;
+	}
+
+	//在这个pass开始或结束生命周期的临时目标
+	private int[] transientTargets(int[] uses, int pass) {
+		int count = 0;
+		for (int t = 0; t < uses.length; t++) {
+			if (uses[t] == pass && !isImported(t)) {
+				count++;
+			}
+		}
+		int[] result = new int[count];
+		count = 0;
+		for (int t = 0; t < uses.length; t++) {
+			if (uses[t] == pass && !isImported(t)) {
+				result[count++] = t;
+			}
+		}
+		return result;
+	}
+
+	private void checkNotInUse(RenderTarget target, int forTarget) {
+		for (int t = 0; t < targets.length; t++) {
+			if (targets[t] == target && t != forTarget) {
+				throw new IllegalStateException("The pool handed out the target of " + targetNames.get(t) + " for "
+						+ targetNames.get(forTarget) + " while it is still in use");
+			}
+		}
+	}
+
+	private boolean isImported(int target) {
+		return importedTargets.get(target) != null;
+	}
+
+	private void checkTarget(int target) {
+		if (target < 0 || target >= targetNames.size()) {
+			throw new IndexOutOfBoundsException("Target " + target + " of " + targetNames.size());
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+package postProcessing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+
+import device.GLDevice;
+import profiling.Profiler;
+import shaders.ShaderProgram;
+
+/**
+ * A chain of fullscreen effects applied to the scene after it was drawn
+ * into a {@link RenderTarget}. Each effect reads the previous one's target
+ * and draws a single triangle covering the next; the last draws into the
+ * output, e.g. the screen. The steps are passes of a {@link FrameGraph}, so
+ * the intermediate targets come from the {@link RenderTargetPool} and only
+ * two are ever alive: the chain ping-pongs between them.
+ * 在场景绘制到RenderTarget之后应用的一串全屏效果。每个效果读取上一个效果的目标，
+ * 并绘制一个覆盖下一个目标的三角形；最后一个绘制到输出中，例如屏幕。这些步骤是
+ * FrameGraph的pass，所以中间目标来自RenderTargetPool，并且同时只有两个存活：链在它们
+ * 之间来回切换。
+ *
+ * Usage: add the effects, {@link #build(RenderTarget, RenderTarget)} once
+ * (and again after a resize), then {@link #render()} every frame.
+ * 用法：添加效果，调用一次build(RenderTarget, RenderTarget)（大小改变后再调用），然后
+ * 每帧调用render()。
+ */
+public class PostProcessing {
+
+	private static final int RENDER = Profiler.scope("PostProcessing.render");
+
+	private final GLDevice device;
+	private final RenderTargetPool pool;
+	private final FrameGraph graph = new FrameGraph();
+	private final List<ShaderProgram> effects = new ArrayList<ShaderProgram>();
+	//全屏三角形没有顶点数据，但绘制时必须绑定一个VAO
+	private final int vaoID;
+
+	public PostProcessing(GLDevice device, RenderTargetPool pool) {
+		this.device = device;
+		this.pool = pool;
+		vaoID = device.genVertexArray();
+	}
+
+	/**
+	 * Adds an effect after the ones already added, e.g. a
+	 * {@link shaders.PostProcessingShader}. Takes effect at the next
+	 * {@link #build(RenderTarget, RenderTarget)}.
+	 * 在已添加的效果之后添加一个效果，例如PostProcessingShader。在下一次
+	 * build(RenderTarget, RenderTarget)时生效。
+	 */
+	public void addEffect(ShaderProgram effect) {
+		effects.add(effect);
+	}
+
+	/**
+	 * Declares and compiles the passes: one per effect, the intermediate
+	 * targets the size and colour format of the scene, without depth.
+	 * 声明并编译pass：每个效果一个，中间目标的大小和颜色格式与场景相同，没有深度。
+	 *
+	 * @param scene
+	 *            - The target the scene is drawn into.
+	 *            - 场景绘制到的目标
+	 * @param output
+	 *            - The target the last effect draws into.
+	 *            - 最后一个效果绘制到的目标
+	 */
+	public void build(RenderTarget scene, RenderTarget output) {
+		if (effects.isEmpty()) {
+			throw new IllegalStateException("Post processing needs at least one effect");
+		}
+		graph.clear();
+		int source = graph.importTarget("scene", scene);
+		int last = graph.importTarget("output", output);
+		for (int i = 0; i < effects.size(); i++) {
+			int destination = i == effects.size() - 1 ? last
+					: graph.createTarget("post " + i, scene.getWidth(), scene.getHeight(), scene.getColourFormat(),
+							RenderTarget.NO_DEPTH);
+			graph.addPass("effect " + i, new int[] { source }, destination,
+					new EffectPass(effects.get(i), source, destination));
+			source = destination;
+		}
+		graph.compile();
+	}
+
+	/**
+	 * Applies every effect. The scene must have been drawn into its target.
+	 * Leaves the output bound.
+	 * 应用所有效果。场景必须已经绘制到它的目标中。结束后输出保持绑定。
+	 */
+	public void render() {
+		Profiler.begin(RENDER);
+		Profiler.beginGpu(RENDER);
+		graph.execute(pool);
+		Profiler.endGpu(RENDER);
+		Profiler.end(RENDER);
+	}
+
+	public FrameGraph getFrameGraph() {
+		return graph;
+	}
+
+	/**
+	 * Deletes the VAO when the game is closed. The effects and the pool
+	 * belong to the caller.
+	 * 在游戏关闭时删除VAO。效果和目标池属于调用者。
+	 */
+	public void cleanUp() {
+		device.deleteVertexArray(vaoID);
+	}
+
+	private class EffectPass implements FrameGraph.Pass {
+
+		private final ShaderProgram effect;
+		private final int source;
+		private final int destination;
+
+		private EffectPass(ShaderProgram effect, int source, int destination) {
+			this.effect = effect;
+			this.source = source;
+			this.destination = destination;
+		}
+
+		@Override
+		public void execute(FrameGraph graph) {
+			graph.getTarget(destination).bind();
+			effect.start();
+			device.activeTexture(GL13.GL_TEXTURE0);
+			device.bindTexture(GL11.GL_TEXTURE_2D, graph.getTarget(source).getColourTexture());
+			device.bindVertexArray(vaoID);
+			device.drawArrays(GL11.GL_TRIANGLES, 0, 3);
+			device.bindVertexArray(0);
+			//解绑纹理，下一个pass可能会绘制到这个目标中
+			device.bindTexture(GL11.GL_TEXTURE_2D, 0);
+			effect.stop();
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+package postProcessing;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL30;
+
+import device.GLDevice;
+
+/**
+ * A framebuffer to draw into instead of the window: a colour texture, which
+ * later passes can sample, and optionally a depth renderbuffer, which is
+ * only tested against. {@link #screen(GLDevice, int, int)} wraps the window
+ * itself, so a pass can draw to either without knowing which.
+ * 代替窗口用于绘制的帧缓存：一个颜色纹理，之后的pass可以对它采样，以及可选的深度
+ * 渲染缓存，只用于深度测试。screen(GLDevice, int, int)包装了窗口本身，所以一个pass
+ * 可以绘制到任意一个而不需要知道是哪个。
+ */
+public class RenderTarget {
+
+	/**
+	 * The depth format of a target without a depth buffer.
+	 * 没有深度缓存的目标的深度格式。
+	 */
+	public static final int NO_DEPTH = 0;
+
+	private final GLDevice device;
+	private final int framebufferID;
+	private final int colourTextureID;
+	private final int depthBufferID;
+	private final int width;
+	private final int height;
+	private final int colourFormat;
+	private final int depthFormat;
+	//由RenderTargetPool设置
+	RenderTargetPool pool;
+	boolean acquired;
+
+	private RenderTarget(GLDevice device, int framebufferID, int colourTextureID, int depthBufferID, int width,
+			int height, int colourFormat, int depthFormat) {
+		this.device = device;
+		this.framebufferID = framebufferID;
+		this.colourTextureID = colourTextureID;
+		this.depthBufferID = depthBufferID;
+		this.width = width;
+		this.height = height;
+		this.colourFormat = colourFormat;
+		this.depthFormat = depthFormat;
+	}
+
+	/**
+	 * Creates the framebuffer and its attachments. Usually called through a
+	 * {@link RenderTargetPool}, which reuses targets of the same size and
+	 * formats.
+	 * 创建帧缓存和它的附件。通常通过RenderTargetPool调用，它重复使用大小和格式相同的
+	 * 目标。
+	 *
+	 * @param colourFormat
+	 *            - The internal format of the colour texture, e.g. GL_RGBA8 or
+	 *            GL_RGBA16F.
+	 *            - 颜色纹理的内部格式，例如GL_RGBA8或GL_RGBA16F
+	 * @param depthFormat
+	 *            - The format of the depth buffer, e.g. GL_DEPTH_COMPONENT24,
+	 *            or {@link #NO_DEPTH}.
+	 *            - 深度缓存的格式，例如GL_DEPTH_COMPONENT24，或NO_DEPTH
+	 * @throws IllegalStateException
+	 *             If the driver can't draw into that combination of formats.
+	 *             如果驱动不能绘制到这种格式组合中
+	 */
+	public static RenderTarget create(GLDevice device, int width, int height, int colourFormat, int depthFormat) {
+		if (width < 1 || height < 1) {
+			throw new IllegalArgumentException("Render target of " + width + "x" + height);
+		}
+		int framebufferID = device.genFramebuffer();
+		device.bindFramebuffer(GL30.GL_FRAMEBUFFER, framebufferID);
+		int colourTextureID = device.genTexture();
+		device.bindTexture(GL11.GL_TEXTURE_2D, colourTextureID);
+		//不上传数据，只分配空间
+		int type = colourFormat == GL11.GL_RGBA8 ? GL11.GL_UNSIGNED_BYTE : GL11.GL_FLOAT;
+		device.texImage2D(GL11.GL_TEXTURE_2D, 0, colourFormat, width, height, GL11.GL_RGBA, type, null);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+		device.bindTexture(GL11.GL_TEXTURE_2D, 0);
+		device.framebufferTexture2D(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, GL11.GL_TEXTURE_2D,
+				colourTextureID, 0);
+		int depthBufferID = 0;
+		if (depthFormat != NO_DEPTH) {
+			depthBufferID = device.genRenderbuffer();
+			device.bindRenderbuffer(GL30.GL_RENDERBUFFER, depthBufferID);
+			device.renderbufferStorage(GL30.GL_RENDERBUFFER, depthFormat, width, height);
+			device.bindRenderbuffer(GL30.GL_RENDERBUFFER, 0);
+			int attachment = depthFormat == GL30.GL_DEPTH24_STENCIL8 ? GL30.GL_DEPTH_STENCIL_ATTACHMENT
+					: GL30.GL_DEPTH_ATTACHMENT;
+			device.framebufferRenderbuffer(GL30.GL_FRAMEBUFFER, attachment, GL30.GL_RENDERBUFFER, depthBufferID);
+		}
+		int status = device.checkFramebufferStatus(GL30.GL_FRAMEBUFFER);
+		device.bindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+		RenderTarget target = new RenderTarget(device, framebufferID, colourTextureID, depthBufferID, width, height,
+				colourFormat, depthFormat);
+		if (status != GL30.GL_FRAMEBUFFER_COMPLETE) {
+			target.cleanUp();
+			throw new IllegalStateException("Framebuffer of " + width + "x" + height + ", colour format 0x"
+					+ Integer.toHexString(colourFormat) + " and depth format 0x" + Integer.toHexString(depthFormat)
+					+ " is incomplete: 0x" + Integer.toHexString(status));
+		}
+		return target;
+	}
+
+	/**
+	 * @return The window, as a target with no texture to sample.
+	 *         窗口，作为一个没有可采样纹理的目标
+	 */
+	public static RenderTarget screen(GLDevice device, int width, int height) {
+		return new RenderTarget(device, 0, 0, 0, width, height, 0, NO_DEPTH);
+	}
+
+	/**
+	 * Makes draws go into this target, over its whole size.
+	 * 让绘制输出到这个目标，覆盖它的整个大小。
+	 */
+	public void bind() {
+		device.bindFramebuffer(GL30.GL_FRAMEBUFFER, framebufferID);
+		device.viewport(0, 0, width, height);
+	}
+
+	/**
+	 * @return Whether the target has this size and these formats, so it can
+	 *         be used in place of a new one.
+	 *         这个目标是否有这个大小和这些格式，这样它可以代替一个新的目标
+	 */
+	public boolean matches(int width, int height, int colourFormat, int depthFormat) {
+		return this.width == width && this.height == height && this.colourFormat == colourFormat
+				&& this.depthFormat == depthFormat;
+	}
+
+	public boolean isScreen() {
+		return framebufferID == 0;
+	}
+
+	public int getFramebufferID() {
+		return framebufferID;
+	}
+
+	public int getColourTexture() {
+		return colourTextureID;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getColourFormat() {
+		return colourFormat;
+	}
+
+	public int getDepthFormat() {
+		return depthFormat;
+	}
+
+	/**
+	 * Deletes the framebuffer and its attachments. Does nothing for the
+	 * screen.
+	 * 删除帧缓存和它的附件。对屏幕什么也不做。
+	 */
+	public void cleanUp() {
+		if (isScreen()) {
+			return;
+		}
+		device.deleteFramebuffer(framebufferID);
+		device.deleteTexture(colourTextureID);
+		if (depthBufferID != 0) {
+			device.deleteRenderbuffer(depthBufferID);
+		}
+	}
+
+}
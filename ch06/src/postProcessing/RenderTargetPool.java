@@ -0,0 +1,104 @@
+package postProcessing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import device.GLDevice;
+
+/**
+ * Hands out render targets by size and formats, and takes them back when a
+ * pass is done with them, so targets are reused from frame to frame (and
+ * between passes of the same frame) instead of being created again. Only
+ * when no free target matches is a new one created.
+ * 按大小和格式分发渲染目标，并在pass用完后收回，所以目标在帧与帧之间（以及同一帧的
+ * pass之间）被重复使用，而不是重新创建。只有在没有匹配的空闲目标时才创建新的目标。
+ */
+public class RenderTargetPool {
+
+	private final GLDevice device;
+	private final List<RenderTarget> targets = new ArrayList<RenderTarget>();
+	private final List<RenderTarget> free = new ArrayList<RenderTarget>();
+
+	public RenderTargetPool(GLDevice device) {
+		this.device = device;
+	}
+
+	/**
+	 * @return A target of this size and these formats that nobody else is
+	 *         using until it is released.
+	 *         一个这个大小和这些格式的目标，在释放之前没有别人使用
+	 */
+	public RenderTarget acquire(int width, int height, int colourFormat, int depthFormat) {
+		RenderTarget target = null;
+		//从后往前找，最近释放的目标最先被重复使用
+		for (int i = free.size() - 1; i >= 0; i--) {
+			if (free.get(i).matches(width, height, colourFormat, depthFormat)) {
+				target = free.remove(i);
+				break;
+			}
+		}
+		if (target == null) {
+			target = RenderTarget.create(device, width, height, colourFormat, depthFormat);
+			target.pool = this;
+			targets.add(target);
+		}
+		target.acquired = true;
+		return target;
+	}
+
+	/**
+	 * Gives a target back, so the next acquire of the same size and formats
+	 * can have it. Its contents are kept until then.
+	 * 归还一个目标，这样下一次获取相同大小和格式的目标时可以得到它。在那之前它的内容
+	 * 保持不变。
+	 */
+	public void release(RenderTarget target) {
+		if (target.pool != this) {
+			throw new IllegalArgumentException("Render target " + target.getFramebufferID() + " is not from this pool");
+		}
+		if (!target.acquired) {
+			throw new IllegalStateException("Render target " + target.getFramebufferID() + " is already released");
+		}
+		target.acquired = false;
+		free.add(target);
+	}
+
+	/**
+	 * Deletes the free targets, e.g. after the window was resized and targets
+	 * of the old size won't be asked for again.
+	 * 删除空闲的目标，例如在窗口大小改变后，旧大小的目标不会再被请求。
+	 */
+	public void trim() {
+		for (int i = 0; i < free.size(); i++) {
+			RenderTarget target = free.get(i);
+			targets.remove(target);
+			target.cleanUp();
+		}
+		free.clear();
+	}
+
+	/**
+	 * @return The targets created so far and not deleted, free or in use.
+	 *         至今创建且没有删除的目标数，包括空闲的和正在使用的
+	 */
+	public int getTargetCount() {
+		return targets.size();
+	}
+
+	public int getFreeCount() {
+		return free.size();
+	}
+
+	/**
+	 * Deletes every target when the game is closed.
+	 * 在游戏关闭时删除所有目标
+	 */
+	public void cleanUp() {
+		for (int i = 0; i < targets.size(); i++) {
+			targets.get(i).cleanUp();
+		}
+		targets.clear();
+		free.clear();
+	}
+
+}
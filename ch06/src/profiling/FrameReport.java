@@ -0,0 +1,283 @@
+package profiling;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The scopes measured during one frame, as one tree per thread. Each node is a
+ * scope at a particular place in the tree; when the same scope is entered
+ * several times from the same parent (rendering many models, say) its calls
+ * and times are added up in a single node.
+ * 一帧中测量的范围，每个线程一棵树。每个节点是树中某个位置上的一个范围；同一个
+ * 范围从同一个父节点进入多次时（例如渲染很多模型），它的调用次数和时间累加在
+ * 同一个节点中。
+ * 
+ * When a {@link GpuProfiler} is installed, the report also has a tree for the
+ * GPU, holding the GPU times of an earlier frame (see
+ * {@link #getGpuFrameIndex()}).
+ * 安装了GpuProfiler时，报告中还有一棵GPU的树，保存的是更早一帧的GPU时间
+ * （参见getGpuFrameIndex()）。
+ * 
+ * Nodes are stored in parallel arrays and referred to by index. The root of
+ * each thread's tree has no scope ({@link #getScope(int)} returns -1) and its
+ * time is the sum of its children. Reports are reused from frame to frame, so
+ * after the arrays have grown to fit a frame no more memory is allocated.
+ * 节点保存在并行的数组中，通过索引引用。每个线程的树根没有范围（getScope返回-1），
+ * 它的时间是子节点时间之和。报告在各帧之间重复使用，所以数组增长到能容纳一帧
+ * 之后不再分配内存。
+ */
+public class FrameReport {
+
+	private static final int NONE = -1;
+
+	private long frameIndex;
+	private long startNanos;
+	private long endNanos;
+	private long gpuFrameIndex;
+
+	private int nodeCount;
+	private int[] scopes = new int[256];
+	private int[] parents = new int[256];
+	private int[] firstChildren = new int[256];
+	private int[] lastChildren = new int[256];
+	private int[] nextSiblings = new int[256];
+	private int[] threads = new int[256];
+	private int[] calls = new int[256];
+	private long[] totals = new long[256];
+
+	private int rootCount;
+	private int[] roots = new int[8];
+
+	public long getFrameIndex() {
+		return frameIndex;
+	}
+
+	/**
+	 * @return The length of the frame in nanoseconds.
+	 *         这一帧的长度（纳秒）
+	 */
+	public long getFrameNanos() {
+		return endNanos - startNanos;
+	}
+
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	/**
+	 * @return The frame that the GPU times in this report were measured in,
+	 *         or -1 if there are none.
+	 *         这个报告中的GPU时间所测量的帧，没有时返回-1
+	 */
+	public long getGpuFrameIndex() {
+		return gpuFrameIndex;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return The number of threads that recorded something this frame.
+	 *         这一帧中记录了内容的线程数
+	 */
+	public int getRootCount() {
+		return rootCount;
+	}
+
+	public int getRoot(int index) {
+		return roots[index];
+	}
+
+	/**
+	 * @return The scope of the node (see {@link Profiler#scope(String)}), or -1
+	 *         for the root of a thread.
+	 *         节点的范围（参见Profiler.scope），线程的根节点返回-1
+	 */
+	public int getScope(int node) {
+		return scopes[node];
+	}
+
+	public int getParent(int node) {
+		return parents[node];
+	}
+
+	/**
+	 * @return The node's first child, or -1 if it has none.
+	 *         节点的第一个子节点，没有时返回-1
+	 */
+	public int getFirstChild(int node) {
+		return firstChildren[node];
+	}
+
+	/**
+	 * @return The node's next sibling, or -1 if it is the last child.
+	 *         节点的下一个兄弟节点，是最后一个子节点时返回-1
+	 */
+	public int getNextSibling(int node) {
+		return nextSiblings[node];
+	}
+
+	/**
+	 * @return The name of the thread whose tree the node is in.
+	 *         节点所在树的线程名称
+	 */
+	public String getThreadName(int node) {
+		return Profiler.getThreadName(threads[node]);
+	}
+
+	/**
+	 * @return How many times the scope was ended at this place in the tree
+	 *         this frame. A scope still open at the end of the frame is not
+	 *         counted, but its time so far is.
+	 *         这一帧中该范围在树中这个位置结束的次数。在帧结束时仍然打开的范围
+	 *         不计数，但计入它到目前为止的时间。
+	 */
+	public int getCalls(int node) {
+		return calls[node];
+	}
+
+	public long getTotalNanos(int node) {
+		return totals[node];
+	}
+
+	/**
+	 * Adds up the time of every node with the given scope, in any thread and
+	 * anywhere in the trees.
+	 * 累加所有线程，树中任意位置上具有给定范围的节点的时间。
+	 */
+	public long getTotalNanos(String scopeName) {
+		long total = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			if (scopes[node] != NONE && Profiler.getScopeName(scopes[node]).equals(scopeName)) {
+				total += totals[node];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Adds up the calls of every node with the given scope.
+	 * 累加具有给定范围的所有节点的调用次数。
+	 */
+	public int getCalls(String scopeName) {
+		int total = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			if (scopes[node] != NONE && Profiler.getScopeName(scopes[node]).equals(scopeName)) {
+				total += calls[node];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Prints every thread's tree, indented, with the time and number of calls
+	 * of each scope.
+	 * 打印每个线程缩进的树，以及每个范围的时间和调用次数。
+	 */
+	public void print(PrintStream out) {
+		out.printf("frame %d: %.3fms%n", frameIndex, getFrameNanos() / 1e6);
+		if (gpuFrameIndex >= 0) {
+			out.printf("  (GPU times from frame %d)%n", gpuFrameIndex);
+		}
+		for (int i = 0; i < rootCount; i++) {
+			int root = roots[i];
+			out.printf("  [%s] %.3fms%n", getThreadName(root), totals[root] / 1e6);
+			printChildren(out, root, 2);
+		}
+	}
+
+	private void printChildren(PrintStream out, int node, int depth) {
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			for (int i = 0; i < depth; i++) {
+				out.print("  ");
+			}
+			out.printf("%s %.3fms x%d%n", Profiler.getScopeName(scopes[child]), totals[child] / 1e6, calls[child]);
+			printChildren(out, child, depth + 1);
+		}
+	}
+
+	void reset(long frameIndex, long startNanos) {
+		this.frameIndex = frameIndex;
+		this.startNanos = startNanos;
+		this.endNanos = startNanos;
+		this.gpuFrameIndex = -1;
+		nodeCount = 0;
+		rootCount = 0;
+	}
+
+	void setEndNanos(long endNanos) {
+		this.endNanos = endNanos;
+	}
+
+	void setGpuFrameIndex(long gpuFrameIndex) {
+		this.gpuFrameIndex = gpuFrameIndex;
+	}
+
+	int addRoot(int thread) {
+		int node = addNode(NONE, NONE, thread);
+		if (rootCount == roots.length) {
+			roots = Arrays.copyOf(roots, rootCount * 2);
+		}
+		roots[rootCount++] = node;
+		return node;
+	}
+
+	/**
+	 * @return The child of the parent with the given scope, added if it
+	 *         doesn't exist yet.
+	 *         父节点中具有给定范围的子节点，不存在时添加
+	 */
+	int child(int parent, int scope) {
+		for (int child = firstChildren[parent]; child != NONE; child = nextSiblings[child]) {
+			if (scopes[child] == scope) {
+				return child;
+			}
+		}
+		int node = addNode(scope, parent, threads[parent]);
+		if (lastChildren[parent] == NONE) {
+			firstChildren[parent] = node;
+		} else {
+			nextSiblings[lastChildren[parent]] = node;
+		}
+		lastChildren[parent] = node;
+		return node;
+	}
+
+	void addTime(int node, long nanos) {
+		totals[node] += nanos;
+	}
+
+	void addCall(int node) {
+		calls[node]++;
+	}
+
+	private int addNode(int scope, int parent, int thread) {
+		if (nodeCount == scopes.length) {
+			grow();
+		}
+		int node = nodeCount++;
+		scopes[node] = scope;
+		parents[node] = parent;
+		firstChildren[node] = NONE;
+		lastChildren[node] = NONE;
+		nextSiblings[node] = NONE;
+		threads[node] = thread;
+		calls[node] = 0;
+		totals[node] = 0;
+		return node;
+	}
+
+	private void grow() {
+		int size = scopes.length * 2;
+		scopes = Arrays.copyOf(scopes, size);
+		parents = Arrays.copyOf(parents, size);
+		firstChildren = Arrays.copyOf(firstChildren, size);
+		lastChildren = Arrays.copyOf(lastChildren, size);
+		nextSiblings = Arrays.copyOf(nextSiblings, size);
+		threads = Arrays.copyOf(threads, size);
+		calls = Arrays.copyOf(calls, size);
+		totals = Arrays.copyOf(totals, size);
+	}
+
+}
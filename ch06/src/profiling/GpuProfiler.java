@@ -0,0 +1,243 @@
+package profiling;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL33;
+
+import device.GLDevice;
+
+/**
+ * Measures how long the GPU spends on scopes of GL commands, using timestamp
+ * queries. CPU timings alone can't tell whether a frame is slow because of the
+ * CPU or the GPU, since the GL calls only queue work for the GPU.
+ * 使用时间戳查询测量GPU在一段GL命令上花费的时间。只有CPU计时无法判断一帧慢是因为
+ * CPU还是GPU，因为GL调用只是为GPU排队工作。
+ * 
+ * A GPU scope issues glQueryCounter(GL_TIMESTAMP) at its begin and end, so
+ * unlike GL_TIME_ELAPSED queries the scopes can be nested. Results arrive
+ * several frames late, so the queries come from a ring of pools, one per frame
+ * in flight; a frame's results are read when its pool comes round again,
+ * "latency" frames later, and only if the GPU has finished them, so the CPU
+ * never waits. If they're not ready yet that frame is skipped. The results go
+ * into the profiler's current {@link FrameReport} as a "GPU" tree (see
+ * {@link FrameReport#getGpuFrameIndex()} for the frame they belong to).
+ * GPU范围在开始和结束时调用glQueryCounter(GL_TIMESTAMP)，所以与GL_TIME_ELAPSED
+ * 查询不同，范围可以嵌套。结果会晚几帧才到达，所以查询来自一个池的环，每个正在
+ * 处理的帧一个池；一帧的结果在它的池再次轮到时读取，也就是latency帧之后，而且
+ * 只有在GPU已经完成时才读取，所以CPU从不等待。如果结果还没有就绪则跳过那一帧。
+ * 结果作为“GPU”树进入分析器当前的FrameReport（所属的帧参见getGpuFrameIndex()）。
+ * 
+ * Install it with {@link Profiler#setGpuProfiler(GpuProfiler)} and mark scopes
+ * with {@link Profiler#beginGpu(int)} and {@link Profiler#endGpu(int)} on the
+ * GL thread. When the device has no timer queries (old drivers, or a headless
+ * device created without them) nothing is recorded and no queries are made.
+ * 使用Profiler.setGpuProfiler安装，并在GL线程上用Profiler.beginGpu和
+ * Profiler.endGpu标记范围。设备不支持计时查询时（旧驱动，或者创建时不支持计时
+ * 查询的无头设备），不记录任何内容也不进行查询。
+ */
+public class GpuProfiler {
+
+	public static final int DEFAULT_LATENCY = 3;
+	public static final int DEFAULT_MAX_SCOPES = 256;
+
+	private final GLDevice device;
+	private final boolean available;
+	private final int track;
+	private final int slots;
+	private final int maxScopes;
+
+	private final int[][] queries;
+	private final int[][] scopes;
+	private final int[][] parents;
+	private final int[][] beginQueries;
+	private final int[][] endQueries;
+	private final int[] scopeCounts;
+	private final int[] queryCounts;
+	private final long[] frameIndices;
+
+	private final int[] stack;
+	private int depth;
+	private int slot;
+
+	private final long[] times;
+	private final int[] nodes;
+
+	private long dropped;
+	private long lateFrames;
+
+	public GpuProfiler(GLDevice device) {
+		this(device, DEFAULT_LATENCY, DEFAULT_MAX_SCOPES);
+	}
+
+	/**
+	 * @param device
+	 *            - The device the queries are made on.
+	 *            - 进行查询的设备
+	 * @param latency
+	 *            - How many frames later the results are read.
+	 *            - 多少帧之后读取结果
+	 * @param maxScopes
+	 *            - The most GPU scopes measured per frame; more are dropped.
+	 *            - 每帧最多测量的GPU范围数；多出的会被丢弃
+	 */
+	public GpuProfiler(GLDevice device, int latency, int maxScopes) {
+		if (latency < 1) {
+			throw new IllegalArgumentException("Latency must be at least one frame: " + latency);
+		}
+		this.device = device;
+		this.available = device.supportsTimerQuery();
+		this.track = Profiler.registerTrack("GPU");
+		this.slots = latency + 1;
+		this.maxScopes = maxScopes;
+		int slotCount = available ? slots : 0;
+		queries = new int[slotCount][maxScopes * 2];
+		scopes = new int[slotCount][maxScopes];
+		parents = new int[slotCount][maxScopes];
+		beginQueries = new int[slotCount][maxScopes];
+		endQueries = new int[slotCount][maxScopes];
+		scopeCounts = new int[slotCount];
+		queryCounts = new int[slotCount];
+		frameIndices = new long[slotCount];
+		stack = new int[maxScopes];
+		times = new long[available ? maxScopes * 2 : 0];
+		nodes = new int[available ? maxScopes : 0];
+		for (int i = 0; i < slotCount; i++) {
+			for (int j = 0; j < maxScopes * 2; j++) {
+				queries[i][j] = device.genQuery();
+			}
+		}
+	}
+
+	/**
+	 * @return Whether the device supports timer queries, i.e. whether anything
+	 *         is measured at all.
+	 *         设备是否支持计时查询，也就是是否会测量任何内容
+	 */
+	public boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * @return The number of scopes dropped so far because a frame had more
+	 *         than maxScopes of them.
+	 *         到目前为止因为一帧中的范围超过maxScopes而丢弃的范围数
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * @return The number of frames whose results weren't ready after
+	 *         "latency" frames and were skipped.
+	 *         在latency帧之后结果仍未就绪而被跳过的帧数
+	 */
+	public long getLateFrameCount() {
+		return lateFrames;
+	}
+
+	public void cleanUp() {
+		for (int[] slotQueries : queries) {
+			for (int query : slotQueries) {
+				device.deleteQuery(query);
+			}
+		}
+	}
+
+	void begin(int scope) {
+		if (!available) {
+			return;
+		}
+		int index = scopeCounts[slot];
+		if (index == maxScopes || depth == stack.length) {
+			dropped++;
+			if (depth < stack.length) {
+				stack[depth++] = -1;
+			}
+			return;
+		}
+		scopeCounts[slot]++;
+		scopes[slot][index] = scope;
+		parents[slot][index] = depth == 0 ? -1 : stack[depth - 1];
+		beginQueries[slot][index] = issue();
+		endQueries[slot][index] = -1;
+		stack[depth++] = index;
+	}
+
+	void end(int scope) {
+		if (!available || depth == 0) {
+			return;
+		}
+		int index = stack[--depth];
+		if (index >= 0 && scopes[slot][index] == scope) {
+			endQueries[slot][index] = issue();
+		}
+	}
+
+	/**
+	 * Finishes the frame's scopes and adds the results of the frame
+	 * "latency" frames ago to the report, if the GPU is done with them.
+	 * 结束这一帧的范围，如果GPU已经完成，将latency帧之前那一帧的结果加入报告。
+	 */
+	void endFrame(FrameReport report, long frameIndex) {
+		if (!available) {
+			return;
+		}
+		depth = 0;
+		frameIndices[slot] = frameIndex;
+		slot = (slot + 1) % slots;
+		if (queryCounts[slot] > 0) {
+			readBack(report);
+		}
+		scopeCounts[slot] = 0;
+		queryCounts[slot] = 0;
+	}
+
+	/**
+	 * Forgets every frame not read back yet, e.g. when the profiler is turned
+	 * back on.
+	 * 忘记所有还没有读回的帧，例如在分析器重新打开时。
+	 */
+	void reset() {
+		depth = 0;
+		for (int i = 0; i < scopeCounts.length; i++) {
+			scopeCounts[i] = 0;
+			queryCounts[i] = 0;
+		}
+	}
+
+	private int issue() {
+		int query = queries[slot][queryCounts[slot]++];
+		device.queryCounter(query, GL33.GL_TIMESTAMP);
+		return queryCounts[slot] - 1;
+	}
+
+	private void readBack(FrameReport report) {
+		int[] slotQueries = queries[slot];
+		int queryCount = queryCounts[slot];
+		//查询按顺序完成，所以最后一个就绪时所有的都已就绪
+		if (device.getQueryObjecti(slotQueries[queryCount - 1], GL15.GL_QUERY_RESULT_AVAILABLE) == GL11.GL_FALSE) {
+			lateFrames++;
+			return;
+		}
+		for (int i = 0; i < queryCount; i++) {
+			times[i] = device.getQueryObjectui64(slotQueries[i], GL15.GL_QUERY_RESULT);
+		}
+		int root = report.addRoot(track);
+		for (int i = 0; i < scopeCounts[slot]; i++) {
+			int parent = parents[slot][i] < 0 ? root : nodes[parents[slot][i]];
+			if (endQueries[slot][i] < 0) {
+				nodes[i] = parent;
+				continue;
+			}
+			long nanos = times[endQueries[slot][i]] - times[beginQueries[slot][i]];
+			nodes[i] = report.child(parent, scopes[slot][i]);
+			report.addTime(nodes[i], nanos);
+			report.addCall(nodes[i]);
+			if (parent == root) {
+				report.addTime(root, nanos);
+			}
+		}
+		report.setGpuFrameIndex(frameIndices[slot]);
+	}
+
+}
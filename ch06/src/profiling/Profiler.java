@@ -0,0 +1,409 @@
+package profiling;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import timing.Clock;
+import timing.SystemClock;
+
+/**
+ * A scoped CPU profiler. Code to be measured is wrapped in begin/end markers
+ * for a named scope:
+ * 一个基于范围的CPU性能分析器。需要测量的代码用一个命名范围的开始/结束标记包起来：
+ * 
+ * <pre>
+ * private static final int PREPARE = Profiler.scope("Renderer.prepare");
+ * 
+ * Profiler.begin(PREPARE);
+ * ...
+ * Profiler.end(PREPARE);
+ * </pre>
+ * 
+ * Each thread writes its markers into its own preallocated ring, so recording
+ * takes no locks and allocates nothing. When the profiler is disabled (the
+ * default) begin and end only read one flag. At the end of every frame
+ * {@link #endFrame()} collects the markers of all threads into a
+ * {@link FrameReport} with one tree of scopes per thread, and while a capture
+ * is running also keeps them for a Chrome trace file.
+ * 每个线程将标记写入自己预先分配的环中，所以记录时不需要锁也不分配内存。分析器
+ * 禁用时（默认），begin和end只读取一个标志。每一帧结束时endFrame()将所有线程的
+ * 标记收集到FrameReport中，每个线程一棵范围树；捕获运行期间还会保存这些标记，
+ * 用于生成Chrome trace文件。
+ * 
+ * Markers are read on the thread that calls endFrame(). A marker that another
+ * thread records after the end of the frame, or publishes too late, is counted
+ * in the next frame.
+ * 标记在调用endFrame()的线程上读取。其他线程在帧结束之后记录，或者太晚公布的
+ * 标记，会计入下一帧。
+ */
+public class Profiler {
+
+	private static final Object LOCK = new Object();
+	private static volatile String[] scopeNames = new String[0];
+	private static volatile String[] threadNames = new String[0];
+
+	private static volatile ThreadEvents[] threads = new ThreadEvents[0];
+	private static final ThreadLocal<ThreadEvents> EVENTS = ThreadLocal.withInitial(Profiler::register);
+
+	private static volatile boolean enabled;
+	private static volatile boolean requested;
+	private static Clock clock = new SystemClock();
+
+	private static FrameReport current = new FrameReport();
+	private static FrameReport last = new FrameReport();
+	private static long frameIndex;
+	private static TraceCapture capture;
+	private static GpuProfiler gpu;
+
+	/**
+	 * Registers a scope name. Registering the same name twice returns the same
+	 * scope. Meant to be called once per scope, when a class is loaded.
+	 * 注册一个范围名称。同一个名称注册两次返回同一个范围。应当在类加载时为每个
+	 * 范围调用一次。
+	 * 
+	 * @return The scope to pass to {@link #begin(int)} and {@link #end(int)}.
+	 *         传给begin和end的范围
+	 */
+	public static int scope(String name) {
+		synchronized (LOCK) {
+			String[] names = scopeNames;
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+			}
+			names = Arrays.copyOf(names, names.length + 1);
+			names[names.length - 1] = name;
+			scopeNames = names;
+			return names.length - 1;
+		}
+	}
+
+	public static String getScopeName(int scope) {
+		return scopeNames[scope];
+	}
+
+	/**
+	 * Marks the start of a scope on the calling thread.
+	 * 在调用线程上标记一个范围的开始
+	 */
+	public static void begin(int scope) {
+		if (enabled) {
+			EVENTS.get().add(scope << 1, clock.nanoTime());
+		}
+	}
+
+	/**
+	 * Marks the end of a scope on the calling thread. Must match the most
+	 * recent begin that hasn't been ended yet; ends that don't are ignored.
+	 * 在调用线程上标记一个范围的结束。必须与最近一个还没有结束的begin对应；
+	 * 不对应的end会被忽略。
+	 */
+	public static void end(int scope) {
+		if (enabled) {
+			EVENTS.get().add(scope << 1 | 1, clock.nanoTime());
+		}
+	}
+
+	/**
+	 * Marks the start of a GPU scope. Must be called on the GL thread, and
+	 * does nothing unless a {@link GpuProfiler} is installed.
+	 * 标记一个GPU范围的开始。必须在GL线程上调用，没有安装GpuProfiler时什么也不做。
+	 */
+	public static void beginGpu(int scope) {
+		if (enabled && gpu != null) {
+			gpu.begin(scope);
+		}
+	}
+
+	public static void endGpu(int scope) {
+		if (enabled && gpu != null) {
+			gpu.end(scope);
+		}
+	}
+
+	/**
+	 * Installs the GPU profiler whose results are added to the frame reports,
+	 * or removes it (null). Call on the GL thread, between frames.
+	 * 安装GPU分析器，它的结果会加入帧报告，或者移除它(null)。在GL线程上，
+	 * 两帧之间调用。
+	 */
+	public static void setGpuProfiler(GpuProfiler gpuProfiler) {
+		gpu = gpuProfiler;
+		if (gpu != null) {
+			gpu.reset();
+		}
+	}
+
+	/**
+	 * Turns the profiler on or off. The change takes effect at the next call to
+	 * {@link #endFrame()}, so frames are always measured completely.
+	 * 打开或关闭分析器。改变在下一次调用endFrame()时生效，所以每一帧总是完整测量。
+	 */
+	public static void setEnabled(boolean enabled) {
+		requested = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Replaces the clock used for the markers, e.g. with a {@link timing.ManualClock}
+	 * to get exact times without a display. Set it while the profiler is off.
+	 * 替换标记使用的时钟，例如使用ManualClock在没有显示窗口时得到精确的时间。
+	 * 应在分析器关闭时设置。
+	 */
+	public static void setClock(Clock clock) {
+		Profiler.clock = clock;
+	}
+
+	/**
+	 * Ends the current frame: collects the markers of every thread into the
+	 * frame's report, which then becomes {@link #getLastFrame()}. Call once
+	 * per frame, from one thread (the game loop's), outside of any scope.
+	 * 结束当前帧：将所有线程的标记收集到这一帧的报告中，它随后成为getLastFrame()。
+	 * 每帧从同一个线程（游戏循环的线程）在任何范围之外调用一次。
+	 */
+	public static void endFrame() {
+		if (!enabled) {
+			if (requested) {
+				for (ThreadEvents events : threads) {
+					events.discard();
+				}
+				if (gpu != null) {
+					gpu.reset();
+				}
+				current.reset(frameIndex, clock.nanoTime());
+				enabled = true;
+			}
+			return;
+		}
+		long now = clock.nanoTime();
+		ThreadEvents[] all = threads;
+		for (int i = 0; i < all.length; i++) {
+			collect(all[i], now);
+		}
+		if (gpu != null) {
+			gpu.endFrame(current, frameIndex);
+		}
+		current.setEndNanos(now);
+		if (capture != null) {
+			capture.addFrame(now);
+		}
+		FrameReport finished = current;
+		current = last;
+		last = finished;
+		frameIndex++;
+		current.reset(frameIndex, now);
+		enabled = requested;
+		for (int i = 0; i < all.length; i++) {
+			ThreadEvents events = all[i];
+			events.rootNode = -1;
+			if (enabled) {
+				reopen(events);
+			} else {
+				events.depth = 0;
+			}
+			if (!events.thread.isAlive() && events.available() == 0) {
+				unregister(events);
+			}
+		}
+	}
+
+	/**
+	 * @return The report of the last completed frame. It is overwritten two
+	 *         calls to {@link #endFrame()} later, so read it before then.
+	 *         最近完成的一帧的报告。它会在两次调用endFrame()之后被覆盖，所以需要
+	 *         在那之前读取。
+	 */
+	public static FrameReport getLastFrame() {
+		return last;
+	}
+
+	/**
+	 * @return The number of markers lost so far because a thread recorded more
+	 *         than its ring holds in one frame.
+	 *         到目前为止丢失的标记数，原因是某个线程一帧中记录的标记超过了环的
+	 *         容量。
+	 */
+	public static long getDroppedCount() {
+		long dropped = 0;
+		for (ThreadEvents events : threads) {
+			dropped += events.dropped;
+		}
+		return dropped;
+	}
+
+	/**
+	 * @return The number of end markers so far that didn't match the open
+	 *         scope and were ignored.
+	 *         到目前为止与打开的范围不对应而被忽略的结束标记数
+	 */
+	public static long getMismatchedCount() {
+		long mismatched = 0;
+		for (ThreadEvents events : threads) {
+			mismatched += events.mismatched;
+		}
+		return mismatched;
+	}
+
+	/**
+	 * @return The number of scopes so far that were nested deeper than a
+	 *         thread's stack of open scopes holds, and were left out of the
+	 *         reports. Their end markers are not counted as mismatched.
+	 *         到目前为止嵌套深度超过线程打开范围栈的容量，因而不计入报告的范围数。
+	 *         它们的结束标记不算作不匹配。
+	 */
+	public static long getOverflowCount() {
+		long overflowed = 0;
+		for (ThreadEvents events : threads) {
+			overflowed += events.overflowed;
+		}
+		return overflowed;
+	}
+
+	/**
+	 * Starts keeping every collected marker for {@link #stopCapture(File)}.
+	 * Markers are only recorded while the profiler is enabled.
+	 * 开始保存收集到的每个标记，供stopCapture使用。只有在分析器启用时才会记录标记。
+	 */
+	public static void startCapture() {
+		capture = new TraceCapture(clock.nanoTime());
+	}
+
+	/**
+	 * Writes everything collected since {@link #startCapture()} to a Chrome
+	 * trace JSON file, which can be opened in chrome://tracing or Perfetto.
+	 * 将startCapture()之后收集的所有内容写入Chrome trace JSON文件，可以在
+	 * chrome://tracing或Perfetto中打开。
+	 */
+	public static void stopCapture(File file) throws IOException {
+		if (capture == null) {
+			throw new IllegalStateException("No capture is running");
+		}
+		TraceCapture finished = capture;
+		capture = null;
+		finished.write(file);
+	}
+
+	static String getThreadName(int ordinal) {
+		return threadNames[ordinal];
+	}
+
+	/**
+	 * Registers a name for a tree in the frame reports that doesn't belong to
+	 * a thread, like the GPU's.
+	 * 为帧报告中不属于某个线程的树（例如GPU的树）注册一个名称。
+	 */
+	static int registerTrack(String name) {
+		synchronized (LOCK) {
+			String[] names = Arrays.copyOf(threadNames, threadNames.length + 1);
+			names[names.length - 1] = name;
+			threadNames = names;
+			return names.length - 1;
+		}
+	}
+
+	private static ThreadEvents register() {
+		Thread thread = Thread.currentThread();
+		ThreadEvents events;
+		synchronized (LOCK) {
+			String[] names = Arrays.copyOf(threadNames, threadNames.length + 1);
+			names[names.length - 1] = thread.getName();
+			threadNames = names;
+			events = new ThreadEvents(thread, names.length - 1);
+			ThreadEvents[] all = Arrays.copyOf(threads, threads.length + 1);
+			all[all.length - 1] = events;
+			threads = all;
+		}
+		return events;
+	}
+
+	private static void unregister(ThreadEvents events) {
+		synchronized (LOCK) {
+			ThreadEvents[] all = new ThreadEvents[threads.length - 1];
+			int count = 0;
+			for (ThreadEvents other : threads) {
+				if (other != events) {
+					all[count++] = other;
+				}
+			}
+			threads = all;
+		}
+	}
+
+	/**
+	 * Builds the thread's part of the current report from its unread markers,
+	 * up to the end of the frame. Scopes still open get their time up to the
+	 * end of the frame and carry on in the next one.
+	 * 根据线程未读的标记构建它在当前报告中的部分，直到帧结束为止。仍然打开的范围
+	 * 计入到帧结束为止的时间，并在下一帧中继续。
+	 */
+	private static void collect(ThreadEvents events, long frameEnd) {
+		for (int n = events.available(); n > 0; n--) {
+			long time = events.peekTime();
+			if (time - frameEnd > 0) {
+				break;
+			}
+			int code = events.peekCode();
+			events.skip();
+			if (capture != null) {
+				capture.add(events.ordinal, code, time);
+			}
+			int scope = code >>> 1;
+			if ((code & 1) == 0) {
+				if (events.depth == ThreadEvents.MAX_DEPTH) {
+					//栈满了，这个范围不计入报告，它的结束标记会被跳过
+					events.overflowed++;
+					events.overflowDepth++;
+				} else {
+					int parent = events.depth == 0 ? root(events) : events.stackNodes[events.depth - 1];
+					events.push(scope, current.child(parent, scope), time);
+				}
+			} else if (events.overflowDepth > 0) {
+				//最里面的范围最先结束，所以这是一个没有放进栈的范围的结束标记
+				events.overflowDepth--;
+			} else if (events.depth > 0 && events.stackScopes[events.depth - 1] == scope) {
+				events.depth--;
+				int node = events.stackNodes[events.depth];
+				long nanos = time - events.stackStarts[events.depth];
+				current.addTime(node, nanos);
+				current.addCall(node);
+				if (events.depth == 0) {
+					current.addTime(events.rootNode, nanos);
+				}
+			} else {
+				events.mismatched++;
+			}
+		}
+		for (int i = 0; i < events.depth; i++) {
+			long nanos = frameEnd - events.stackStarts[i];
+			current.addTime(events.stackNodes[i], nanos);
+			if (i == 0) {
+				current.addTime(events.rootNode, nanos);
+			}
+			events.stackStarts[i] = frameEnd;
+		}
+	}
+
+	/**
+	 * Adds the scopes still open on the thread to the new report.
+	 * 将线程上仍然打开的范围加入新的报告
+	 */
+	private static void reopen(ThreadEvents events) {
+		for (int i = 0; i < events.depth; i++) {
+			int parent = i == 0 ? root(events) : events.stackNodes[i - 1];
+			events.stackNodes[i] = current.child(parent, events.stackScopes[i]);
+		}
+	}
+
+	private static int root(ThreadEvents events) {
+		if (events.rootNode < 0) {
+			events.rootNode = current.addRoot(events.ordinal);
+		}
+		return events.rootNode;
+	}
+
+}
@@ -0,0 +1,112 @@
+package profiling;
+
+/**
+ * The begin and end markers recorded by one thread, kept in a ring of
+ * preallocated arrays. Only the owning thread writes; {@link Profiler#endFrame()}
+ * reads on the main thread, up to the count published by the writer. If the
+ * reader falls a whole ring behind, the oldest markers are dropped.
+ * 一个线程记录的开始和结束标记，保存在预先分配的数组构成的环中。只有所属线程写入；
+ * Profiler.endFrame()在主线程上读取，读到写入者公布的数量为止。如果读取者落后了
+ * 整整一个环，最旧的标记会被丢弃。
+ * 
+ * The reader also keeps the thread's stack of open scopes here, since a scope
+ * can stay open across the end of a frame. Scopes nested deeper than the
+ * stack holds are left out of the report, together with their end markers,
+ * and counted in overflowed (see {@link Profiler#getOverflowCount()}), apart
+ * from the mismatched end markers.
+ * 读取者也在这里保存该线程打开的范围的栈，因为一个范围可以跨越帧的结束一直打开。
+ * 嵌套深度超过栈容量的范围连同它们的结束标记一起不计入报告，并计入overflowed
+ * （参见Profiler.getOverflowCount()），与不匹配的结束标记分开统计。
+ */
+class ThreadEvents {
+
+	private static final int CAPACITY = 1 << 16;
+	static final int MAX_DEPTH = 64;
+
+	final Thread thread;
+	final int ordinal;
+
+	private final long[] times = new long[CAPACITY];
+	private final int[] codes = new int[CAPACITY];
+	private volatile long written;
+	private long read;
+
+	int depth;
+	final int[] stackScopes = new int[MAX_DEPTH];
+	final int[] stackNodes = new int[MAX_DEPTH];
+	final long[] stackStarts = new long[MAX_DEPTH];
+	int rootNode = -1;
+	long dropped;
+	long mismatched;
+	long overflowed;
+	//没有放进栈的打开范围数，它们的结束标记会被跳过
+	int overflowDepth;
+
+	ThreadEvents(Thread thread, int ordinal) {
+		this.thread = thread;
+		this.ordinal = ordinal;
+	}
+
+	/**
+	 * Called by the owning thread only.
+	 * 只能由所属线程调用
+	 */
+	void add(int code, long time) {
+		long count = written;
+		int index = (int) count & (CAPACITY - 1);
+		times[index] = time;
+		codes[index] = code;
+		written = count + 1;
+	}
+
+	/**
+	 * @return The number of unread markers, after dropping any that were
+	 *         overwritten.
+	 *         未读标记的数量（已丢弃被覆盖的标记之后）
+	 */
+	int available() {
+		long count = written;
+		if (count - read > CAPACITY) {
+			dropped += count - CAPACITY - read;
+			read = count - CAPACITY;
+			depth = 0;
+			overflowDepth = 0;
+		}
+		return (int) (count - read);
+	}
+
+	/**
+	 * Skips every unread marker, e.g. ones left over from before the profiler
+	 * was last disabled.
+	 * 跳过所有未读的标记，例如分析器上次禁用之前遗留下来的标记。
+	 */
+	void discard() {
+		read = written;
+		depth = 0;
+		overflowDepth = 0;
+	}
+
+	long peekTime() {
+		return times[(int) read & (CAPACITY - 1)];
+	}
+
+	int peekCode() {
+		return codes[(int) read & (CAPACITY - 1)];
+	}
+
+	void skip() {
+		read++;
+	}
+
+	/**
+	 * Only when depth is below {@link #MAX_DEPTH}.
+	 * 只能在depth小于MAX_DEPTH时调用
+	 */
+	void push(int scope, int node, long start) {
+		stackScopes[depth] = scope;
+		stackNodes[depth] = node;
+		stackStarts[depth] = start;
+		depth++;
+	}
+
+}
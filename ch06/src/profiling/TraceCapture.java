@@ -0,0 +1,97 @@
+package profiling;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Every marker collected while a capture is running, written out in the Chrome
+ * trace event format so the frames can be looked at on a timeline in
+ * chrome://tracing or Perfetto. Unlike the frame reports this keeps every
+ * single call, so it grows while capturing.
+ * 捕获运行期间收集的所有标记，以Chrome trace事件格式写出，这样就可以在
+ * chrome://tracing或Perfetto的时间线上查看各帧。与帧报告不同，这里保存了每一次
+ * 调用，所以捕获期间会不断增长。
+ */
+class TraceCapture {
+
+	private final long originNanos;
+
+	private int count;
+	private long[] times = new long[4096];
+	private int[] codes = new int[4096];
+	private int[] threads = new int[4096];
+
+	private int frameCount;
+	private long[] frameTimes = new long[256];
+
+	TraceCapture(long originNanos) {
+		this.originNanos = originNanos;
+	}
+
+	void add(int thread, int code, long time) {
+		if (count == times.length) {
+			times = Arrays.copyOf(times, count * 2);
+			codes = Arrays.copyOf(codes, count * 2);
+			threads = Arrays.copyOf(threads, count * 2);
+		}
+		times[count] = time;
+		codes[count] = code;
+		threads[count] = thread;
+		count++;
+	}
+
+	void addFrame(long time) {
+		if (frameCount == frameTimes.length) {
+			frameTimes = Arrays.copyOf(frameTimes, frameCount * 2);
+		}
+		frameTimes[frameCount++] = time;
+	}
+
+	void write(File file) throws IOException {
+		try (Writer out = new FileWriter(file)) {
+			out.write("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n");
+			int threadCount = 0;
+			for (int i = 0; i < count; i++) {
+				threadCount = Math.max(threadCount, threads[i] + 1);
+			}
+			boolean first = true;
+			for (int thread = 0; thread < threadCount; thread++) {
+				first = separate(out, first);
+				out.write("{\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": " + thread
+						+ ", \"args\": {\"name\": \"" + escape(Profiler.getThreadName(thread)) + "\"}}");
+			}
+			for (int i = 0; i < frameCount; i++) {
+				first = separate(out, first);
+				out.write("{\"name\": \"frame\", \"ph\": \"i\", \"s\": \"g\", \"pid\": 1, \"tid\": 0, \"ts\": "
+						+ micros(frameTimes[i]) + "}");
+			}
+			for (int i = 0; i < count; i++) {
+				first = separate(out, first);
+				out.write("{\"name\": \"" + escape(Profiler.getScopeName(codes[i] >>> 1)) + "\", \"cat\": \"cpu\", \"ph\": \""
+						+ ((codes[i] & 1) == 0 ? "B" : "E") + "\", \"pid\": 1, \"tid\": " + threads[i] + ", \"ts\": "
+						+ micros(times[i]) + "}");
+			}
+			out.write("\n]}\n");
+		}
+	}
+
+	private String micros(long time) {
+		return String.format(Locale.ROOT, "%.3f", (time - originNanos) / 1000.0);
+	}
+
+	private static boolean separate(Writer out, boolean first) throws IOException {
+		if (!first) {
+			out.write(",\n");
+		}
+		return false;
+	}
+
+	private static String escape(String text) {
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+}
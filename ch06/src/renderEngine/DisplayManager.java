@@ -7,6 +7,11 @@ import org.lwjgl.opengl.DisplayMode;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.PixelFormat;
 
+import profiling.Profiler;
+import timing.FramePacer;
+import timing.FrameTimeHistogram;
+import timing.SystemClock;
+
 /**
  * This class contains all the methods needed to set-up, maintain, and close a LWJGL display.
  * 这个类包含了用来启动，持续以及关闭 LWJGL 展示的方法.
@@ -21,6 +26,11 @@ public class DisplayManager {
 	private static final int FPS_CAP = 60;
 	private static final String TITLE = "Our First Display";
 
+	private static final int HISTOGRAM_FRAMES = 600;
+	private static final int UPDATE_DISPLAY = Profiler.scope("DisplayManager.updateDisplay");
+
+	private static final FramePacer PACER = new FramePacer(new SystemClock(), FPS_CAP, HISTOGRAM_FRAMES);
+
 	/**
 	 * Creates a display window on which we can render our game. The dimensions
 	 * of the window are determined by setting the display mode. By using
@@ -39,20 +49,58 @@ public class DisplayManager {
 			e.printStackTrace();
 		}
 		GL11.glViewport(0, 0, WIDTH, HEIGHT);
+		Display.setVSyncEnabled(PACER.getMode() == FramePacer.Mode.VSYNC);
+		PACER.sync();
 	}
 
 	/**
 	 * This method is used to update the display at the end of every frame. When
 	 * we have set up a rendering process this method will display whatever
-	 * we've been rendering onto the screen. The "sync" method is used here to
+	 * we've been rendering onto the screen. The frame pacer is used here to
 	 * cap the frame rate. Without this the computer would just try to run the
 	 * game as fast as it possibly can, doing more work than it needs to.
-	 * 这个方法用来在每一帧结束时重新渲染。sync方法用来同步时钟，让电脑在在
+	 * 这个方法用来在每一帧结束时重新渲染。帧率控制器用来同步时钟，让电脑在在
 	 * 相同时间里渲染指定的次数，而不是要多快有多快
+	 * 
+	 * This is also where the profiler's frame ends.
+	 * 这里也是性能分析器一帧结束的地方。
 	 */
 	public static void updateDisplay() {
-		Display.sync(FPS_CAP);
+		Profiler.begin(UPDATE_DISPLAY);
+		PACER.sync();
 		Display.update();
+		Profiler.end(UPDATE_DISPLAY);
+		Profiler.endFrame();
+	}
+
+	/**
+	 * @return The time between the last two frames, in seconds.
+	 *         最后两帧之间的时间（秒）
+	 */
+	public static float getFrameTimeSeconds() {
+		return PACER.getLastFrameNanos() / 1e9f;
+	}
+
+	/**
+	 * Changes how the frame rate is limited while the game is running. In
+	 * {@link FramePacer.Mode#VSYNC} mode the monitor's refresh limits it.
+	 * 在游戏运行时改变限制帧率的方式。在VSYNC模式下由显示器的刷新来限制。
+	 */
+	public static void setPacing(FramePacer.Mode mode, int targetFps) {
+		PACER.setMode(mode);
+		PACER.setTargetFps(targetFps);
+		if (Display.isCreated()) {
+			Display.setVSyncEnabled(mode == FramePacer.Mode.VSYNC);
+		}
+	}
+
+	/**
+	 * @return The times of the recent frames, for the median and the slow
+	 *         frames.
+	 *         最近帧的时间，用于查看中位数和慢帧
+	 */
+	public static FrameTimeHistogram getFrameTimes() {
+		return PACER.getHistogram();
 	}
 
 	/**
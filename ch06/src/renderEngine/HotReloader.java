@@ -0,0 +1,193 @@
+package renderEngine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import assets.AssetWatcher;
+import assets.VirtualFileSystem;
+import profiling.Profiler;
+import resources.TextureHandle;
+import shaders.ShaderProgram;
+import textures.TextureData;
+
+/**
+ * Reloads shaders and textures while the game runs when their loose files are
+ * edited, so changes show up without restarting. The files are watched by an
+ * {@link AssetWatcher}; when one of them has changed, it is read (and an
+ * image decoded) on the watcher's thread, and the result waits until the
+ * game calls {@link #applyChanges()} between two frames. Only then are the
+ * shaders compiled and the new program swapped in, or the new image copied
+ * into the texture, since OpenGL can only be used on its own thread. If a
+ * file can't be read or a shader doesn't compile, the error is printed and
+ * the old version stays in use.
+ * 在游戏运行时，当着色器和纹理的松散文件被修改时重新加载它们，这样不用重启就能看到
+ * 修改。文件由AssetWatcher监视；其中一个文件变化后，它在监视器的线程上被读取（图片
+ * 也在那里解码），结果一直等到游戏在两帧之间调用applyChanges()。只有那时才编译
+ * 着色器并换上新程序，或者把新的图像复制进纹理，因为OpenGL只能在它自己的线程上使用。
+ * 如果文件无法读取或者着色器编译失败，会打印错误并继续使用旧版本。
+ */
+public class HotReloader implements AssetWatcher.Listener, Closeable {
+
+	private static final int APPLY_CHANGES = Profiler.scope("HotReloader.applyChanges");
+
+	private final Loader loader;
+	private final CopyOnWriteArrayList<ShaderProgram> shaders = new CopyOnWriteArrayList<ShaderProgram>();
+	private final Map<String, TextureHandle> textures = new ConcurrentHashMap<String, TextureHandle>();
+	//已经读取好，等待在两帧之间换上的新版本
+	private final Queue<BooleanSupplier> ready = new ConcurrentLinkedQueue<BooleanSupplier>();
+	private final AssetWatcher watcher;
+
+	/**
+	 * Starts watching the override folders of the {@link VirtualFileSystem}.
+	 * 开始监视VirtualFileSystem的覆盖文件夹。
+	 *
+	 * @param loader
+	 *            - The loader the watched textures were loaded with.
+	 *            - 加载被监视纹理的加载器
+	 */
+	public HotReloader(Loader loader) throws IOException {
+		this.loader = loader;
+		this.watcher = new AssetWatcher(this);
+	}
+
+	/**
+	 * Same as {@link #HotReloader(Loader)}, watching other folders. Files are
+	 * still read through the {@link VirtualFileSystem}, so the folders should
+	 * be its override folders.
+	 * 与HotReloader(Loader)相同，监视其他文件夹。文件仍然通过VirtualFileSystem读取，
+	 * 所以这些文件夹应该是它的覆盖文件夹。
+	 *
+	 * @see AssetWatcher#AssetWatcher(File[], long, AssetWatcher.Listener)
+	 */
+	public HotReloader(Loader loader, File[] folders, long quietMillis) throws IOException {
+		this.loader = loader;
+		this.watcher = new AssetWatcher(folders, quietMillis, this);
+	}
+
+	/**
+	 * Rebuilds the shader whenever its vertex or fragment shader file changes.
+	 * 每当着色器的顶点或片段着色器文件变化时重新构建它。
+	 */
+	public void watch(ShaderProgram shader) {
+		shaders.addIfAbsent(shader);
+	}
+
+	/**
+	 * Reloads the texture whenever the file it was loaded from with
+	 * {@link Loader#loadTextureHandle(String)} changes.
+	 * 每当纹理用Loader.loadTextureHandle(String)加载时使用的文件变化时重新加载它。
+	 */
+	public void watch(TextureHandle texture, String fileName) {
+		textures.put(Loader.getTexturePath(fileName), texture);
+	}
+
+	public void unwatch(ShaderProgram shader) {
+		shaders.remove(shader);
+	}
+
+	public void unwatch(TextureHandle texture) {
+		textures.values().remove(texture);
+	}
+
+	/**
+	 * Swaps in everything that has been read since the last call. Must be
+	 * called on the OpenGL thread, between two frames, while no shader is in
+	 * use. Does nothing (and takes no locks) when nothing has changed.
+	 * 换上自上次调用以来读取的所有新版本。必须在OpenGL线程上，在两帧之间，没有着色器
+	 * 在使用时调用。没有变化时什么都不做（也不加锁）。
+	 *
+	 * @return The number of shaders and textures that were replaced.
+	 *         被替换的着色器和纹理的数量
+	 */
+	public int applyChanges() {
+		if (ready.isEmpty()) {
+			return 0;
+		}
+		Profiler.begin(APPLY_CHANGES);
+		int replaced = 0;
+		BooleanSupplier change;
+		while ((change = ready.poll()) != null) {
+			if (change.getAsBoolean()) {
+				replaced++;
+			}
+		}
+		Profiler.end(APPLY_CHANGES);
+		return replaced;
+	}
+
+	/**
+	 * Reads the new version of whatever uses the changed file. Called on the
+	 * watcher's thread.
+	 * 读取使用这个变化文件的资源的新版本。在监视器的线程上调用。
+	 */
+	@Override
+	public void changed(String path) {
+		for (ShaderProgram shader : shaders) {
+			if (path.equals(shader.getVertexFile()) || path.equals(shader.getFragmentFile())) {
+				readShader(shader);
+			}
+		}
+		TextureHandle texture = textures.get(path);
+		if (texture != null) {
+			readTexture(texture, path);
+		}
+	}
+
+	/**
+	 * Stops watching. Changes already read can still be applied.
+	 * 停止监视。已经读取的变化仍然可以被换上。
+	 */
+	@Override
+	public void close() throws IOException {
+		watcher.close();
+	}
+
+	private void readShader(ShaderProgram shader) {
+		//两个文件都重新读取，这样换上的程序总是来自同一时刻的源码
+		StringBuilder vertexSource;
+		StringBuilder fragmentSource;
+		try {
+			vertexSource = ShaderProgram.readShaderSource(shader.getVertexFile());
+			fragmentSource = ShaderProgram.readShaderSource(shader.getFragmentFile());
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("Tried to reload shader " + shader.getVertexFile() + " and "
+					+ shader.getFragmentFile() + ", didn't work");
+			return;
+		}
+		ready.add(() -> {
+			if (!shaders.contains(shader)) {
+				return false;
+			}
+			return shader.reload(vertexSource, fragmentSource);
+		});
+	}
+
+	private void readTexture(TextureHandle texture, String path) {
+		TextureData data;
+		try (InputStream in = VirtualFileSystem.open(path)) {
+			data = TextureData.decode(in);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("Tried to reload texture " + path + ", didn't work");
+			return;
+		}
+		ready.add(() -> {
+			//纹理可能在读取期间被释放或不再被监视
+			if (texture.isReleased() || textures.get(path) != texture) {
+				return false;
+			}
+			loader.reloadTexture(texture, data);
+			return true;
+		});
+	}
+
+}
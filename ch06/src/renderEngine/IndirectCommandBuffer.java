@@ -0,0 +1,99 @@
+package renderEngine;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import models.RawModel;
+
+/**
+ * A growable list of DrawElementsIndirectCommand structs, stored as plain ints
+ * so that adding a command never allocates. Each command is laid out exactly
+ * as OpenGL expects it in the indirect buffer:
+ * 一组DrawElementsIndirectCommand结构体，以int保存，所以添加命令不会分配内存。
+ * 每个命令的布局与OpenGL在间接缓存中要求的完全一致：
+ * 
+ * <pre>
+ * typedef struct {
+ *     uint count;         // number of indices 索引数量
+ *     uint instanceCount; // number of instances 实例数量
+ *     uint firstIndex;    // first index in the index buffer 第一个索引
+ *     int  baseVertex;    // added to each index 加到每个索引上的值
+ *     uint baseInstance;  // first instance 第一个实例
+ * } DrawElementsIndirectCommand;
+ * </pre>
+ */
+public class IndirectCommandBuffer {
+
+	public static final int COMMAND_INTS = 5;
+	public static final int COMMAND_BYTES = COMMAND_INTS * 4;
+
+	private int[] commands;
+	private int count;
+
+	public IndirectCommandBuffer(int initialCapacity) {
+		commands = new int[Math.max(1, initialCapacity) * COMMAND_INTS];
+	}
+
+	/**
+	 * Adds one draw of the model to the buffer.
+	 * 添加一次模型的绘制
+	 */
+	public void add(RawModel model) {
+		add(model.getVertexCount(), 1, model.getFirstIndex(), model.getBaseVertex(), 0);
+	}
+
+	public void add(int indexCount, int instanceCount, int firstIndex, int baseVertex, int baseInstance) {
+		int offset = count * COMMAND_INTS;
+		if (offset == commands.length) {
+			commands = Arrays.copyOf(commands, commands.length * 2);
+		}
+		commands[offset] = indexCount;
+		commands[offset + 1] = instanceCount;
+		commands[offset + 2] = firstIndex;
+		commands[offset + 3] = baseVertex;
+		commands[offset + 4] = baseInstance;
+		count++;
+	}
+
+	/**
+	 * Copies all the commands into the buffer, starting at its current
+	 * position.
+	 * 将所有命令从缓存当前位置开始复制进去
+	 */
+	public void writeTo(IntBuffer buffer) {
+		buffer.put(commands, 0, count * COMMAND_INTS);
+	}
+
+	/**
+	 * Removes all commands, keeping the storage for the next frame.
+	 * 删除所有命令，保留存储空间给下一帧使用
+	 */
+	public void clear() {
+		count = 0;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getIndexCount(int command) {
+		return commands[command * COMMAND_INTS];
+	}
+
+	public int getInstanceCount(int command) {
+		return commands[command * COMMAND_INTS + 1];
+	}
+
+	public int getFirstIndex(int command) {
+		return commands[command * COMMAND_INTS + 2];
+	}
+
+	public int getBaseVertex(int command) {
+		return commands[command * COMMAND_INTS + 3];
+	}
+
+	public int getBaseInstance(int command) {
+		return commands[command * COMMAND_INTS + 4];
+	}
+
+}
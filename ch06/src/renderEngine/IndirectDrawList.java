@@ -0,0 +1,143 @@
+package renderEngine;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import models.RawModel;
+import models.TexturedModel;
+import toolbox.LongIntHashMap;
+
+/**
+ * Collects the draws of one frame into buckets, one per material (a VAO and
+ * texture pair). All draws in a bucket share the same state, so each bucket
+ * can be submitted with a single glMultiDrawElementsIndirect call.
+ * 将一帧的绘制收集到桶中，每种材质（VAO和纹理的组合）一个桶。同一个桶中的绘制
+ * 共享相同的状态，所以每个桶可以用一次glMultiDrawElementsIndirect调用提交。
+ * 
+ * This class does not touch OpenGL, so building the draw list can be done
+ * (and benchmarked) without a context. Buckets and their command storage are
+ * kept between frames, so once every material has been seen adding draws does
+ * not allocate.
+ * 这个类不调用OpenGL，所以没有上下文也可以构建绘制列表（以及测试性能）。
+ * 桶和命令存储在帧之间保留，所以所有材质出现过一次后添加绘制不会分配内存。
+ */
+public class IndirectDrawList {
+
+	private static final int INITIAL_BUCKETS = 16;
+	private static final int INITIAL_COMMANDS_PER_BUCKET = 64;
+
+	private final LongIntHashMap bucketLookup = new LongIntHashMap(INITIAL_BUCKETS);
+	private IndirectCommandBuffer[] buckets = new IndirectCommandBuffer[INITIAL_BUCKETS];
+	private int[] bucketVaos = new int[INITIAL_BUCKETS];
+	private int[] bucketTextures = new int[INITIAL_BUCKETS];
+	private int bucketCount;
+
+	public void add(TexturedModel texturedModel) {
+		RawModel model = texturedModel.getRawModel();
+		getBucket(model.getVaoID(), texturedModel.getTexture().getID()).add(model);
+	}
+
+	public void add(int vaoID, int textureID, int indexCount, int firstIndex, int baseVertex) {
+		getBucket(vaoID, textureID).add(indexCount, 1, firstIndex, baseVertex, 0);
+	}
+
+	/**
+	 * @param baseInstance
+	 *            - Added to the instance number before per-instance
+	 *            attributes are fetched, e.g. the index of the draw's model
+	 *            matrix in an instance buffer.
+	 *            - 读取每实例属性前加到实例编号上的值，例如这次绘制的模型矩阵在实例
+	 *            缓存中的下标
+	 */
+	public void add(int vaoID, int textureID, int indexCount, int firstIndex, int baseVertex, int baseInstance) {
+		getBucket(vaoID, textureID).add(indexCount, 1, firstIndex, baseVertex, baseInstance);
+	}
+
+	/**
+	 * @return The total number of commands in all buckets.
+	 *         所有桶中命令的总数
+	 */
+	public int getCommandCount() {
+		int total = 0;
+		for (int i = 0; i < bucketCount; i++) {
+			total += buckets[i].getCount();
+		}
+		return total;
+	}
+
+	/**
+	 * Writes the commands of every bucket, one bucket after another, into the
+	 * buffer. The commands of bucket i therefore start at the sum of the
+	 * command counts of the buckets before it.
+	 * 将每个桶的命令依次写入缓存。所以第i个桶的命令从前面所有桶的命令数量之和
+	 * 处开始。
+	 */
+	public void pack(IntBuffer buffer) {
+		for (int i = 0; i < bucketCount; i++) {
+			buckets[i].writeTo(buffer);
+		}
+	}
+
+	/**
+	 * Empties every bucket, keeping the buckets for the next frame.
+	 * 清空所有的桶，保留它们给下一帧使用
+	 */
+	public void clear() {
+		for (int i = 0; i < bucketCount; i++) {
+			buckets[i].clear();
+		}
+	}
+
+	/**
+	 * Forgets all the buckets, for example after the materials of a scene
+	 * have been unloaded.
+	 * 删除所有的桶，例如在场景的材质被卸载之后
+	 */
+	public void reset() {
+		bucketLookup.clear();
+		bucketCount = 0;
+	}
+
+	public int getBucketCount() {
+		return bucketCount;
+	}
+
+	public IndirectCommandBuffer getBucket(int bucket) {
+		return buckets[bucket];
+	}
+
+	public int getBucketVao(int bucket) {
+		return bucketVaos[bucket];
+	}
+
+	public int getBucketTexture(int bucket) {
+		return bucketTextures[bucket];
+	}
+
+	private IndirectCommandBuffer getBucket(int vaoID, int textureID) {
+		long key = ((long) vaoID << 32) | (textureID & 0xffffffffL);
+		int bucket = bucketLookup.get(key, -1);
+		if (bucket < 0) {
+			bucket = createBucket(vaoID, textureID);
+			bucketLookup.put(key, bucket);
+		}
+		return buckets[bucket];
+	}
+
+	private int createBucket(int vaoID, int textureID) {
+		if (bucketCount == buckets.length) {
+			buckets = Arrays.copyOf(buckets, bucketCount * 2);
+			bucketVaos = Arrays.copyOf(bucketVaos, bucketCount * 2);
+			bucketTextures = Arrays.copyOf(bucketTextures, bucketCount * 2);
+		}
+		if (buckets[bucketCount] == null) {
+			buckets[bucketCount] = new IndirectCommandBuffer(INITIAL_COMMANDS_PER_BUCKET);
+		} else {
+			buckets[bucketCount].clear();
+		}
+		bucketVaos[bucketCount] = vaoID;
+		bucketTextures[bucketCount] = textureID;
+		return bucketCount++;
+	}
+
+}
@@ -0,0 +1,165 @@
+package renderEngine;
+
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL40;
+
+import device.GLDevice;
+import models.TexturedModel;
+import profiling.Profiler;
+
+/**
+ * Renders many models with one draw call per material instead of one draw
+ * call per model. Models are first added to an {@link IndirectDrawList}; at
+ * the end of the frame all commands are uploaded into one indirect buffer and
+ * each material bucket is drawn with glMultiDrawElementsIndirect.
+ * 用每种材质一次绘制调用代替每个模型一次绘制调用来渲染大量模型。模型首先被加入
+ * IndirectDrawList；在一帧的最后，所有命令被上传到一个间接缓存中，每个材质桶
+ * 用glMultiDrawElementsIndirect绘制。
+ * 
+ * Only models sharing a VAO can be drawn together, so the models should be
+ * created with {@link Loader#loadBatchToVAO}. If multi-draw indirect is not
+ * available (it needs OpenGL 4.3 or ARB_multi_draw_indirect) the commands of
+ * each bucket are drawn in a loop of glDrawElementsBaseVertex instead, which
+ * still saves the per-model state changes.
+ * 只有共享VAO的模型才能一起绘制，所以模型应当使用Loader.loadBatchToVAO创建。
+ * 如果不支持multi-draw indirect（需要OpenGL 4.3或ARB_multi_draw_indirect），
+ * 每个桶的命令将在循环中用glDrawElementsBaseVertex绘制，仍然可以省去每个模型
+ * 的状态切换。
+ */
+public class IndirectRenderer {
+
+	private static final int FLUSH = Profiler.scope("IndirectRenderer.flush");
+
+	private final GLDevice device;
+	private final IndirectDrawList drawList = new IndirectDrawList();
+	private final boolean multiDraw;
+	private int indirectBufferID;
+	private IntBuffer commandBuffer = BufferUtils.createIntBuffer(1024 * IndirectCommandBuffer.COMMAND_INTS);
+
+	public IndirectRenderer(GLDevice device) {
+		this.device = device;
+		this.multiDraw = device.supportsMultiDrawIndirect();
+		if (multiDraw) {
+			indirectBufferID = device.genBuffer();
+		}
+	}
+
+	/**
+	 * @return Whether draws are submitted with glMultiDrawElementsIndirect
+	 *         (true) or with the glDrawElementsBaseVertex fallback (false).
+	 *         是使用glMultiDrawElementsIndirect（true）还是使用
+	 *         glDrawElementsBaseVertex（false）提交绘制
+	 */
+	public boolean isMultiDrawSupported() {
+		return multiDraw;
+	}
+
+	/**
+	 * Queues the model to be drawn when {@link #flush()} is called.
+	 * 将模型加入队列，在调用flush()时绘制
+	 */
+	public void render(TexturedModel texturedModel) {
+		drawList.add(texturedModel);
+	}
+
+	public IndirectDrawList getDrawList() {
+		return drawList;
+	}
+
+	/**
+	 * Draws everything that has been queued this frame, one material bucket at
+	 * a time, and then empties the draw list. Must be called between the
+	 * shader's start() and stop().
+	 * 一个桶接一个桶地绘制这一帧加入队列的所有模型，然后清空绘制列表。必须在着色器
+	 * 的start()和stop()之间调用。
+	 */
+	public void flush() {
+		int commandCount = drawList.getCommandCount();
+		if (commandCount == 0) {
+			return;
+		}
+		Profiler.begin(FLUSH);
+		Profiler.beginGpu(FLUSH);
+		if (multiDraw) {
+			uploadCommands(commandCount);
+		}
+		long offset = 0;
+		for (int i = 0; i < drawList.getBucketCount(); i++) {
+			IndirectCommandBuffer bucket = drawList.getBucket(i);
+			if (bucket.getCount() == 0) {
+				continue;
+			}
+			device.bindVertexArray(drawList.getBucketVao(i));
+			device.enableVertexAttribArray(0);
+			device.enableVertexAttribArray(1);
+			device.activeTexture(GL13.GL_TEXTURE0);
+			device.bindTexture(GL11.GL_TEXTURE_2D, drawList.getBucketTexture(i));
+			if (multiDraw) {
+				device.multiDrawElementsIndirect(GL11.GL_TRIANGLES, GL11.GL_UNSIGNED_INT, offset, bucket.getCount(), 0);
+			} else {
+				drawBaseVertex(bucket);
+			}
+			offset += (long) bucket.getCount() * IndirectCommandBuffer.COMMAND_BYTES;
+			device.disableVertexAttribArray(0);
+			device.disableVertexAttribArray(1);
+		}
+		device.bindVertexArray(0);
+		if (multiDraw) {
+			device.bindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, 0);
+		}
+		drawList.clear();
+		Profiler.endGpu(FLUSH);
+		Profiler.end(FLUSH);
+	}
+
+	/**
+	 * Deletes the indirect buffer when the game is closed.
+	 * 在游戏关闭时删除间接缓存
+	 */
+	public void cleanUp() {
+		if (indirectBufferID != 0) {
+			device.deleteBuffer(indirectBufferID);
+		}
+	}
+
+	/**
+	 * Copies every command of the frame into the indirect buffer with a single
+	 * upload. The buffer is orphaned first (glBufferData with no data) so the
+	 * driver can give us fresh memory instead of waiting for the GPU to finish
+	 * reading last frame's commands.
+	 * 用一次上传将这一帧的所有命令复制进间接缓存。首先重新分配缓存（不带数据的
+	 * glBufferData），这样驱动可以给我们新的内存，而不必等待GPU读完上一帧的命令。
+	 */
+	private void uploadCommands(int commandCount) {
+		int ints = commandCount * IndirectCommandBuffer.COMMAND_INTS;
+		if (commandBuffer.capacity() < ints) {
+			commandBuffer = BufferUtils.createIntBuffer(Math.max(ints, commandBuffer.capacity() * 2));
+		}
+		commandBuffer.clear();
+		drawList.pack(commandBuffer);
+		commandBuffer.flip();
+		device.bindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, indirectBufferID);
+		device.bufferData(GL40.GL_DRAW_INDIRECT_BUFFER, (long) commandBuffer.capacity() * 4, GL15.GL_STREAM_DRAW);
+		device.bufferSubData(GL40.GL_DRAW_INDIRECT_BUFFER, 0, commandBuffer);
+	}
+
+	private void drawBaseVertex(IndirectCommandBuffer bucket) {
+		for (int c = 0; c < bucket.getCount(); c++) {
+			long indexOffset = (long) bucket.getFirstIndex(c) * 4;
+			int instances = bucket.getInstanceCount(c);
+			if (instances == 1) {
+				device.drawElementsBaseVertex(GL11.GL_TRIANGLES, bucket.getIndexCount(c), GL11.GL_UNSIGNED_INT,
+						indexOffset, bucket.getBaseVertex(c));
+			} else {
+				device.drawElementsInstancedBaseVertex(GL11.GL_TRIANGLES, bucket.getIndexCount(c),
+						GL11.GL_UNSIGNED_INT, indexOffset, instances, bucket.getBaseVertex(c));
+			}
+		}
+	}
+
+}
@@ -1,34 +1,65 @@
 package renderEngine;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
-import org.newdawn.slick.opengl.Texture;
-import org.newdawn.slick.opengl.TextureLoader;
 
+import assets.VirtualFileSystem;
+import device.GLDevice;
 import models.RawModel;
+import profiling.Profiler;
+import resources.GpuResources;
+import resources.MeshHandle;
+import resources.ResourceCategory;
+import resources.TextureHandle;
+import textures.TextureData;
 
 /**
  * 处理将几何数据加载进VAO的类，同时跟踪所有创建的VAO和VBO，以便在游戏关闭时将它们删除
+ * 
+ * The objects are tracked by {@link GpuResources}, which also counts their
+ * memory by label and category. Single models and textures can be released
+ * with {@link #release(RawModel)} and {@link #release(TextureHandle)}.
+ * 这些对象由GpuResources跟踪，它还按标签和类别统计它们的内存。单个模型和纹理可以
+ * 用release(RawModel)和release(TextureHandle)释放。
  * @author Karl
  *
  */
 public class Loader {
 
-	private List<Integer> vaos = new ArrayList<Integer>();
-	private List<Integer> vbos = new ArrayList<Integer>();
-	//定义纹理List
-	private List<Integer> textures = new ArrayList<Integer>();
+	private static final int LOAD_TO_VAO = Profiler.scope("Loader.loadToVAO");
+	private static final int LOAD_BATCH = Profiler.scope("Loader.loadBatchToVAO");
+	private static final int LOAD_TEXTURE = Profiler.scope("Loader.loadTexture");
+
+	private static final String DEFAULT_LABEL = "unnamed";
+
+	private final GLDevice device;
+	private final GpuResources resources;
+
+	/**
+	 * @param device
+	 *            - The device that all OpenGL calls go through.
+	 *            - 所有OpenGL调用经过的设备
+	 */
+	public Loader(GLDevice device) {
+		this.device = device;
+		this.resources = new GpuResources(device);
+	}
+
+	/**
+	 * @return The tracker of every VAO, buffer and texture this loader has
+	 *         created, for memory reports.
+	 *         这个加载器创建的所有VAO，缓存和纹理的跟踪器，用于内存报告
+	 */
+	public GpuResources getResources() {
+		return resources;
+	}
 
 	/**
 	 * Creates a VAO and stores the position data of the vertices into attribute
@@ -49,45 +80,291 @@ public class Loader {
 	 */
 
 	public RawModel loadToVAO(float[] positions,float[] textureCoords, int[] indices) {
-		int vaoID = createVAO();
-		bindIndicesBuffer(indices);
-		storeDataInAttributeList(0,3,positions);
-		storeDataInAttributeList(1,2,textureCoords);
+		return loadToVAO(DEFAULT_LABEL, positions, textureCoords, indices);
+	}
+
+	/**
+	 * Same as {@link #loadToVAO(float[], float[], int[])}, with the memory
+	 * counted under the given label.
+	 * 与loadToVAO(float[], float[], int[])相同，内存统计在给定的标签下。
+	 */
+	public RawModel loadToVAO(String label, float[] positions, float[] textureCoords, int[] indices) {
+		Profiler.begin(LOAD_TO_VAO);
+		MeshHandle mesh = createVAO(label);
+		bindIndicesBuffer(mesh, indices);
+		storeDataInAttributeList(mesh, 0, 3, positions);
+		storeDataInAttributeList(mesh, 1, 2, textureCoords);
+		unbindVAO();
+		Profiler.end(LOAD_TO_VAO);
+		return new RawModel(mesh.getVaoID(), indices.length, 0, 0, mesh);
+	}
+
+	/**
+	 * Loads a mesh that is deformed by a skeleton. Besides the positions and
+	 * texture coordinates, every vertex has the indices of up to four joints
+	 * in attribute 2 and how much each of them moves the vertex in attribute
+	 * 3. The joint indices are stored as floats, which hold small integers
+	 * exactly, so they go through the same attribute path as the rest.
+	 * 加载一个被骨骼变形的网格。除了位置和纹理坐标，每个顶点还在attribute2中保存最多
+	 * 四个关节的下标，在attribute3中保存每个关节对顶点的影响程度。关节下标保存为float，
+	 * float能精确表示较小的整数，所以它们和其余数据走同样的属性路径。
+	 * 
+	 * @param jointIndices
+	 *            - Four joint indices per vertex.
+	 *            - 每个顶点四个关节下标
+	 * @param weights
+	 *            - Four weights per vertex, adding up to 1.
+	 *            - 每个顶点四个权重，总和为1
+	 * @return The loaded model.
+	 */
+	public RawModel loadSkinnedToVAO(String label, float[] positions, float[] textureCoords, float[] jointIndices,
+			float[] weights, int[] indices) {
+		Profiler.begin(LOAD_TO_VAO);
+		MeshHandle mesh = createVAO(label);
+		bindIndicesBuffer(mesh, indices);
+		storeDataInAttributeList(mesh, 0, 3, positions);
+		storeDataInAttributeList(mesh, 1, 2, textureCoords);
+		storeDataInAttributeList(mesh, 2, 4, jointIndices);
+		storeDataInAttributeList(mesh, 3, 4, weights);
 		unbindVAO();
-		return new RawModel(vaoID, indices.length);
+		Profiler.end(LOAD_TO_VAO);
+		return new RawModel(mesh.getVaoID(), indices.length, 0, 0, mesh);
+	}
+
+	/**
+	 * Loads several meshes into a single VAO. The vertex data of all meshes is
+	 * stored one after another in the same VBOs, and the indices in the same
+	 * index buffer, so every returned model knows where its indices start
+	 * (firstIndex) and which vertex its index 0 refers to (baseVertex). Models
+	 * sharing a VAO can be drawn together with one multi-draw call.
+	 * 将多个网格加载进同一个VAO。所有网格的顶点数据依次存放在相同的VBO中，
+	 * 索引存放在同一个索引缓存中，所以每个返回的模型都记录了自己索引的起点
+	 * (firstIndex)以及索引0对应的顶点(baseVertex)。共享VAO的模型可以用一次
+	 * multi-draw调用一起绘制。
+	 * 
+	 * @param positions
+	 *            - The 3D positions of each mesh.
+	 *            - 每个网格的顶点位置
+	 * @param textureCoords
+	 *            - The texture coordinates of each mesh.
+	 *            - 每个网格的纹理坐标
+	 * @param indices
+	 *            - The indices of each mesh, relative to its own vertices.
+	 *            - 每个网格的索引，相对于网格自身的顶点
+	 * @return One model per mesh, all referring to the same VAO.
+	 *         每个网格对应一个模型，它们都指向同一个VAO
+	 */
+	public RawModel[] loadBatchToVAO(float[][] positions, float[][] textureCoords, int[][] indices) {
+		return loadBatchToVAO(DEFAULT_LABEL, positions, textureCoords, indices);
+	}
+
+	/**
+	 * Same as {@link #loadBatchToVAO(float[][], float[][], int[][])}, with the
+	 * memory counted under the given label. The VAO is deleted once every
+	 * returned model has been released.
+	 * 与loadBatchToVAO(float[][], float[][], int[][])相同，内存统计在给定的标签下。
+	 * 所有返回的模型都被释放后VAO才会被删除。
+	 */
+	public RawModel[] loadBatchToVAO(String label, float[][] positions, float[][] textureCoords, int[][] indices) {
+		Profiler.begin(LOAD_BATCH);
+		int vertexTotal = 0;
+		int indexTotal = 0;
+		for (int i = 0; i < positions.length; i++) {
+			vertexTotal += positions[i].length / 3;
+			indexTotal += indices[i].length;
+		}
+		float[] allPositions = new float[vertexTotal * 3];
+		float[] allTextureCoords = new float[vertexTotal * 2];
+		int[] allIndices = new int[indexTotal];
+		RawModel[] models = new RawModel[positions.length];
+		MeshHandle mesh = createVAO(label);
+		int baseVertex = 0;
+		int firstIndex = 0;
+		for (int i = 0; i < positions.length; i++) {
+			System.arraycopy(positions[i], 0, allPositions, baseVertex * 3, positions[i].length);
+			System.arraycopy(textureCoords[i], 0, allTextureCoords, baseVertex * 2, textureCoords[i].length);
+			System.arraycopy(indices[i], 0, allIndices, firstIndex, indices[i].length);
+			if (i > 0) {
+				resources.retain(mesh);
+			}
+			models[i] = new RawModel(mesh.getVaoID(), indices[i].length, firstIndex, baseVertex, mesh);
+			baseVertex += positions[i].length / 3;
+			firstIndex += indices[i].length;
+		}
+		bindIndicesBuffer(mesh, allIndices);
+		storeDataInAttributeList(mesh, 0, 3, allPositions);
+		storeDataInAttributeList(mesh, 1, 2, allTextureCoords);
+		unbindVAO();
+		Profiler.end(LOAD_BATCH);
+		return models;
+	}
+
+	/**
+	 * Loads vertex data that is already laid out the way OpenGL reads it. Every
+	 * vertex buffer is uploaded into its own VBO exactly as it is, without
+	 * going through a float[], so the buffers can be slices of a memory-mapped
+	 * file.
+	 * 加载已经按OpenGL读取的方式排列好的顶点数据。每个顶点缓存都按原样上传到它自己的
+	 * VBO中，不经过float[]，所以这些缓存可以是内存映射文件的一部分。
+	 * 
+	 * @param vertexBuffers
+	 *            - The vertex data, from position to limit. Must be direct
+	 *            buffers.
+	 *            - 顶点数据，从position到limit，必须是直接缓存
+	 * @param attributes
+	 *            - Where attribute i (0 for positions, 1 for texture
+	 *            coordinates) is found in the buffers.
+	 *            - 属性i（0为位置，1为纹理坐标）在缓存中的位置
+	 * @param indices
+	 *            - The indices, from position to limit.
+	 *            - 索引，从position到limit
+	 * @return The loaded model.
+	 */
+	public RawModel loadToVAO(String label, ByteBuffer[] vertexBuffers, VertexAttribute[] attributes,
+			IntBuffer indices) {
+		Profiler.begin(LOAD_TO_VAO);
+		MeshHandle mesh = createVAO(label);
+		int indexCount = indices.remaining();
+		bindIndicesBuffer(mesh, indices);
+		int[] vboIDs = new int[vertexBuffers.length];
+		for (int i = 0; i < vertexBuffers.length; i++) {
+			vboIDs[i] = resources.createBuffer(mesh, ResourceCategory.VERTEX, vertexBuffers[i].remaining());
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, vboIDs[i]);
+			device.bufferData(GL15.GL_ARRAY_BUFFER, vertexBuffers[i], GL15.GL_STATIC_DRAW);
+		}
+		for (int i = 0; i < attributes.length; i++) {
+			VertexAttribute attribute = attributes[i];
+			device.bindBuffer(GL15.GL_ARRAY_BUFFER, vboIDs[attribute.getBuffer()]);
+			device.vertexAttribPointer(i, attribute.getSize(), attribute.getType(), attribute.isNormalized(),
+					attribute.getStride(), attribute.getOffset());
+		}
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		unbindVAO();
+		Profiler.end(LOAD_TO_VAO);
+		return new RawModel(mesh.getVaoID(), indexCount, 0, 0, mesh);
 	}
 
 	//读取纹理
 	public int loadTexture(String fileName) {
-		Texture texture = null;
-		try {
-			texture = TextureLoader.getTexture("PNG", new FileInputStream("res/" + fileName +".png"));
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+		return loadTextureHandle(fileName).getID();
+	}
+
+	/**
+	 * Loads a texture like {@link #loadTexture(String)}, returning a handle so
+	 * it can be released on its own. The memory is counted under the file name.
+	 * 像loadTexture(String)一样加载纹理，返回一个句柄以便单独释放它。内存统计在
+	 * 文件名下。
+	 */
+	public TextureHandle loadTextureHandle(String fileName) {
+		Profiler.begin(LOAD_TEXTURE);
+		TextureData data = null;
+		try (InputStream in = VirtualFileSystem.open(getTexturePath(fileName))) {
+			data = TextureData.decode(in);
 		} catch (IOException e) {
 			e.printStackTrace();
+			System.err.println("Tried to load texture " + fileName + ", didn't work");
+			System.exit(-1);
 		}
-		int textureID = texture.getTextureID();
-		textures.add(textureID);
-		return textureID;
+		TextureHandle texture = uploadTexture(fileName, data);
+		Profiler.end(LOAD_TEXTURE);
+		return texture;
+	}
+
+	/**
+	 * Loads an image that has already been decoded, e.g. one embedded in a
+	 * model file. The memory is counted under the given label.
+	 * 加载一个已经解码的图片，例如嵌入在模型文件中的图片。内存统计在给定的标签下。
+	 */
+	public TextureHandle loadTexture(String label, TextureData data) {
+		Profiler.begin(LOAD_TEXTURE);
+		TextureHandle texture = uploadTexture(label, data);
+		Profiler.end(LOAD_TEXTURE);
+		return texture;
 	}
+
 	/**
-	 * Deletes all the VAOs and VBOs when the game is closed. VAOs and VBOs are
-	 * located in video memory.
-	 * 在游戏关闭时删除所有的VAO和VBO，这些VAO和VBO是在显存中
+	 * Replaces the image of a texture, e.g. after its file was edited. The
+	 * texture keeps its ID, so every model using it shows the new image from
+	 * the next draw on.
+	 * 替换纹理的图像，例如在它的文件被修改之后。纹理保留它的ID，所以使用它的所有
+	 * 模型从下一次绘制起显示新的图像。
 	 */
-	public void cleanUp() {
-		for (int vao : vaos) {
-			GL30.glDeleteVertexArrays(vao);
+	public void reloadTexture(TextureHandle texture, TextureData data) {
+		Profiler.begin(LOAD_TEXTURE);
+		resources.resize(texture, (long) data.getWidth() * data.getHeight() * 4);
+		device.bindTexture(GL11.GL_TEXTURE_2D, texture.getID());
+		device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, data.getWidth(), data.getHeight(), GL11.GL_RGBA,
+				GL11.GL_UNSIGNED_BYTE, data.getBuffer());
+		device.bindTexture(GL11.GL_TEXTURE_2D, 0);
+		Profiler.end(LOAD_TEXTURE);
+	}
+
+	/**
+	 * @return The path in the {@link VirtualFileSystem} that
+	 *         {@link #loadTexture(String)} reads the texture from.
+	 *         loadTexture(String)读取纹理时在VirtualFileSystem中使用的路径
+	 */
+	public static String getTexturePath(String fileName) {
+		return "res/" + fileName + ".png";
+	}
+
+	private TextureHandle uploadTexture(String label, TextureData data) {
+		TextureHandle texture = resources.createTexture(label, (long) data.getWidth() * data.getHeight() * 4);
+		int textureID = texture.getID();
+		device.bindTexture(GL11.GL_TEXTURE_2D, textureID);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+		device.texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+		device.texImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, data.getWidth(), data.getHeight(), GL11.GL_RGBA,
+				GL11.GL_UNSIGNED_BYTE, data.getBuffer());
+		device.bindTexture(GL11.GL_TEXTURE_2D, 0);
+		return texture;
+	}
+
+	/**
+	 * Deletes the model's VAO and buffers (once every model sharing them has
+	 * been released). The model must not be rendered afterwards.
+	 * 删除模型的VAO和缓存（在共享它们的所有模型都被释放之后）。之后不能再渲染这个模型。
+	 */
+	public void release(RawModel model) {
+		if (model.getHandle() == null) {
+			throw new IllegalArgumentException("Model " + model.getVaoID() + " was not loaded by a Loader");
 		}
-		for (int vbo : vbos) {
-			GL15.glDeleteBuffers(vbo);
+		resources.release(model.getHandle());
+	}
+
+	/**
+	 * Releases many models at once; the objects no longer used are deleted
+	 * with one call per type of object.
+	 * 一次释放很多模型；不再使用的对象每种只用一次调用删除。
+	 */
+	public void release(RawModel[] models) {
+		MeshHandle[] meshes = new MeshHandle[models.length];
+		for (int i = 0; i < models.length; i++) {
+			if (models[i].getHandle() == null) {
+				throw new IllegalArgumentException("Model " + models[i].getVaoID() + " was not loaded by a Loader");
+			}
+			meshes[i] = models[i].getHandle();
 		}
-		//删除纹理
-		for (int texture:textures)
-		{
-			GL11.glDeleteTextures(texture);
+		resources.releaseMeshes(meshes);
+	}
+
+	public void release(TextureHandle texture) {
+		resources.release(texture);
+	}
+
+	/**
+	 * Deletes all the VAOs and VBOs when the game is closed. VAOs and VBOs are
+	 * located in video memory. In debug mode (see {@link GpuResources}) the
+	 * resources that were never released are listed first, with where they
+	 * were created.
+	 * 在游戏关闭时删除所有的VAO和VBO，这些VAO和VBO是在显存中。在调试模式下
+	 * （参见GpuResources），会先列出从未被释放的资源以及它们被创建的位置。
+	 */
+	public void cleanUp() {
+		if (resources.isDebug()) {
+			resources.printLeaks(System.err);
 		}
+		resources.releaseAll();
 	}
 
 	/**
@@ -109,11 +386,10 @@ public class Loader {
 	 * @return The ID of the newly created VAO.
 	  * @返回 最新创建的VAO的ID
 	 */
-	private int createVAO() {
-		int vaoID = GL30.glGenVertexArrays();
-		vaos.add(vaoID);
-		GL30.glBindVertexArray(vaoID);
-		return vaoID;
+	private MeshHandle createVAO(String label) {
+		MeshHandle mesh = resources.createMesh(label);
+		device.bindVertexArray(mesh.getVaoID());
+		return mesh;
 	}
 
 	/**
@@ -156,15 +432,14 @@ public class Loader {
 	 * @param data
 	 *            - 被存放进VAO的几何体数据。这里是顶点的位置坐标
 	 */
-	private void storeDataInAttributeList(int attributeNumber, int coordinateSize,float[] data) {
-		int vboID = GL15.glGenBuffers();
-		vbos.add(vboID);
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboID);
+	private void storeDataInAttributeList(MeshHandle mesh, int attributeNumber, int coordinateSize,float[] data) {
+		int vboID = resources.createBuffer(mesh, ResourceCategory.VERTEX, (long) data.length * 4);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vboID);
 		FloatBuffer buffer = storeDataInFloatBuffer(data);
-		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
+		device.bufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
 		//改动
-		GL20.glVertexAttribPointer(attributeNumber, coordinateSize, GL11.GL_FLOAT, false, 0, 0);
-		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		device.vertexAttribPointer(attributeNumber, coordinateSize, GL11.GL_FLOAT, false, 0, 0);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
 	}
 
 	/**
@@ -173,7 +448,7 @@ public class Loader {
 	 * 使用完VAO后接触绑定。如果以后需要使用则以后再绑定
 	 */
 	private void unbindVAO() {
-		GL30.glBindVertexArray(0);
+		device.bindVertexArray(0);
 	}
 
 	/**
@@ -211,12 +486,14 @@ public class Loader {
 	 * 
 	 * @param indices
 	 */
-	private void bindIndicesBuffer(int[] indices) {
-		int vboId = GL15.glGenBuffers();
-		vbos.add(vboId);
-		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboId);
-		IntBuffer buffer = storeDataInIntBuffer(indices);
-		GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
+	private void bindIndicesBuffer(MeshHandle mesh, int[] indices) {
+		bindIndicesBuffer(mesh, storeDataInIntBuffer(indices));
+	}
+
+	private void bindIndicesBuffer(MeshHandle mesh, IntBuffer indices) {
+		int vboId = resources.createBuffer(mesh, ResourceCategory.INDEX, (long) indices.remaining() * 4);
+		device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, vboId);
+		device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indices, GL15.GL_STATIC_DRAW);
 	}
 
 	/**
@@ -2,11 +2,13 @@ package renderEngine;
 
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
 
+import commands.CommandBuffer;
+import device.GLDevice;
 import models.RawModel;
 import models.TexturedModel;
+import postProcessing.RenderTarget;
+import profiling.Profiler;
 
 /**
  * Handles the rendering of a model to the screen.
@@ -16,6 +18,21 @@ import models.TexturedModel;
  */
 public class Renderer {
 
+	private static final int PREPARE = Profiler.scope("Renderer.prepare");
+	private static final int RENDER = Profiler.scope("Renderer.render");
+	private static final int RECORD = Profiler.scope("Renderer.record");
+
+	private final GLDevice device;
+
+	/**
+	 * @param device
+	 *            - The device that all OpenGL calls go through.
+	 *            - 所有OpenGL调用经过的设备
+	 */
+	public Renderer(GLDevice device) {
+		this.device = device;
+	}
+
 	/**
 	 * This method must be called each frame, before any rendering is carried
 	 * out. It basically clears the screen of everything that was rendered last
@@ -26,8 +43,33 @@ public class Renderer {
 	 * 用于清除屏幕的颜色。在这里是红色。
 	 */
 	public void prepare() {
-		GL11.glClearColor(1, 0, 0, 1);
-		GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
+		Profiler.begin(PREPARE);
+		Profiler.beginGpu(PREPARE);
+		device.clearColor(1, 0, 0, 1);
+		device.clear(GL11.GL_COLOR_BUFFER_BIT);
+		Profiler.endGpu(PREPARE);
+		Profiler.end(PREPARE);
+	}
+
+	/**
+	 * Same as {@link #prepare()}, but the frame is drawn into a render target
+	 * instead of straight to the screen, e.g. for post processing. The depth
+	 * buffer is cleared too if the target has one.
+	 * 与prepare()相同，但这一帧绘制到渲染目标中而不是直接绘制到屏幕上，例如用于后期
+	 * 处理。如果目标有深度缓存，它也会被清除。
+	 */
+	public void prepare(RenderTarget target) {
+		Profiler.begin(PREPARE);
+		Profiler.beginGpu(PREPARE);
+		target.bind();
+		device.clearColor(1, 0, 0, 1);
+		int mask = GL11.GL_COLOR_BUFFER_BIT;
+		if (target.getDepthFormat() != RenderTarget.NO_DEPTH) {
+			mask |= GL11.GL_DEPTH_BUFFER_BIT;
+		}
+		device.clear(mask);
+		Profiler.endGpu(PREPARE);
+		Profiler.end(PREPARE);
 	}
 
 	/**
@@ -40,11 +82,14 @@ public class Renderer {
 	 * 在我们渲染VAO之前需要绑定它来让它激活，我们同样需要激活VAO的attribute，
 	 * 在这里只有attribute0，也就是顶点的位置信息
 	 * 
-	 * The VAO can then be rendered to the screen using glDrawArrays(). We tell
-	 * it what type of shapes to render and the number of vertices that it needs
-	 * to render.
-	 * 然后可以用glDrawArrays()来渲染到屏幕。我们需要指定渲染的形状以及顶点数。
-	 * GL_TRIANGLES说明需要渲染的是三角形
+	 * The VAO can then be rendered to the screen using
+	 * glDrawElementsBaseVertex(). We tell it what type of shapes to render, the
+	 * number of indices, where the model's indices start in the index buffer
+	 * and what to add to each of them, since the model may share its buffers
+	 * with others.
+	 * 然后可以用glDrawElementsBaseVertex()来渲染到屏幕。我们需要指定渲染的形状，索引数，
+	 * 模型的索引在索引缓存中的起始位置以及加到每个索引上的值，因为模型可能与其他模型
+	 * 共用缓存。GL_TRIANGLES说明需要渲染的是三角形
 	 * 
 	 * After rendering we unbind the VAO and disable the attribute.
 	 * 渲染完成后解绑VAO并禁用attribute
@@ -54,16 +99,50 @@ public class Renderer {
 	 *            - 需要渲染的模型
 	 */
 	public void render(TexturedModel texturedModel) {
+		Profiler.begin(RENDER);
+		Profiler.beginGpu(RENDER);
+		RawModel model = texturedModel.getRawModel();
+		device.bindVertexArray(model.getVaoID());
+		device.enableVertexAttribArray(0);
+		device.enableVertexAttribArray(1);
+		device.activeTexture(GL13.GL_TEXTURE0);
+		device.bindTexture(GL11.GL_TEXTURE_2D, texturedModel.getTexture().getID());
+		device.drawElementsBaseVertex(GL11.GL_TRIANGLES, model.getVertexCount(), GL11.GL_UNSIGNED_INT,
+				model.getFirstIndex() * 4L, model.getBaseVertex());
+		device.disableVertexAttribArray(0);
+		device.disableVertexAttribArray(1);
+		device.bindVertexArray(0);
+		Profiler.endGpu(RENDER);
+		Profiler.end(RENDER);
+	}
+
+	/**
+	 * Records the commands to render a model into a command buffer instead of
+	 * calling OpenGL, so it can be called from any thread. The commands are
+	 * executed later on the GL thread by
+	 * {@link commands.CommandRecorder#submit}.
+	 * 将渲染模型的命令录制进命令缓存而不是调用OpenGL，所以可以在任意线程上调用。
+	 * 这些命令之后在GL线程上由CommandRecorder.submit执行。
+	 * 
+	 * @param texturedModel
+	 *            - The model to be rendered.
+	 *            - 需要渲染的模型
+	 * @param commands
+	 *            - The buffer of the calling thread.
+	 *            - 调用线程的命令缓存
+	 */
+	public void render(TexturedModel texturedModel, CommandBuffer commands) {
+		Profiler.begin(RECORD);
 		RawModel model = texturedModel.getRawModel();
-		GL30.glBindVertexArray(model.getVaoID());
-		GL20.glEnableVertexAttribArray(0);
-		GL20.glEnableVertexAttribArray(1);
-		GL13.glActiveTexture(GL13.GL_TEXTURE0);
-		GL11.glBindTexture(GL11.GL_TEXTURE_2D, texturedModel.getTexture().getID());
-		GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, model.getVertexCount());
-		GL20.glDisableVertexAttribArray(0);
-		GL20.glDisableVertexAttribArray(1);
-		GL30.glBindVertexArray(0);
+		commands.bindVertexArray(model.getVaoID());
+		commands.enableVertexAttribArray(0);
+		commands.enableVertexAttribArray(1);
+		commands.bindTexture(0, texturedModel.getTexture().getID());
+		commands.drawElements(GL11.GL_TRIANGLES, model.getVertexCount(), model.getFirstIndex(), model.getBaseVertex());
+		commands.disableVertexAttribArray(0);
+		commands.disableVertexAttribArray(1);
+		commands.bindVertexArray(0);
+		Profiler.end(RECORD);
 	}
 
 }
@@ -0,0 +1,307 @@
+package renderEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+
+import device.GLDevice;
+import profiling.Profiler;
+
+/**
+ * Draws many textured, coloured quads (sprites, text, UI) with a few draw
+ * calls. Sprites are collected into an array on the CPU; when the texture
+ * changes or the array is full the batch is copied into a {@link StreamBuffer}
+ * and remembered, and {@link #end()} draws every batch of the frame with one
+ * glDrawElementsBaseVertex each. All batches share one static index buffer
+ * (0, 1, 2, 2, 3, 0 for every quad), so only four vertices per sprite are
+ * streamed. Sprites drawn with the same texture one after another end up in
+ * the same batch, so draw them sorted by texture, e.g. from one atlas.
+ * 用很少的绘制调用绘制大量带纹理和颜色的四边形（精灵，文字，UI）。精灵先被收集到CPU
+ * 上的数组中；纹理改变或者数组满了时，这一批被复制进StreamBuffer并记录下来，end()
+ * 用一次glDrawElementsBaseVertex绘制这一帧的每一批。所有批次共用一个静态索引缓存
+ * （每个四边形为0, 1, 2, 2, 3, 0），所以每个精灵只需要流式上传四个顶点。连续使用同一
+ * 纹理绘制的精灵会进入同一批，所以应按纹理排序绘制，例如都来自一个图集。
+ *
+ * A vertex is 16 bytes: the position as two floats, the texture coordinates
+ * as two normalized unsigned shorts and the colour as four normalized
+ * unsigned bytes.
+ * 一个顶点16字节：两个float的位置，两个归一化unsigned short的纹理坐标，以及四个
+ * 归一化unsigned byte的颜色。
+ *
+ * Usage each frame: shader.start(), begin(), draw(...) for every sprite,
+ * end(), shader.stop().
+ * 每帧的用法：shader.start()，begin()，对每个精灵调用draw(...)，end()，shader.stop()。
+ */
+public class SpriteBatch {
+
+	/**
+	 * The most sprites in one batch; their vertices can still be indexed with
+	 * unsigned shorts.
+	 * 一批中最多的精灵数，它们的顶点仍然可以用unsigned short索引。
+	 */
+	public static final int MAX_BATCH_SPRITES = 16384;
+
+	/**
+	 * Opaque white in the 0xRRGGBBAA form taken by {@link #draw}, which
+	 * leaves the texture's colours as they are.
+	 * draw使用的0xRRGGBBAA形式的不透明白色，不改变纹理的颜色。
+	 */
+	public static final int WHITE = 0xFFFFFFFF;
+
+	private static final int END = Profiler.scope("SpriteBatch.end");
+
+	private static final int VERTEX_BYTES = 16;
+	private static final int SPRITE_INTS = 4 * VERTEX_BYTES / 4;
+	private static final int INDICES_PER_SPRITE = 6;
+	//顶点数据按本机字节序写入，打包的短整数和字节要按同样的顺序排列
+	private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+	private final GLDevice device;
+	private final int maxSprites;
+	private final StreamBuffer stream;
+	private final int vaoID;
+	private final int indexBufferID;
+	//当前这一批的顶点，每个顶点4个int
+	private final int[] vertices = new int[MAX_BATCH_SPRITES * SPRITE_INTS];
+	private int batchSprites;
+	private int batchTexture;
+	//这一帧已经复制进流式缓存的批次
+	private int[] batchTextures = new int[16];
+	private int[] batchBaseVertices = new int[16];
+	private int[] batchSpriteCounts = new int[16];
+	private int batchCount;
+	private int frameSprites;
+	private boolean drawing;
+	private int lastDrawCalls;
+	private int lastSprites;
+
+	/**
+	 * @param maxSprites
+	 *            - The most sprites that will be drawn in one frame.
+	 *            - 每帧最多绘制的精灵数
+	 */
+	public SpriteBatch(GLDevice device, int maxSprites) {
+		if (maxSprites < 1) {
+			throw new IllegalArgumentException("Max sprites must be at least 1, not " + maxSprites);
+		}
+		this.device = device;
+		this.maxSprites = maxSprites;
+		stream = new StreamBuffer(device, GL15.GL_ARRAY_BUFFER, maxSprites * 4 * VERTEX_BYTES);
+		vaoID = device.genVertexArray();
+		device.bindVertexArray(vaoID);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, stream.getVboID());
+		device.vertexAttribPointer(0, 2, GL11.GL_FLOAT, false, VERTEX_BYTES, 0);
+		device.vertexAttribPointer(1, 2, GL11.GL_UNSIGNED_SHORT, true, VERTEX_BYTES, 8);
+		device.vertexAttribPointer(2, 4, GL11.GL_UNSIGNED_BYTE, true, VERTEX_BYTES, 12);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		indexBufferID = device.genBuffer();
+		device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBufferID);
+		device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, createIndices(Math.min(maxSprites, MAX_BATCH_SPRITES)),
+				GL15.GL_STATIC_DRAW);
+		device.bindVertexArray(0);
+	}
+
+	/**
+	 * Starts a frame of sprites. Waits if the GPU is still reading the stream
+	 * buffer region that is written next; see {@link StreamBuffer#beginFrame()}.
+	 * 开始一帧的精灵。如果GPU还在读取接下来要写入的流式缓存区域就等待，参见
+	 * StreamBuffer.beginFrame()。
+	 */
+	public void begin() {
+		if (drawing) {
+			throw new IllegalStateException("SpriteBatch.begin() called twice without end()");
+		}
+		drawing = true;
+		stream.beginFrame();
+		batchSprites = 0;
+		batchCount = 0;
+		frameSprites = 0;
+	}
+
+	/**
+	 * Adds a sprite with its lower left corner at (x, y). A new batch is
+	 * started if the texture isn't the one of the previous sprite.
+	 * 添加一个左下角位于(x, y)的精灵。如果纹理与上一个精灵的不同，就开始新的一批。
+	 *
+	 * @param textureID
+	 *            - The texture, e.g. an atlas holding many sprite images.
+	 *            - 纹理，例如包含很多精灵图像的图集
+	 * @param u0
+	 *            - The texture coordinates of the lower left corner and of the
+	 *            upper right corner (u1, v1), from 0 to 1.
+	 *            - 左下角以及右上角(u1, v1)的纹理坐标，从0到1
+	 * @param rgba
+	 *            - The colour the texture is multiplied with, as 0xRRGGBBAA.
+	 *            - 与纹理相乘的颜色，形式为0xRRGGBBAA
+	 */
+	public void draw(int textureID, float x, float y, float width, float height, float u0, float v0, float u1,
+			float v1, int rgba) {
+		if (!drawing) {
+			throw new IllegalStateException("SpriteBatch.draw() called outside begin() and end()");
+		}
+		if (batchSprites > 0 && (textureID != batchTexture || batchSprites == MAX_BATCH_SPRITES)) {
+			closeBatch();
+		}
+		if (frameSprites == maxSprites) {
+			throw new IllegalStateException("More than " + maxSprites + " sprites in one frame");
+		}
+		batchTexture = textureID;
+		int colour = LITTLE_ENDIAN ? Integer.reverseBytes(rgba) : rgba;
+		int x0 = Float.floatToRawIntBits(x);
+		int x1 = Float.floatToRawIntBits(x + width);
+		int y0 = Float.floatToRawIntBits(y);
+		int y1 = Float.floatToRawIntBits(y + height);
+		int[] vertices = this.vertices;
+		int i = batchSprites * SPRITE_INTS;
+		vertices[i] = x0;
+		vertices[i + 1] = y0;
+		vertices[i + 2] = packTextureCoords(u0, v0);
+		vertices[i + 3] = colour;
+		vertices[i + 4] = x1;
+		vertices[i + 5] = y0;
+		vertices[i + 6] = packTextureCoords(u1, v0);
+		vertices[i + 7] = colour;
+		vertices[i + 8] = x1;
+		vertices[i + 9] = y1;
+		vertices[i + 10] = packTextureCoords(u1, v1);
+		vertices[i + 11] = colour;
+		vertices[i + 12] = x0;
+		vertices[i + 13] = y1;
+		vertices[i + 14] = packTextureCoords(u0, v1);
+		vertices[i + 15] = colour;
+		batchSprites++;
+		frameSprites++;
+	}
+
+	/**
+	 * Adds a sprite showing the whole texture.
+	 * 添加一个显示整个纹理的精灵。
+	 */
+	public void draw(int textureID, float x, float y, float width, float height, int rgba) {
+		draw(textureID, x, y, width, height, 0, 0, 1, 1, rgba);
+	}
+
+	/**
+	 * Uploads the frame's sprites and draws them, one draw call per batch.
+	 * Must be called between the shader's start() and stop().
+	 * 上传这一帧的精灵并绘制它们，每一批一次绘制调用。必须在着色器的start()和stop()
+	 * 之间调用。
+	 */
+	public void end() {
+		if (!drawing) {
+			throw new IllegalStateException("SpriteBatch.end() called without begin()");
+		}
+		Profiler.begin(END);
+		Profiler.beginGpu(END);
+		closeBatch();
+		stream.flush();
+		if (batchCount > 0) {
+			device.bindVertexArray(vaoID);
+			device.enableVertexAttribArray(0);
+			device.enableVertexAttribArray(1);
+			device.enableVertexAttribArray(2);
+			device.activeTexture(GL13.GL_TEXTURE0);
+			int boundTexture = 0;
+			for (int i = 0; i < batchCount; i++) {
+				if (batchTextures[i] != boundTexture) {
+					boundTexture = batchTextures[i];
+					device.bindTexture(GL11.GL_TEXTURE_2D, boundTexture);
+				}
+				device.drawElementsBaseVertex(GL11.GL_TRIANGLES, batchSpriteCounts[i] * INDICES_PER_SPRITE,
+						GL11.GL_UNSIGNED_SHORT, 0, batchBaseVertices[i]);
+			}
+			device.disableVertexAttribArray(0);
+			device.disableVertexAttribArray(1);
+			device.disableVertexAttribArray(2);
+			device.bindVertexArray(0);
+		}
+		stream.endFrame();
+		lastDrawCalls = batchCount;
+		lastSprites = frameSprites;
+		drawing = false;
+		Profiler.endGpu(END);
+		Profiler.end(END);
+	}
+
+	/**
+	 * @return The draw calls made by the last end().
+	 *         上一次end()进行的绘制调用数
+	 */
+	public int getLastDrawCalls() {
+		return lastDrawCalls;
+	}
+
+	/**
+	 * @return The sprites drawn by the last end().
+	 *         上一次end()绘制的精灵数
+	 */
+	public int getLastSprites() {
+		return lastSprites;
+	}
+
+	public StreamBuffer getStreamBuffer() {
+		return stream;
+	}
+
+	/**
+	 * Deletes the buffers and the VAO when the game is closed.
+	 * 在游戏关闭时删除缓存和VAO
+	 */
+	public void cleanUp() {
+		stream.cleanUp();
+		device.deleteBuffer(indexBufferID);
+		device.deleteVertexArray(vaoID);
+	}
+
+	/**
+	 * Copies the current batch into the stream buffer and remembers where it
+	 * starts, to be drawn by end().
+	 * 把当前这一批复制进流式缓存并记住它的起点，由end()绘制。
+	 */
+	private void closeBatch() {
+		if (batchSprites == 0) {
+			return;
+		}
+		//每个精灵64字节，区域大小也是64的倍数，所以偏移量总是顶点大小的整数倍
+		int offset = stream.putInts(vertices, 0, batchSprites * SPRITE_INTS);
+		if (batchCount == batchTextures.length) {
+			int length = batchCount * 2;
+			batchTextures = Arrays.copyOf(batchTextures, length);
+			batchBaseVertices = Arrays.copyOf(batchBaseVertices, length);
+			batchSpriteCounts = Arrays.copyOf(batchSpriteCounts, length);
+		}
+		batchTextures[batchCount] = batchTexture;
+		batchBaseVertices[batchCount] = offset / VERTEX_BYTES;
+		batchSpriteCounts[batchCount] = batchSprites;
+		batchCount++;
+		batchSprites = 0;
+	}
+
+	private static int packTextureCoords(float u, float v) {
+		int s = (int) (Math.min(Math.max(u, 0), 1) * 65535 + 0.5f);
+		int t = (int) (Math.min(Math.max(v, 0), 1) * 65535 + 0.5f);
+		return LITTLE_ENDIAN ? s | t << 16 : s << 16 | t;
+	}
+
+	/**
+	 * Two triangles for every quad: 0, 1, 2 and 2, 3, 0.
+	 * 每个四边形两个三角形：0, 1, 2和2, 3, 0。
+	 */
+	private static ByteBuffer createIndices(int sprites) {
+		ByteBuffer buffer = BufferUtils.createByteBuffer(sprites * INDICES_PER_SPRITE * 2);
+		ShortBuffer indices = buffer.asShortBuffer();
+		for (int i = 0; i < sprites; i++) {
+			int first = i * 4;
+			indices.put((short) first).put((short) (first + 1)).put((short) (first + 2));
+			indices.put((short) (first + 2)).put((short) (first + 3)).put((short) first);
+		}
+		return buffer;
+	}
+
+}
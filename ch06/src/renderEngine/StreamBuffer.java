@@ -0,0 +1,238 @@
+package renderEngine;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL44;
+
+import device.GLDevice;
+
+/**
+ * A buffer for data that changes every frame (animated vertices, instance
+ * data, uniform blocks...). All the VBOs made by the {@link Loader} use
+ * GL_STATIC_DRAW and would have to be re-uploaded with glBufferData every
+ * frame, which can make the driver wait for the GPU. This buffer avoids that.
+ * 用于每帧都会改变的数据（动画顶点，实例数据，uniform块等）的缓存。Loader创建
+ * 的VBO都使用GL_STATIC_DRAW，每帧都要用glBufferData重新上传，这可能让驱动
+ * 等待GPU。这个缓存可以避免这种情况。
+ * 
+ * The buffer is split into three regions, so the CPU can write frame N while
+ * the GPU still reads frames N-1 and N-2. With OpenGL 4.4 or
+ * ARB_buffer_storage the buffer is mapped once, persistently, and we write
+ * straight into GPU visible memory. A fence is placed after each frame's draws
+ * and waited on before that region is written again; normally it has long
+ * been signalled, and every time it wasn't the wait is counted as a stall.
+ * 缓存被分成三个区域，所以CPU写入第N帧时GPU仍可以读取第N-1和N-2帧。
+ * 在OpenGL 4.4或ARB_buffer_storage下，缓存只被持久映射一次，我们直接写入
+ * GPU可见的内存。每帧的绘制之后放置一个栅栏，在再次写入这个区域前等待它；
+ * 通常它早已完成，如果没有完成，这次等待会被记为一次停顿。
+ * 
+ * Without buffer storage the data is written to a CPU side copy and uploaded
+ * by {@link #flush()} after orphaning the buffer, which lets the driver hand
+ * out fresh memory instead of synchronising.
+ * 不支持buffer storage时，数据被写入CPU端的副本，flush()先重新分配缓存，
+ * 然后上传数据，这样驱动会给出新的内存而不是进行同步。
+ * 
+ * Usage each frame: beginFrame(), write data and remember the offsets,
+ * flush(), draw using the offsets, endFrame().
+ * 每帧的用法：beginFrame()，写入数据并记住偏移量，flush()，用偏移量绘制，
+ * endFrame()。
+ */
+public class StreamBuffer {
+
+	public static final int FRAMES_IN_FLIGHT = 3;
+
+	private static final long FENCE_TIMEOUT = 1000000000L;
+
+	private final GLDevice device;
+	private final int target;
+	private final int vboID;
+	private final boolean persistent;
+	private final StreamRing ring;
+	private final int[] fences = new int[FRAMES_IN_FLIGHT];
+
+	private int stallCount;
+	private long stallNanos;
+	private long lastFrameStallNanos;
+	private int frameCount;
+
+	/**
+	 * @param target
+	 *            - The buffer target, e.g. GL_ARRAY_BUFFER or GL_UNIFORM_BUFFER.
+	 *            - 缓存目标，例如GL_ARRAY_BUFFER或GL_UNIFORM_BUFFER
+	 * @param bytesPerFrame
+	 *            - The most data that will be written in one frame.
+	 *            - 每帧最多写入的数据量
+	 */
+	public StreamBuffer(GLDevice device, int target, int bytesPerFrame) {
+		this(device, target, bytesPerFrame, device.supportsBufferStorage());
+	}
+
+	public StreamBuffer(GLDevice device, int target, int bytesPerFrame, boolean persistent) {
+		this.device = device;
+		this.target = target;
+		this.persistent = persistent;
+		this.vboID = device.genBuffer();
+		device.bindBuffer(target, vboID);
+		ByteBuffer memory;
+		if (persistent) {
+			long size = (long) bytesPerFrame * FRAMES_IN_FLIGHT;
+			int flags = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+			device.bufferStorage(target, size, flags);
+			memory = device.mapBufferRange(target, 0, size, flags);
+			ring = new StreamRing(memory, FRAMES_IN_FLIGHT, bytesPerFrame);
+		} else {
+			device.bufferData(target, bytesPerFrame, GL15.GL_STREAM_DRAW);
+			memory = BufferUtils.createByteBuffer(bytesPerFrame);
+			ring = new StreamRing(memory, 1, bytesPerFrame);
+		}
+		device.bindBuffer(target, 0);
+	}
+
+	/**
+	 * Moves on to the next region, waiting for the GPU to finish reading it if
+	 * it hasn't yet. Call before writing any data for the frame.
+	 * 移动到下一个区域，如果GPU还没读完就等待。在写入这一帧的数据前调用。
+	 */
+	public void beginFrame() {
+		int region = ring.nextRegion();
+		lastFrameStallNanos = 0;
+		if (persistent) {
+			waitForFence(region);
+		}
+	}
+
+	/**
+	 * Reserves space for this frame's data; see {@link StreamRing#allocate}.
+	 * 为这一帧的数据保留空间，参见StreamRing.allocate
+	 */
+	public int allocate(int bytes, int alignment) {
+		return ring.allocate(bytes, alignment);
+	}
+
+	public int putFloats(float[] data, int first, int count) {
+		return ring.putFloats(data, first, count);
+	}
+
+	public int putFloats(float[] data, int first, int count, int alignment) {
+		return ring.putFloats(data, first, count, alignment);
+	}
+
+	public int putInts(int[] data, int first, int count) {
+		return ring.putInts(data, first, count);
+	}
+
+	/**
+	 * Makes this frame's data visible to the GPU. With persistent, coherent
+	 * mapping the data is already visible and this does nothing; otherwise
+	 * the buffer is orphaned and the written data uploaded.
+	 * 让这一帧的数据对GPU可见。在持久一致映射下数据已经可见，这个方法什么也不做；
+	 * 否则会重新分配缓存并上传写入的数据。
+	 */
+	public void flush() {
+		if (persistent || ring.getUsedBytes() == 0) {
+			return;
+		}
+		ByteBuffer memory = ring.getMemory();
+		memory.position(0);
+		memory.limit(ring.getUsedBytes());
+		device.bindBuffer(target, vboID);
+		device.bufferData(target, ring.getRegionSize(), GL15.GL_STREAM_DRAW);
+		device.bufferSubData(target, 0, memory);
+		device.bindBuffer(target, 0);
+		memory.clear();
+	}
+
+	/**
+	 * Marks the end of this frame's draws, so we know later when the GPU has
+	 * finished with the region. Call after the draws that read from it.
+	 * 标记这一帧绘制的结束，以便之后知道GPU何时用完这个区域。在读取它的绘制之后调用。
+	 */
+	public void endFrame() {
+		if (persistent) {
+			fences[ring.getRegion()] = device.fenceSync();
+		}
+		frameCount++;
+	}
+
+	/**
+	 * Deletes the buffer and any fences when the game is closed.
+	 * 在游戏关闭时删除缓存和所有栅栏
+	 */
+	public void cleanUp() {
+		for (int i = 0; i < fences.length; i++) {
+			if (fences[i] != 0) {
+				device.deleteSync(fences[i]);
+				fences[i] = 0;
+			}
+		}
+		if (persistent) {
+			device.bindBuffer(target, vboID);
+			device.unmapBuffer(target);
+			device.bindBuffer(target, 0);
+		}
+		device.deleteBuffer(vboID);
+	}
+
+	public int getVboID() {
+		return vboID;
+	}
+
+	public boolean isPersistent() {
+		return persistent;
+	}
+
+	public StreamRing getRing() {
+		return ring;
+	}
+
+	/**
+	 * @return How many times beginFrame() had to wait for the GPU.
+	 *         beginFrame()需要等待GPU的次数
+	 */
+	public int getStallCount() {
+		return stallCount;
+	}
+
+	/**
+	 * @return The total time spent waiting for the GPU, in nanoseconds.
+	 *         等待GPU的总时间（纳秒）
+	 */
+	public long getStallNanos() {
+		return stallNanos;
+	}
+
+	public long getLastFrameStallNanos() {
+		return lastFrameStallNanos;
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	private void waitForFence(int region) {
+		int fence = fences[region];
+		if (fence == 0) {
+			return;
+		}
+		int status = device.clientWaitSync(fence, 0, 0);
+		if (status == GL32.GL_TIMEOUT_EXPIRED) {
+			long start = System.nanoTime();
+			do {
+				status = device.clientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT);
+			} while (status == GL32.GL_TIMEOUT_EXPIRED);
+			lastFrameStallNanos = System.nanoTime() - start;
+			stallNanos += lastFrameStallNanos;
+			stallCount++;
+		}
+		if (status == GL32.GL_WAIT_FAILED) {
+			System.err.println("Waiting for stream buffer fence failed!");
+		}
+		device.deleteSync(fence);
+		fences[region] = 0;
+	}
+
+}
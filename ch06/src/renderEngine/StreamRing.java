@@ -0,0 +1,185 @@
+package renderEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Hands out space for per-frame data in a block of memory that is split into
+ * a number of equally sized regions, one region per frame in flight. Writes
+ * during a frame only go into that frame's region; the next frame moves on to
+ * the next region, wrapping around at the end.
+ * 在一块内存中为每帧的数据分配空间。这块内存被分成大小相同的若干区域，每个正在
+ * 处理的帧使用一个区域。一帧中的写入只会进入这一帧的区域；下一帧使用下一个区域，
+ * 到末尾后回到开头。
+ * 
+ * This class only manages the memory, it doesn't know anything about OpenGL:
+ * {@link StreamBuffer} makes sure the GPU has finished with a region before it
+ * is reused. Nothing here allocates, so it can be used every frame.
+ * 这个类只管理内存，不涉及OpenGL：StreamBuffer会确保GPU在区域被复用前已经
+ * 用完它。这里的方法都不分配内存，可以每帧使用。
+ */
+public class StreamRing {
+
+	private final ByteBuffer memory;
+	private final FloatBuffer floatView;
+	private final IntBuffer intView;
+	private final int regionCount;
+	private final int regionSize;
+	private int region;
+	private int regionStart;
+	private int cursor;
+	private long bytesThisFrame;
+	private long totalBytes;
+
+	/**
+	 * @param memory
+	 *            - The memory to write into, at least regionCount * regionSize
+	 *            bytes. Usually a mapped OpenGL buffer.
+	 *            - 要写入的内存，至少regionCount * regionSize字节。通常是映射的
+	 *            OpenGL缓存。
+	 * @param regionCount
+	 *            - The number of frames that can be in flight at once.
+	 *            - 同时处理中的帧数
+	 * @param regionSize
+	 *            - The number of bytes available to each frame.
+	 *            - 每帧可用的字节数
+	 */
+	public StreamRing(ByteBuffer memory, int regionCount, int regionSize) {
+		if (memory.capacity() < (long) regionCount * regionSize) {
+			throw new IllegalArgumentException("Stream memory is smaller than " + regionCount + " x " + regionSize);
+		}
+		this.memory = memory.order(ByteOrder.nativeOrder());
+		this.floatView = this.memory.asFloatBuffer();
+		this.intView = this.memory.asIntBuffer();
+		this.regionCount = regionCount;
+		this.regionSize = regionSize;
+	}
+
+	/**
+	 * Moves on to the next region. Everything written to the region that was
+	 * used regionCount frames ago may be overwritten from now on.
+	 * 移动到下一个区域。从现在开始，regionCount帧之前写入这个区域的数据都可能被覆盖。
+	 * 
+	 * @return The index of the region used for this frame.
+	 *         这一帧使用的区域编号
+	 */
+	public int nextRegion() {
+		region = (region + 1) % regionCount;
+		regionStart = region * regionSize;
+		cursor = regionStart;
+		bytesThisFrame = 0;
+		return region;
+	}
+
+	/**
+	 * Reserves space in the current region.
+	 * 在当前区域中保留空间
+	 * 
+	 * @param bytes
+	 *            - The number of bytes needed.
+	 *            - 需要的字节数
+	 * @param alignment
+	 *            - The offset returned is a multiple of this (for example the
+	 *            uniform buffer offset alignment). Must be a power of two.
+	 *            - 返回的偏移量是它的倍数（例如uniform缓存的偏移对齐），必须是2的幂
+	 * @return The offset of the reserved space from the start of the memory.
+	 *         保留空间距离内存起点的偏移量
+	 */
+	public int allocate(int bytes, int alignment) {
+		int offset = (cursor + alignment - 1) & -alignment;
+		if (offset + bytes > regionStart + regionSize) {
+			throw new IllegalStateException("Stream region overflow: " + (offset + bytes - regionStart) + " > "
+					+ regionSize + " bytes");
+		}
+		cursor = offset + bytes;
+		bytesThisFrame += bytes;
+		totalBytes += bytes;
+		return offset;
+	}
+
+	/**
+	 * Copies floats into the current region.
+	 * 将浮点数复制进当前区域
+	 * 
+	 * @return The offset of the first float from the start of the memory.
+	 *         第一个浮点数距离内存起点的偏移量
+	 */
+	public int putFloats(float[] data, int first, int count) {
+		return putFloats(data, first, count, 4);
+	}
+
+	/**
+	 * Copies floats into the current region, starting at an offset that is a
+	 * multiple of "alignment" (needed for uniform blocks).
+	 * 将浮点数复制进当前区域，起点是alignment的倍数（uniform块需要）
+	 */
+	public int putFloats(float[] data, int first, int count, int alignment) {
+		int offset = allocate(count * 4, alignment);
+		floatView.position(offset >> 2);
+		floatView.put(data, first, count);
+		return offset;
+	}
+
+	/**
+	 * Copies ints into the current region.
+	 * 将整数复制进当前区域
+	 * 
+	 * @return The offset of the first int from the start of the memory.
+	 *         第一个整数距离内存起点的偏移量
+	 */
+	public int putInts(int[] data, int first, int count) {
+		int offset = allocate(count * 4, 4);
+		intView.position(offset >> 2);
+		intView.put(data, first, count);
+		return offset;
+	}
+
+	/**
+	 * @return The memory being written to, for callers that want to write
+	 *         their data directly at an offset returned by allocate().
+	 *         正在写入的内存，可以直接在allocate()返回的偏移量处写入数据
+	 */
+	public ByteBuffer getMemory() {
+		return memory;
+	}
+
+	public int getRegion() {
+		return region;
+	}
+
+	public int getRegionCount() {
+		return regionCount;
+	}
+
+	public int getRegionSize() {
+		return regionSize;
+	}
+
+	/**
+	 * @return The offset of the current region from the start of the memory.
+	 *         当前区域距离内存起点的偏移量
+	 */
+	public int getRegionStart() {
+		return regionStart;
+	}
+
+	/**
+	 * @return The number of bytes of the current region in use, including
+	 *         alignment padding.
+	 *         当前区域已使用的字节数，包括对齐的填充
+	 */
+	public int getUsedBytes() {
+		return cursor - regionStart;
+	}
+
+	public long getBytesThisFrame() {
+		return bytesThisFrame;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+}
@@ -0,0 +1,74 @@
+package renderEngine;
+
+/**
+ * Describes where one vertex attribute is found in a vertex buffer that is
+ * uploaded as it is, the way glVertexAttribPointer needs to know it. Used by
+ * {@link Loader#loadToVAO(String, java.nio.ByteBuffer[], VertexAttribute[], java.nio.IntBuffer)}
+ * for data that is already laid out for OpenGL, such as the buffers of a glTF
+ * file.
+ * 描述一个顶点属性在按原样上传的顶点缓存中的位置，也就是glVertexAttribPointer需要
+ * 知道的信息。用于已经按OpenGL需要的方式排列好的数据，例如glTF文件中的缓存。
+ */
+public class VertexAttribute {
+
+	private final int buffer;
+	private final int size;
+	private final int type;
+	private final boolean normalized;
+	private final int stride;
+	private final int offset;
+
+	/**
+	 * @param buffer
+	 *            - The index of the vertex buffer holding the attribute.
+	 *            - 保存这个属性的顶点缓存的下标
+	 * @param size
+	 *            - The number of components per vertex (1 to 4).
+	 *            - 每个顶点的分量数（1到4）
+	 * @param type
+	 *            - The type of each component, e.g. GL_FLOAT.
+	 *            - 每个分量的类型，例如GL_FLOAT
+	 * @param normalized
+	 *            - Whether integer components are mapped to 0..1 (or -1..1).
+	 *            - 整数分量是否映射到0..1（或-1..1）
+	 * @param stride
+	 *            - The bytes from one vertex to the next, 0 if tightly packed.
+	 *            - 从一个顶点到下一个顶点的字节数，紧密排列时为0
+	 * @param offset
+	 *            - The byte offset of the first vertex in the buffer.
+	 *            - 第一个顶点在缓存中的字节偏移
+	 */
+	public VertexAttribute(int buffer, int size, int type, boolean normalized, int stride, int offset) {
+		this.buffer = buffer;
+		this.size = size;
+		this.type = type;
+		this.normalized = normalized;
+		this.stride = stride;
+		this.offset = offset;
+	}
+
+	public int getBuffer() {
+		return buffer;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	public boolean isNormalized() {
+		return normalized;
+	}
+
+	public int getStride() {
+		return stride;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+}
@@ -0,0 +1,447 @@
+package resources;
+
+import java.io.PrintStream;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+
+import device.GLDevice;
+import toolbox.HandleTable;
+
+/**
+ * Creates, keeps track of and deletes the VAOs, buffers and textures the
+ * loader makes. Every object is recorded in a slot of a set of primitive
+ * arrays (its kind, GL name, category, size and label), so the memory in use
+ * can be added up per category and per label at any time, and single meshes
+ * and textures can be released while the game runs instead of only all at
+ * once when it closes.
+ * 创建，跟踪并删除加载器创建的VAO，缓存和纹理。每个对象记录在一组基本类型数组的
+ * 一个槽中（种类，GL名字，类别，大小和标签），所以随时可以按类别和标签统计使用
+ * 的内存，并且可以在游戏运行时释放单个网格和纹理，而不是只能在游戏关闭时全部释放。
+ * 
+ * The slots are handed out by a {@link HandleTable}, so a handle that is used
+ * after it was released is detected even if its slot was reused since. Objects
+ * are deleted with the array forms of glDeleteBuffers, glDeleteVertexArrays and
+ * glDeleteTextures: releasing many meshes or textures at once (see
+ * {@link #releaseMeshes(MeshHandle[])} and {@link #releaseAll()}) takes one
+ * call per type of object.
+ * 槽由HandleTable分配，所以即使槽已被重用，释放后仍被使用的句柄也能被发现。对象用
+ * 数组形式的glDeleteBuffers，glDeleteVertexArrays和glDeleteTextures删除：一次
+ * 释放很多网格或纹理（参见releaseMeshes和releaseAll）时，每种对象只需要一次调用。
+ * 
+ * In debug mode the stack trace of every allocation is kept, so
+ * {@link #printLeaks(PrintStream)} can show where each resource that was
+ * never released came from. Debug mode is on when the game is started with
+ * -DdebugResources=true.
+ * 在调试模式下会保存每次分配的调用栈，所以printLeaks可以显示每个从未被释放的
+ * 资源来自哪里。用-DdebugResources=true启动游戏时打开调试模式。
+ */
+public class GpuResources {
+
+	private static final int VERTEX_ARRAY = 0;
+	private static final int BUFFER = 1;
+	private static final int TEXTURE = 2;
+	private static final String[] KIND_NAMES = { "vertex array", "buffer", "texture" };
+	private static final int NONE = -1;
+	private static final int CATEGORIES = ResourceCategory.values().length;
+
+	private final GLDevice device;
+	private boolean debug = Boolean.getBoolean("debugResources");
+
+	private final HandleTable table = new HandleTable();
+	private int[] kinds = new int[64];
+	private int[] names = new int[64];
+	private int[] categories = new int[64];
+	private long[] sizes = new long[64];
+	private int[] labels = new int[64];
+	private int[] firstChildren = new int[64];
+	private int[] nextSiblings = new int[64];
+	private int[] references = new int[64];
+	private Throwable[] traces = new Throwable[64];
+
+	private IntBuffer deadVaos = BufferUtils.createIntBuffer(64);
+	private IntBuffer deadBuffers = BufferUtils.createIntBuffer(64);
+	private IntBuffer deadTextures = BufferUtils.createIntBuffer(64);
+
+	private final long[] categoryBytes = new long[CATEGORIES];
+	private final Map<String, Integer> labelIds = new HashMap<String, Integer>();
+	private String[] labelNames = new String[16];
+	private long[] labelBytes = new long[16 * CATEGORIES];
+	private int[] labelObjects = new int[16];
+
+	/**
+	 * @param device
+	 *            - The device that all OpenGL calls go through.
+	 *            - 所有OpenGL调用经过的设备
+	 */
+	public GpuResources(GLDevice device) {
+		this.device = device;
+	}
+
+	/**
+	 * Turns recording the stack trace of each allocation on or off. Only
+	 * resources created while it is on have a trace.
+	 * 打开或关闭记录每次分配的调用栈。只有打开期间创建的资源才有调用栈。
+	 */
+	public void setDebug(boolean debug) {
+		this.debug = debug;
+	}
+
+	public boolean isDebug() {
+		return debug;
+	}
+
+	/**
+	 * Creates a VAO. Its buffers are then created with
+	 * {@link #createBuffer(MeshHandle, ResourceCategory, long)}.
+	 * 创建一个VAO。之后用createBuffer创建它的缓存。
+	 * 
+	 * @param label
+	 *            - The name the memory is counted under, e.g. the model's file.
+	 *            - 统计内存时使用的名称，例如模型的文件名
+	 */
+	public MeshHandle createMesh(String label) {
+		int vaoID = device.genVertexArray();
+		return new MeshHandle(this, add(VERTEX_ARRAY, vaoID, ResourceCategory.VERTEX, 0, label(label)), vaoID);
+	}
+
+	/**
+	 * Creates a buffer that belongs to the mesh and is deleted together with
+	 * it.
+	 * 创建一个属于该网格的缓存，它与网格一起被删除。
+	 * 
+	 * @param bytes
+	 *            - The size the buffer will have once its data is stored.
+	 *            - 存入数据后缓存的大小
+	 * @return The GL name of the buffer.
+	 *         缓存的GL名字
+	 */
+	public int createBuffer(MeshHandle mesh, ResourceCategory category, long bytes) {
+		int meshSlot = slot(mesh);
+		int bufferID = device.genBuffer();
+		int slot = table.indexOf(add(BUFFER, bufferID, category, bytes, labels[meshSlot]));
+		nextSiblings[slot] = firstChildren[meshSlot];
+		firstChildren[meshSlot] = slot;
+		return bufferID;
+	}
+
+	/**
+	 * @param bytes
+	 *            - The size of the texture's image(s).
+	 *            - 纹理图像的大小
+	 */
+	public TextureHandle createTexture(String label, long bytes) {
+		int textureID = device.genTexture();
+		return new TextureHandle(this, add(TEXTURE, textureID, ResourceCategory.TEXTURE, bytes, label(label)),
+				textureID);
+	}
+
+	/**
+	 * Changes the size counted for a texture whose image was replaced, e.g.
+	 * when it was reloaded with another resolution.
+	 * 修改图像被替换的纹理所统计的大小，例如以另一个分辨率重新加载之后。
+	 */
+	public void resize(TextureHandle texture, long bytes) {
+		int slot = slot(texture);
+		long change = bytes - sizes[slot];
+		sizes[slot] = bytes;
+		categoryBytes[categories[slot]] += change;
+		labelBytes[labels[slot] * CATEGORIES + categories[slot]] += change;
+	}
+
+	/**
+	 * Adds a user of a shared mesh; each user must release it once.
+	 * 为共享的网格增加一个使用者；每个使用者都必须释放它一次。
+	 */
+	public void retain(MeshHandle mesh) {
+		references[slot(mesh)]++;
+	}
+
+	/**
+	 * Releases one use of the mesh. When no uses are left the VAO and all its
+	 * buffers are deleted.
+	 * 释放网格的一次使用。没有使用者时删除VAO和它所有的缓存。
+	 */
+	public void release(MeshHandle mesh) {
+		queueRelease(mesh);
+		deleteQueued();
+	}
+
+	/**
+	 * Releases one use of each mesh, deleting all the objects that are no
+	 * longer used with one call per type of object.
+	 * 释放每个网格的一次使用，用每种对象一次调用删除所有不再使用的对象。
+	 */
+	public void releaseMeshes(MeshHandle[] meshes) {
+		try {
+			for (MeshHandle mesh : meshes) {
+				queueRelease(mesh);
+			}
+		} finally {
+			deleteQueued();
+		}
+	}
+
+	public void release(TextureHandle texture) {
+		queueRelease(texture);
+		deleteQueued();
+	}
+
+	/**
+	 * Deletes the textures with a single glDeleteTextures call.
+	 * 用一次glDeleteTextures调用删除这些纹理。
+	 */
+	public void releaseTextures(TextureHandle[] textures) {
+		try {
+			for (TextureHandle texture : textures) {
+				queueRelease(texture);
+			}
+		} finally {
+			deleteQueued();
+		}
+	}
+
+	/**
+	 * Deletes every resource still alive, e.g. when the game is closed, with
+	 * one call per type of object. Handles kept from before become stale.
+	 * 删除所有仍然存活的资源，例如在游戏关闭时，每种对象一次调用。之前保留的
+	 * 句柄都会过期。
+	 */
+	public void releaseAll() {
+		for (int slot = 0; slot < table.getSlotCount(); slot++) {
+			if (table.isAllocated(slot)) {
+				queueDelete(slot);
+			}
+		}
+		deleteQueued();
+	}
+
+	/**
+	 * @return Whether the handle was created here and hasn't been released.
+	 *         句柄是否在这里创建并且还没有被释放
+	 */
+	public boolean isLive(MeshHandle mesh) {
+		return mesh.owner == this && table.isValid(mesh.handle);
+	}
+
+	public boolean isLive(TextureHandle texture) {
+		return texture.owner == this && table.isValid(texture.handle);
+	}
+
+	/**
+	 * @return The number of VAOs, buffers and textures alive.
+	 *         存活的VAO，缓存和纹理的数量
+	 */
+	public int getLiveCount() {
+		return table.size();
+	}
+
+	public long getBytes(ResourceCategory category) {
+		return categoryBytes[category.ordinal()];
+	}
+
+	/**
+	 * @return The bytes alive in the category for resources with the label.
+	 *         该类别中具有该标签的存活资源的字节数
+	 */
+	public long getBytes(String label, ResourceCategory category) {
+		Integer id = labelIds.get(label);
+		return id == null ? 0 : labelBytes[id * CATEGORIES + category.ordinal()];
+	}
+
+	public long getTotalBytes() {
+		long total = 0;
+		for (long bytes : categoryBytes) {
+			total += bytes;
+		}
+		return total;
+	}
+
+	/**
+	 * Prints the live resources and their memory per label and category.
+	 * 按标签和类别打印存活的资源以及它们的内存。
+	 */
+	public void printReport(PrintStream out) {
+		out.printf("%-32s %8s %12s %12s %12s%n", "label", "objects", "vertex", "index", "texture");
+		for (int id = 0; id < labelIds.size(); id++) {
+			if (labelObjects[id] == 0) {
+				continue;
+			}
+			out.printf("%-32s %8d %12d %12d %12d%n", labelNames[id], labelObjects[id],
+					labelBytes[id * CATEGORIES + ResourceCategory.VERTEX.ordinal()],
+					labelBytes[id * CATEGORIES + ResourceCategory.INDEX.ordinal()],
+					labelBytes[id * CATEGORIES + ResourceCategory.TEXTURE.ordinal()]);
+		}
+		out.printf("%-32s %8d %12d %12d %12d%n", "total", table.size(), getBytes(ResourceCategory.VERTEX),
+				getBytes(ResourceCategory.INDEX), getBytes(ResourceCategory.TEXTURE));
+	}
+
+	/**
+	 * Prints every resource still alive, with the stack trace of where it was
+	 * created if it was created in debug mode. Meant to be called before
+	 * {@link #releaseAll()} when the game closes, when anything still alive
+	 * was never released.
+	 * 打印所有仍然存活的资源，如果是在调试模式下创建的，还会打印创建它的调用栈。
+	 * 应当在游戏关闭时，在releaseAll()之前调用，此时仍然存活的资源都是从未被释放的。
+	 * 
+	 * @return The number of resources printed.
+	 *         打印的资源数量
+	 */
+	public int printLeaks(PrintStream out) {
+		for (int slot = 0; slot < table.getSlotCount(); slot++) {
+			if (!table.isAllocated(slot)) {
+				continue;
+			}
+			out.printf("Not released: %s %d \"%s\", %d bytes%n", KIND_NAMES[kinds[slot]], names[slot],
+					labelNames[labels[slot]], sizes[slot]);
+			if (traces[slot] != null) {
+				traces[slot].printStackTrace(out);
+			}
+		}
+		return table.size();
+	}
+
+	/**
+	 * @return The handle of the new slot.
+	 *         新槽的句柄
+	 */
+	private int add(int kind, int name, ResourceCategory category, long bytes, int label) {
+		int handle = table.allocate();
+		int slot = table.indexOf(handle);
+		if (slot == kinds.length) {
+			grow();
+		}
+		kinds[slot] = kind;
+		names[slot] = name;
+		categories[slot] = category.ordinal();
+		sizes[slot] = bytes;
+		labels[slot] = label;
+		firstChildren[slot] = NONE;
+		nextSiblings[slot] = NONE;
+		references[slot] = 1;
+		traces[slot] = debug ? new Throwable("Allocated here") : null;
+		categoryBytes[category.ordinal()] += bytes;
+		labelBytes[label * CATEGORIES + category.ordinal()] += bytes;
+		labelObjects[label]++;
+		return handle;
+	}
+
+	private void queueRelease(MeshHandle mesh) {
+		int slot = slot(mesh);
+		if (--references[slot] > 0) {
+			return;
+		}
+		for (int child = firstChildren[slot]; child != NONE; child = nextSiblings[child]) {
+			queueDelete(child);
+		}
+		queueDelete(slot);
+	}
+
+	private void queueRelease(TextureHandle texture) {
+		queueDelete(slot(texture));
+	}
+
+	/**
+	 * Frees the slot and queues its GL object for {@link #deleteQueued()}.
+	 * 释放槽并将它的GL对象加入deleteQueued()的队列。
+	 */
+	private void queueDelete(int slot) {
+		switch (kinds[slot]) {
+		case VERTEX_ARRAY:
+			deadVaos = append(deadVaos, names[slot]);
+			break;
+		case BUFFER:
+			deadBuffers = append(deadBuffers, names[slot]);
+			break;
+		default:
+			deadTextures = append(deadTextures, names[slot]);
+			break;
+		}
+		categoryBytes[categories[slot]] -= sizes[slot];
+		labelBytes[labels[slot] * CATEGORIES + categories[slot]] -= sizes[slot];
+		labelObjects[labels[slot]]--;
+		traces[slot] = null;
+		table.free(table.handle(slot));
+	}
+
+	private void deleteQueued() {
+		if (deadBuffers.position() > 0) {
+			deadBuffers.flip();
+			device.deleteBuffers(deadBuffers);
+			deadBuffers.clear();
+		}
+		if (deadVaos.position() > 0) {
+			deadVaos.flip();
+			device.deleteVertexArrays(deadVaos);
+			deadVaos.clear();
+		}
+		if (deadTextures.position() > 0) {
+			deadTextures.flip();
+			device.deleteTextures(deadTextures);
+			deadTextures.clear();
+		}
+	}
+
+	private static IntBuffer append(IntBuffer queue, int name) {
+		if (!queue.hasRemaining()) {
+			IntBuffer larger = BufferUtils.createIntBuffer(queue.capacity() * 2);
+			queue.flip();
+			larger.put(queue);
+			queue = larger;
+		}
+		return queue.put(name);
+	}
+
+	private int label(String label) {
+		Integer id = labelIds.get(label);
+		if (id != null) {
+			return id;
+		}
+		int newId = labelIds.size();
+		if (newId == labelNames.length) {
+			labelNames = Arrays.copyOf(labelNames, newId * 2);
+			labelBytes = Arrays.copyOf(labelBytes, newId * 2 * CATEGORIES);
+			labelObjects = Arrays.copyOf(labelObjects, newId * 2);
+		}
+		labelNames[newId] = label;
+		labelIds.put(label, newId);
+		return newId;
+	}
+
+	private int slot(MeshHandle mesh) {
+		if (mesh.owner != this) {
+			throw new IllegalArgumentException("Mesh " + mesh.getVaoID() + " was not created here");
+		}
+		if (!table.isValid(mesh.handle)) {
+			throw new IllegalStateException("Mesh " + mesh.getVaoID() + " was already released");
+		}
+		return table.indexOf(mesh.handle);
+	}
+
+	private int slot(TextureHandle texture) {
+		if (texture.owner != this) {
+			throw new IllegalArgumentException("Texture " + texture.getID() + " was not created here");
+		}
+		if (!table.isValid(texture.handle)) {
+			throw new IllegalStateException("Texture " + texture.getID() + " was already released");
+		}
+		return table.indexOf(texture.handle);
+	}
+
+	private void grow() {
+		int size = kinds.length * 2;
+		kinds = Arrays.copyOf(kinds, size);
+		names = Arrays.copyOf(names, size);
+		categories = Arrays.copyOf(categories, size);
+		sizes = Arrays.copyOf(sizes, size);
+		labels = Arrays.copyOf(labels, size);
+		firstChildren = Arrays.copyOf(firstChildren, size);
+		nextSiblings = Arrays.copyOf(nextSiblings, size);
+		references = Arrays.copyOf(references, size);
+		traces = Arrays.copyOf(traces, size);
+	}
+
+}
@@ -0,0 +1,33 @@
+package resources;
+
+/**
+ * A VAO and the buffers that belong to it, created through
+ * {@link GpuResources}. Released with {@link GpuResources#release(MeshHandle)},
+ * after which its VAO must not be used any more. Several models can share one
+ * mesh (see {@link GpuResources#retain(MeshHandle)}); it is only deleted when
+ * the last of them is released.
+ * 通过GpuResources创建的一个VAO以及属于它的缓存。用GpuResources.release释放，
+ * 释放后不能再使用它的VAO。多个模型可以共享一个网格（参见GpuResources.retain）；
+ * 只有最后一个模型被释放时才会删除。
+ */
+public final class MeshHandle {
+
+	final GpuResources owner;
+	final int handle;
+	private final int vaoID;
+
+	MeshHandle(GpuResources owner, int handle, int vaoID) {
+		this.owner = owner;
+		this.handle = handle;
+		this.vaoID = vaoID;
+	}
+
+	public int getVaoID() {
+		return vaoID;
+	}
+
+	public boolean isReleased() {
+		return !owner.isLive(this);
+	}
+
+}
@@ -0,0 +1,17 @@
+package resources;
+
+/**
+ * What the bytes of a GPU resource are used for, so memory can be added up per
+ * kind of data.
+ * GPU资源的字节用于什么，以便按数据种类统计内存。
+ */
+public enum ResourceCategory {
+
+	/** Vertex attribute data (positions, texture coordinates...). 顶点属性数据（位置，纹理坐标等） */
+	VERTEX,
+	/** Index buffers. 索引缓存 */
+	INDEX,
+	/** Texture images. 纹理图像 */
+	TEXTURE
+
+}
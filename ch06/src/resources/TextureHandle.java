@@ -0,0 +1,29 @@
+package resources;
+
+/**
+ * A texture created through {@link GpuResources}. Released with
+ * {@link GpuResources#release(TextureHandle)}, after which its ID must not be
+ * used any more.
+ * 通过GpuResources创建的纹理。用GpuResources.release释放，释放后不能再使用它的ID。
+ */
+public final class TextureHandle {
+
+	final GpuResources owner;
+	final int handle;
+	private final int textureID;
+
+	TextureHandle(GpuResources owner, int handle, int textureID) {
+		this.owner = owner;
+		this.handle = handle;
+		this.textureID = textureID;
+	}
+
+	public int getID() {
+		return textureID;
+	}
+
+	public boolean isReleased() {
+		return !owner.isLive(this);
+	}
+
+}
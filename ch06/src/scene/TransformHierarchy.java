@@ -0,0 +1,520 @@
+package scene;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import maths.Quaternion;
+import maths.TransformArrays;
+import maths.Transforms;
+import maths.Vector3f;
+import profiling.Profiler;
+import toolbox.HandleTable;
+
+/**
+ * A parent/child hierarchy of transforms whose world matrices are updated in
+ * one pass over flat arrays. Every node has a local position, rotation and
+ * scale relative to its parent; its world matrix is its parent's world
+ * matrix times its local matrix.
+ * 变换的父子层级，它的世界矩阵通过一次遍历扁平数组来更新。每个节点都有一个相对于
+ * 父节点的局部位置，旋转和缩放；它的世界矩阵是父节点的世界矩阵乘以它的局部矩阵。
+ *
+ * The nodes are kept sorted so that each root and everything below it forms
+ * one block of the arrays, in breadth-first order within the block. A parent
+ * therefore always comes before its children, and going through the arrays
+ * from start to end computes every world matrix after its parent's. Blocks
+ * don't depend on each other, so {@link #update()} splits them between
+ * threads (a scene that hangs entirely off one root runs on one thread).
+ * 节点保持排序，使每个根节点及其下面的所有节点组成数组中的一块，块内按广度优先排列。
+ * 所以父节点总是在子节点之前，从头到尾遍历数组时每个世界矩阵都在父节点的之后计算。
+ * 块之间互不依赖，所以update()把它们分给多个线程（完全挂在一个根节点下的场景只在
+ * 一个线程上运行）。
+ *
+ * Changing a node's local transform marks it dirty; update() only recomputes
+ * dirty nodes and their descendants, and skips blocks without any dirty node.
+ * Adding, removing and re-parenting nodes only take effect at the next
+ * update(), which sorts the arrays again first, so node indices (but not
+ * handles) change then. Apart from that sort growing its scratch arrays when
+ * the hierarchy grows, update() allocates nothing.
+ * 改变节点的局部变换会把它标记为脏；update()只重新计算脏节点及其后代，并跳过没有
+ * 脏节点的块。添加，删除和更换父节点要到下一次update()才生效，它会先重新排序数组，
+ * 所以节点的下标（而不是句柄）在那时会改变。除了层级变大时排序需要扩大临时数组之外，
+ * update()不分配内存。
+ */
+public class TransformHierarchy {
+
+	/**
+	 * The parent of root nodes.
+	 * 根节点的父节点。
+	 */
+	public static final int NO_PARENT = 0;
+
+	private static final int UPDATE = Profiler.scope("TransformHierarchy.update");
+	private static final int SORT = Profiler.scope("TransformHierarchy.sort");
+
+	//每个线程至少处理这么多节点，太小的块不值得分给其他线程
+	private static final int MIN_CHUNK_NODES = 8192;
+
+	private final HandleTable handles = new HandleTable();
+	private int[] slotNodes = new int[64];
+
+	private final TransformArrays locals;
+	private float[] worldMatrices;
+	private int[] parents;
+	private int[] nodeHandles;
+	private int[] nodeBlocks;
+	private boolean[] dirty;
+	private boolean[] changed;
+	private boolean[] removed;
+	private boolean structureChanged;
+
+	//块：每个根节点及其后代，blockStarts[blockCount]是节点数量
+	private int[] blockStarts = new int[2];
+	private boolean[] blockDirty = new boolean[1];
+	private int blockCount;
+
+	//排序用的临时数组
+	private int[] order;
+	private int[] newIndices;
+	private int[] childStarts;
+	private int[] children;
+	private int[] intScratch;
+	private float[] floatScratch;
+
+	private final int threads;
+	private final Runnable[] chunkTasks;
+	private final Future<?>[] chunkFutures;
+	//每段的第一个块，chunkBlocks[chunkCount]是块的数量
+	private final int[] chunkBlocks;
+	private int chunkCount;
+
+	/**
+	 * Uses as many threads as the common fork/join pool.
+	 * 使用与公共fork/join线程池一样多的线程。
+	 */
+	public TransformHierarchy(int initialCapacity) {
+		this(initialCapacity, ForkJoinPool.getCommonPoolParallelism());
+	}
+
+	/**
+	 * @param threads
+	 *            - The most threads {@link #update()} splits the blocks
+	 *            between; 1 does everything on the calling thread.
+	 *            - update()最多把块分给多少个线程；1表示全部在调用线程上完成
+	 */
+	public TransformHierarchy(int initialCapacity, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1, not " + threads);
+		}
+		int capacity = Math.max(1, initialCapacity);
+		locals = new TransformArrays(capacity);
+		grow(capacity);
+		this.threads = threads;
+		chunkTasks = new Runnable[threads];
+		chunkFutures = new Future<?>[threads];
+		chunkBlocks = new int[threads + 1];
+		for (int i = 0; i < threads; i++) {
+			int chunk = i;
+			chunkTasks[i] = () -> updateBlocks(chunkBlocks[chunk], chunkBlocks[chunk + 1]);
+		}
+	}
+
+	/**
+	 * Adds a node with an identity local transform.
+	 * 添加一个局部变换为单位变换的节点。
+	 *
+	 * @param parent
+	 *            - The parent's handle, or {@link #NO_PARENT} for a root.
+	 *            - 父节点的句柄，根节点为NO_PARENT
+	 * @return The node's handle.
+	 *         节点的句柄
+	 */
+	public int create(int parent) {
+		int parentIndex = parent == NO_PARENT ? -1 : indexOf(parent);
+		int node = locals.add();
+		if (node == parents.length) {
+			grow(node * 2);
+		}
+		int handle = handles.allocate();
+		int slot = handles.indexOf(handle);
+		if (slot == slotNodes.length) {
+			slotNodes = Arrays.copyOf(slotNodes, slot * 2);
+		}
+		slotNodes[slot] = node;
+		nodeHandles[node] = handle;
+		parents[node] = parentIndex;
+		dirty[node] = true;
+		removed[node] = false;
+		structureChanged = true;
+		return handle;
+	}
+
+	/**
+	 * Removes the node and all its descendants at the next {@link #update()}.
+	 * Until then their handles stay valid.
+	 * 在下一次update()时删除节点及其所有后代。在那之前它们的句柄仍然有效。
+	 */
+	public void remove(int handle) {
+		int node = indexOf(handle);
+		if (removed[node]) {
+			throw new IllegalStateException("Node " + Integer.toHexString(handle) + " is removed already");
+		}
+		removed[node] = true;
+		structureChanged = true;
+	}
+
+	/**
+	 * Moves the node, with its descendants, under another parent at the next
+	 * {@link #update()}. Its local transform stays the same, so it moves with
+	 * the new parent from then on.
+	 * 在下一次update()时把节点连同它的后代移到另一个父节点下。它的局部变换不变，所以
+	 * 从那时起它跟着新的父节点移动。
+	 *
+	 * @param parent
+	 *            - The new parent's handle, or {@link #NO_PARENT} to make the
+	 *            node a root. Must not be the node or one of its descendants.
+	 *            - 新父节点的句柄，NO_PARENT表示变为根节点。不能是节点本身或它的
+	 *            后代
+	 */
+	public void setParent(int handle, int parent) {
+		int node = indexOf(handle);
+		int parentIndex = parent == NO_PARENT ? -1 : indexOf(parent);
+		for (int ancestor = parentIndex; ancestor >= 0; ancestor = parents[ancestor]) {
+			if (ancestor == node) {
+				throw new IllegalArgumentException("A node can't be moved below itself");
+			}
+		}
+		parents[node] = parentIndex;
+		markDirty(node);
+		structureChanged = true;
+	}
+
+	public void setLocalTransform(int handle, Vector3f position, Quaternion rotation, Vector3f scale) {
+		int node = indexOf(handle);
+		locals.set(node, position, rotation, scale);
+		markDirty(node);
+	}
+
+	public void setLocalPosition(int handle, float x, float y, float z) {
+		int node = indexOf(handle);
+		locals.positionX[node] = x;
+		locals.positionY[node] = y;
+		locals.positionZ[node] = z;
+		markDirty(node);
+	}
+
+	public void setLocalRotation(int handle, Quaternion rotation) {
+		int node = indexOf(handle);
+		locals.rotationX[node] = rotation.x;
+		locals.rotationY[node] = rotation.y;
+		locals.rotationZ[node] = rotation.z;
+		locals.rotationW[node] = rotation.w;
+		markDirty(node);
+	}
+
+	/**
+	 * Marks the node at the index dirty, for code that changes the local
+	 * transforms in {@link #getLocalTransforms()} directly.
+	 * 把该下标处的节点标记为脏，供直接修改getLocalTransforms()中局部变换的代码使用。
+	 */
+	public void markDirty(int node) {
+		dirty[node] = true;
+		if (!structureChanged) {
+			blockDirty[nodeBlocks[node]] = true;
+		}
+	}
+
+	public boolean isLive(int handle) {
+		return handles.isValid(handle);
+	}
+
+	public int size() {
+		return locals.size();
+	}
+
+	/**
+	 * @return The node's current index in the arrays, until the next
+	 *         {@link #update()} that changes the structure.
+	 *         节点当前在数组中的下标，直到下一次改变结构的update()为止
+	 */
+	public int indexOf(int handle) {
+		if (!handles.isValid(handle)) {
+			throw new IllegalStateException("Node " + Integer.toHexString(handle) + " was removed");
+		}
+		return slotNodes[handles.indexOf(handle)];
+	}
+
+	/**
+	 * @return The index of the node's parent, or -1 for a root.
+	 *         节点父节点的下标，根节点为-1
+	 */
+	public int getParentIndex(int node) {
+		return parents[node];
+	}
+
+	public int getHandle(int node) {
+		return nodeHandles[node];
+	}
+
+	/**
+	 * The local transforms, by node index. Call {@link #markDirty(int)} for
+	 * every node changed here.
+	 * 按节点下标排列的局部变换。在这里修改的每个节点都要调用markDirty(int)。
+	 */
+	public TransformArrays getLocalTransforms() {
+		return locals;
+	}
+
+	/**
+	 * @return The world matrices computed by the last {@link #update()}, 16
+	 *         floats per node index.
+	 *         上一次update()计算的世界矩阵，每个节点下标16个float
+	 */
+	public float[] getWorldMatrices() {
+		return worldMatrices;
+	}
+
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	/**
+	 * Applies the structural changes, then recomputes the world matrices of
+	 * the dirty nodes and their descendants, splitting the blocks into ranges
+	 * that are updated on the fork/join pool (the first on the calling
+	 * thread).
+	 * 应用结构的改变，然后重新计算脏节点及其后代的世界矩阵，把块分成几段，在fork/join
+	 * 线程池上更新（第一段在调用线程上）。
+	 */
+	public void update() {
+		Profiler.begin(UPDATE);
+		if (structureChanged) {
+			sort();
+		}
+		for (int i = 1; i < chunkCount; i++) {
+			chunkFutures[i] = ForkJoinPool.commonPool().submit(chunkTasks[i]);
+		}
+		chunkTasks[0].run();
+		for (int i = 1; i < chunkCount; i++) {
+			join(chunkFutures[i]);
+			chunkFutures[i] = null;
+		}
+		Profiler.end(UPDATE);
+	}
+
+	/**
+	 * Updates the blocks from first to end. In a block a node's world matrix
+	 * is recomputed if it or any of its ancestors is dirty; since parents come
+	 * first, changed[parent] is already known by the time the child is
+	 * reached. Runs of such nodes are computed together.
+	 * 更新从first到end的块。块中的节点如果它自己或者任何祖先是脏的，就重新计算它的
+	 * 世界矩阵；因为父节点在前，到达子节点时changed[parent]已经确定。连续的这种节点
+	 * 一起计算。
+	 */
+	private void updateBlocks(int first, int end) {
+		for (int block = first; block < end; block++) {
+			if (!blockDirty[block]) {
+				continue;
+			}
+			blockDirty[block] = false;
+			int root = blockStarts[block];
+			int blockEnd = blockStarts[block + 1];
+			changed[root] = dirty[root];
+			if (dirty[root]) {
+				dirty[root] = false;
+				locals.computeMatrices(root, root + 1, worldMatrices);
+			}
+			int runStart = -1;
+			for (int i = root + 1; i < blockEnd; i++) {
+				boolean recompute = dirty[i] | changed[parents[i]];
+				changed[i] = recompute;
+				dirty[i] = false;
+				if (recompute) {
+					if (runStart < 0) {
+						runStart = i;
+					}
+				} else if (runStart >= 0) {
+					computeWorldMatrices(runStart, i);
+					runStart = -1;
+				}
+			}
+			if (runStart >= 0) {
+				computeWorldMatrices(runStart, blockEnd);
+			}
+		}
+	}
+
+	private void computeWorldMatrices(int start, int end) {
+		locals.computeMatrices(start, end, worldMatrices);
+		//每个父节点都在它的子节点之前，已经是世界矩阵
+		Transforms.mul(worldMatrices, parents, worldMatrices, start, end, worldMatrices);
+	}
+
+	/**
+	 * Puts the nodes back into blocks in breadth-first order, dropping the
+	 * removed ones and their descendants, and splits the blocks into ranges
+	 * of about equal size for the threads.
+	 * 把节点重新排成按广度优先排列的块，去掉被删除的节点及其后代，并把块分成大小差不多
+	 * 的几段给各个线程。
+	 */
+	private void sort() {
+		Profiler.begin(SORT);
+		int size = locals.size();
+		//用计数排序按父节点分组子节点
+		Arrays.fill(childStarts, 0, size + 1, 0);
+		for (int i = 0; i < size; i++) {
+			if (parents[i] >= 0) {
+				childStarts[parents[i] + 1]++;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			childStarts[i + 1] += childStarts[i];
+		}
+		System.arraycopy(childStarts, 0, intScratch, 0, size);
+		for (int i = 0; i < size; i++) {
+			if (parents[i] >= 0) {
+				children[intScratch[parents[i]]++] = i;
+			}
+		}
+		//从每个根节点开始广度优先遍历，order本身就是队列
+		int count = 0;
+		blockCount = 0;
+		for (int i = 0; i < size; i++) {
+			if (parents[i] >= 0 || removed[i]) {
+				continue;
+			}
+			if (blockCount + 1 == blockStarts.length) {
+				blockStarts = Arrays.copyOf(blockStarts, blockStarts.length * 2);
+				blockDirty = Arrays.copyOf(blockDirty, blockStarts.length);
+			}
+			blockStarts[blockCount++] = count;
+			order[count++] = i;
+			for (int head = count - 1; head < count; head++) {
+				int node = order[head];
+				for (int c = childStarts[node]; c < childStarts[node + 1]; c++) {
+					if (!removed[children[c]]) {
+						order[count++] = children[c];
+					}
+				}
+			}
+		}
+		blockStarts[blockCount] = count;
+
+		Arrays.fill(newIndices, 0, size, -1);
+		for (int i = 0; i < count; i++) {
+			newIndices[order[i]] = i;
+		}
+		for (int i = 0; i < size; i++) {
+			if (newIndices[i] < 0) {
+				handles.free(nodeHandles[i]);
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			int parent = parents[order[i]];
+			intScratch[i] = parent < 0 ? -1 : newIndices[parent];
+		}
+		System.arraycopy(intScratch, 0, parents, 0, count);
+		permute(nodeHandles, count);
+		for (int i = 0; i < count; i++) {
+			slotNodes[handles.indexOf(nodeHandles[i])] = i;
+			intScratch[i] = dirty[order[i]] ? 1 : 0;
+		}
+		for (int i = 0; i < count; i++) {
+			dirty[i] = intScratch[i] != 0;
+			removed[i] = false;
+		}
+		permute(locals.positionX, count);
+		permute(locals.positionY, count);
+		permute(locals.positionZ, count);
+		permute(locals.rotationX, count);
+		permute(locals.rotationY, count);
+		permute(locals.rotationZ, count);
+		permute(locals.rotationW, count);
+		permute(locals.scaleX, count);
+		permute(locals.scaleY, count);
+		permute(locals.scaleZ, count);
+		for (int i = 0; i < count; i++) {
+			System.arraycopy(worldMatrices, order[i] * 16, floatScratch, i * 16, 16);
+		}
+		System.arraycopy(floatScratch, 0, worldMatrices, 0, count * 16);
+		while (locals.size() > count) {
+			locals.removeLast();
+		}
+
+		for (int block = 0; block < blockCount; block++) {
+			boolean anyDirty = false;
+			for (int i = blockStarts[block]; i < blockStarts[block + 1]; i++) {
+				nodeBlocks[i] = block;
+				anyDirty |= dirty[i];
+			}
+			blockDirty[block] = anyDirty;
+		}
+		splitChunks(count);
+		structureChanged = false;
+		Profiler.end(SORT);
+	}
+
+	private void splitChunks(int count) {
+		chunkCount = Math.max(1, Math.min(threads, count / MIN_CHUNK_NODES));
+		chunkBlocks[0] = 0;
+		int block = 0;
+		for (int chunk = 1; chunk < chunkCount; chunk++) {
+			long target = (long) count * chunk / chunkCount;
+			while (block < blockCount && blockStarts[block] < target) {
+				block++;
+			}
+			chunkBlocks[chunk] = block;
+		}
+		chunkBlocks[chunkCount] = blockCount;
+	}
+
+	private void permute(int[] array, int count) {
+		for (int i = 0; i < count; i++) {
+			intScratch[i] = array[order[i]];
+		}
+		System.arraycopy(intScratch, 0, array, 0, count);
+	}
+
+	private void permute(float[] array, int count) {
+		for (int i = 0; i < count; i++) {
+			floatScratch[i] = array[order[i]];
+		}
+		System.arraycopy(floatScratch, 0, array, 0, count);
+	}
+
+	private static void join(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void grow(int capacity) {
+		worldMatrices = worldMatrices == null ? new float[capacity * 16] : Arrays.copyOf(worldMatrices, capacity * 16);
+		parents = copyOf(parents, capacity);
+		nodeHandles = copyOf(nodeHandles, capacity);
+		nodeBlocks = copyOf(nodeBlocks, capacity);
+		dirty = dirty == null ? new boolean[capacity] : Arrays.copyOf(dirty, capacity);
+		changed = new boolean[capacity];
+		removed = removed == null ? new boolean[capacity] : Arrays.copyOf(removed, capacity);
+		order = new int[capacity];
+		newIndices = new int[capacity];
+		childStarts = new int[capacity + 1];
+		children = new int[capacity];
+		intScratch = new int[capacity];
+		floatScratch = new float[capacity * 16];
+	}
+
+	private static int[] copyOf(int[] array, int capacity) {
+		return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+}
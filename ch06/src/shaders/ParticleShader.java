@@ -0,0 +1,48 @@
+package shaders;
+
+import device.GLDevice;
+import maths.Matrix4f;
+
+/**
+ * The shader used by the {@link particles.ParticleRenderer}: one quad per
+ * instance, turned to face the camera, with a texture and the particle's
+ * colour.
+ * ParticleRenderer使用的着色器：每个实例一个面向摄像机的四边形，带有纹理和粒子的颜色。
+ */
+public class ParticleShader extends ShaderProgram{
+	
+	//导入文件
+	private static final String VERTEX_FILE = "shaders/particleVertexShader.txt";
+	private static final String FRAGMENT_FILE = "shaders/particleFragmentShader.txt";
+	
+	private int location_projectionMatrix;
+	private int location_viewMatrix;
+
+	public ParticleShader(GLDevice device) {
+		super(device, VERTEX_FILE, FRAGMENT_FILE);
+	}
+
+	@Override
+	protected void bindAttributes() {
+		super.bindAttribute(0, "corner");
+		super.bindAttribute(1, "centreAndSize");
+		super.bindAttribute(2, "colour");
+	}
+	
+	@Override
+	protected void getAllUniformLocations() {
+		location_projectionMatrix = super.getUniformLocation("projectionMatrix");
+		location_viewMatrix = super.getUniformLocation("viewMatrix");
+	}
+	
+	//着色器必须正在使用
+	public void loadProjectionMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_projectionMatrix, matrix);
+	}
+	
+	//摄像机的视图矩阵，着色器必须正在使用
+	public void loadViewMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_viewMatrix, matrix);
+	}
+
+}
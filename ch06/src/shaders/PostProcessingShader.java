@@ -0,0 +1,34 @@
+package shaders;
+
+import device.GLDevice;
+
+/**
+ * A shader for one step of {@link postProcessing.PostProcessing}: a
+ * fullscreen triangle, built in the vertex shader from gl_VertexID so it
+ * needs no vertex data, and a fragment shader that samples the previous
+ * step's colour texture on unit 0.
+ * PostProcessing中一步使用的着色器：一个全屏三角形，在顶点着色器中由gl_VertexID
+ * 生成，所以不需要顶点数据，以及一个在纹理单元0上采样上一步颜色纹理的片段着色器。
+ */
+public class PostProcessingShader extends ShaderProgram{
+	
+	//导入文件
+	private static final String VERTEX_FILE = "shaders/postVertexShader.txt";
+	public static final String COPY_FILE = "shaders/postCopyFragmentShader.txt";
+	public static final String CONTRAST_FILE = "shaders/postContrastFragmentShader.txt";
+
+	/**
+	 * @param fragmentFile
+	 *            - The effect, e.g. {@link #CONTRAST_FILE}.
+	 *            - 效果，例如CONTRAST_FILE
+	 */
+	public PostProcessingShader(GLDevice device, String fragmentFile) {
+		super(device, VERTEX_FILE, fragmentFile);
+	}
+
+	//没有顶点属性
+	@Override
+	protected void bindAttributes() {
+	}
+
+}
@@ -1,74 +1,257 @@
 package shaders;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
 
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
 
+import assets.VirtualFileSystem;
+import device.GLDevice;
+import maths.Matrix4f;
+import profiling.Profiler;
+
+/**
+ * A vertex and a fragment shader linked into a program. The program can be
+ * built again from edited source code with
+ * {@link #reload(CharSequence, CharSequence)} while the game runs.
+ * 链接成一个程序的顶点着色器和片段着色器。游戏运行时可以用
+ * reload(CharSequence, CharSequence)从修改后的源码重新构建程序。
+ */
 public abstract class ShaderProgram {
 	
+	private static final int START = Profiler.scope("ShaderProgram.start");
+	private static final int STOP = Profiler.scope("ShaderProgram.stop");
+	private static final int RELOAD = Profiler.scope("ShaderProgram.reload");
+
+	//上传矩阵uniform时共用的缓存，避免每次都分配
+	private static final FloatBuffer MATRIX_BUFFER = BufferUtils.createFloatBuffer(16);
+
+	private final GLDevice device;
+	private final String vertexFile;
+	private final String fragmentFile;
 	private int programID;
 	private int vertexShaderID;
 	private int fragmentShaderID;
+	//bindAttribute绑定到的程序，重新加载时是正在构建的新程序
+	private int linkingProgramID;
 	
-	public ShaderProgram(String vertexFile,String fragmentFile){
-		vertexShaderID = loadShader(vertexFile,GL20.GL_VERTEX_SHADER);
-		fragmentShaderID = loadShader(fragmentFile,GL20.GL_FRAGMENT_SHADER);
-		programID = GL20.glCreateProgram();
-		GL20.glAttachShader(programID, vertexShaderID);
-		GL20.glAttachShader(programID, fragmentShaderID);
+	public ShaderProgram(GLDevice device,String vertexFile,String fragmentFile){
+		this.device = device;
+		this.vertexFile = vertexFile;
+		this.fragmentFile = fragmentFile;
+		vertexShaderID = loadShader(device,vertexFile,GL20.GL_VERTEX_SHADER);
+		fragmentShaderID = loadShader(device,fragmentFile,GL20.GL_FRAGMENT_SHADER);
+		programID = device.createProgram();
+		device.attachShader(programID, vertexShaderID);
+		device.attachShader(programID, fragmentShaderID);
+		linkingProgramID = programID;
 		bindAttributes();
-		GL20.glLinkProgram(programID);
-		GL20.glValidateProgram(programID);
+		device.linkProgram(programID);
+		device.validateProgram(programID);
+		getAllUniformLocations();
+	}
+	
+	/**
+	 * Builds the program again from new source code. The new program only
+	 * replaces the old one if both shaders compile and it links; otherwise
+	 * the errors are printed and the old program is kept, so a mistake made
+	 * while editing a shader doesn't stop the game. Must be called on the
+	 * OpenGL thread while the program is not in use, e.g. between two frames.
+	 * 从新的源码重新构建程序。只有两个着色器都编译成功并且链接成功时，新程序才会替换
+	 * 旧程序；否则打印错误并保留旧程序，这样修改着色器时的错误不会让游戏停下来。必须在
+	 * OpenGL线程上，在程序没有被使用时调用，例如在两帧之间。
+	 * 
+	 * @return Whether the new program replaced the old one.
+	 *         新程序是否替换了旧程序
+	 */
+	public boolean reload(CharSequence vertexSource, CharSequence fragmentSource){
+		Profiler.begin(RELOAD);
+		try{
+			int newVertexShaderID = compileShader(device, vertexFile, vertexSource, GL20.GL_VERTEX_SHADER);
+			int newFragmentShaderID = compileShader(device, fragmentFile, fragmentSource, GL20.GL_FRAGMENT_SHADER);
+			if(newVertexShaderID == 0 || newFragmentShaderID == 0){
+				if(newVertexShaderID != 0){
+					device.deleteShader(newVertexShaderID);
+				}
+				if(newFragmentShaderID != 0){
+					device.deleteShader(newFragmentShaderID);
+				}
+				System.err.println("Keeping the old program of " + vertexFile + " and " + fragmentFile);
+				return false;
+			}
+			int newProgramID = device.createProgram();
+			device.attachShader(newProgramID, newVertexShaderID);
+			device.attachShader(newProgramID, newFragmentShaderID);
+			linkingProgramID = newProgramID;
+			bindAttributes();
+			linkingProgramID = programID;
+			device.linkProgram(newProgramID);
+			if(device.getProgrami(newProgramID, GL20.GL_LINK_STATUS) == GL11.GL_FALSE){
+				System.err.println(device.getProgramInfoLog(newProgramID, 500));
+				System.err.println("Could not link " + vertexFile + " and " + fragmentFile + ", keeping the old program");
+				deleteProgram(newProgramID, newVertexShaderID, newFragmentShaderID);
+				return false;
+			}
+			device.validateProgram(newProgramID);
+			deleteProgram(programID, vertexShaderID, fragmentShaderID);
+			programID = newProgramID;
+			vertexShaderID = newVertexShaderID;
+			fragmentShaderID = newFragmentShaderID;
+			linkingProgramID = programID;
+			getAllUniformLocations();
+			return true;
+		}finally{
+			Profiler.end(RELOAD);
+		}
+	}
+	
+	public String getVertexFile(){
+		return vertexFile;
+	}
+	
+	public String getFragmentFile(){
+		return fragmentFile;
 	}
 	
 	public void start(){
-		GL20.glUseProgram(programID);
+		Profiler.begin(START);
+		device.useProgram(programID);
+		Profiler.end(START);
 	}
 	
 	public void stop(){
-		GL20.glUseProgram(0);
+		Profiler.begin(STOP);
+		device.useProgram(0);
+		Profiler.end(STOP);
 	}
 	
 	public void cleanUp(){
 		stop();
-		GL20.glDetachShader(programID, vertexShaderID);
-		GL20.glDetachShader(programID, fragmentShaderID);
-		GL20.glDeleteShader(vertexShaderID);
-		GL20.glDeleteShader(fragmentShaderID);
-		GL20.glDeleteProgram(programID);
+		deleteProgram(programID, vertexShaderID, fragmentShaderID);
 	}
 	
 	protected abstract void bindAttributes();
 	
+	/**
+	 * Called after the program has been linked, and again after every
+	 * successful reload, since the locations of the uniforms may change.
+	 * 在程序链接之后调用，每次重新加载成功后会再次调用，因为uniform的位置可能改变。
+	 */
+	protected void getAllUniformLocations(){
+	}
+	
 	protected void bindAttribute(int attribute, String variableName){
-		GL20.glBindAttribLocation(programID, attribute, variableName);
+		device.bindAttribLocation(linkingProgramID, attribute, variableName);
 	}
 	
-	private static int loadShader(String file, int type){
-		StringBuilder shaderSource = new StringBuilder();
+	protected int getUniformLocation(String uniformName){
+		return device.getUniformLocation(programID, uniformName);
+	}
+	
+	/**
+	 * Makes the named uniform block read its data from a binding point, where
+	 * a buffer range is bound with {@link GLDevice#bindBufferRange}. Blocks
+	 * the shader doesn't use are skipped.
+	 * 让这个名字的uniform块从一个绑定点读取数据，缓存的一段用
+	 * GLDevice.bindBufferRange绑定在那里。着色器没有用到的块会被跳过。
+	 */
+	protected void bindUniformBlock(String blockName, int binding){
+		int blockIndex = device.getUniformBlockIndex(programID, blockName);
+		if(blockIndex != GL31.GL_INVALID_INDEX){
+			device.uniformBlockBinding(programID, blockIndex, binding);
+		}
+	}
+	
+	/**
+	 * Sets a mat4 uniform of the program, which must be in use. Goes through
+	 * one shared buffer, so nothing is allocated.
+	 * 设置程序的一个mat4 uniform，程序必须正在使用。经过一个共用的缓存，所以不分配内存。
+	 */
+	protected void loadMatrix(int location, Matrix4f matrix){
+		MATRIX_BUFFER.clear();
+		matrix.store(MATRIX_BUFFER);
+		MATRIX_BUFFER.flip();
+		device.uniformMatrix4(location, false, MATRIX_BUFFER);
+	}
+	
+	//设置程序的一个float uniform，程序必须正在使用
+	protected void loadFloat(int location, float value){
+		device.uniform1f(location, value);
+	}
+	
+	private void deleteProgram(int program, int vertexShader, int fragmentShader){
+		device.detachShader(program, vertexShader);
+		device.detachShader(program, fragmentShader);
+		device.deleteShader(vertexShader);
+		device.deleteShader(fragmentShader);
+		device.deleteProgram(program);
+	}
+	
+	/**
+	 * Reads the GLSL source code of a shader from a text file, found through
+	 * the {@link VirtualFileSystem}.
+	 * 从文本文件中读取着色器的GLSL源码，文件通过VirtualFileSystem查找
+	 */
+	public static StringBuilder loadShaderSource(String file){
+		StringBuilder shaderSource = null;
 		try{
-			BufferedReader reader = new BufferedReader(new FileReader(file));
+			shaderSource = readShaderSource(file);
+		}catch(IOException e){
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		return shaderSource;
+	}
+	
+	/**
+	 * Same as {@link #loadShaderSource(String)}, but throws instead of exiting
+	 * if the file can't be read. Doesn't need OpenGL, so it can run on any
+	 * thread.
+	 * 与loadShaderSource(String)相同，但读取失败时抛出异常而不是退出。不需要OpenGL，
+	 * 所以可以在任何线程上运行。
+	 */
+	public static StringBuilder readShaderSource(String file) throws IOException{
+		StringBuilder shaderSource = new StringBuilder();
+		try(BufferedReader reader = new BufferedReader(
+				new InputStreamReader(VirtualFileSystem.open(file), StandardCharsets.UTF_8))){
 			String line;
 			while((line = reader.readLine())!=null){
 				shaderSource.append(line).append("//\n");
 			}
-			reader.close();
-		}catch(IOException e){
-			e.printStackTrace();
-			System.exit(-1);
 		}
-		int shaderID = GL20.glCreateShader(type);
-		GL20.glShaderSource(shaderID, shaderSource);
-		GL20.glCompileShader(shaderID);
-		if(GL20.glGetShaderi(shaderID, GL20.GL_COMPILE_STATUS )== GL11.GL_FALSE){
-			System.out.println(GL20.glGetShaderInfoLog(shaderID, 500));
-			System.err.println("Could not compile shader!");
+		return shaderSource;
+	}
+	
+	private static int loadShader(GLDevice device, String file, int type){
+		int shaderID = compileShader(device, file, loadShaderSource(file), type);
+		if(shaderID == 0){
 			System.exit(-1);
 		}
 		return shaderID;
 	}
+	
+	/**
+	 * @return The compiled shader, or 0 if it didn't compile (the errors are
+	 *         printed).
+	 *         编译好的着色器，编译失败时返回0（错误会被打印出来）
+	 */
+	private static int compileShader(GLDevice device, String file, CharSequence shaderSource, int type){
+		int shaderID = device.createShader(type);
+		device.shaderSource(shaderID, shaderSource);
+		device.compileShader(shaderID);
+		if(device.getShaderi(shaderID, GL20.GL_COMPILE_STATUS )== GL11.GL_FALSE){
+			System.out.println(device.getShaderInfoLog(shaderID, 500));
+			System.err.println("Could not compile shader " + file + "!");
+			device.deleteShader(shaderID);
+			return 0;
+		}
+		return shaderID;
+	}
 
 }
@@ -0,0 +1,55 @@
+package shaders;
+
+import device.GLDevice;
+import maths.Matrix4f;
+
+/**
+ * The shader used by the {@link animation.SkinnedRenderer}: every vertex is
+ * moved by up to four joints of the character's palette. The character's
+ * model matrix and palette are read from the uniform block bound at
+ * {@link #JOINT_BINDING}, so switching characters sets no uniforms.
+ * SkinnedRenderer使用的着色器：每个顶点被角色调色板中最多四个关节移动。角色的模型
+ * 矩阵和调色板从绑定在JOINT_BINDING的uniform块中读取，所以切换角色时不设置uniform。
+ */
+public class SkinnedShader extends ShaderProgram{
+	
+	//uniform块JointTransforms的绑定点
+	public static final int JOINT_BINDING = 0;
+	
+	//导入文件
+	private static final String VERTEX_FILE = "shaders/skinnedVertexShader.txt";
+	private static final String FRAGMENT_FILE = "shaders/fragmentShader.txt";
+	
+	private int location_projectionMatrix;
+	private int location_viewMatrix;
+
+	public SkinnedShader(GLDevice device) {
+		super(device, VERTEX_FILE, FRAGMENT_FILE);
+	}
+
+	@Override
+	protected void bindAttributes() {
+		super.bindAttribute(0, "position");
+		super.bindAttribute(1, "textureCoords");
+		super.bindAttribute(2, "jointIndices");
+		super.bindAttribute(3, "weights");
+	}
+	
+	@Override
+	protected void getAllUniformLocations() {
+		location_projectionMatrix = super.getUniformLocation("projectionMatrix");
+		location_viewMatrix = super.getUniformLocation("viewMatrix");
+		super.bindUniformBlock("JointTransforms", JOINT_BINDING);
+	}
+	
+	//着色器必须正在使用
+	public void loadProjectionMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_projectionMatrix, matrix);
+	}
+	
+	//摄像机的视图矩阵，着色器必须正在使用
+	public void loadViewMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_viewMatrix, matrix);
+	}
+
+}
@@ -0,0 +1,40 @@
+package shaders;
+
+import device.GLDevice;
+import maths.Matrix4f;
+
+/**
+ * The shader used by the {@link renderEngine.SpriteBatch}: positions in
+ * screen units, a texture and a colour per vertex.
+ * SpriteBatch使用的着色器：以屏幕单位表示的位置，纹理以及每个顶点的颜色。
+ */
+public class SpriteShader extends ShaderProgram{
+	
+	//导入文件
+	private static final String VERTEX_FILE = "shaders/spriteVertexShader.txt";
+	private static final String FRAGMENT_FILE = "shaders/spriteFragmentShader.txt";
+	
+	private int location_projectionMatrix;
+
+	public SpriteShader(GLDevice device) {
+		super(device, VERTEX_FILE, FRAGMENT_FILE);
+	}
+
+	@Override
+	protected void bindAttributes() {
+		super.bindAttribute(0, "position");
+		super.bindAttribute(1, "textureCoords");
+		super.bindAttribute(2, "colour");
+	}
+	
+	@Override
+	protected void getAllUniformLocations() {
+		location_projectionMatrix = super.getUniformLocation("projectionMatrix");
+	}
+	
+	//把屏幕单位映射到裁剪空间的矩阵，着色器必须正在使用
+	public void loadProjectionMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_projectionMatrix, matrix);
+	}
+
+}
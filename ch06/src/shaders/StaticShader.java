@@ -1,13 +1,20 @@
 package shaders;
 
+import device.GLDevice;
+import maths.Matrix4f;
+
 public class StaticShader extends ShaderProgram{
 	
 	//导入文件
-	private static final String VERTEX_FILE = "src/shaders/vertexShader.txt";
-	private static final String FRAGMENT_FILE = "src/shaders/fragmentShader.txt";
+	private static final String VERTEX_FILE = "shaders/vertexShader.txt";
+	private static final String FRAGMENT_FILE = "shaders/fragmentShader.txt";
+	
+	private int location_transformationMatrix;
+	private int location_projectionMatrix;
+	private int location_viewMatrix;
 
-	public StaticShader() {
-		super(VERTEX_FILE, FRAGMENT_FILE);
+	public StaticShader(GLDevice device) {
+		super(device, VERTEX_FILE, FRAGMENT_FILE);
 	}
 
     //将attribute0指定为位置信息
@@ -17,6 +24,28 @@ public class StaticShader extends ShaderProgram{
 		super.bindAttribute(1, "textureCoords");
 	}
 	
+	@Override
+	protected void getAllUniformLocations() {
+		location_transformationMatrix = super.getUniformLocation("transformationMatrix");
+		location_projectionMatrix = super.getUniformLocation("projectionMatrix");
+		location_viewMatrix = super.getUniformLocation("viewMatrix");
+	}
+	
+	//模型的变换矩阵，着色器必须正在使用
+	public void loadTransformationMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_transformationMatrix, matrix);
+	}
+	
+	//着色器必须正在使用
+	public void loadProjectionMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_projectionMatrix, matrix);
+	}
+	
+	//摄像机的视图矩阵，着色器必须正在使用
+	public void loadViewMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_viewMatrix, matrix);
+	}
+	
 	
 
 }
@@ -0,0 +1,53 @@
+package shaders;
+
+import device.GLDevice;
+import maths.Matrix4f;
+
+/**
+ * The shader used by the {@link terrain.Terrain}: a texture tiled by world
+ * position, lit from a fixed direction.
+ * Terrain使用的着色器：按世界坐标平铺的纹理，从固定方向照亮。
+ */
+public class TerrainShader extends ShaderProgram{
+	
+	//导入文件
+	private static final String VERTEX_FILE = "shaders/terrainVertexShader.txt";
+	private static final String FRAGMENT_FILE = "shaders/terrainFragmentShader.txt";
+	
+	private int location_projectionMatrix;
+	private int location_viewMatrix;
+	private int location_textureTiling;
+
+	public TerrainShader(GLDevice device) {
+		super(device, VERTEX_FILE, FRAGMENT_FILE);
+	}
+
+	@Override
+	protected void bindAttributes() {
+		super.bindAttribute(0, "position");
+		super.bindAttribute(1, "normal");
+	}
+	
+	@Override
+	protected void getAllUniformLocations() {
+		location_projectionMatrix = super.getUniformLocation("projectionMatrix");
+		location_viewMatrix = super.getUniformLocation("viewMatrix");
+		location_textureTiling = super.getUniformLocation("textureTiling");
+	}
+	
+	//着色器必须正在使用
+	public void loadProjectionMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_projectionMatrix, matrix);
+	}
+	
+	//摄像机的视图矩阵，着色器必须正在使用
+	public void loadViewMatrix(Matrix4f matrix) {
+		super.loadMatrix(location_viewMatrix, matrix);
+	}
+	
+	//纹理重复一次覆盖的世界单位，着色器必须正在使用
+	public void loadTextureTiling(float units) {
+		super.loadFloat(location_textureTiling, units);
+	}
+
+}
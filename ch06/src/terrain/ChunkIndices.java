@@ -0,0 +1,121 @@
+package terrain;
+
+import java.util.Arrays;
+
+/**
+ * The indices shared by every terrain chunk: one range for each level of
+ * detail and each combination of edges that must be stitched to a coarser
+ * neighbour. Level l uses every 2^l-th vertex of the chunk's grid. The grid
+ * is cut into blocks of 2x2 cells, each drawn as a fan of eight triangles
+ * around its centre; on an edge next to a chunk one level coarser, the fan
+ * skips the vertex in the middle of the block's edge, which the neighbour
+ * doesn't have, so the two chunks meet without cracks. This needs
+ * neighbouring chunks to be at most one level apart.
+ * 所有地形块共用的索引：每个细节层次，以及需要与更粗糙的相邻块缝合的边的每种组合，
+ * 各有一段。第l层使用块网格中每隔2^l个的顶点。网格被切成2x2个单元的小块，每个小块
+ * 绘制为围绕其中心的八个三角形组成的扇形；在紧挨着粗糙一层的块的边上，扇形跳过小块
+ * 边中间的顶点（相邻块没有这个顶点），这样两个块相接时没有裂缝。这需要相邻块的细节
+ * 层次最多相差一层。
+ */
+public class ChunkIndices {
+
+	/**
+	 * The levels of detail; the coarsest still has 2x2 blocks per chunk.
+	 * 细节层次的数量，最粗糙的一层每个块仍有2x2个小块。
+	 */
+	public static final int LOD_COUNT = 5;
+
+	//需要缝合的边，组合成掩码
+	public static final int STITCH_NEGATIVE_X = 1;
+	public static final int STITCH_POSITIVE_X = 2;
+	public static final int STITCH_NEGATIVE_Z = 4;
+	public static final int STITCH_POSITIVE_Z = 8;
+	public static final int STITCH_MASKS = 16;
+
+	private final short[] indices;
+	private final int[] firstIndices = new int[LOD_COUNT * STITCH_MASKS];
+	private final int[] indexCounts = new int[LOD_COUNT * STITCH_MASKS];
+
+	public ChunkIndices() {
+		int total = 0;
+		for (int lod = 0; lod < LOD_COUNT; lod++) {
+			int blocks = ChunkMesher.CHUNK_QUADS >> (lod + 1);
+			total += blocks * blocks * 8 * 3 * STITCH_MASKS;
+		}
+		short[] indices = new short[total];
+		int count = 0;
+		for (int lod = 0; lod < LOD_COUNT; lod++) {
+			for (int mask = 0; mask < STITCH_MASKS; mask++) {
+				int range = lod * STITCH_MASKS + mask;
+				firstIndices[range] = count;
+				count = addRange(indices, count, lod, mask);
+				indexCounts[range] = count - firstIndices[range];
+			}
+		}
+		this.indices = count == total ? indices : Arrays.copyOf(indices, count);
+	}
+
+	/**
+	 * @return Every range, one after another, as unsigned shorts.
+	 *         所有的段，一段接一段，作为unsigned short
+	 */
+	public short[] getIndices() {
+		return indices;
+	}
+
+	public int getFirstIndex(int lod, int stitchMask) {
+		return firstIndices[lod * STITCH_MASKS + stitchMask];
+	}
+
+	public int getIndexCount(int lod, int stitchMask) {
+		return indexCounts[lod * STITCH_MASKS + stitchMask];
+	}
+
+	private static int addRange(short[] indices, int count, int lod, int mask) {
+		int step = 1 << lod;
+		int blocks = ChunkMesher.CHUNK_QUADS >> (lod + 1);
+		//小块边界上的8个顶点，逆时针（从上往下看时三角形朝上），奇数是边的中点
+		int[] perimeter = new int[8];
+		for (int bz = 0; bz < blocks; bz++) {
+			for (int bx = 0; bx < blocks; bx++) {
+				int x0 = bx * 2 * step;
+				int z0 = bz * 2 * step;
+				int centre = vertex(x0 + step, z0 + step);
+				perimeter[0] = vertex(x0, z0);
+				perimeter[1] = bx == 0 && (mask & STITCH_NEGATIVE_X) != 0 ? -1 : vertex(x0, z0 + step);
+				perimeter[2] = vertex(x0, z0 + 2 * step);
+				perimeter[3] = bz == blocks - 1 && (mask & STITCH_POSITIVE_Z) != 0 ? -1
+						: vertex(x0 + step, z0 + 2 * step);
+				perimeter[4] = vertex(x0 + 2 * step, z0 + 2 * step);
+				perimeter[5] = bx == blocks - 1 && (mask & STITCH_POSITIVE_X) != 0 ? -1
+						: vertex(x0 + 2 * step, z0 + step);
+				perimeter[6] = vertex(x0 + 2 * step, z0);
+				perimeter[7] = bz == 0 && (mask & STITCH_NEGATIVE_Z) != 0 ? -1 : vertex(x0 + step, z0);
+				//跳过被去掉的中点，连接剩下的相邻顶点
+				for (int i = 0; i < 8; i += 2) {
+					int next = perimeter[i + 1];
+					int after = perimeter[(i + 2) & 7];
+					if (next < 0) {
+						count = addTriangle(indices, count, centre, perimeter[i], after);
+					} else {
+						count = addTriangle(indices, count, centre, perimeter[i], next);
+						count = addTriangle(indices, count, centre, next, after);
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int addTriangle(short[] indices, int count, int a, int b, int c) {
+		indices[count] = (short) a;
+		indices[count + 1] = (short) b;
+		indices[count + 2] = (short) c;
+		return count + 3;
+	}
+
+	private static int vertex(int x, int z) {
+		return z * ChunkMesher.VERTICES_PER_SIDE + x;
+	}
+
+}
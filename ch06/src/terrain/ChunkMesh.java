@@ -0,0 +1,45 @@
+package terrain;
+
+/**
+ * The vertices of one terrain chunk as built by {@link ChunkMesher}, with the
+ * lowest and highest point for culling. Meshes are reused for one chunk after
+ * another, so building a chunk allocates nothing.
+ * ChunkMesher构建的一个地形块的顶点，以及用于剔除的最低点和最高点。网格被一个接一个
+ * 的块重复使用，所以构建一个块不分配内存。
+ */
+public class ChunkMesh {
+
+	private final float[] vertices = new float[ChunkMesher.VERTEX_COUNT * ChunkMesher.VERTEX_FLOATS];
+	private int chunkX;
+	private int chunkZ;
+	private float minY;
+	private float maxY;
+
+	void set(int chunkX, int chunkZ, float minY, float maxY) {
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+		this.minY = minY;
+		this.maxY = maxY;
+	}
+
+	public float[] getVertices() {
+		return vertices;
+	}
+
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	public int getChunkZ() {
+		return chunkZ;
+	}
+
+	public float getMinY() {
+		return minY;
+	}
+
+	public float getMaxY() {
+		return maxY;
+	}
+
+}
@@ -0,0 +1,82 @@
+package terrain;
+
+/**
+ * Builds the vertices of one terrain chunk from a {@link Heightmap}: a grid
+ * of {@link #VERTICES_PER_SIDE} x {@link #VERTICES_PER_SIDE} vertices, one
+ * per height sample, each a position and a normal. Every level of detail
+ * draws a subset of the same vertices with its own indices (see
+ * {@link ChunkIndices}), so a chunk is only built once whatever its level of
+ * detail. Needs no OpenGL, so it can run on any thread.
+ * 从Heightmap构建一个地形块的顶点：VERTICES_PER_SIDE x VERTICES_PER_SIDE个顶点的
+ * 网格，每个高度采样一个顶点，每个顶点有位置和法线。每个细节层次用自己的索引绘制这些
+ * 顶点的一部分（参见ChunkIndices），所以无论细节层次如何，一个块只需要构建一次。
+ * 不需要OpenGL，所以可以在任何线程上运行。
+ */
+public class ChunkMesher {
+
+	/**
+	 * The quads along each side of a chunk at the finest level of detail.
+	 * 最精细的细节层次下，块每条边上的四边形数。
+	 */
+	public static final int CHUNK_QUADS = 64;
+	public static final int VERTICES_PER_SIDE = CHUNK_QUADS + 1;
+	public static final int VERTEX_COUNT = VERTICES_PER_SIDE * VERTICES_PER_SIDE;
+	/**
+	 * The position and then the normal, three floats each.
+	 * 先是位置，然后是法线，各三个float。
+	 */
+	public static final int VERTEX_FLOATS = 6;
+	public static final int VERTEX_BYTES = VERTEX_FLOATS * 4;
+
+	private ChunkMesher() {
+	}
+
+	/**
+	 * @return The number of chunks needed along a side of the heightmap with
+	 *         that many samples.
+	 *         在有这么多采样的高度图的一条边上需要的块数
+	 */
+	public static int getChunkCount(int samples) {
+		return (samples - 2) / CHUNK_QUADS + 1;
+	}
+
+	/**
+	 * Fills the mesh with the vertices of the chunk, in world space. Chunk
+	 * (0, 0) starts at the origin; samples past the edge of the heightmap are
+	 * clamped to it.
+	 * 用这个块的顶点填充网格，位于世界空间。块(0, 0)从原点开始；超出高度图边缘的
+	 * 采样被限制在边缘上。
+	 */
+	public static void generate(Heightmap heightmap, int chunkX, int chunkZ, ChunkMesh mesh) {
+		float[] vertices = mesh.getVertices();
+		float spacing = heightmap.getSpacing();
+		int firstX = chunkX * CHUNK_QUADS;
+		int firstZ = chunkZ * CHUNK_QUADS;
+		float minY = Float.POSITIVE_INFINITY;
+		float maxY = Float.NEGATIVE_INFINITY;
+		int v = 0;
+		for (int z = 0; z < VERTICES_PER_SIDE; z++) {
+			int sampleZ = firstZ + z;
+			for (int x = 0; x < VERTICES_PER_SIDE; x++) {
+				int sampleX = firstX + x;
+				float height = heightmap.getSample(sampleX, sampleZ);
+				//中心差分求法线
+				float nx = heightmap.getSample(sampleX - 1, sampleZ) - heightmap.getSample(sampleX + 1, sampleZ);
+				float ny = 2 * spacing;
+				float nz = heightmap.getSample(sampleX, sampleZ - 1) - heightmap.getSample(sampleX, sampleZ + 1);
+				float inverseLength = 1 / (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+				vertices[v] = sampleX * spacing;
+				vertices[v + 1] = height;
+				vertices[v + 2] = sampleZ * spacing;
+				vertices[v + 3] = nx * inverseLength;
+				vertices[v + 4] = ny * inverseLength;
+				vertices[v + 5] = nz * inverseLength;
+				v += VERTEX_FLOATS;
+				minY = Math.min(minY, height);
+				maxY = Math.max(maxY, height);
+			}
+		}
+		mesh.set(chunkX, chunkZ, minY, maxY);
+	}
+
+}
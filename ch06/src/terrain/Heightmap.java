@@ -0,0 +1,98 @@
+package terrain;
+
+import java.nio.ByteBuffer;
+
+import textures.TextureData;
+
+/**
+ * A grid of terrain heights, one sample every {@link #getSpacing()} units
+ * along x and z, starting at the origin. Reading outside the grid returns the
+ * nearest edge sample, so meshes at the border still get sensible normals.
+ * 地形高度的网格，沿x和z方向每getSpacing()个单位一个采样，从原点开始。在网格之外
+ * 读取时返回最近的边缘采样，这样边界上的网格仍然能得到合理的法线。
+ */
+public class Heightmap {
+
+	private final int sizeX;
+	private final int sizeZ;
+	private final float spacing;
+	private final float[] heights;
+
+	/**
+	 * @param heights
+	 *            - sizeX * sizeZ heights, row by row along x.
+	 *            - sizeX * sizeZ个高度，沿x方向逐行排列
+	 * @param spacing
+	 *            - The distance between two neighbouring samples.
+	 *            - 两个相邻采样之间的距离
+	 */
+	public Heightmap(int sizeX, int sizeZ, float spacing, float[] heights) {
+		if (sizeX < 2 || sizeZ < 2) {
+			throw new IllegalArgumentException("Heightmap must be at least 2x2, not " + sizeX + "x" + sizeZ);
+		}
+		if (heights.length != sizeX * sizeZ) {
+			throw new IllegalArgumentException(
+					heights.length + " heights for a " + sizeX + "x" + sizeZ + " heightmap");
+		}
+		this.sizeX = sizeX;
+		this.sizeZ = sizeZ;
+		this.spacing = spacing;
+		this.heights = heights;
+	}
+
+	/**
+	 * Reads the heights from the red channel of an image, black being 0 and
+	 * white maxHeight. The top row of the image is at z = 0.
+	 * 从图片的红色通道读取高度，黑色为0，白色为maxHeight。图片的第一行位于z = 0。
+	 */
+	public static Heightmap fromImage(TextureData image, float spacing, float maxHeight) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		ByteBuffer pixels = image.getBuffer();
+		float[] heights = new float[width * height];
+		for (int i = 0; i < heights.length; i++) {
+			heights[i] = (pixels.get(i * 4) & 0xFF) * maxHeight / 255;
+		}
+		return new Heightmap(width, height, spacing, heights);
+	}
+
+	public int getSizeX() {
+		return sizeX;
+	}
+
+	public int getSizeZ() {
+		return sizeZ;
+	}
+
+	public float getSpacing() {
+		return spacing;
+	}
+
+	/**
+	 * @return The height of the sample, clamped to the grid.
+	 *         这个采样的高度，坐标被限制在网格内
+	 */
+	public float getSample(int x, int z) {
+		x = x < 0 ? 0 : x >= sizeX ? sizeX - 1 : x;
+		z = z < 0 ? 0 : z >= sizeZ ? sizeZ - 1 : z;
+		return heights[z * sizeX + x];
+	}
+
+	/**
+	 * @return The height at a point in world space, interpolated between the
+	 *         four samples around it.
+	 *         世界空间中一点的高度，在它周围的四个采样之间插值
+	 */
+	public float getHeight(float worldX, float worldZ) {
+		float gridX = worldX / spacing;
+		float gridZ = worldZ / spacing;
+		int x = (int) Math.floor(gridX);
+		int z = (int) Math.floor(gridZ);
+		float fx = gridX - x;
+		float fz = gridZ - z;
+		float near = getSample(x, z) + (getSample(x + 1, z) - getSample(x, z)) * fx;
+		float far = getSample(x, z + 1) + (getSample(x + 1, z + 1) - getSample(x, z + 1)) * fx;
+		return near + (far - near) * fz;
+	}
+
+}
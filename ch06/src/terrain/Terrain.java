@@ -0,0 +1,438 @@
+package terrain;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+
+import device.GLDevice;
+import maths.Frustum;
+import profiling.Profiler;
+
+/**
+ * A large terrain drawn from a {@link Heightmap}, split into chunks that are
+ * loaded around the camera as it moves. Only the chunks within the load
+ * radius (in chunks) are kept on the GPU: each lives in one slot of a single
+ * vertex buffer and every chunk shares one index buffer ({@link ChunkIndices}),
+ * so the whole terrain is one VAO and one glDrawElementsBaseVertex per
+ * visible chunk. Missing chunks are built on the fork/join pool and uploaded
+ * a few per frame; when every slot is taken, the chunk that was least
+ * recently inside the load radius gives up its slot. A few more slots than
+ * the load radius needs keep recently left chunks around, so turning back
+ * doesn't build them again.
+ * 从Heightmap绘制的大型地形，被分成块，随着摄像机移动在它周围加载。只有加载半径
+ * （以块为单位）内的块保留在GPU上：每个块位于同一个顶点缓存的一个槽中，所有块共用
+ * 一个索引缓存（ChunkIndices），所以整个地形是一个VAO，每个可见块一次
+ * glDrawElementsBaseVertex。缺少的块在fork/join线程池上构建，每帧上传几个；所有
+ * 槽都被占用时，最久没有在加载半径内的块让出它的槽。比加载半径需要的多一些的槽保留
+ * 最近离开的块，这样掉头时不用重新构建它们。
+ *
+ * The level of detail of a chunk depends on its distance from the camera's
+ * chunk, d (the larger of the distances along x and z): level
+ * floor(log2(d / lodDistance)), so each level is a ring twice as wide as the
+ * one inside it, like a clipmap. Neighbouring chunks are then never more
+ * than one level apart, and each chunk is stitched to its coarser neighbours.
+ * 块的细节层次取决于它与摄像机所在块的距离d（x和z方向距离中较大的一个）：层次为
+ * floor(log2(d / lodDistance))，所以每一层是一个比里面一层宽一倍的环，类似clipmap。
+ * 这样相邻块的层次最多相差一层，每个块与它更粗糙的相邻块缝合。
+ */
+public class Terrain {
+
+	private static final int UPDATE = Profiler.scope("Terrain.update");
+	private static final int RENDER = Profiler.scope("Terrain.render");
+
+	private static final int NOT_LOADED = -1;
+	private static final int LOADING = -2;
+	//同时在构建的块的数量
+	private static final int MAX_JOBS = 8;
+
+	private final GLDevice device;
+	private final Heightmap heightmap;
+	private final ChunkIndices indices = new ChunkIndices();
+	private final int chunksX;
+	private final int chunksZ;
+	private final float chunkSize;
+	private final int loadRadius;
+	private final int lodDistance;
+	private final int maxUploadsPerFrame;
+
+	private final int vaoID;
+	private final int vertexBufferID;
+	private final int indexBufferID;
+	private final ByteBuffer staging = BufferUtils
+			.createByteBuffer(ChunkMesher.VERTEX_COUNT * ChunkMesher.VERTEX_BYTES);
+	private final FloatBuffer stagingFloats = staging.asFloatBuffer();
+
+	//每个块所在的槽，或NOT_LOADED，LOADING
+	private final int[] chunkSlots;
+	//每个槽中的块，-1表示空槽
+	private final int[] slotChunks;
+	private final float[] slotMinY;
+	private final float[] slotMaxY;
+	//槽组成的双向链表，按最近使用排列，头部是最近使用的
+	private final int[] lruPrevious;
+	private final int[] lruNext;
+	private int lruHead;
+	private int lruTail;
+	private int residentCount;
+
+	//按距离排列的加载半径内的偏移，最近的在前
+	private final int[] ringOffsetX;
+	private final int[] ringOffsetZ;
+
+	private final ChunkJob[] freeJobs = new ChunkJob[MAX_JOBS];
+	private int freeJobCount;
+	private final Queue<ChunkJob> finishedJobs = new ConcurrentLinkedQueue<ChunkJob>();
+	private int cameraChunkX;
+	private int cameraChunkZ;
+	private int lastUploads;
+	private int lastDrawCalls;
+	private int lastTriangles;
+
+	/**
+	 * @param loadRadius
+	 *            - How many chunks around the camera's chunk are loaded and
+	 *            drawn, in each direction.
+	 *            - 在摄像机所在块周围每个方向加载和绘制多少个块
+	 * @param lodDistance
+	 *            - The chunks within twice this distance are drawn at full
+	 *            detail.
+	 *            - 这个距离两倍以内的块以完整的细节绘制
+	 * @param cachedChunks
+	 *            - How many chunks outside the load radius may stay loaded.
+	 *            - 加载半径外最多可以保留多少个已加载的块
+	 * @param maxUploadsPerFrame
+	 *            - The most chunks uploaded in one {@link #update}.
+	 *            - 一次update最多上传的块数
+	 */
+	public Terrain(GLDevice device, Heightmap heightmap, int loadRadius, int lodDistance, int cachedChunks,
+			int maxUploadsPerFrame) {
+		if (loadRadius < 0 || lodDistance < 1 || cachedChunks < 0 || maxUploadsPerFrame < 1) {
+			throw new IllegalArgumentException("Invalid terrain settings: load radius " + loadRadius
+					+ ", lod distance " + lodDistance + ", cached chunks " + cachedChunks + ", uploads per frame "
+					+ maxUploadsPerFrame);
+		}
+		this.device = device;
+		this.heightmap = heightmap;
+		this.chunksX = ChunkMesher.getChunkCount(heightmap.getSizeX());
+		this.chunksZ = ChunkMesher.getChunkCount(heightmap.getSizeZ());
+		this.chunkSize = ChunkMesher.CHUNK_QUADS * heightmap.getSpacing();
+		this.loadRadius = loadRadius;
+		this.lodDistance = lodDistance;
+		this.maxUploadsPerFrame = maxUploadsPerFrame;
+		chunkSlots = new int[chunksX * chunksZ];
+		Arrays.fill(chunkSlots, NOT_LOADED);
+
+		int side = 2 * loadRadius + 1;
+		ringOffsetX = new int[side * side];
+		ringOffsetZ = new int[side * side];
+		int offsets = 0;
+		for (int d = 0; d <= loadRadius; d++) {
+			for (int z = -d; z <= d; z++) {
+				for (int x = -d; x <= d; x++) {
+					if (Math.max(Math.abs(x), Math.abs(z)) == d) {
+						ringOffsetX[offsets] = x;
+						ringOffsetZ[offsets] = z;
+						offsets++;
+					}
+				}
+			}
+		}
+
+		int slots = Math.min(side * side + cachedChunks, chunksX * chunksZ);
+		slotChunks = new int[slots];
+		slotMinY = new float[slots];
+		slotMaxY = new float[slots];
+		lruPrevious = new int[slots];
+		lruNext = new int[slots];
+		for (int i = 0; i < slots; i++) {
+			slotChunks[i] = -1;
+			lruPrevious[i] = i - 1;
+			lruNext[i] = i + 1 < slots ? i + 1 : -1;
+		}
+		lruHead = 0;
+		lruTail = slots - 1;
+		for (int i = 0; i < MAX_JOBS; i++) {
+			freeJobs[freeJobCount++] = new ChunkJob();
+		}
+
+		vaoID = device.genVertexArray();
+		device.bindVertexArray(vaoID);
+		vertexBufferID = device.genBuffer();
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vertexBufferID);
+		device.bufferData(GL15.GL_ARRAY_BUFFER, (long) slots * ChunkMesher.VERTEX_COUNT * ChunkMesher.VERTEX_BYTES,
+				GL15.GL_DYNAMIC_DRAW);
+		device.vertexAttribPointer(0, 3, GL11.GL_FLOAT, false, ChunkMesher.VERTEX_BYTES, 0);
+		device.vertexAttribPointer(1, 3, GL11.GL_FLOAT, false, ChunkMesher.VERTEX_BYTES, 12);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		indexBufferID = device.genBuffer();
+		device.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBufferID);
+		short[] indexData = indices.getIndices();
+		ByteBuffer indexBuffer = BufferUtils.createByteBuffer(indexData.length * 2);
+		indexBuffer.asShortBuffer().put(indexData);
+		device.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL15.GL_STATIC_DRAW);
+		device.bindVertexArray(0);
+	}
+
+	/**
+	 * Starts building the missing chunks around the camera, nearest first,
+	 * then uploads chunks that have been built. Call once per frame on the
+	 * OpenGL thread, before {@link #render}.
+	 * 从最近的开始构建摄像机周围缺少的块，然后上传已经构建好的块。每帧在OpenGL线程上
+	 * render之前调用一次。
+	 */
+	public void update(float cameraX, float cameraZ) {
+		Profiler.begin(UPDATE);
+		cameraChunkX = (int) Math.floor(cameraX / chunkSize);
+		cameraChunkZ = (int) Math.floor(cameraZ / chunkSize);
+		for (int i = 0; i < ringOffsetX.length; i++) {
+			int chunkX = cameraChunkX + ringOffsetX[i];
+			int chunkZ = cameraChunkZ + ringOffsetZ[i];
+			if (chunkX < 0 || chunkZ < 0 || chunkX >= chunksX || chunkZ >= chunksZ) {
+				continue;
+			}
+			int chunk = chunkZ * chunksX + chunkX;
+			int slot = chunkSlots[chunk];
+			if (slot >= 0) {
+				touch(slot);
+			} else if (slot == NOT_LOADED && freeJobCount > 0) {
+				chunkSlots[chunk] = LOADING;
+				ChunkJob free = freeJobs[--freeJobCount];
+				free.start(chunkX, chunkZ);
+				ForkJoinPool.commonPool().execute(free);
+			}
+		}
+		//加载半径内的块都已经移到链表前面，所以被替换的总是半径外的块或空槽
+		lastUploads = 0;
+		ChunkJob job;
+		while (lastUploads < maxUploadsPerFrame && (job = finishedJobs.poll()) != null) {
+			upload(job);
+		}
+		Profiler.end(UPDATE);
+	}
+
+	/**
+	 * Draws the loaded chunks within the load radius that intersect the
+	 * frustum. Must be called between the shader's start() and stop().
+	 * 绘制加载半径内与视锥体相交的已加载的块。必须在着色器的start()和stop()之间调用。
+	 *
+	 * @param textureID
+	 *            - The texture tiled over the terrain.
+	 *            - 平铺在地形上的纹理
+	 */
+	public void render(Frustum frustum, int textureID) {
+		Profiler.begin(RENDER);
+		Profiler.beginGpu(RENDER);
+		device.bindVertexArray(vaoID);
+		device.enableVertexAttribArray(0);
+		device.enableVertexAttribArray(1);
+		device.activeTexture(GL13.GL_TEXTURE0);
+		device.bindTexture(GL11.GL_TEXTURE_2D, textureID);
+		lastDrawCalls = 0;
+		lastTriangles = 0;
+		for (int i = 0; i < ringOffsetX.length; i++) {
+			int offsetX = ringOffsetX[i];
+			int offsetZ = ringOffsetZ[i];
+			int chunkX = cameraChunkX + offsetX;
+			int chunkZ = cameraChunkZ + offsetZ;
+			if (chunkX < 0 || chunkZ < 0 || chunkX >= chunksX || chunkZ >= chunksZ) {
+				continue;
+			}
+			int slot = chunkSlots[chunkZ * chunksX + chunkX];
+			if (slot < 0) {
+				continue;
+			}
+			float minX = chunkX * chunkSize;
+			float minZ = chunkZ * chunkSize;
+			if (!frustum.intersectsBox(minX, slotMinY[slot], minZ, minX + chunkSize, slotMaxY[slot],
+					minZ + chunkSize)) {
+				continue;
+			}
+			int lod = getLod(offsetX, offsetZ);
+			int mask = 0;
+			if (getLod(offsetX - 1, offsetZ) > lod) {
+				mask |= ChunkIndices.STITCH_NEGATIVE_X;
+			}
+			if (getLod(offsetX + 1, offsetZ) > lod) {
+				mask |= ChunkIndices.STITCH_POSITIVE_X;
+			}
+			if (getLod(offsetX, offsetZ - 1) > lod) {
+				mask |= ChunkIndices.STITCH_NEGATIVE_Z;
+			}
+			if (getLod(offsetX, offsetZ + 1) > lod) {
+				mask |= ChunkIndices.STITCH_POSITIVE_Z;
+			}
+			int count = indices.getIndexCount(lod, mask);
+			device.drawElementsBaseVertex(GL11.GL_TRIANGLES, count, GL11.GL_UNSIGNED_SHORT,
+					(long) indices.getFirstIndex(lod, mask) * 2, slot * ChunkMesher.VERTEX_COUNT);
+			lastDrawCalls++;
+			lastTriangles += count / 3;
+		}
+		device.disableVertexAttribArray(0);
+		device.disableVertexAttribArray(1);
+		device.bindVertexArray(0);
+		Profiler.endGpu(RENDER);
+		Profiler.end(RENDER);
+	}
+
+	/**
+	 * @return The level of detail of the chunk at this offset from the
+	 *         camera's chunk.
+	 *         距离摄像机所在块这个偏移处的块的细节层次
+	 */
+	public int getLod(int offsetX, int offsetZ) {
+		int distance = Math.max(Math.abs(offsetX), Math.abs(offsetZ));
+		int level = 31 - Integer.numberOfLeadingZeros(Math.max(1, distance / lodDistance));
+		return Math.min(level, ChunkIndices.LOD_COUNT - 1);
+	}
+
+	public Heightmap getHeightmap() {
+		return heightmap;
+	}
+
+	/**
+	 * @return Whether the chunk is on the GPU.
+	 *         这个块是否在GPU上
+	 */
+	public boolean isLoaded(int chunkX, int chunkZ) {
+		return chunkSlots[chunkZ * chunksX + chunkX] >= 0;
+	}
+
+	/**
+	 * @return Whether chunks are still being built or waiting to be uploaded.
+	 *         是否还有块正在构建或者等待上传
+	 */
+	public boolean isLoading() {
+		return freeJobCount < MAX_JOBS;
+	}
+
+	public int getResidentCount() {
+		return residentCount;
+	}
+
+	public int getSlotCount() {
+		return slotChunks.length;
+	}
+
+	public int getLastUploads() {
+		return lastUploads;
+	}
+
+	public int getLastDrawCalls() {
+		return lastDrawCalls;
+	}
+
+	public int getLastTriangles() {
+		return lastTriangles;
+	}
+
+	/**
+	 * Deletes the buffers and the VAO when the game is closed. Chunks still
+	 * being built are dropped.
+	 * 在游戏关闭时删除缓存和VAO。还在构建的块被丢弃。
+	 */
+	public void cleanUp() {
+		device.deleteBuffer(vertexBufferID);
+		device.deleteBuffer(indexBufferID);
+		device.deleteVertexArray(vaoID);
+	}
+
+	/**
+	 * Copies a built chunk into the least recently used slot, unless the
+	 * camera has moved too far away from it in the meantime.
+	 * 把构建好的块复制进最久未使用的槽，除非摄像机在此期间已经离它太远。
+	 */
+	private void upload(ChunkJob job) {
+		freeJobs[freeJobCount++] = job;
+		if (job.failure != null) {
+			Throwable failure = job.failure;
+			job.failure = null;
+			throw new IllegalStateException(
+					"Building terrain chunk " + job.chunkX + ", " + job.chunkZ + " failed", failure);
+		}
+		int chunk = job.chunkZ * chunksX + job.chunkX;
+		if (Math.max(Math.abs(job.chunkX - cameraChunkX), Math.abs(job.chunkZ - cameraChunkZ)) > loadRadius) {
+			chunkSlots[chunk] = NOT_LOADED;
+			return;
+		}
+		int slot = lruTail;
+		if (slotChunks[slot] >= 0) {
+			chunkSlots[slotChunks[slot]] = NOT_LOADED;
+		} else {
+			residentCount++;
+		}
+		ChunkMesh mesh = job.mesh;
+		stagingFloats.clear();
+		stagingFloats.put(mesh.getVertices());
+		staging.clear();
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, vertexBufferID);
+		device.bufferSubData(GL15.GL_ARRAY_BUFFER, (long) slot * ChunkMesher.VERTEX_COUNT * ChunkMesher.VERTEX_BYTES,
+				staging);
+		device.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		chunkSlots[chunk] = slot;
+		slotChunks[slot] = chunk;
+		slotMinY[slot] = mesh.getMinY();
+		slotMaxY[slot] = mesh.getMaxY();
+		touch(slot);
+		lastUploads++;
+	}
+
+	/**
+	 * Moves the slot to the head of the least recently used list.
+	 * 把槽移到最近使用链表的头部
+	 */
+	private void touch(int slot) {
+		if (slot == lruHead) {
+			return;
+		}
+		int previous = lruPrevious[slot];
+		int next = lruNext[slot];
+		lruNext[previous] = next;
+		if (next >= 0) {
+			lruPrevious[next] = previous;
+		} else {
+			lruTail = previous;
+		}
+		lruPrevious[slot] = -1;
+		lruNext[slot] = lruHead;
+		lruPrevious[lruHead] = slot;
+		lruHead = slot;
+	}
+
+	/**
+	 * Builds one chunk on a pool thread into its own mesh, then queues itself
+	 * for the OpenGL thread to upload.
+	 * 在线程池的线程上把一个块构建到自己的网格中，然后把自己排队等待OpenGL线程上传。
+	 */
+	private class ChunkJob implements Runnable {
+
+		private final ChunkMesh mesh = new ChunkMesh();
+		private int chunkX;
+		private int chunkZ;
+		private Throwable failure;
+
+		private void start(int chunkX, int chunkZ) {
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+
+		@Override
+		public void run() {
+			try {
+				ChunkMesher.generate(heightmap, chunkX, chunkZ, mesh);
+			} catch (Throwable t) {
+				failure = t;
+			}
+			finishedJobs.add(this);
+		}
+
+	}
+
+}
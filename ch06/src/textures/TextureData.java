@@ -0,0 +1,71 @@
+package textures;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * The decoded pixels of an image, ready to be uploaded to a texture: RGBA, one
+ * byte per channel, starting with the top row of the image.
+ * 图片解码后的像素，可以直接上传到纹理：RGBA格式，每个通道一个字节，从图片的
+ * 第一行开始。
+ */
+public class TextureData {
+
+	private int width;
+	private int height;
+	private ByteBuffer buffer;
+
+	public TextureData(ByteBuffer buffer, int width, int height) {
+		this.buffer = buffer;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Decodes an image file (PNG, JPG...) without needing OpenGL.
+	 * 解码一个图片文件（PNG，JPG等），不需要OpenGL
+	 * 
+	 * @param in
+	 *            - The image file's data. The stream is not closed.
+	 *            - 图片文件的数据，不会关闭这个流
+	 * @return The decoded pixels.
+	 *         解码后的像素
+	 */
+	public static TextureData decode(InputStream in) throws IOException {
+		BufferedImage image = ImageIO.read(in);
+		if (image == null) {
+			throw new IOException("Unsupported image format");
+		}
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		ByteBuffer buffer = BufferUtils.createByteBuffer(width * height * 4);
+		for (int pixel : pixels) {
+			buffer.put((byte) (pixel >> 16));
+			buffer.put((byte) (pixel >> 8));
+			buffer.put((byte) pixel);
+			buffer.put((byte) (pixel >> 24));
+		}
+		buffer.flip();
+		return new TextureData(buffer, width, height);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+}
@@ -0,0 +1,34 @@
+package timing;
+
+/**
+ * A source of time for the game loop and frame pacing. The game uses
+ * {@link SystemClock}; a {@link ManualClock} only moves forward when told to
+ * (or when something sleeps on it), so the loop's and pacer's behaviour can
+ * be checked without waiting for real time to pass.
+ * 游戏循环和帧率控制的时间来源。游戏使用SystemClock；ManualClock只在被要求时
+ * （或有人在它上面休眠时）前进，这样不必等待真实时间流逝就可以检查循环和帧率控制的行为。
+ */
+public interface Clock {
+
+	/**
+	 * @return The current time in nanoseconds. Only differences between two
+	 *         values mean anything.
+	 *         当前时间（纳秒）。只有两个值的差才有意义。
+	 */
+	long nanoTime();
+
+	/**
+	 * Sleeps for about the given time. The real sleep may be longer, often by
+	 * a millisecond or more.
+	 * 休眠大约指定的时间。实际休眠可能更长，常常会多一毫秒甚至更多。
+	 */
+	void sleep(long nanos);
+
+	/**
+	 * Called repeatedly while busy-waiting for a deadline that is too close to
+	 * sleep for.
+	 * 在忙等一个太近而无法休眠的时间点时被反复调用
+	 */
+	void spin();
+
+}
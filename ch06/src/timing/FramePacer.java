@@ -0,0 +1,181 @@
+package timing;
+
+/**
+ * Holds the frame rate at a target by waiting at the end of every frame until
+ * the next frame is due. Replaces Display.sync(), which sleeps in whole
+ * milliseconds and so makes frames at 60fps alternate between roughly 16 and
+ * 17ms (or worse on systems with a coarse timer).
+ * 在每一帧结束时等待直到下一帧的时间，使帧率保持在目标值。替代Display.sync()，
+ * 它以整毫秒休眠，所以60fps时帧时间会在大约16和17毫秒之间交替（在计时器粗糙的
+ * 系统上更糟）。
+ * 
+ * Waiting is done in two steps: sleep until shortly before the deadline, then
+ * spin on the clock for the rest. How much earlier to wake up is learned from
+ * how much the recent sleeps overshot, so on a system with precise sleeps
+ * hardly any time is spent spinning. Deadlines are a fixed period apart rather
+ * than measured from the end of the wait, so small errors don't add up; when a
+ * frame is later than a whole period the schedule starts over instead of
+ * rushing the following frames to catch up.
+ * 等待分两步完成：先休眠到截止时间前不久，然后在时钟上自旋剩下的时间。提前多久
+ * 醒来是从最近的休眠超出了多少学习而来的，所以在休眠精确的系统上几乎不花时间自旋。
+ * 截止时间之间相隔固定的周期，而不是从等待结束时开始计算，所以小的误差不会累积；
+ * 当一帧晚了超过一整个周期时，重新开始计时，而不是催促后面的帧去追赶。
+ * 
+ * Every frame's time is added to a {@link FrameTimeHistogram}.
+ * 每一帧的时间都会加入FrameTimeHistogram。
+ */
+public class FramePacer {
+
+	public enum Mode {
+		/** Wait for the target frame rate. 等待以达到目标帧率 */
+		CAPPED,
+		/** Don't wait at all. 完全不等待 */
+		UNCAPPED,
+		/** Let the driver wait for the monitor's refresh when the buffers are swapped. 交换缓冲时由驱动等待显示器刷新 */
+		VSYNC
+	}
+
+	private static final long MIN_OVERSHOOT = 50000;
+	private static final long MAX_OVERSHOOT = 4000000;
+
+	private final Clock clock;
+	private final FrameTimeHistogram histogram;
+
+	private Mode mode = Mode.CAPPED;
+	private long periodNanos;
+	private long deadline;
+	private long lastFrameTime;
+	private long lastFrameNanos;
+	private long sleepOvershoot = 1000000;
+	private long spinNanos;
+	private boolean started;
+
+	/**
+	 * @param clock
+	 *            - Where the time comes from; also used to sleep and spin.
+	 *            - 时间的来源；也用来休眠和自旋
+	 * @param targetFps
+	 *            - The frame rate in {@link Mode#CAPPED} mode.
+	 *            - CAPPED模式下的帧率
+	 * @param histogramFrames
+	 *            - How many recent frames the histogram keeps.
+	 *            - 直方图保存的最近帧数
+	 */
+	public FramePacer(Clock clock, int targetFps, int histogramFrames) {
+		this.clock = clock;
+		this.histogram = new FrameTimeHistogram(histogramFrames);
+		setTargetFps(targetFps);
+	}
+
+	/**
+	 * Waits until the next frame is due (in {@link Mode#CAPPED} mode) and
+	 * records the time of the frame that just ended. Call once per frame, just
+	 * before swapping the buffers.
+	 * 等待直到下一帧到期（CAPPED模式下），并记录刚结束的这一帧的时间。每帧在交换
+	 * 缓冲之前调用一次。
+	 */
+	public void sync() {
+		if (mode == Mode.CAPPED && started) {
+			waitUntil(deadline);
+		}
+		long now = clock.nanoTime();
+		if (started) {
+			lastFrameNanos = now - lastFrameTime;
+			histogram.add(lastFrameNanos);
+		}
+		lastFrameTime = now;
+		if (started && now - deadline < periodNanos) {
+			deadline += periodNanos;
+		} else {
+			deadline = now + periodNanos;
+		}
+		started = true;
+	}
+
+	public void setTargetFps(int targetFps) {
+		if (targetFps <= 0) {
+			throw new IllegalArgumentException("Target frame rate must be positive: " + targetFps);
+		}
+		this.periodNanos = 1000000000L / targetFps;
+	}
+
+	/**
+	 * Changes how frames are paced. Switching the monitor sync itself on or off
+	 * is up to the caller (see DisplayManager).
+	 * 改变控制帧率的方式。打开或关闭显示器同步本身由调用者负责（参见DisplayManager）。
+	 */
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getTargetFps() {
+		return (int) Math.round(1e9 / periodNanos);
+	}
+
+	/**
+	 * @return The time between the last two calls to {@link #sync()} in
+	 *         nanoseconds.
+	 *         最近两次调用sync()之间的时间（纳秒）
+	 */
+	public long getLastFrameNanos() {
+		return lastFrameNanos;
+	}
+
+	public FrameTimeHistogram getHistogram() {
+		return histogram;
+	}
+
+	/**
+	 * @return How much the pacer currently expects a sleep to overshoot, i.e.
+	 *         how long before a deadline it stops sleeping and starts
+	 *         spinning.
+	 *         当前预期一次休眠会超出多少，也就是在截止时间前多久停止休眠开始自旋
+	 */
+	public long getSleepOvershootNanos() {
+		return sleepOvershoot;
+	}
+
+	/**
+	 * @return The total time spent spinning so far, in nanoseconds.
+	 *         到目前为止自旋花费的总时间（纳秒）
+	 */
+	public long getSpinNanos() {
+		return spinNanos;
+	}
+
+	private void waitUntil(long target) {
+		long now = clock.nanoTime();
+		while (target - now > sleepOvershoot) {
+			long request = target - now - sleepOvershoot;
+			clock.sleep(request);
+			long after = clock.nanoTime();
+			learnOvershoot(after - now - request);
+			now = after;
+		}
+		long spinStart = now;
+		while (target - now > 0) {
+			clock.spin();
+			now = clock.nanoTime();
+		}
+		spinNanos += now - spinStart;
+	}
+
+	/**
+	 * Jumps up to a larger overshoot straight away, so the next sleep doesn't
+	 * miss the deadline again, but only slowly comes back down.
+	 * 遇到更大的超出量时立即跳上去，以免下次休眠再次错过截止时间，但只会慢慢降下来。
+	 */
+	private void learnOvershoot(long overshoot) {
+		if (overshoot > sleepOvershoot) {
+			sleepOvershoot = overshoot;
+		} else {
+			sleepOvershoot -= (sleepOvershoot - overshoot) / 16;
+		}
+		sleepOvershoot = Math.max(MIN_OVERSHOOT, Math.min(MAX_OVERSHOOT, sleepOvershoot));
+	}
+
+}
@@ -0,0 +1,118 @@
+package timing;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the times of the last few hundred frames in a histogram, so the median
+ * and the slow frames (95th and 99th percentiles) can be read at any time.
+ * Stutter shows up in the high percentiles long before it moves the average.
+ * 在直方图中保存最近几百帧的时间，以便随时读取中位数和慢帧（第95和99百分位）。
+ * 卡顿在影响平均值之前很早就会出现在高百分位中。
+ * 
+ * Frame times are counted in buckets of 50 microseconds up to 100ms (longer
+ * frames share one last bucket), and the oldest frame leaves the histogram when
+ * a new one is added, so adding a frame and reading a percentile never
+ * allocate.
+ * 帧时间按50微秒一个桶计数，直到100毫秒（更长的帧共用最后一个桶），添加新的帧时
+ * 最旧的帧离开直方图，所以添加帧和读取百分位都不会分配内存。
+ */
+public class FrameTimeHistogram {
+
+	private static final long BUCKET_NANOS = 50000;
+	private static final int BUCKETS = 2000;
+
+	private final long[] window;
+	private final int[] counts = new int[BUCKETS + 1];
+	private int next;
+	private int size;
+	private long sum;
+
+	/**
+	 * @param windowSize
+	 *            - The number of most recent frames kept.
+	 *            - 保存的最近帧数
+	 */
+	public FrameTimeHistogram(int windowSize) {
+		window = new long[windowSize];
+	}
+
+	public void add(long frameNanos) {
+		if (size == window.length) {
+			long oldest = window[next];
+			counts[bucket(oldest)]--;
+			sum -= oldest;
+		} else {
+			size++;
+		}
+		window[next] = frameNanos;
+		next = (next + 1) % window.length;
+		counts[bucket(frameNanos)]++;
+		sum += frameNanos;
+	}
+
+	/**
+	 * @param percentile
+	 *            - From 0 to 100, e.g. 50 for the median or 99 for the time
+	 *            that 99% of frames are faster than.
+	 *            - 从0到100，例如50表示中位数，99表示99%的帧都比它快的时间
+	 * @return The frame time at that percentile in milliseconds, rounded up to
+	 *         the end of its bucket, or 0 if no frames were added yet.
+	 *         这个百分位的帧时间（毫秒），向上取到桶的末尾；还没有帧时返回0
+	 */
+	public float getPercentileMillis(double percentile) {
+		if (size == 0) {
+			return 0;
+		}
+		int target = Math.max(1, (int) Math.ceil(size * percentile / 100.0));
+		int seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return (i + 1) * BUCKET_NANOS / 1e6f;
+			}
+		}
+		return getMaxMillis();
+	}
+
+	public float getMeanMillis() {
+		return size == 0 ? 0 : sum / (float) size / 1e6f;
+	}
+
+	public float getMaxMillis() {
+		long max = 0;
+		for (int i = 0; i < size; i++) {
+			max = Math.max(max, window[i]);
+		}
+		return max / 1e6f;
+	}
+
+	/**
+	 * @return The number of frames currently in the histogram.
+	 *         直方图中当前的帧数
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(counts, 0);
+		next = 0;
+		size = 0;
+		sum = 0;
+	}
+
+	/**
+	 * @return A one line summary, e.g. for the window title or the console.
+	 *         一行摘要，例如用于窗口标题或控制台
+	 */
+	@Override
+	public String toString() {
+		return String.format("mean %.2fms  p50 %.2fms  p95 %.2fms  p99 %.2fms  max %.2fms", getMeanMillis(),
+				getPercentileMillis(50), getPercentileMillis(95), getPercentileMillis(99), getMaxMillis());
+	}
+
+	private static int bucket(long nanos) {
+		return (int) Math.min(BUCKETS, nanos / BUCKET_NANOS);
+	}
+
+}
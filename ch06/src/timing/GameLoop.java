@@ -0,0 +1,127 @@
+package timing;
+
+/**
+ * Runs the game logic at a fixed rate, whatever the frame rate is. Each frame
+ * the time since the last frame is added to an accumulator and the
+ * simulation is ticked as many times as whole ticks fit into it. What is left
+ * over is the fraction of a tick that has passed since the last tick, which
+ * the renderer uses to interpolate between the previous and the current state
+ * (see {@link InterpolatedFloats}), so movement stays smooth even when the
+ * frame rate and tick rate differ.
+ * 以固定的频率运行游戏逻辑，与帧率无关。每一帧将距离上一帧的时间加入累加器，
+ * 累加器中能放下多少个完整的tick就更新多少次。剩下的部分是距离上次tick过去的
+ * 时间占一个tick的比例，渲染时用它在上一个状态和当前状态之间插值（参见
+ * InterpolatedFloats），这样即使帧率和tick频率不同，运动也是平滑的。
+ * 
+ * If a frame takes very long (the window being dragged, a breakpoint...) we
+ * could end up needing more ticks than we can run in a frame, making the next
+ * frame even slower: the "spiral of death". To prevent this the time of one
+ * frame is capped, and so is the number of ticks per frame; time beyond that
+ * is dropped (the game slows down for a moment instead of freezing).
+ * 如果一帧花费了很长时间（拖动窗口，断点等），可能会需要比一帧内能运行的更多的
+ * tick，导致下一帧更慢：“死亡螺旋”。为了避免这种情况，一帧的时间以及每帧的tick
+ * 数都有上限；超过的时间会被丢弃（游戏会短暂变慢而不是卡死）。
+ */
+public class GameLoop {
+
+	private final Clock clock;
+	private final long tickNanos;
+	private final long maxFrameNanos;
+	private final int maxTicksPerFrame;
+
+	private long lastTime;
+	private long accumulator;
+	private long tickCount;
+	private long droppedNanos;
+	private long frameNanos;
+	private boolean started;
+
+	/**
+	 * @param clock
+	 *            - Where the time comes from.
+	 *            - 时间的来源
+	 * @param ticksPerSecond
+	 *            - How often the simulation is ticked.
+	 *            - 每秒更新的次数
+	 * @param maxTicksPerFrame
+	 *            - The most ticks run in a single frame.
+	 *            - 一帧中最多运行的tick数
+	 */
+	public GameLoop(Clock clock, int ticksPerSecond, int maxTicksPerFrame) {
+		this.clock = clock;
+		this.tickNanos = 1000000000L / ticksPerSecond;
+		this.maxTicksPerFrame = maxTicksPerFrame;
+		this.maxFrameNanos = tickNanos * maxTicksPerFrame;
+	}
+
+	/**
+	 * Runs all the ticks that are due since the last call. Call once per frame,
+	 * before rendering.
+	 * 运行从上次调用以来所有到期的tick。每帧在渲染之前调用一次。
+	 * 
+	 * @return The number of ticks that were run.
+	 *         运行的tick数
+	 */
+	public int advance(Simulation simulation) {
+		long now = clock.nanoTime();
+		if (!started) {
+			lastTime = now;
+			started = true;
+		}
+		frameNanos = now - lastTime;
+		lastTime = now;
+		long elapsed = frameNanos;
+		if (elapsed > maxFrameNanos) {
+			droppedNanos += elapsed - maxFrameNanos;
+			elapsed = maxFrameNanos;
+		}
+		accumulator += elapsed;
+		int ticks = 0;
+		float tickSeconds = getTickSeconds();
+		while (accumulator >= tickNanos && ticks < maxTicksPerFrame) {
+			simulation.tick(tickSeconds);
+			accumulator -= tickNanos;
+			ticks++;
+		}
+		tickCount += ticks;
+		return ticks;
+	}
+
+	/**
+	 * @return How far we are between the last tick and the next one, from 0
+	 *         to 1. Render with the previous state blended towards the current
+	 *         one by this amount.
+	 *         当前处于上一个tick和下一个tick之间的位置，从0到1。渲染时将上一个
+	 *         状态按这个比例向当前状态混合。
+	 */
+	public float getAlpha() {
+		return (float) accumulator / tickNanos;
+	}
+
+	public float getTickSeconds() {
+		return tickNanos / 1e9f;
+	}
+
+	/**
+	 * @return The real time between the last two calls of advance(), before
+	 *         any capping, in seconds.
+	 *         最后两次调用advance()之间的真实时间（秒），未经限制
+	 */
+	public float getFrameSeconds() {
+		return frameNanos / 1e9f;
+	}
+
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @return The total time thrown away to avoid the spiral of death, in
+	 *         nanoseconds.
+	 *         为避免死亡螺旋而丢弃的总时间（纳秒）
+	 */
+	public long getDroppedNanos() {
+		return droppedNanos;
+	}
+
+}
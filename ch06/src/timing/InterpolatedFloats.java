@@ -0,0 +1,70 @@
+package timing;
+
+/**
+ * Holds the previous and current values of a number of floats (positions,
+ * angles...) so they can be interpolated when rendering. Call
+ * {@link #storePrevious()} at the start of every tick, change the current
+ * values during the tick, and read {@link #get(int, float)} with the loop's
+ * alpha when rendering.
+ * 保存若干个浮点数（位置，角度等）的上一个值和当前值，以便渲染时插值。在每个tick
+ * 开始时调用storePrevious()，在tick中修改当前值，渲染时用循环的alpha调用get()读取。
+ */
+public class InterpolatedFloats {
+
+	private final float[] previous;
+	private final float[] current;
+
+	public InterpolatedFloats(int count) {
+		previous = new float[count];
+		current = new float[count];
+	}
+
+	/**
+	 * Copies the current values into the previous values.
+	 * 将当前值复制为上一个值
+	 */
+	public void storePrevious() {
+		System.arraycopy(current, 0, previous, 0, current.length);
+	}
+
+	public void set(int index, float value) {
+		current[index] = value;
+	}
+
+	/**
+	 * Sets both the previous and current value, so the value jumps instead of
+	 * being interpolated (e.g. when teleporting).
+	 * 同时设置上一个值和当前值，这样数值会直接跳变而不是被插值（例如传送时）
+	 */
+	public void reset(int index, float value) {
+		previous[index] = value;
+		current[index] = value;
+	}
+
+	public float getCurrent(int index) {
+		return current[index];
+	}
+
+	/**
+	 * @return The value blended from the previous towards the current value.
+	 *         从上一个值向当前值混合后的值
+	 */
+	public float get(int index, float alpha) {
+		return previous[index] + (current[index] - previous[index]) * alpha;
+	}
+
+	/**
+	 * Writes every interpolated value into dest.
+	 * 将所有插值后的值写入dest
+	 */
+	public void getAll(float alpha, float[] dest) {
+		for (int i = 0; i < current.length; i++) {
+			dest[i] = previous[i] + (current[i] - previous[i]) * alpha;
+		}
+	}
+
+	public int size() {
+		return current.length;
+	}
+
+}
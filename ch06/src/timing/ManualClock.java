@@ -0,0 +1,51 @@
+package timing;
+
+/**
+ * A clock that only moves when told to. Used to drive the game loop and the
+ * frame pacer through exact frame times, including very slow frames, without
+ * a display. Sleeping moves the clock forward by the requested time plus a
+ * configurable overshoot, imitating a real, coarse sleep; each spin moves it
+ * forward by one microsecond.
+ * 只有被要求时才前进的时钟。用来让游戏循环和帧率控制经历精确的帧时间（包括非常
+ * 慢的帧），不需要显示窗口。休眠会让时钟前进请求的时间加上可设置的超出量，模拟
+ * 真实的粗粒度休眠；每次自旋让时钟前进一微秒。
+ */
+public class ManualClock implements Clock {
+
+	private static final long SPIN_NANOS = 1000;
+
+	private long time;
+	private long sleepOvershoot;
+
+	@Override
+	public long nanoTime() {
+		return time;
+	}
+
+	@Override
+	public void sleep(long nanos) {
+		time += nanos + sleepOvershoot;
+	}
+
+	@Override
+	public void spin() {
+		time += SPIN_NANOS;
+	}
+
+	public void advance(long nanos) {
+		time += nanos;
+	}
+
+	public void advanceSeconds(double seconds) {
+		time += (long) (seconds * 1e9);
+	}
+
+	/**
+	 * Makes every sleep last this much longer than requested.
+	 * 让每次休眠比请求的时间长这么多
+	 */
+	public void setSleepOvershoot(long nanos) {
+		this.sleepOvershoot = nanos;
+	}
+
+}
@@ -0,0 +1,19 @@
+package timing;
+
+/**
+ * The game logic, updated by the {@link GameLoop} in steps of a fixed length.
+ * 游戏逻辑，由GameLoop按固定长度的步长更新
+ */
+public interface Simulation {
+
+	/**
+	 * Moves the game forward by one tick.
+	 * 将游戏向前推进一个tick
+	 * 
+	 * @param tickSeconds
+	 *            - The length of a tick, always the same.
+	 *            - 一个tick的长度，始终不变
+	 */
+	void tick(float tickSeconds);
+
+}
@@ -0,0 +1,31 @@
+package timing;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The real clock, using System.nanoTime().
+ * 使用System.nanoTime()的真实时钟
+ */
+public class SystemClock implements Clock {
+
+	@Override
+	public long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Uses LockSupport.parkNanos(), which unlike Thread.sleep() is not
+	 * rounded to whole milliseconds.
+	 * 使用LockSupport.parkNanos()，它不像Thread.sleep()那样按整毫秒取整
+	 */
+	@Override
+	public void sleep(long nanos) {
+		LockSupport.parkNanos(nanos);
+	}
+
+	@Override
+	public void spin() {
+		//忙等时什么也不做，直接再次读取时间
+	}
+
+}
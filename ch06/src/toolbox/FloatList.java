@@ -0,0 +1,52 @@
+package toolbox;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of floats stored in a float[], for collecting data of
+ * unknown size without boxing every value the way an ArrayList would.
+ * 保存在float[]中的可增长float列表，用于收集大小未知的数据，不会像ArrayList那样
+ * 将每个值装箱。
+ */
+public class FloatList {
+
+	private float[] data;
+	private int size;
+
+	public FloatList(int initialCapacity) {
+		data = new float[Math.max(1, initialCapacity)];
+	}
+
+	public void add(float value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, size * 2);
+		}
+		data[size++] = value;
+	}
+
+	public float get(int index) {
+		return data[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return The backing array; only the first {@link #size()} values are
+	 *         used.
+	 *         底层数组；只有前size()个值是有效的
+	 */
+	public float[] array() {
+		return data;
+	}
+
+	public float[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+}
@@ -0,0 +1,128 @@
+package toolbox;
+
+import java.util.Arrays;
+
+/**
+ * Hands out int handles for the slots of parallel arrays kept elsewhere. A
+ * handle holds the slot's index in its low 20 bits and the slot's generation
+ * in the bits above; the generation changes every time the slot is freed, so
+ * a handle kept after its slot was freed (and maybe given to something else)
+ * is recognised as stale instead of silently referring to the new occupant.
+ * 为保存在其他地方的并行数组的槽分配int句柄。句柄的低20位是槽的索引，更高的位是
+ * 槽的代数；每次槽被释放时代数都会改变，所以在槽被释放（并且可能分配给了别的东西）
+ * 之后仍然保留的句柄会被识别为过期的，而不是悄悄地指向新的占用者。
+ * 
+ * Freed slots are kept in a free list and reused first, so the arrays stay as
+ * small as the most slots ever in use at once. Everything is stored in int
+ * arrays; nothing is boxed.
+ * 释放的槽保存在空闲列表中并优先重用，所以数组只会和同时使用的最多槽数一样大。
+ * 所有内容都保存在int数组中，不会装箱。
+ */
+public class HandleTable {
+
+	private static final int INDEX_BITS = 20;
+	private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << (32 - INDEX_BITS)) - 1;
+
+	//代数为奇数时槽被占用，为偶数时空闲
+	private int[] generations = new int[64];
+	private int[] freeList = new int[64];
+	private int freeCount;
+	private int slotCount;
+	private int size;
+
+	/**
+	 * @return A handle to a free slot, never 0.
+	 *         指向一个空闲槽的句柄，不会为0
+	 */
+	public int allocate() {
+		int index;
+		if (freeCount > 0) {
+			index = freeList[--freeCount];
+		} else {
+			if (slotCount > INDEX_MASK) {
+				throw new IllegalStateException("Handle table is full (" + slotCount + " slots)");
+			}
+			if (slotCount == generations.length) {
+				generations = Arrays.copyOf(generations, slotCount * 2);
+			}
+			index = slotCount++;
+		}
+		generations[index]++;
+		size++;
+		return handle(index);
+	}
+
+	/**
+	 * @return Whether the handle refers to a slot that is still allocated to
+	 *         it.
+	 *         句柄指向的槽是否仍然分配给它
+	 */
+	public boolean isValid(int handle) {
+		int index = handle & INDEX_MASK;
+		return index < slotCount && (generations[index] & 1) == 1
+				&& (generations[index] & GENERATION_MASK) == handle >>> INDEX_BITS;
+	}
+
+	/**
+	 * @return The index of the handle's slot.
+	 *         句柄所在槽的索引
+	 * @throws IllegalStateException
+	 *             If the handle is stale.
+	 *             如果句柄已过期
+	 */
+	public int indexOf(int handle) {
+		if (!isValid(handle)) {
+			throw new IllegalStateException("Stale handle 0x" + Integer.toHexString(handle));
+		}
+		return handle & INDEX_MASK;
+	}
+
+	/**
+	 * Frees the handle's slot; the handle (and any copies) become stale.
+	 * 释放句柄所在的槽；这个句柄（以及它的所有副本）都会过期。
+	 */
+	public void free(int handle) {
+		int index = indexOf(handle);
+		generations[index]++;
+		if (freeCount == freeList.length) {
+			freeList = Arrays.copyOf(freeList, freeCount * 2);
+		}
+		freeList[freeCount++] = index;
+		size--;
+	}
+
+	/**
+	 * @return Whether the slot at the index is allocated.
+	 *         该索引的槽是否已被分配
+	 */
+	public boolean isAllocated(int index) {
+		return (generations[index] & 1) == 1;
+	}
+
+	/**
+	 * @return The current handle of an allocated slot.
+	 *         已分配槽的当前句柄
+	 */
+	public int handle(int index) {
+		return index | (generations[index] & GENERATION_MASK) << INDEX_BITS;
+	}
+
+	/**
+	 * @return One more than the highest index ever allocated, for looping over
+	 *         the slots with {@link #isAllocated(int)}.
+	 *         曾经分配过的最大索引加一，用于配合isAllocated遍历所有槽
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * @return The number of allocated slots.
+	 *         已分配的槽数
+	 */
+	public int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,52 @@
+package toolbox;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints stored in an int[], for collecting data of
+ * unknown size without boxing every value the way an ArrayList would.
+ * 保存在int[]中的可增长int列表，用于收集大小未知的数据，不会像ArrayList那样
+ * 将每个值装箱。
+ */
+public class IntList {
+
+	private int[] data;
+	private int size;
+
+	public IntList(int initialCapacity) {
+		data = new int[Math.max(1, initialCapacity)];
+	}
+
+	public void add(int value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, size * 2);
+		}
+		data[size++] = value;
+	}
+
+	public int get(int index) {
+		return data[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return The backing array; only the first {@link #size()} values are
+	 *         used.
+	 *         底层数组；只有前size()个值是有效的
+	 */
+	public int[] array() {
+		return data;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+}
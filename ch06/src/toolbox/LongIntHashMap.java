@@ -0,0 +1,117 @@
+package toolbox;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to int values that stores everything in primitive
+ * arrays, so looking up and inserting keys never boxes or allocates (apart
+ * from growing the table when it gets too full).
+ * 使用基本类型数组保存数据的long到int的哈希表。查找和插入都不会装箱或分配内存
+ * （除非表太满需要扩容）。
+ * 
+ * Collisions are resolved by linear probing in a power-of-two sized table.
+ * 使用线性探测解决冲突，表的大小是2的幂。
+ */
+public class LongIntHashMap {
+
+	private static final float MAX_LOAD = 0.5f;
+
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int mask;
+	private int size;
+
+	public LongIntHashMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity * MAX_LOAD < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * @return The value stored for the key, or "missing" if there is none.
+	 *         键对应的值，没有时返回missing
+	 */
+	public int get(long key, int missing) {
+		int slot = hash(key) & mask;
+		while (used[slot]) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return missing;
+	}
+
+	/**
+	 * Stores a value for the key, replacing any previous value.
+	 * 保存键对应的值，替换原来的值
+	 */
+	public void put(long key, int value) {
+		int slot = hash(key) & mask;
+		while (used[slot]) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		used[slot] = true;
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > keys.length * MAX_LOAD) {
+			rehash(keys.length << 1);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all entries but keeps the table, so it can be refilled without
+	 * allocating.
+	 * 删除所有条目但保留表，再次填充时不需要分配内存
+	 */
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	/**
+	 * Mixes the bits of the key (the finaliser of MurmurHash3) so that keys
+	 * which only differ in their high bits still spread over the table.
+	 * 打乱键的位（MurmurHash3的最后一步），让只有高位不同的键也能分散在表中
+	 */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+}